@@ -76,6 +76,8 @@ public interface DataStorageInterface {
     /**
      * Update data for multiple players
      *
+     * Each user is notified through {@link OfflineUser#onDataSaved(PlayerData)} once its data has been written.
+     *
      * @param users  A collection of OfflineUser objects representing players.
      * @param unlock Whether to unlock the player data after updating.
      */
@@ -89,6 +91,18 @@ public interface DataStorageInterface {
      */
     void lockOrUnlockPlayerData(UUID uuid, boolean lock);
 
+    /**
+     * Lock or unlock data for multiple players without rewriting it.
+     *
+     * @param uuids The UUIDs of the players.
+     * @param lock  Whether to lock or unlock the player data.
+     */
+    default void lockOrUnlockManyPlayersData(Collection<UUID> uuids, boolean lock) {
+        for (UUID uuid : uuids) {
+            lockOrUnlockPlayerData(uuid, lock);
+        }
+    }
+
     /**
      * Get a set of unique user UUIDs
      *
@@ -25,6 +25,9 @@ public class EarningData {
     public double earnings;
     @SerializedName("date")
     public int date;
+    // The values that were last written to the storage
+    private transient double savedEarnings;
+    private transient int savedDate;
 
     public EarningData(double earnings, int date) {
         this.earnings = earnings;
@@ -34,4 +37,32 @@ public class EarningData {
     public static EarningData empty() {
         return new EarningData(0d, 0);
     }
+
+    /**
+     * Checks if the earnings have been modified since they were last marked clean.
+     *
+     * @return True if modified, false otherwise.
+     */
+    public boolean isDirty() {
+        return earnings != savedEarnings || date != savedDate;
+    }
+
+    /**
+     * Marks the current earnings as saved.
+     */
+    public void markClean() {
+        markClean(earnings, date);
+    }
+
+    /**
+     * Marks the earnings as saved with the values that were written to the storage.
+     * If the earnings have been changed since, they stay dirty.
+     *
+     * @param savedEarnings The earnings that were written.
+     * @param savedDate     The date that was written.
+     */
+    public void markClean(double savedEarnings, int savedDate) {
+        this.savedEarnings = savedEarnings;
+        this.savedDate = savedDate;
+    }
 }
@@ -74,4 +74,14 @@ public interface OfflineUser {
      * @return player data
      */
     PlayerData getPlayerData();
+
+    /**
+     * Mark the data as saved after the storage has confirmed the write.
+     * Only the changes included in the given data are marked as saved.
+     * Does nothing by default, for implementations that don't track unsaved changes.
+     *
+     * @param playerData the data returned by {@link #getPlayerData()} that has been written
+     */
+    default void onDataSaved(PlayerData playerData) {
+    }
 }
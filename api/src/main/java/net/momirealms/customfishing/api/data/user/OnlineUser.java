@@ -17,6 +17,7 @@
 
 package net.momirealms.customfishing.api.data.user;
 
+import net.momirealms.customfishing.api.data.DataSection;
 import org.bukkit.entity.Player;
 
 public interface OnlineUser extends OfflineUser {
@@ -27,4 +28,19 @@ public interface OnlineUser extends OfflineUser {
      * @return player
      */
     Player getPlayer();
+
+    /**
+     * Check if a section of the data has been modified since it was last saved
+     *
+     * @param section data section
+     * @return dirty or not
+     */
+    boolean isDirty(DataSection section);
+
+    /**
+     * Check if any section of the data has been modified since it was last saved
+     *
+     * @return dirty or not
+     */
+    boolean isDirty();
 }
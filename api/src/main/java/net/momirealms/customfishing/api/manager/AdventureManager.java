@@ -32,6 +32,13 @@ public interface AdventureManager {
      */
     Component getComponentFromMiniMessage(String text);
 
+    /**
+     * Get the json of the component from text
+     * @param text text
+     * @return json
+     */
+    String getJsonFromMiniMessage(String text);
+
     /**
      * Send a message to a command sender
      * @param sender sender
@@ -28,6 +28,8 @@ public class FishingBagHolder implements InventoryHolder {
 
     private final UUID owner;
     private Inventory inventory;
+    // False if the stored contents couldn't be read, so the bag can't be opened or saved
+    private boolean loaded = true;
 
     public FishingBagHolder(UUID owner) {
         this.owner = owner;
@@ -49,4 +51,12 @@ public class FishingBagHolder implements InventoryHolder {
     public void setInventory(Inventory inventory) {
         this.inventory = inventory;
     }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void setLoaded(boolean loaded) {
+        this.loaded = loaded;
+    }
 }
\ No newline at end of file
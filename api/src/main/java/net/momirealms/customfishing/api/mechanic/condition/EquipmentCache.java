@@ -0,0 +1,160 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.api.mechanic.condition;
+
+import net.momirealms.customfishing.api.mechanic.effect.EffectCarrier;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A per-player memo of the fishing gear resolved on the latest cast.
+ * An entry is reused only if the items in both hands and in the fishing bag are still similar
+ * to the ones it was resolved from, so amounts may change but any other change causes a new resolution.
+ */
+public class EquipmentCache {
+
+    /**
+     * Bait source meaning that there's no bait.
+     */
+    public static final int NO_BAIT = -2;
+    /**
+     * Bait source meaning that the bait is in the hand not holding the rod.
+     */
+    public static final int HAND_BAIT = -1;
+
+    private static final ConcurrentHashMap<UUID, Equipment> CACHE = new ConcurrentHashMap<>();
+
+    private EquipmentCache() {
+    }
+
+    /**
+     * Get the equipment resolved for a player if the player's gear hasn't changed since then.
+     *
+     * @param uuid        The UUID of the player.
+     * @param mainHand    The item in the main hand.
+     * @param offHand     The item in the off hand.
+     * @param bagContents The contents of the fishing bag, or null if there's no bag.
+     * @return The cached equipment, or null if it should be resolved again.
+     */
+    @Nullable
+    public static Equipment get(UUID uuid, ItemStack mainHand, ItemStack offHand, @Nullable ItemStack[] bagContents) {
+        Equipment equipment = CACHE.get(uuid);
+        if (equipment == null) return null;
+        if (!isSimilar(equipment.mainHand, mainHand) || !isSimilar(equipment.offHand, offHand)) return null;
+        ItemStack[] snapshot = equipment.bagContents;
+        if (snapshot == null || bagContents == null) {
+            return snapshot == bagContents ? equipment : null;
+        }
+        if (snapshot.length != bagContents.length) return null;
+        for (int i = 0; i < snapshot.length; i++) {
+            if (!isSimilar(snapshot[i], bagContents[i])) return null;
+        }
+        return equipment;
+    }
+
+    /**
+     * Caches the equipment resolved for a player.
+     *
+     * @param uuid      The UUID of the player.
+     * @param equipment The resolved equipment.
+     */
+    public static void put(UUID uuid, Equipment equipment) {
+        CACHE.put(uuid, equipment);
+    }
+
+    /**
+     * Removes the equipment cached for a player.
+     *
+     * @param uuid The UUID of the player.
+     */
+    public static void invalidate(UUID uuid) {
+        CACHE.remove(uuid);
+    }
+
+    /**
+     * Clear all the cached equipment.
+     */
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * Copies the items so that later changes to the inventory don't affect the snapshot.
+     *
+     * @param items The items to copy.
+     * @return The copied items.
+     */
+    @Nullable
+    public static ItemStack[] snapshot(@Nullable ItemStack[] items) {
+        if (items == null) return null;
+        ItemStack[] copy = new ItemStack[items.length];
+        for (int i = 0; i < items.length; i++) {
+            copy[i] = snapshot(items[i]);
+        }
+        return copy;
+    }
+
+    /**
+     * Copies an item so that later changes to the inventory don't affect the snapshot.
+     *
+     * @param itemStack The item to copy.
+     * @return The copied item, or null if it's empty.
+     */
+    @Nullable
+    public static ItemStack snapshot(@Nullable ItemStack itemStack) {
+        return isEmpty(itemStack) ? null : itemStack.clone();
+    }
+
+    private static boolean isSimilar(@Nullable ItemStack snapshot, @Nullable ItemStack itemStack) {
+        if (snapshot == null) return isEmpty(itemStack);
+        return !isEmpty(itemStack) && snapshot.isSimilar(itemStack);
+    }
+
+    private static boolean isEmpty(@Nullable ItemStack itemStack) {
+        return itemStack == null || itemStack.getType() == Material.AIR;
+    }
+
+    /**
+     * The gear resolved from a player's hands and fishing bag.
+     *
+     * @param mainHand    A snapshot of the item in the main hand.
+     * @param offHand     A snapshot of the item in the off hand.
+     * @param bagContents A snapshot of the fishing bag, or null if there's no bag.
+     * @param effects     The effect carriers of the gear.
+     * @param rodID       The ID of the rod.
+     * @param hookID      The ID of the hook, or null if there's no hook.
+     * @param baitID      The ID of the bait, or null if there's no bait.
+     * @param baitSource  The slot of the bait in the bag, or {@link #HAND_BAIT} / {@link #NO_BAIT}.
+     */
+    public record Equipment(
+            @Nullable ItemStack mainHand,
+            @Nullable ItemStack offHand,
+            @Nullable ItemStack[] bagContents,
+            List<EffectCarrier> effects,
+            String rodID,
+            @Nullable String hookID,
+            @Nullable String baitID,
+            int baitSource
+    ) {
+    }
+}
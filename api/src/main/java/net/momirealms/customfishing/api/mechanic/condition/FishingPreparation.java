@@ -54,77 +54,112 @@ public class FishingPreparation extends Condition {
         ItemStack mainHandItem = playerInventory.getItemInMainHand();
         ItemStack offHandItem = playerInventory.getItemInOffHand();
 
-        this.effects = new ArrayList<>();
         boolean rodOnMainHand = mainHandItem.getType() == Material.FISHING_ROD;
         this.rodItemStack = rodOnMainHand ? mainHandItem : offHandItem;
+        ItemStack otherHandItem = rodOnMainHand ? offHandItem : mainHandItem;
+
+        Inventory fishingBag = plugin.getBagManager().isEnabled() ? plugin.getBagManager().getOnlineBagInventory(player.getUniqueId()) : null;
+        ItemStack[] bagContents = fishingBag == null ? null : fishingBag.getContents();
+
+        // Resolving item IDs walks every item library, so reuse the result while the gear stays the same
+        EquipmentCache.Equipment equipment = EquipmentCache.get(player.getUniqueId(), mainHandItem, offHandItem, bagContents);
+        if (equipment == null) {
+            equipment = resolveEquipment(plugin, mainHandItem, offHandItem, otherHandItem, bagContents);
+            EquipmentCache.put(player.getUniqueId(), equipment);
+        }
+
+        this.effects = equipment.effects();
+        super.insertArg("{rod}", equipment.rodID());
+        if (equipment.hookID() != null) {
+            super.insertArg("{hook}", equipment.hookID());
+            this.hasHook = true;
+        }
+        if (equipment.baitID() != null) {
+            super.insertArg("{bait}", equipment.baitID());
+            this.hasBait = true;
+            this.baitItemStack = equipment.baitSource() == EquipmentCache.HAND_BAIT ? otherHandItem : bagContents[equipment.baitSource()];
+        }
+
+        for (EffectCarrier effectCarrier : effects) {
+            if (!effectCarrier.isConditionMet(this)) {
+                this.canFish = false;
+                return;
+            }
+        }
+    }
+
+    private EquipmentCache.Equipment resolveEquipment(
+            CustomFishingPlugin plugin,
+            ItemStack mainHandItem,
+            ItemStack offHandItem,
+            ItemStack otherHandItem,
+            @Nullable ItemStack[] bagContents
+    ) {
+        List<EffectCarrier> effectList = new ArrayList<>();
         String rodItemID = plugin.getItemManager().getAnyPluginItemID(this.rodItemStack);
         EffectCarrier rodEffect = plugin.getEffectManager().getEffectCarrier("rod", rodItemID);
-        if (rodEffect != null) effects.add(rodEffect);
-        super.insertArg("{rod}", rodItemID);
+        if (rodEffect != null) effectList.add(rodEffect);
 
+        String hookID = null;
         NBTItem nbtItem = new NBTItem(rodItemStack);
         NBTCompound cfCompound = nbtItem.getCompound("CustomFishing");
         if (cfCompound != null && cfCompound.hasTag("hook_id")) {
-            String hookID = cfCompound.getString("hook_id");
-            super.insertArg("{hook}", hookID);
-            this.hasHook = true;
+            hookID = cfCompound.getString("hook_id");
             EffectCarrier carrier = plugin.getEffectManager().getEffectCarrier("hook", hookID);
             if (carrier != null) {
-                this.effects.add(carrier);
+                effectList.add(carrier);
             }
         }
 
-        String baitItemID = plugin.getItemManager().getAnyPluginItemID(rodOnMainHand ? offHandItem : mainHandItem);
+        String baitID = null;
+        int baitSource = EquipmentCache.NO_BAIT;
+        String baitItemID = plugin.getItemManager().getAnyPluginItemID(otherHandItem);
         EffectCarrier baitEffect = plugin.getEffectManager().getEffectCarrier("bait", baitItemID);
-
         if (baitEffect != null) {
-            this.baitItemStack = rodOnMainHand ? offHandItem : mainHandItem;
-            this.effects.add(baitEffect);
-            this.hasBait = true;
-            super.insertArg("{bait}", baitItemID);
+            effectList.add(baitEffect);
+            baitID = baitItemID;
+            baitSource = EquipmentCache.HAND_BAIT;
         }
 
-        if (plugin.getBagManager().isEnabled()) {
-            Inventory fishingBag = plugin.getBagManager().getOnlineBagInventory(player.getUniqueId());
+        if (bagContents != null) {
             HashSet<String> uniqueUtils = new HashSet<>(4);
-            if (fishingBag != null) {
-                this.insertArg("{in-bag}", "true");
-                for (int i = 0; i < fishingBag.getSize(); i++) {
-                    ItemStack itemInBag = fishingBag.getItem(i);
-                    String bagItemID = plugin.getItemManager().getAnyPluginItemID(itemInBag);
-                    if (!hasBait) {
-                        EffectCarrier effect = plugin.getEffectManager().getEffectCarrier("bait", bagItemID);
-                        if (effect != null) {
-                            this.hasBait = true;
-                            this.baitItemStack = itemInBag;
-                            this.effects.add(effect);
-                            super.insertArg("{bait}", bagItemID);
-                            continue;
-                        }
-                    }
-                    EffectCarrier utilEffect = plugin.getEffectManager().getEffectCarrier("util", bagItemID);
-                    if (utilEffect != null && !uniqueUtils.contains(bagItemID)) {
-                        effects.add(utilEffect);
-                        uniqueUtils.add(bagItemID);
+            for (int i = 0; i < bagContents.length; i++) {
+                ItemStack itemInBag = bagContents[i];
+                String bagItemID = plugin.getItemManager().getAnyPluginItemID(itemInBag);
+                if (baitID == null) {
+                    EffectCarrier effect = plugin.getEffectManager().getEffectCarrier("bait", bagItemID);
+                    if (effect != null) {
+                        effectList.add(effect);
+                        baitID = bagItemID;
+                        baitSource = i;
+                        continue;
                     }
                 }
-                this.delArg("{in-bag}");
+                EffectCarrier utilEffect = plugin.getEffectManager().getEffectCarrier("util", bagItemID);
+                if (utilEffect != null && !uniqueUtils.contains(bagItemID)) {
+                    effectList.add(utilEffect);
+                    uniqueUtils.add(bagItemID);
+                }
             }
         }
 
         for (String enchant : plugin.getIntegrationManager().getEnchantments(rodItemStack)) {
             EffectCarrier enchantEffect = plugin.getEffectManager().getEffectCarrier("enchant", enchant);
             if (enchantEffect != null) {
-                this.effects.add(enchantEffect);
+                effectList.add(enchantEffect);
             }
         }
 
-        for (EffectCarrier effectCarrier : effects) {
-            if (!effectCarrier.isConditionMet(this)) {
-                this.canFish = false;
-                return;
-            }
-        }
+        return new EquipmentCache.Equipment(
+                EquipmentCache.snapshot(mainHandItem),
+                EquipmentCache.snapshot(offHandItem),
+                EquipmentCache.snapshot(bagContents),
+                List.copyOf(effectList),
+                rodItemID,
+                hookID,
+                baitID,
+                baitSource
+        );
     }
 
     /**
@@ -26,10 +26,15 @@ import org.bukkit.entity.FishHook;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.PlayerInventory;
 
+import java.util.concurrent.TimeUnit;
+
 public abstract class AbstractGamingPlayer implements GamingPlayer, Runnable {
 
     private final FishingManager manager;
+    // The time out is measured on the monotonic clock, shifted by any change made to the deadline
     protected long deadline;
+    private final long initialDeadline;
+    private final long deadlineNanos;
     protected boolean success;
     protected CancellableTask task;
     protected Player player;
@@ -43,13 +48,33 @@ public abstract class AbstractGamingPlayer implements GamingPlayer, Runnable {
         this.settings = settings;
         this.manager = CustomFishingPlugin.get().getFishingManager();
         this.deadline = (long) (System.currentTimeMillis() + settings.getTime() * 1000L);
+        this.initialDeadline = deadline;
+        this.deadlineNanos = (long) (System.nanoTime() + settings.getTime() * 1_000_000_000L);
         this.arrangeTask();
     }
 
+    /**
+     * Arranges the task that ticks the game.
+     * By default, the game is ticked every tick on the main thread, or the region thread of the hook on Folia.
+     * Games that don't touch the world, such as the ones only showing titles or action bars, can override
+     * this method and call {@link #arrangeDriverTask(long, long, TimeUnit)} to be ticked asynchronously.
+     */
     public void arrangeTask() {
         this.task = CustomFishingPlugin.get().getScheduler().runTaskSyncTimer(this, fishHook.getLocation(), 1, 1);
     }
 
+    /**
+     * Ticks the game through the {@link GameTickDriver}, which ticks all such games from one async loop.
+     * {@link #onTick()} is then called off the main thread, so it must not touch the world or entities.
+     *
+     * @param delay    The delay before the first tick.
+     * @param period   The period between ticks.
+     * @param timeUnit The time unit for the delay and period.
+     */
+    protected void arrangeDriverTask(long delay, long period, TimeUnit timeUnit) {
+        this.task = GameTickDriver.getInstance().register(this, delay, period, timeUnit);
+    }
+
     @Override
     public void cancel() {
         if (task != null && !task.isCancelled())
@@ -119,7 +144,7 @@ public abstract class AbstractGamingPlayer implements GamingPlayer, Runnable {
     }
 
     protected boolean timeOutCheck() {
-        if (System.currentTimeMillis() > deadline) {
+        if (System.nanoTime() - (deadlineNanos + (deadline - initialDeadline) * 1_000_000L) > 0) {
             isTimeOut = true;
             cancel();
             endGame();
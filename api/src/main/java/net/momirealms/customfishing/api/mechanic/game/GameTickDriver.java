@@ -0,0 +1,222 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.api.mechanic.game;
+
+import net.momirealms.customfishing.api.CustomFishingPlugin;
+import net.momirealms.customfishing.api.scheduler.CancellableTask;
+import net.momirealms.customfishing.api.scheduler.TaskKind;
+import net.momirealms.customfishing.api.util.LogUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticks every active mini game from one fixed-rate loop instead of one timer per game.
+ * Each game keeps its own period. Games whose period is shorter than the loop are ticked
+ * several times in a row to catch up, while the time out and item checks run once per loop.
+ */
+public class GameTickDriver implements Runnable {
+
+    private static final GameTickDriver instance = new GameTickDriver();
+
+    private static final long LOOP_PERIOD_MILLIS = 10;
+    // Games can't catch up more ticks than this in a single loop
+    private static final int MAX_CATCH_UP_TICKS = 10;
+    // The loop stops after being idle for a while
+    private static final int MAX_IDLE_LOOPS = 500;
+
+    private final ConcurrentLinkedQueue<GameEntry> pending;
+    // Guards the active entries, so that an old loop that is still running never overlaps a restarted one
+    private final Object loopLock;
+    private GameEntry[] entries;
+    private volatile int size;
+    private int idleLoops;
+    private CancellableTask timer;
+
+    private GameTickDriver() {
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.loopLock = new Object();
+        this.entries = new GameEntry[16];
+    }
+
+    public static GameTickDriver getInstance() {
+        return instance;
+    }
+
+    /**
+     * Registers a game to be ticked asynchronously.
+     *
+     * @param game     The game to tick.
+     * @param delay    The delay before the first tick.
+     * @param period   The period between ticks.
+     * @param timeUnit The time unit for the delay and period.
+     * @return A CancellableTask for stopping the game from being ticked.
+     */
+    public CancellableTask register(AbstractGamingPlayer game, long delay, long period, TimeUnit timeUnit) {
+        GameEntry entry = new GameEntry(
+                game,
+                System.nanoTime() + timeUnit.toNanos(delay),
+                Math.max(TimeUnit.MILLISECONDS.toNanos(1), timeUnit.toNanos(period))
+        );
+        synchronized (this) {
+            pending.add(entry);
+            if (timer == null) {
+                idleLoops = 0;
+                timer = CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(
+                        TaskKind.TICK,
+                        this,
+                        LOOP_PERIOD_MILLIS,
+                        LOOP_PERIOD_MILLIS,
+                        TimeUnit.MILLISECONDS
+                );
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Stops the loop and cancels every registered game.
+     */
+    public void cancelAll() {
+        synchronized (this) {
+            if (timer != null) {
+                timer.cancel();
+                timer = null;
+            }
+        }
+        synchronized (loopLock) {
+            for (int i = 0; i < size; i++) {
+                entries[i].cancel();
+            }
+            Arrays.fill(entries, 0, size, null);
+            size = 0;
+            GameEntry entry;
+            while ((entry = pending.poll()) != null) {
+                entry.cancel();
+            }
+        }
+    }
+
+    /**
+     * Get the number of games being ticked.
+     *
+     * @return The number of games.
+     */
+    public int getActiveGames() {
+        return size + pending.size();
+    }
+
+    @Override
+    public void run() {
+        synchronized (loopLock) {
+            loop();
+        }
+    }
+
+    private void loop() {
+        GameEntry[] array = this.entries;
+        int count = this.size;
+        GameEntry polled;
+        while ((polled = pending.poll()) != null) {
+            if (count == array.length) {
+                array = Arrays.copyOf(array, count * 2);
+                this.entries = array;
+            }
+            array[count++] = polled;
+        }
+
+        long now = System.nanoTime();
+        int alive = 0;
+        for (int i = 0; i < count; i++) {
+            GameEntry entry = array[i];
+            if (!entry.cancelled && now >= entry.nextTick) {
+                try {
+                    tick(entry, now);
+                } catch (Exception e) {
+                    LogUtils.warn("Error occurred when ticking a mini game", e);
+                    entry.cancel();
+                }
+            }
+            // Games might have been cancelled while ticking
+            if (!entry.cancelled) {
+                array[alive++] = entry;
+            }
+        }
+        Arrays.fill(array, alive, count, null);
+        this.size = alive;
+
+        if (alive == 0) {
+            if (++idleLoops > MAX_IDLE_LOOPS) {
+                synchronized (this) {
+                    if (pending.isEmpty() && timer != null) {
+                        timer.cancel();
+                        timer = null;
+                    }
+                }
+            }
+        } else {
+            idleLoops = 0;
+        }
+    }
+
+    private void tick(GameEntry entry, long now) {
+        AbstractGamingPlayer game = entry.game;
+        if (game.timeOutCheck()) {
+            entry.cancel();
+            return;
+        }
+        game.switchItemCheck();
+        int ticks = 0;
+        while (!entry.cancelled && now >= entry.nextTick && ticks++ < MAX_CATCH_UP_TICKS) {
+            game.onTick();
+            entry.nextTick += entry.period;
+        }
+        // Skip the ticks that can't be caught up instead of running them later
+        if (now >= entry.nextTick) {
+            entry.nextTick = now + entry.period;
+        }
+    }
+
+    /**
+     * A game registered in the driver.
+     */
+    private static class GameEntry implements CancellableTask {
+
+        private final AbstractGamingPlayer game;
+        private final long period;
+        private long nextTick;
+        private volatile boolean cancelled;
+
+        private GameEntry(AbstractGamingPlayer game, long nextTick, long period) {
+            this.game = game;
+            this.nextTick = nextTick;
+            this.period = period;
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
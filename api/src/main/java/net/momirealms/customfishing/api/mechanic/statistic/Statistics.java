@@ -25,6 +25,7 @@ import net.momirealms.customfishing.api.mechanic.loot.Loot;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents a statistics system for tracking loot and catch amounts.
@@ -34,6 +35,9 @@ public class Statistics {
     private final ConcurrentHashMap<String, Integer> statisticMap;
     private final ConcurrentHashMap<String, Float> sizeMap;
     private int total;
+    // Incremented on every change, compared with the version that was last written to the storage
+    private final AtomicLong version = new AtomicLong();
+    private volatile long savedVersion;
 
     /**
      * Creates a new instance of Statistics based on provided statistic data.
@@ -66,6 +70,7 @@ public class Statistics {
         int after = previous + amount;
         statisticMap.put(loot.getStatisticKey().getAmountKey(), after);
         total += amount;
+        version.incrementAndGet();
         doSuccessTimesAction(previous, after, condition, loot);
     }
 
@@ -94,6 +99,7 @@ public class Statistics {
         float previous = sizeMap.getOrDefault(loot, 0f);
         if (previous >= size) return false;
         sizeMap.put(loot, size);
+        version.incrementAndGet();
         return true;
     }
 
@@ -109,6 +115,7 @@ public class Statistics {
         int after = previous + 1;
         statisticMap.put(loot.getID(), after);
         total += 1;
+        version.incrementAndGet();
         Action[] actions = loot.getSuccessTimesActionMap().get(after);
         if (actions != null)
             for (Action action : actions) {
@@ -136,6 +143,7 @@ public class Statistics {
     public void reset() {
         statisticMap.clear();
         total = 0;
+        version.incrementAndGet();
     }
 
     /**
@@ -158,6 +166,7 @@ public class Statistics {
      * @param value The value to set.
      */
     public void setData(String key, int value) {
+        version.incrementAndGet();
         if (value <= 0) {
             statisticMap.remove(key);
             return;
@@ -173,4 +182,35 @@ public class Statistics {
     public int getTotalCatchAmount() {
         return total;
     }
+
+    /**
+     * Checks if the statistics have been modified since they were last marked clean.
+     *
+     * @return True if modified, false otherwise.
+     */
+    public boolean isDirty() {
+        return version.get() > savedVersion;
+    }
+
+    /**
+     * Gets the version of the statistics, which changes every time they are modified.
+     * Read it before copying the statistics so that changes made during the copy keep them dirty.
+     *
+     * @return The version.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Marks the statistics as saved up to a version.
+     * Changes made after that version keep the statistics dirty.
+     *
+     * @param savedVersion The version that has been written to the storage.
+     */
+    public synchronized void markClean(long savedVersion) {
+        if (savedVersion > this.savedVersion) {
+            this.savedVersion = savedVersion;
+        }
+    }
 }
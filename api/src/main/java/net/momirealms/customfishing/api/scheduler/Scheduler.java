@@ -59,6 +59,31 @@ public interface Scheduler {
      */
     void runTaskAsync(Runnable runnable);
 
+    /**
+     * Runs a task asynchronously on the thread pool of the given kind.
+     * Schedulers without separate pools run it like {@link #runTaskAsync(Runnable)}.
+     *
+     * @param kind     The workload class of the task.
+     * @param runnable The task to run.
+     */
+    default void runTaskAsync(TaskKind kind, Runnable runnable) {
+        runTaskAsync(runnable);
+    }
+
+    /**
+     * Runs a task asynchronously on the thread pool of the given kind with a specified delay.
+     * Schedulers without separate pools run it like {@link #runTaskAsyncLater(Runnable, long, TimeUnit)}.
+     *
+     * @param kind      The workload class of the task.
+     * @param runnable  The task to run.
+     * @param delay     The delay before the task execution.
+     * @param timeUnit  The time unit for the delay.
+     * @return A CancellableTask for managing the scheduled task.
+     */
+    default CancellableTask runTaskAsyncLater(TaskKind kind, Runnable runnable, long delay, TimeUnit timeUnit) {
+        return runTaskAsyncLater(runnable, delay, timeUnit);
+    }
+
     /**
      * Runs a task synchronously with a specified delay.
      *
@@ -90,4 +115,19 @@ public interface Scheduler {
      * @return A CancellableTask for managing the scheduled task.
      */
     CancellableTask runTaskAsyncTimer(Runnable runnable, long delay, long period, TimeUnit timeUnit);
+
+    /**
+     * Runs a task asynchronously on the thread pool of the given kind with a specified delay and period.
+     * Schedulers without separate pools run it like {@link #runTaskAsyncTimer(Runnable, long, long, TimeUnit)}.
+     *
+     * @param kind        The workload class of the task.
+     * @param runnable    The task to run.
+     * @param delay       The delay before the first execution.
+     * @param period      The period between subsequent executions.
+     * @param timeUnit    The time unit for the delay and period.
+     * @return A CancellableTask for managing the scheduled task.
+     */
+    default CancellableTask runTaskAsyncTimer(TaskKind kind, Runnable runnable, long delay, long period, TimeUnit timeUnit) {
+        return runTaskAsyncTimer(runnable, delay, period, timeUnit);
+    }
 }
@@ -0,0 +1,42 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.api.scheduler;
+
+/**
+ * The workload class of an async task. Each kind is run on its own thread pool,
+ * so that slow tasks of one kind can't delay or drop the tasks of another.
+ */
+public enum TaskKind {
+
+    /**
+     * Tasks that don't fit any other kind.
+     */
+    GENERAL,
+    /**
+     * Short periodic tasks such as game ticks, boss bars and action bars.
+     */
+    TICK,
+    /**
+     * Blocking tasks such as database and Redis operations. These tasks are never dropped.
+     */
+    IO,
+    /**
+     * Visual-only tasks such as particles and holograms. These tasks might be dropped under load.
+     */
+    COSMETIC
+}
@@ -34,12 +34,21 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
 
 /**
  * Utility class for working with Bukkit Inventories and item stacks.
  */
 public class InventoryUtils {
 
+    // Bags serialized item by item are prefixed so that they can be told apart from the Base64 object streams
+    private static final String BYTES_PREFIX = "CF1:";
+    private static volatile boolean bytesFormatEnabled;
+    private static Method createInventoryBySize;
+    private static Method createInventoryByType;
+
     private InventoryUtils() {
         throw new UnsupportedOperationException("This class cannot be instantiated");
     }
@@ -54,19 +63,11 @@ public class InventoryUtils {
      */
     public static Inventory createInventory(InventoryHolder inventoryHolder, int size, Component component) {
         try {
-            boolean isSpigot = CustomFishingPlugin.get().getVersionManager().isSpigot();
-            Method createInvMethod = ReflectionUtils.bukkitClass.getMethod(
-                    "createInventory",
-                    InventoryHolder.class,
-                    int.class,
-                    isSpigot ? String.class : ReflectionUtils.componentClass
-            );
-            return (Inventory) createInvMethod.invoke(
-                    null,
-                    inventoryHolder,
-                    size,
-                    isSpigot ? CustomFishingPlugin.get().getAdventure().componentToLegacy(component) : CustomFishingPlugin.get().getAdventure().shadedComponentToOriginalComponent(component)
-            );
+            Method createInvMethod = createInventoryBySize;
+            if (createInvMethod == null) {
+                createInvMethod = createInventoryBySize = getCreateInventoryMethod(int.class);
+            }
+            return (Inventory) createInvMethod.invoke(null, inventoryHolder, size, toTitle(component));
         } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException exception) {
             exception.printStackTrace();
             return null;
@@ -83,25 +84,148 @@ public class InventoryUtils {
      */
     public static Inventory createInventory(InventoryHolder inventoryHolder, InventoryType type, Component component) {
         try {
-            boolean isSpigot = CustomFishingPlugin.get().getVersionManager().isSpigot();
-            Method createInvMethod = ReflectionUtils.bukkitClass.getMethod(
-                    "createInventory",
-                    InventoryHolder.class,
-                    InventoryType.class,
-                    isSpigot ? String.class : ReflectionUtils.componentClass
-            );
-            return (Inventory) createInvMethod.invoke(
-                    null,
-                    inventoryHolder,
-                    type,
-                    isSpigot ? CustomFishingPlugin.get().getAdventure().componentToLegacy(component) : CustomFishingPlugin.get().getAdventure().shadedComponentToOriginalComponent(component)
-            );
+            Method createInvMethod = createInventoryByType;
+            if (createInvMethod == null) {
+                createInvMethod = createInventoryByType = getCreateInventoryMethod(InventoryType.class);
+            }
+            return (Inventory) createInvMethod.invoke(null, inventoryHolder, type, toTitle(component));
         } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException exception) {
             exception.printStackTrace();
             return null;
         }
     }
 
+    private static Method getCreateInventoryMethod(Class<?> sizeOrType) throws NoSuchMethodException {
+        return ReflectionUtils.bukkitClass.getMethod(
+                "createInventory",
+                InventoryHolder.class,
+                sizeOrType,
+                CustomFishingPlugin.get().getVersionManager().isSpigot() ? String.class : ReflectionUtils.componentClass
+        );
+    }
+
+    private static Object toTitle(Component component) {
+        return CustomFishingPlugin.get().getVersionManager().isSpigot()
+                ? CustomFishingPlugin.get().getAdventure().componentToLegacy(component)
+                : CustomFishingPlugin.get().getAdventure().shadedComponentToOriginalComponent(component);
+    }
+
+    /**
+     * Enable or disable saving bags in the per-slot format.
+     * Older versions of the plugin and Spigot servers can't read that format, so it's disabled by default.
+     *
+     * @param enabled Whether bags should be saved in the per-slot format.
+     */
+    public static void setBytesFormatEnabled(boolean enabled) {
+        bytesFormatEnabled = enabled;
+    }
+
+    /**
+     * Check if bags should be saved one item at a time with Paper's item serializer.
+     * Bags are otherwise saved as a single Base64-encoded object stream.
+     * Bags already saved in the per-slot format can be read on Paper either way.
+     *
+     * @return True if the format is enabled and the server runs Paper or one of its forks.
+     */
+    public static boolean canSerializeAsBytes() {
+        return bytesFormatEnabled && canDeserializeBytes();
+    }
+
+    private static boolean canDeserializeBytes() {
+        return !CustomFishingPlugin.get().getVersionManager().isSpigot();
+    }
+
+    /**
+     * Serialize a single ItemStack with Paper's item serializer.
+     * This method is only available if {@link #canSerializeAsBytes()} returns true.
+     *
+     * @param itemStack The ItemStack to serialize.
+     * @return The serialized bytes, or null if the slot is empty.
+     */
+    @Nullable
+    public static byte[] stackToBytes(@Nullable ItemStack itemStack) {
+        if (itemStack == null || itemStack.getType().isAir() || itemStack.getAmount() <= 0) return null;
+        return itemStack.serializeAsBytes();
+    }
+
+    /**
+     * Join the serialized items of every slot into a string that can be read by {@link #getInventoryItems(String)}.
+     *
+     * @param slots The bytes of each slot, with null for empty slots.
+     * @return The encoded string.
+     */
+    public static @NotNull String slotsToString(byte[][] slots) {
+        if (slots.length == 0) {
+            return "";
+        }
+        int length = 4;
+        for (byte[] slot : slots) {
+            length += 4 + (slot == null ? 0 : slot.length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(slots.length);
+        for (byte[] slot : slots) {
+            if (slot == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(slot.length);
+                buffer.put(slot);
+            }
+        }
+        return BYTES_PREFIX + Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    /**
+     * Split a string created by {@link #slotsToString(byte[][])} into the bytes of each slot.
+     *
+     * @param data The encoded string.
+     * @return The bytes of each slot, or null if the string is in the Base64 object stream format or is corrupted.
+     */
+    @Nullable
+    public static byte[][] stringToSlots(String data) {
+        if (data == null || !data.startsWith(BYTES_PREFIX)) return null;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(data.substring(BYTES_PREFIX.length())));
+            byte[][] slots = new byte[buffer.getInt()][];
+            for (int i = 0; i < slots.length; i++) {
+                int length = buffer.getInt();
+                if (length >= 0) {
+                    slots[i] = new byte[length];
+                    buffer.get(slots[i]);
+                }
+            }
+            return slots;
+        } catch (IllegalArgumentException | BufferUnderflowException | NegativeArraySizeException e) {
+            LogUtils.severe("Failed to read fishing bag data");
+            return null;
+        }
+    }
+
+    /**
+     * Deserialize the bytes of each slot into ItemStacks.
+     *
+     * @param slots The bytes of each slot, with null for empty slots.
+     * @return An array of ItemStacks, or null if any item failed to be deserialized.
+     */
+    @Nullable
+    public static ItemStack[] getInventoryItems(byte[][] slots) {
+        if (!canDeserializeBytes()) {
+            LogUtils.severe("Fishing bag data saved on Paper can't be read on Spigot");
+            return null;
+        }
+        ItemStack[] stacks = new ItemStack[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == null) continue;
+            try {
+                stacks[i] = ItemStack.deserializeBytes(slots[i]);
+            } catch (RuntimeException e) {
+                LogUtils.severe("Failed to read fishing bag data");
+                return null;
+            }
+        }
+        return stacks;
+    }
+
     /**
      * Serialize an array of ItemStacks to a Base64-encoded string.
      *
@@ -148,6 +272,10 @@ public class InventoryUtils {
 
     private static ItemStack[] stacksFromBase64(String data) {
         if (data == null || data.equals("")) return new ItemStack[]{};
+        if (data.startsWith(BYTES_PREFIX)) {
+            byte[][] slots = stringToSlots(data);
+            return slots == null ? null : getInventoryItems(slots);
+        }
 
         ByteArrayInputStream inputStream;
         try {
@@ -29,7 +29,11 @@ public class OffsetUtils {
         throw new UnsupportedOperationException("This class cannot be instantiated");
     }
 
+    // Offset characters are memoized for offsets within this range
+    private static final int CACHE_RANGE = 1024;
+
     private static String font;
+    private static volatile String[] offsetCharsCache;
     private static String negative_1;
     private static String negative_2;
     private static String negative_4;
@@ -72,6 +76,11 @@ public class OffsetUtils {
             negative_64 = section.getString("-64");
             negative_128 = section.getString("-128");
         }
+        String[] cache = new String[CACHE_RANGE * 2 + 1];
+        for (int i = -CACHE_RANGE; i <= CACHE_RANGE; i++) {
+            cache[i + CACHE_RANGE] = buildOffsetChars(i);
+        }
+        offsetCharsCache = cache;
     }
 
     /**
@@ -166,6 +175,14 @@ public class OffsetUtils {
      * @return Offset characters as a string.
      */
     public static String getOffsetChars(int n) {
+        String[] cache = offsetCharsCache;
+        if (cache != null && n >= -CACHE_RANGE && n <= CACHE_RANGE) {
+            return cache[n + CACHE_RANGE];
+        }
+        return buildOffsetChars(n);
+    }
+
+    private static String buildOffsetChars(int n) {
         if (n > 0) {
             return "<font:" + font + ">" + getShortestPosChars(n) + "</font>";
         } else {
@@ -19,13 +19,14 @@ package net.momirealms.customfishing.api.util;
 
 import net.momirealms.customfishing.api.common.Pair;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Utility class for selecting random items based on weights.
+ * Each selection walks the weights once without allocating, which is the cheapest way to draw
+ * from weights that change between draws. Use a {@link WeightedSampler} for weights that are sampled many times.
  */
 public class WeightUtils {
 
@@ -37,17 +38,23 @@ public class WeightUtils {
      * @return A randomly selected item from the list, or null if no item was selected.
      */
     public static <T> T getRandom(List<Pair<T, Double>> pairs) {
-        List<T> available = new ArrayList<>();
-        double[] weights = new double[pairs.size()];
-        int index = 0;
-        for (Pair<T, Double> pair : pairs){
+        double total = 0;
+        for (Pair<T, Double> pair : pairs) {
+            double weight = pair.right();
+            if (weight > 0) total += weight;
+        }
+        if (!(total > 0)) return null;
+        double random = ThreadLocalRandom.current().nextDouble() * total;
+        T last = null;
+        for (Pair<T, Double> pair : pairs) {
             double weight = pair.right();
-            T key = pair.left();
             if (weight <= 0) continue;
-            available.add(key);
-            weights[index++] = weight;
+            last = pair.left();
+            random -= weight;
+            if (random < 0) return last;
         }
-        return getRandom(weights, available, index);
+        // Only reached through floating point error
+        return last;
     }
 
     /**
@@ -58,49 +65,21 @@ public class WeightUtils {
      * @return A randomly selected item from the map, or null if no item was selected.
      */
     public static <T> T getRandom(Map<T, Double> map) {
-        List<T> available = new ArrayList<>();
-        double[] weights = new double[map.size()];
-        int index = 0;
-        for (Map.Entry<T, Double> entry : map.entrySet()){
+        double total = 0;
+        for (double weight : map.values()) {
+            if (weight > 0) total += weight;
+        }
+        if (!(total > 0)) return null;
+        double random = ThreadLocalRandom.current().nextDouble() * total;
+        T last = null;
+        for (Map.Entry<T, Double> entry : map.entrySet()) {
             double weight = entry.getValue();
-            T key = entry.getKey();
             if (weight <= 0) continue;
-            available.add(key);
-            weights[index++] = weight;
-        }
-        return getRandom(weights, available, index);
-    }
-
-    /**
-     * Get a random item from a list of items with associated weights.
-     *
-     * @param weights       An array of weights corresponding to the available items.
-     * @param available     A list of available items.
-     * @param effectiveSize The effective size of the array and list after filtering out items with non-positive weights.
-     * @param <T>           The type of items.
-     * @return A randomly selected item from the list, or null if no item was selected.
-     */
-    private static <T> T getRandom(double[] weights, List<T> available, int effectiveSize) {
-        double total = Arrays.stream(weights).sum();
-        double[] weightRatios = new double[effectiveSize];
-        for (int i = 0; i < effectiveSize; i++){
-            weightRatios[i] = weights[i]/total;
-        }
-        double[] weightRange = new double[effectiveSize];
-        double startPos = 0;
-        for (int i = 0; i < effectiveSize; i++) {
-            weightRange[i] = startPos + weightRatios[i];
-            startPos += weightRatios[i];
-        }
-        double random = Math.random();
-        int pos = Arrays.binarySearch(weightRange, random);
-
-        if (pos < 0) {
-            pos = -pos - 1;
-        }
-        if (pos < weightRange.length && random < weightRange[pos]) {
-            return available.get(pos);
+            last = entry.getKey();
+            random -= weight;
+            if (random < 0) return last;
         }
-        return null;
+        // Only reached through floating point error
+        return last;
     }
 }
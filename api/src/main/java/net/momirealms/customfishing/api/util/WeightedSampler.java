@@ -0,0 +1,176 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.api.util;
+
+import net.momirealms.customfishing.api.common.Pair;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An immutable weighted sampler backed by a Vose alias table.
+ * The table is built once in O(n) and every sample afterward costs O(1), so it only pays off
+ * when the same weights are sampled many times. Weights used for a single draw should go
+ * through {@link WeightUtils} instead.
+ *
+ * @param <T> The type of the sampled elements.
+ */
+public class WeightedSampler<T> {
+
+    private static final WeightedSampler<?> EMPTY = new WeightedSampler<>(new Object[0], new double[0]);
+
+    private final Object[] elements;
+    private final double[] probabilities;
+    private final int[] aliases;
+
+    private WeightedSampler(Object[] elements, double[] weights) {
+        int size = elements.length;
+        this.elements = elements;
+        this.probabilities = new double[size];
+        this.aliases = new int[size];
+        if (size == 0) return;
+
+        double total = 0;
+        for (double weight : weights) total += weight;
+
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallSize = 0, largeSize = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / total;
+            if (scaled[i] < 1) small[smallSize++] = i;
+            else large[largeSize++] = i;
+        }
+
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) small[smallSize++] = more;
+            else large[largeSize++] = more;
+        }
+        // Remaining columns are full up to floating point error
+        while (largeSize > 0) probabilities[large[--largeSize]] = 1;
+        while (smallSize > 0) probabilities[small[--smallSize]] = 1;
+    }
+
+    /**
+     * Builds a sampler for a map where each entry's key is an element and the value is its weight.
+     * Entries with non-positive weights are ignored.
+     *
+     * @param weights The weights of the elements.
+     * @param <T>     The type of the elements.
+     * @return The sampler.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> WeightedSampler<T> of(Map<T, Double> weights) {
+        if (weights.isEmpty()) return (WeightedSampler<T>) EMPTY;
+
+        Object[] elements = new Object[weights.size()];
+        double[] values = new double[weights.size()];
+        int index = 0;
+        for (Map.Entry<T, Double> entry : weights.entrySet()) {
+            Double weight = entry.getValue();
+            if (weight == null || !(weight > 0) || weight.isInfinite()) continue;
+            elements[index] = entry.getKey();
+            values[index++] = weight;
+        }
+        return (WeightedSampler<T>) build(elements, values, index);
+    }
+
+    /**
+     * Builds a sampler for a list of pairs where the left element is the element and the right element is its weight.
+     * Pairs with non-positive weights are ignored.
+     *
+     * @param pairs The weighted elements.
+     * @param <T>   The type of the elements.
+     * @return The sampler.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> WeightedSampler<T> of(List<Pair<T, Double>> pairs) {
+        if (pairs.isEmpty()) return (WeightedSampler<T>) EMPTY;
+
+        Object[] elements = new Object[pairs.size()];
+        double[] values = new double[pairs.size()];
+        int index = 0;
+        for (Pair<T, Double> pair : pairs) {
+            Double weight = pair.right();
+            if (weight == null || !(weight > 0) || weight.isInfinite()) continue;
+            elements[index] = pair.left();
+            values[index++] = weight;
+        }
+        return (WeightedSampler<T>) build(elements, values, index);
+    }
+
+    private static WeightedSampler<?> build(Object[] elements, double[] values, int size) {
+        return size == 0 ? EMPTY : new WeightedSampler<>(
+                size == elements.length ? elements : copyOf(elements, size),
+                size == values.length ? values : copyOf(values, size)
+        );
+    }
+
+    private static Object[] copyOf(Object[] array, int size) {
+        Object[] copy = new Object[size];
+        System.arraycopy(array, 0, copy, 0, size);
+        return copy;
+    }
+
+    private static double[] copyOf(double[] array, int size) {
+        double[] copy = new double[size];
+        System.arraycopy(array, 0, copy, 0, size);
+        return copy;
+    }
+
+    /**
+     * Get a random element according to the weights.
+     *
+     * @return A randomly selected element, or null if there's no element with positive weight.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public T sample() {
+        int size = elements.length;
+        if (size == 0) return null;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int column = random.nextInt(size);
+        return (T) elements[random.nextDouble() < probabilities[column] ? column : aliases[column]];
+    }
+
+    /**
+     * Get the number of elements that can be sampled.
+     *
+     * @return The number of elements with positive weight.
+     */
+    public int size() {
+        return elements.length;
+    }
+
+    /**
+     * Check if there's no element that can be sampled.
+     *
+     * @return True if empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return elements.length == 0;
+    }
+}
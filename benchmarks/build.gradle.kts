@@ -0,0 +1,32 @@
+plugins {
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+dependencies {
+    // modules to measure
+    jmh(project(":api"))
+    jmh(project(":plugin"))
+
+    // server
+    jmh("dev.folia:folia-api:1.20.1-R0.1-SNAPSHOT")
+
+    // provided by the server or loaded at runtime
+    jmh("com.comphenix.protocol:ProtocolLib:5.1.0")
+    jmh("com.google.code.gson:gson:2.10.1")
+    jmh("net.objecthunter:exp4j:0.4.8")
+    jmh("dev.dejvokep:boosted-yaml:1.3.1")
+}
+
+jmh {
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
+
+tasks {
+    shadowJar {
+        enabled = false
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.benchmark;
+
+import net.kyori.adventure.text.Component;
+import net.momirealms.customfishing.adventure.AdventureManagerImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures MiniMessage parsing with and without the text cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AdventureBenchmark {
+
+    private static final String TEXT = "<gradient:#F5DEB3:#FFD700>Fishing</gradient> <gray>|</gray> <white>Progress: <green>|||||||||</green><red>|||</red></white>";
+
+    private AdventureManagerImpl adventureManager;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        BenchmarkEnvironment.setup();
+        // BukkitAudiences can't be created without a server, so only the parts needed for parsing are set
+        adventureManager = BenchmarkEnvironment.allocate(AdventureManagerImpl.class);
+        BenchmarkEnvironment.setField(AdventureManagerImpl.class, adventureManager, "textCache", new LinkedHashMap<>(256, 0.75f, true));
+        BenchmarkEnvironment.setField(AdventureManagerImpl.class, adventureManager, "cacheHits", new LongAdder());
+        BenchmarkEnvironment.setField(AdventureManagerImpl.class, adventureManager, "cacheMisses", new LongAdder());
+    }
+
+    @Benchmark
+    public Component getComponentFromMiniMessage() {
+        return adventureManager.getComponentFromMiniMessage(TEXT);
+    }
+
+    @Benchmark
+    public Component getComponentFromMiniMessageUncached() {
+        adventureManager.clearCache();
+        return adventureManager.getComponentFromMiniMessage(TEXT);
+    }
+
+    @Benchmark
+    public String getJsonFromMiniMessage() {
+        return adventureManager.getJsonFromMiniMessage(TEXT);
+    }
+}
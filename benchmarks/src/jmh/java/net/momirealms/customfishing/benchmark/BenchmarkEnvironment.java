@@ -0,0 +1,144 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.benchmark;
+
+import net.momirealms.customfishing.CustomFishingPluginImpl;
+import net.momirealms.customfishing.api.CustomFishingPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.java.JavaPlugin;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Sets up just enough of a server to run the plugin's hot paths without one.
+ * Bukkit interfaces are replaced by proxies answering from fixed values, and the plugin
+ * instance is allocated without running the JavaPlugin constructor, which requires a plugin class loader.
+ */
+public final class BenchmarkEnvironment {
+
+    private static CustomFishingPluginImpl plugin;
+    private static World world;
+
+    private BenchmarkEnvironment() {
+    }
+
+    public static synchronized CustomFishingPluginImpl setup() {
+        if (plugin != null) return plugin;
+        PluginManager pluginManager = stub(PluginManager.class, Map.of());
+        Server server = stub(Server.class, Map.of(
+                "getName", "Benchmark",
+                "getVersion", "benchmark",
+                "getBukkitVersion", "1.20.1-R0.1-SNAPSHOT",
+                "getLogger", Logger.getLogger("Benchmark"),
+                "getPluginManager", pluginManager,
+                "isPrimaryThread", true
+        ));
+        Bukkit.setServer(server);
+        world = stub(World.class, Map.of(
+                "getName", "world",
+                "getUID", UUID.nameUUIDFromBytes("world".getBytes()),
+                "getTime", 6000L,
+                "isClearWeather", true
+        ));
+        try {
+            plugin = (CustomFishingPluginImpl) unsafe().allocateInstance(CustomFishingPluginImpl.class);
+            setField(JavaPlugin.class, plugin, "description", new PluginDescriptionFile("CustomFishing", "benchmark", CustomFishingPluginImpl.class.getName()));
+            setField(CustomFishingPlugin.class, null, "instance", plugin);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to set up the plugin", e);
+        }
+        return plugin;
+    }
+
+    /**
+     * Creates a player standing at a location in the benchmark world.
+     *
+     * @param name The name of the player.
+     * @param x    The x coordinate.
+     * @param y    The y coordinate.
+     * @param z    The z coordinate.
+     * @return The player.
+     */
+    public static Player player(String name, double x, double y, double z) {
+        Location location = new Location(world, x, y, z);
+        return stub(Player.class, Map.of(
+                "getName", name,
+                "getUniqueId", UUID.nameUUIDFromBytes(name.getBytes()),
+                "getLocation", location,
+                "getWorld", world,
+                "isOnline", true
+        ));
+    }
+
+    /**
+     * Sets a field of the plugin or one of its managers, including private and final ones.
+     */
+    public static void setField(Class<?> owner, Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    /**
+     * Allocates an object without running its constructor.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T allocate(Class<T> type) throws ReflectiveOperationException {
+        return (T) unsafe().allocateInstance(type);
+    }
+
+    private static Unsafe unsafe() throws ReflectiveOperationException {
+        Field field = Unsafe.class.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        return (Unsafe) field.get(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Map<String, Object> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals" -> { return proxy == args[0]; }
+                case "hashCode" -> { return System.identityHashCode(proxy); }
+                case "toString" -> { return type.getSimpleName() + "Stub"; }
+            }
+            Object answer = answers.get(method.getName());
+            if (answer != null) return answer;
+            Class<?> returnType = method.getReturnType();
+            if (returnType == boolean.class) return false;
+            if (returnType == int.class) return 0;
+            if (returnType == long.class) return 0L;
+            if (returnType == double.class) return 0d;
+            if (returnType == float.class) return 0f;
+            if (returnType == short.class) return (short) 0;
+            if (returnType == byte.class) return (byte) 0;
+            if (returnType == char.class) return (char) 0;
+            return null;
+        });
+    }
+}
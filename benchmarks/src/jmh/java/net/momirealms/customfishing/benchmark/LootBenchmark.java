@@ -0,0 +1,96 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.benchmark;
+
+import net.momirealms.customfishing.CustomFishingPluginImpl;
+import net.momirealms.customfishing.api.CustomFishingPlugin;
+import net.momirealms.customfishing.api.common.Pair;
+import net.momirealms.customfishing.api.mechanic.condition.Condition;
+import net.momirealms.customfishing.api.mechanic.effect.FishingEffect;
+import net.momirealms.customfishing.api.mechanic.loot.WeightModifier;
+import net.momirealms.customfishing.api.mechanic.requirement.Requirement;
+import net.momirealms.customfishing.api.util.WeightUtils;
+import net.momirealms.customfishing.mechanic.loot.LootManagerImpl;
+import net.momirealms.customfishing.mechanic.requirement.RequirementManagerImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how loots are selected for a cast.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LootBenchmark {
+
+    @Param({"100", "1000"})
+    public int loots;
+
+    private RequirementManagerImpl requirementManager;
+    private LootManagerImpl lootManager;
+    private FishingEffect effect;
+    private Condition condition;
+    private Map<String, Double> weights;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        CustomFishingPluginImpl plugin = BenchmarkEnvironment.setup();
+        requirementManager = new RequirementManagerImpl(plugin);
+        lootManager = new LootManagerImpl(plugin);
+        BenchmarkEnvironment.setField(CustomFishingPlugin.class, plugin, "requirementManager", requirementManager);
+        BenchmarkEnvironment.setField(CustomFishingPlugin.class, plugin, "lootManager", lootManager);
+
+        Requirement[][] requirements = {
+                { requirementManager.getRequirement("world", List.of("world")) },
+                { requirementManager.getRequirement("ypos", List.of("0~128")) },
+                { requirementManager.getRequirement("time", List.of("0~12000")), requirementManager.getRequirement("weather", List.of("clear")) },
+                { requirementManager.getRequirement("!world", List.of("world_nether")) },
+                { requirementManager.getRequirement("weather", List.of("rain", "thunder")) }
+        };
+        List<Pair<String, WeightModifier>> modifiers = new ArrayList<>();
+        for (int i = 0; i < loots; i++) {
+            requirementManager.putLegacyLootToMap("loot_" + i, requirements[i % requirements.length], 1 + i % 10);
+            if (i % 10 == 0) {
+                modifiers.add(Pair.of("loot_" + i, (player, weight) -> weight * 1.5));
+            }
+        }
+        effect = new FishingEffect();
+        effect.addWeightModifier(modifiers);
+        condition = new Condition(BenchmarkEnvironment.player("Benchmark", 0, 64, 0));
+        weights = requirementManager.getLootWithWeight(condition);
+    }
+
+    @Benchmark
+    public Map<String, Double> getLootWithWeight() {
+        return requirementManager.getLootWithWeight(condition);
+    }
+
+    @Benchmark
+    public Map<String, Double> getPossibleLootKeysWithWeight() {
+        return lootManager.getPossibleLootKeysWithWeight(effect, condition);
+    }
+
+    @Benchmark
+    public String getRandom() {
+        return WeightUtils.getRandom(weights);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.benchmark;
+
+import net.momirealms.customfishing.compatibility.papi.PlaceholderManagerImpl;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures placeholder parsing for messages and formulas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlaceholderBenchmark {
+
+    private PlaceholderManagerImpl placeholderManager;
+    private Player player;
+    private Map<String, String> placeholders;
+
+    @Setup
+    public void setup() {
+        placeholderManager = new PlaceholderManagerImpl(BenchmarkEnvironment.setup());
+        player = BenchmarkEnvironment.player("Benchmark", 0, 64, 0);
+        placeholders = new HashMap<>(Map.of(
+                "{player}", "Benchmark",
+                "{nick}", "Benchmark",
+                "{loot}", "rubbish",
+                "{size}", "12.34",
+                "{score}", "56.78",
+                "{x}", "0.0",
+                "{y}", "64.0",
+                "{z}", "0.0"
+        ));
+    }
+
+    @Benchmark
+    public String parseMessage() {
+        return placeholderManager.parse(player, "<gray>[<gold>{player}</gold>] caught a <green>{loot}</green> of {size}cm at {x}, {y}, {z} ({score} points)", placeholders);
+    }
+
+    @Benchmark
+    public String parseFormula() {
+        return placeholderManager.parse(player, "{score} * 1.5 + {size} / 2", placeholders);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.benchmark;
+
+import net.momirealms.customfishing.mechanic.competition.ranking.LocalRankingImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures score updates and lookups of a local competition ranking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RankingBenchmark {
+
+    @Param({"100", "5000"})
+    public int players;
+
+    private LocalRankingImpl ranking;
+    private String[] names;
+
+    @Setup
+    public void setup() {
+        ranking = new LocalRankingImpl();
+        names = new String[players];
+        for (int i = 0; i < players; i++) {
+            names[i] = "player_" + i;
+            ranking.refreshData(names[i], ThreadLocalRandom.current().nextDouble(1000));
+        }
+    }
+
+    @Benchmark
+    public void refreshData() {
+        ranking.refreshData(names[ThreadLocalRandom.current().nextInt(players)], ThreadLocalRandom.current().nextDouble(10));
+    }
+
+    @Benchmark
+    public int getPlayerRank() {
+        return ranking.getPlayerRank(names[ThreadLocalRandom.current().nextInt(players)]);
+    }
+
+    @Benchmark
+    public String getPlayerAt() {
+        return ranking.getPlayerAt(1 + ThreadLocalRandom.current().nextInt(players));
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.benchmark;
+
+import net.momirealms.customfishing.api.data.EarningData;
+import net.momirealms.customfishing.api.data.InventoryData;
+import net.momirealms.customfishing.api.data.PlayerData;
+import net.momirealms.customfishing.api.data.StatisticData;
+import net.momirealms.customfishing.storage.StorageManagerImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the serialization of player data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StorageBenchmark {
+
+    private StorageManagerImpl storageManager;
+    private PlayerData playerData;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        storageManager = new StorageManagerImpl(BenchmarkEnvironment.setup());
+        HashMap<String, Integer> amounts = new HashMap<>();
+        HashMap<String, Float> sizes = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            amounts.put("loot_" + i, ThreadLocalRandom.current().nextInt(1, 500));
+            sizes.put("loot_" + i, ThreadLocalRandom.current().nextFloat() * 100);
+        }
+        // A bag with a few stacks is encoded to a few kilobytes
+        byte[] bag = new byte[4096];
+        ThreadLocalRandom.current().nextBytes(bag);
+        playerData = new PlayerData.Builder()
+                .setName("Benchmark")
+                .setStats(new StatisticData(amounts, sizes))
+                .setBagData(new InventoryData(Base64.getEncoder().encodeToString(bag), 27))
+                .setEarningData(new EarningData(1234.5, 20000))
+                .build();
+        bytes = storageManager.toBytes(playerData);
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        return storageManager.toBytes(playerData);
+    }
+
+    @Benchmark
+    public PlayerData fromBytes() {
+        return storageManager.fromBytes(bytes);
+    }
+}
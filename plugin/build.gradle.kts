@@ -73,9 +73,23 @@ dependencies {
 
     // local lib
     implementation(files("libs/BiomeAPI.jar"))
+
+    // test
+    testImplementation(platform("org.junit:junit-bom:5.10.1"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+// Tests run against the same APIs the server provides at runtime
+configurations.testImplementation {
+    extendsFrom(configurations.compileOnly.get())
 }
 
 tasks {
+    test {
+        useJUnitPlatform()
+    }
+
     shadowJar {
         relocate ("de.tr7zw.changeme", "net.momirealms.customfishing.libraries")
         relocate ("de.tr7zw.annotations", "net.momirealms.customfishing.libraries.annotations")
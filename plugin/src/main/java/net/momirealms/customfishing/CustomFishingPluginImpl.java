@@ -24,6 +24,7 @@ import de.tr7zw.changeme.nbtapi.utils.VersionChecker;
 import net.momirealms.customfishing.adventure.AdventureManagerImpl;
 import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.event.CustomFishingReloadEvent;
+import net.momirealms.customfishing.api.mechanic.condition.EquipmentCache;
 import net.momirealms.customfishing.api.util.LogUtils;
 import net.momirealms.customfishing.api.util.ReflectionUtils;
 import net.momirealms.customfishing.command.CommandManagerImpl;
@@ -44,6 +45,8 @@ import net.momirealms.customfishing.mechanic.loot.LootManagerImpl;
 import net.momirealms.customfishing.mechanic.market.MarketManagerImpl;
 import net.momirealms.customfishing.mechanic.misc.ChatCatcherManager;
 import net.momirealms.customfishing.mechanic.misc.CoolDownManager;
+import net.momirealms.customfishing.mechanic.registry.RegistryLoader;
+import net.momirealms.customfishing.mechanic.registry.RegistrySnapshot;
 import net.momirealms.customfishing.mechanic.requirement.RequirementManagerImpl;
 import net.momirealms.customfishing.mechanic.statistic.StatisticsManagerImpl;
 import net.momirealms.customfishing.mechanic.totem.TotemManagerImpl;
@@ -51,6 +54,7 @@ import net.momirealms.customfishing.scheduler.SchedulerImpl;
 import net.momirealms.customfishing.setting.CFConfig;
 import net.momirealms.customfishing.setting.CFLocale;
 import net.momirealms.customfishing.storage.StorageManagerImpl;
+import net.momirealms.customfishing.util.ExpressionCompiler;
 import net.momirealms.customfishing.version.VersionManagerImpl;
 import org.bstats.bukkit.Metrics;
 import org.bukkit.Bukkit;
@@ -153,6 +157,7 @@ public class CustomFishingPluginImpl extends CustomFishingPlugin {
     public void reload() {
         CFConfig.load();
         CFLocale.load();
+        ExpressionCompiler.clearCache();
         ((SchedulerImpl) this.scheduler).reload();
         ((RequirementManagerImpl) this.requirementManager).unload();
         ((RequirementManagerImpl) this.requirementManager).load();
@@ -162,13 +167,11 @@ public class CustomFishingPluginImpl extends CustomFishingPlugin {
         ((GameManagerImpl) this.gameManager).load();
         ((ItemManagerImpl) this.itemManager).unload();
         ((ItemManagerImpl) this.itemManager).load();
-        ((LootManagerImpl) this.lootManager).unload();
-        ((LootManagerImpl) this.lootManager).load();
+        this.reloadRegistries();
         ((FishingManagerImpl) this.fishingManager).unload();
         ((FishingManagerImpl) this.fishingManager).load();
         ((TotemManagerImpl) this.totemManager).unload();
         ((TotemManagerImpl) this.totemManager).load();
-        ((EffectManagerImpl) this.effectManager).unload();
         ((EffectManagerImpl) this.effectManager).load();
         ((MarketManagerImpl) this.marketManager).unload();
         ((MarketManagerImpl) this.marketManager).load();
@@ -198,6 +201,20 @@ public class CustomFishingPluginImpl extends CustomFishingPlugin {
         Bukkit.getPluginManager().callEvent(event);
     }
 
+    /**
+     * Parse the loots, effects and conditions and publish them at once.
+     * If anything goes wrong, the previous registries are kept.
+     * The other contents are reloaded in place by their managers afterwards.
+     */
+    private void reloadRegistries() {
+        try {
+            RegistrySnapshot.publish(new RegistryLoader(this).load());
+        } catch (RuntimeException e) {
+            LogUtils.warn("Failed to reload loots and effects. The previous configs are kept.", e);
+        }
+        EquipmentCache.clearCache();
+    }
+
     /**
      * Load plugin dependencies
      */
@@ -34,20 +34,33 @@ import net.momirealms.customfishing.api.util.LogUtils;
 import net.momirealms.customfishing.api.util.ReflectionUtils;
 import net.momirealms.customfishing.setting.CFConfig;
 import net.momirealms.customfishing.setting.CFLocale;
+import net.momirealms.customfishing.util.LruCache;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.ConsoleCommandSender;
 import org.bukkit.entity.Player;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.LongAdder;
 
 public class AdventureManagerImpl implements AdventureManager {
 
+    // Texts with placeholders parsed are mostly the same across recipients and ticks
+    private static final int MAX_CACHE_SIZE = 2048;
+    // Texts are parsed from the main thread, region threads and async tasks
+    private static final int CACHE_CONCURRENCY = 16;
+
     private final BukkitAudiences adventure;
     private static AdventureManager instance;
+    private final LruCache<String, ParsedText> textCache;
+    private final LongAdder cacheHits;
+    private final LongAdder cacheMisses;
 
     public AdventureManagerImpl(CustomFishingPlugin plugin) {
         this.adventure = BukkitAudiences.create(plugin);
+        this.textCache = new LruCache<>(MAX_CACHE_SIZE, CACHE_CONCURRENCY);
+        this.cacheHits = new LongAdder();
+        this.cacheMisses = new LongAdder();
         instance = this;
     }
 
@@ -65,11 +78,50 @@ public class AdventureManagerImpl implements AdventureManager {
         if (text == null) {
             return Component.empty();
         }
-        if (CFConfig.legacyColorSupport) {
-            return MiniMessage.miniMessage().deserialize(legacyToMiniMessage(text));
-        } else {
-            return MiniMessage.miniMessage().deserialize(text);
+        return getParsedText(text).component();
+    }
+
+    @Override
+    public String getJsonFromMiniMessage(String text) {
+        if (text == null) {
+            text = "";
+        }
+        return getParsedText(text).json();
+    }
+
+    private ParsedText getParsedText(String text) {
+        boolean legacy = CFConfig.legacyColorSupport;
+        ParsedText parsed = textCache.get(text);
+        if (parsed != null && parsed.legacy() == legacy) {
+            cacheHits.increment();
+            return parsed;
         }
+        cacheMisses.increment();
+        Component component = legacy
+                ? MiniMessage.miniMessage().deserialize(legacyToMiniMessage(text))
+                : MiniMessage.miniMessage().deserialize(text);
+        parsed = new ParsedText(component, legacy);
+        textCache.put(text, parsed);
+        return parsed;
+    }
+
+    /**
+     * Clear the cached components.
+     */
+    public void clearCache() {
+        textCache.clear();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    public int getCacheSize() {
+        return textCache.size();
     }
 
     @Override
@@ -102,16 +154,30 @@ public class AdventureManagerImpl implements AdventureManager {
 
     @Override
     public void sendTitle(Player player, String title, String subtitle, int in, int duration, int out) {
-        sendTitle(player, getComponentFromMiniMessage(title), getComponentFromMiniMessage(subtitle), in, duration, out);
+        sendTitleJson(player, getJsonFromMiniMessage(title), getJsonFromMiniMessage(subtitle), in, duration, out);
     }
 
     @Override
     public void sendTitle(Player player, Component title, Component subtitle, int in, int duration, int out) {
+        sendTitleJson(player, componentToJson(title), componentToJson(subtitle), in, duration, out);
+    }
+
+    /**
+     * Sends a title to a player from json texts that have already been parsed.
+     *
+     * @param player       The player to send the title to.
+     * @param titleJson    The title in json format.
+     * @param subtitleJson The subtitle in json format.
+     * @param in           The fade in time in ticks.
+     * @param duration     The stay time in ticks.
+     * @param out          The fade out time in ticks.
+     */
+    public void sendTitleJson(Player player, String titleJson, String subtitleJson, int in, int duration, int out) {
         try {
             PacketContainer titlePacket = new PacketContainer(PacketType.Play.Server.SET_TITLE_TEXT);
-            titlePacket.getModifier().write(0, getIChatComponent(componentToJson(title)));
+            titlePacket.getModifier().write(0, getIChatComponent(titleJson));
             PacketContainer subTitlePacket = new PacketContainer(PacketType.Play.Server.SET_SUBTITLE_TEXT);
-            subTitlePacket.getModifier().write(0, getIChatComponent(componentToJson(subtitle)));
+            subTitlePacket.getModifier().write(0, getIChatComponent(subtitleJson));
             PacketContainer timePacket = new PacketContainer(PacketType.Play.Server.SET_TITLES_ANIMATION);
             timePacket.getIntegers().write(0, in);
             timePacket.getIntegers().write(1, duration);
@@ -128,7 +194,7 @@ public class AdventureManagerImpl implements AdventureManager {
     public void sendActionbar(Player player, String s) {
         try {
             PacketContainer packet = new PacketContainer(PacketType.Play.Server.SET_ACTION_BAR_TEXT);
-            packet.getModifier().write(0, getIChatComponent(componentToJson(getComponentFromMiniMessage(s))));
+            packet.getModifier().write(0, getIChatComponent(getJsonFromMiniMessage(s)));
             CustomFishingPluginImpl.getProtocolManager().sendServerPacket(player, packet);
         } catch (InvocationTargetException | IllegalAccessException e) {
             LogUtils.warn("Error occurred when sending actionbar");
@@ -247,4 +313,38 @@ public class AdventureManagerImpl implements AdventureManager {
     public Object getIChatComponent(String json) throws InvocationTargetException, IllegalAccessException {
         return ReflectionUtils.iChatComponentMethod.invoke(null, json);
     }
+
+    /**
+     * A parsed text whose json is serialized the first time it's needed,
+     * since texts that are only sent as components never need it.
+     */
+    private static class ParsedText {
+
+        private final Component component;
+        private final boolean legacy;
+        private volatile String json;
+
+        private ParsedText(Component component, boolean legacy) {
+            this.component = component;
+            this.legacy = legacy;
+        }
+
+        public Component component() {
+            return component;
+        }
+
+        public boolean legacy() {
+            return legacy;
+        }
+
+        public String json() {
+            String result = json;
+            if (result == null) {
+                // Serializing is idempotent, so a race only costs a second serialization
+                result = GsonComponentSerializer.gson().serialize(component);
+                json = result;
+            }
+            return result;
+        }
+    }
 }
@@ -17,10 +17,10 @@
 
 package net.momirealms.customfishing.command.sub;
 
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import dev.jorel.commandapi.CommandAPICommand;
 import dev.jorel.commandapi.arguments.ArgumentSuggestions;
 import dev.jorel.commandapi.arguments.StringArgument;
@@ -36,17 +36,17 @@ import net.momirealms.customfishing.storage.method.database.sql.MySQLImpl;
 import net.momirealms.customfishing.storage.method.file.YAMLImpl;
 import net.momirealms.customfishing.util.CompletableFutures;
 import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -54,6 +54,10 @@ public class DataCommand {
 
     public static DataCommand INSTANCE = new DataCommand();
 
+    // Players are exported and imported in pages, so only one page of data is held in memory at a time
+    private static final int PAGE_SIZE = 500;
+    private static final long PROGRESS_INTERVAL = 3000;
+
     public CommandAPICommand getDataCommand() {
         return new CommandAPICommand("data")
                 .withSubcommands(
@@ -74,7 +78,6 @@ public class DataCommand {
                 });
     }
 
-    @SuppressWarnings("DuplicatedCode")
     private CommandAPICommand getExportLegacyCommand() {
         return new CommandAPICommand("export-legacy")
                 .withArguments(new StringArgument("method")
@@ -99,56 +102,15 @@ public class DataCommand {
                         }
 
                         dataStorageInterface.initialize();
-                        Set<UUID> uuids = dataStorageInterface.getUniqueUsers(true);
-                        Set<CompletableFuture<Void>> futures = new HashSet<>();
-                        AtomicInteger userCount = new AtomicInteger(0);
-                        Map<UUID, String> out = Collections.synchronizedMap(new TreeMap<>());
-
-                        for (UUID uuid : uuids) {
-                            futures.add(dataStorageInterface.getLegacyPlayerData(uuid).thenAccept(it -> {
-                                if (it.isPresent()) {
-                                    out.put(uuid, plugin.getStorageManager().toJson(it.get()));
-                                    userCount.incrementAndGet();
-                                }
-                            }));
-                        }
-
-                        CompletableFuture<Void> overallFuture = CompletableFutures.allOf(futures);
-
-                        while (true) {
-                            try {
-                                overallFuture.get(3, TimeUnit.SECONDS);
-                            } catch (InterruptedException | ExecutionException e) {
-                                e.printStackTrace();
-                                break;
-                            } catch (TimeoutException e) {
-                                LogUtils.info("Progress: " + userCount.get() + "/" + uuids.size());
-                                continue;
-                            }
-                            break;
-                        }
-
-                        JsonObject outJson = new JsonObject();
-                        for (Map.Entry<UUID, String> entry : out.entrySet()) {
-                            outJson.addProperty(entry.getKey().toString(), entry.getValue());
+                        try {
+                            exportData(sender, dataStorageInterface.getUniqueUsers(true), dataStorageInterface::getLegacyPlayerData);
+                        } finally {
+                            dataStorageInterface.disable();
                         }
-                        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd-HH-mm");
-                        String formattedDate = formatter.format(new Date());
-                        File outFile = new File(plugin.getDataFolder(), "exported-" + formattedDate + ".json.gz");
-                        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(outFile.toPath())), StandardCharsets.UTF_8))) {
-                            new GsonBuilder().disableHtmlEscaping().create().toJson(outJson, writer);
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-
-                        dataStorageInterface.disable();
-
-                        AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, "Completed.");
                     });
                 });
     }
 
-    @SuppressWarnings("DuplicatedCode")
     private CommandAPICommand getExportCommand() {
         return new CommandAPICommand("export")
                 .executesConsole((sender, args) -> {
@@ -162,56 +124,11 @@ public class DataCommand {
 
                         AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, "Starting <aqua>export</aqua>.");
                         DataStorageInterface dataStorageInterface = plugin.getStorageManager().getDataSource();
-
-                        Set<UUID> uuids = dataStorageInterface.getUniqueUsers(false);
-                        Set<CompletableFuture<Void>> futures = new HashSet<>();
-                        AtomicInteger userCount = new AtomicInteger(0);
-                        Map<UUID, String> out = Collections.synchronizedMap(new TreeMap<>());
-
-                        int amount = uuids.size();
-                        for (UUID uuid : uuids) {
-                            futures.add(dataStorageInterface.getPlayerData(uuid, false).thenAccept(it -> {
-                                if (it.isPresent()) {
-                                    out.put(uuid, plugin.getStorageManager().toJson(it.get()));
-                                    userCount.incrementAndGet();
-                                }
-                            }));
-                        }
-
-                        CompletableFuture<Void> overallFuture = CompletableFutures.allOf(futures);
-
-                        while (true) {
-                            try {
-                                overallFuture.get(3, TimeUnit.SECONDS);
-                            } catch (InterruptedException | ExecutionException e) {
-                                e.printStackTrace();
-                                break;
-                            } catch (TimeoutException e) {
-                                LogUtils.info("Progress: " + userCount.get() + "/" + amount);
-                                continue;
-                            }
-                            break;
-                        }
-
-                        JsonObject outJson = new JsonObject();
-                        for (Map.Entry<UUID, String> entry : out.entrySet()) {
-                            outJson.addProperty(entry.getKey().toString(), entry.getValue());
-                        }
-                        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd-HH-mm");
-                        String formattedDate = formatter.format(new Date());
-                        File outFile = new File(plugin.getDataFolder(), "exported-" + formattedDate + ".json.gz");
-                        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(outFile.toPath())), StandardCharsets.UTF_8))) {
-                            new GsonBuilder().disableHtmlEscaping().create().toJson(outJson, writer);
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-
-                        AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, "Completed.");
+                        exportData(sender, dataStorageInterface.getUniqueUsers(false), uuid -> dataStorageInterface.getPlayerData(uuid, false));
                     });
                 });
     }
 
-    @SuppressWarnings("DuplicatedCode")
     private CommandAPICommand getImportCommand() {
         return new CommandAPICommand("import")
                 .withArguments(new StringArgument("file"))
@@ -238,47 +155,141 @@ public class DataCommand {
                     plugin.getScheduler().runTaskAsync(() -> {
 
                         AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, "Starting <aqua>import</aqua>.");
+                        importData(sender, file);
+                    });
+                });
+    }
 
-                        JsonObject data;
-                        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file.toPath())), StandardCharsets.UTF_8))) {
-                            data = new GsonBuilder().disableHtmlEscaping().create().fromJson(reader, JsonObject.class);
-                        } catch (IOException e) {
-                            AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, "Error occurred when reading the backup file.");
-                            e.printStackTrace();
-                            return;
-                        }
-
-                        DataStorageInterface dataStorageInterface = plugin.getStorageManager().getDataSource();
-                        var entrySet = data.entrySet();
-                        int amount = entrySet.size();
-                        AtomicInteger userCount = new AtomicInteger(0);
-                        Set<CompletableFuture<Void>> futures = new HashSet<>();
-
-                        for (Map.Entry<String, JsonElement> entry : entrySet) {
-                            UUID uuid = UUID.fromString(entry.getKey());
-                            if (entry.getValue() instanceof JsonPrimitive primitive) {
-                                PlayerData playerData = plugin.getStorageManager().fromJson(primitive.getAsString());
-                                futures.add(dataStorageInterface.updateOrInsertPlayerData(uuid, playerData, true).thenAccept(it -> userCount.incrementAndGet()));
-                            }
-                        }
+    /**
+     * Exports the data of the given players to a new gzipped JSON file.
+     * The data is fetched and written page by page, and the file only gets its final name once it's complete.
+     *
+     * @param sender  The command sender to report to.
+     * @param users   The UUIDs of the players to export.
+     * @param fetcher The function fetching the data of a player.
+     */
+    private void exportData(CommandSender sender, Set<UUID> users, Function<UUID, CompletableFuture<Optional<PlayerData>>> fetcher) {
+        CustomFishingPlugin plugin = CustomFishingPlugin.get();
+        List<UUID> uuids = new ArrayList<>(users);
+        Collections.sort(uuids);
+        int amount = uuids.size();
+
+        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd-HH-mm");
+        String formattedDate = formatter.format(new Date());
+        File outFile = new File(plugin.getDataFolder(), "exported-" + formattedDate + ".json.gz");
+        File tempFile = new File(plugin.getDataFolder(), outFile.getName() + ".tmp");
+
+        int userCount = 0;
+        long lastReport = System.currentTimeMillis();
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(tempFile.toPath())), StandardCharsets.UTF_8)))) {
+            writer.beginObject();
+            for (int from = 0; from < amount; from += PAGE_SIZE) {
+                List<UUID> page = uuids.subList(from, Math.min(from + PAGE_SIZE, amount));
+                List<CompletableFuture<Optional<PlayerData>>> futures = new ArrayList<>(page.size());
+                for (UUID uuid : page) {
+                    futures.add(fetcher.apply(uuid));
+                }
+                // The next page is not requested until this one is written
+                for (int i = 0; i < page.size(); i++) {
+                    Optional<PlayerData> data = futures.get(i).join();
+                    if (data.isPresent()) {
+                        writer.name(page.get(i).toString()).value(plugin.getStorageManager().toJson(data.get()));
+                        userCount++;
+                    }
+                }
+                if (System.currentTimeMillis() - lastReport >= PROGRESS_INTERVAL) {
+                    lastReport = System.currentTimeMillis();
+                    LogUtils.info("Progress: " + Math.min(from + PAGE_SIZE, amount) + "/" + amount);
+                }
+            }
+            writer.endObject();
+        } catch (IOException | CompletionException e) {
+            AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, "Error occurred when exporting the data.");
+            e.printStackTrace();
+            tempFile.delete();
+            return;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), outFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, "Error occurred when saving the backup file.");
+            e.printStackTrace();
+            return;
+        }
+
+        LogUtils.info("Exported " + userCount + " players to " + outFile.getName());
+        AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, "Completed.");
+    }
 
-                        CompletableFuture<Void> overallFuture = CompletableFutures.allOf(futures);
+    /**
+     * Imports the data in a gzipped JSON file page by page.
+     * A checkpoint is saved after each page, so an interrupted import continues where it stopped when run again.
+     *
+     * @param sender The command sender to report to.
+     * @param file   The backup file.
+     */
+    private void importData(CommandSender sender, File file) {
+        CustomFishingPlugin plugin = CustomFishingPlugin.get();
+        DataStorageInterface dataStorageInterface = plugin.getStorageManager().getDataSource();
+        File checkpointFile = new File(file.getParentFile(), file.getName() + ".checkpoint");
+        int checkpoint = readCheckpoint(checkpointFile);
+        if (checkpoint > 0) {
+            AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, "Resuming from player <aqua>" + checkpoint + "</aqua>.");
+        }
+
+        int index = 0;
+        // The last checkpoint written, which is where the next run would continue from
+        int saved = checkpoint;
+        long lastReport = System.currentTimeMillis();
+        try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file.toPath())), StandardCharsets.UTF_8)))) {
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>(PAGE_SIZE);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                if (index++ < checkpoint || reader.peek() != JsonToken.STRING) {
+                    reader.skipValue();
+                    continue;
+                }
+                UUID uuid = UUID.fromString(key);
+                PlayerData playerData = plugin.getStorageManager().fromJson(reader.nextString());
+                futures.add(dataStorageInterface.updateOrInsertPlayerData(uuid, playerData, true));
+                if (futures.size() >= PAGE_SIZE) {
+                    // The next page is not read until this one is saved
+                    CompletableFutures.allOf(futures).join();
+                    futures.clear();
+                    writeCheckpoint(checkpointFile, index);
+                    saved = index;
+                    if (System.currentTimeMillis() - lastReport >= PROGRESS_INTERVAL) {
+                        lastReport = System.currentTimeMillis();
+                        LogUtils.info("Progress: " + index);
+                    }
+                }
+            }
+            reader.endObject();
+            CompletableFutures.allOf(futures).join();
+        } catch (IOException | JsonParseException | IllegalArgumentException | IllegalStateException | CompletionException e) {
+            AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, "Error occurred when importing player <aqua>" + index + "</aqua> of the backup file. Run the command again to continue from player <aqua>" + saved + "</aqua>.");
+            e.printStackTrace();
+            return;
+        }
+
+        checkpointFile.delete();
+        LogUtils.info("Imported " + file.getName() + " (" + index + " players)");
+        AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, "Completed.");
+    }
 
-                        while (true) {
-                            try {
-                                overallFuture.get(3, TimeUnit.SECONDS);
-                            } catch (InterruptedException | ExecutionException e) {
-                                e.printStackTrace();
-                                break;
-                            } catch (TimeoutException e) {
-                                LogUtils.info("Progress: " + userCount.get() + "/" + amount);
-                                continue;
-                            }
-                            break;
-                        }
+    private int readCheckpoint(File checkpointFile) {
+        if (!checkpointFile.exists()) return 0;
+        try {
+            return Integer.parseInt(Files.readString(checkpointFile.toPath(), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            LogUtils.warn("Failed to read " + checkpointFile.getName() + ". The import would start from the beginning.");
+            return 0;
+        }
+    }
 
-                        AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, "Completed.");
-                    });
-                });
+    private void writeCheckpoint(File checkpointFile, int index) throws IOException {
+        Files.writeString(checkpointFile.toPath(), String.valueOf(index), StandardCharsets.UTF_8);
     }
 }
@@ -33,6 +33,12 @@ import net.momirealms.customfishing.api.mechanic.condition.FishingPreparation;
 import net.momirealms.customfishing.api.mechanic.effect.EffectCarrier;
 import net.momirealms.customfishing.api.mechanic.effect.EffectModifier;
 import net.momirealms.customfishing.api.mechanic.effect.FishingEffect;
+import net.momirealms.customfishing.api.scheduler.TaskKind;
+import net.momirealms.customfishing.mechanic.fishing.FishingManagerImpl;
+import net.momirealms.customfishing.mechanic.fishing.HookTicker;
+import net.momirealms.customfishing.scheduler.SchedulerImpl;
+import net.momirealms.customfishing.storage.StorageManagerImpl;
+import net.momirealms.customfishing.storage.method.database.nosql.RedisManager;
 import net.momirealms.customfishing.util.ConfigUtils;
 import net.momirealms.customfishing.util.NBTUtils;
 import org.bukkit.Material;
@@ -56,7 +62,11 @@ public class DebugCommand {
                         getGroupCommand(),
                         getCategoryCommand(),
                         getNBTCommand(),
-                        getLocationCommand()
+                        getLocationCommand(),
+                        getHookTickerCommand(),
+                        getTextCacheCommand(),
+                        getThreadPoolCommand(),
+                        getRedisHandoffCommand()
                 );
     }
 
@@ -74,6 +84,71 @@ public class DebugCommand {
                 });
     }
 
+    public CommandAPICommand getHookTickerCommand() {
+        return new CommandAPICommand("hooks")
+                .executes((sender, arg) -> {
+                    HookTicker ticker = ((FishingManagerImpl) CustomFishingPlugin.get().getFishingManager()).getHookTicker();
+                    AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, String.format(
+                            "<white>Hook tasks: <gold>%d</gold> Timers: <gold>%d</gold> Tick cost: <gold>%.3fms</gold> (avg <gold>%.3fms</gold>)",
+                            ticker.getActiveTasks(),
+                            ticker.getActiveGroups(),
+                            ticker.getLastTickNanos() / 1_000_000d,
+                            ticker.getAverageTickNanos() / 1_000_000d
+                    ));
+                });
+    }
+
+    public CommandAPICommand getTextCacheCommand() {
+        return new CommandAPICommand("text-cache")
+                .executes((sender, arg) -> {
+                    AdventureManagerImpl manager = (AdventureManagerImpl) AdventureManagerImpl.getInstance();
+                    long hits = manager.getCacheHits();
+                    long misses = manager.getCacheMisses();
+                    AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, String.format(
+                            "<white>Cached texts: <gold>%d</gold> Hits: <gold>%d</gold> Misses: <gold>%d</gold> Hit rate: <gold>%.2f%%</gold>",
+                            manager.getCacheSize(),
+                            hits,
+                            misses,
+                            hits + misses == 0 ? 0d : hits * 100d / (hits + misses)
+                    ));
+                });
+    }
+
+    public CommandAPICommand getThreadPoolCommand() {
+        return new CommandAPICommand("thread-pools")
+                .executes((sender, arg) -> {
+                    SchedulerImpl scheduler = (SchedulerImpl) CustomFishingPlugin.get().getScheduler();
+                    for (TaskKind kind : TaskKind.values()) {
+                        AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, String.format(
+                                "<white>%s Threads: <gold>%d</gold> Active: <gold>%d</gold> Queued: <gold>%d</gold> Rejected: <gold>%d</gold>",
+                                kind.name(),
+                                scheduler.getPoolSize(kind),
+                                scheduler.getActiveCount(kind),
+                                scheduler.getQueueDepth(kind),
+                                scheduler.getRejectedCount(kind)
+                        ));
+                    }
+                });
+    }
+
+    public CommandAPICommand getRedisHandoffCommand() {
+        return new CommandAPICommand("redis-handoff")
+                .executes((sender, arg) -> {
+                    RedisManager redisManager = ((StorageManagerImpl) CustomFishingPlugin.get().getStorageManager()).getRedisManager();
+                    if (redisManager == null) {
+                        AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, "Redis is not enabled.");
+                        return;
+                    }
+                    AdventureManagerImpl.getInstance().sendMessageWithPrefix(sender, String.format(
+                            "<white>Handoffs: <gold>%d</gold> Fallbacks: <gold>%d</gold> Latency: <gold>%.1fms</gold> (avg <gold>%.1fms</gold>)",
+                            redisManager.getHandoffCount(),
+                            redisManager.getFallbackCount(),
+                            redisManager.getLastHandoffNanos() / 1_000_000d,
+                            redisManager.getAverageHandoffNanos() / 1_000_000d
+                    ));
+                });
+    }
+
     public CommandAPICommand getNBTCommand() {
         return new CommandAPICommand("nbt")
                 .executesPlayer((player, arg) -> {
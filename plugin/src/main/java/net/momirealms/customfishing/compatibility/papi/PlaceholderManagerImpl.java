@@ -20,7 +20,7 @@ package net.momirealms.customfishing.compatibility.papi;
 import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.manager.PlaceholderManager;
 import net.momirealms.customfishing.util.ConfigUtils;
-import net.objecthunter.exp4j.ExpressionBuilder;
+import net.momirealms.customfishing.util.ExpressionCompiler;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.configuration.ConfigurationSection;
@@ -158,16 +158,7 @@ public class PlaceholderManagerImpl implements PlaceholderManager {
     public String parse(@Nullable OfflinePlayer player, String text, Map<String, String> placeholders) {
         var list = detectPlaceholders(text);
         for (String papi : list) {
-            String replacer = null;
-            if (placeholders != null) {
-                replacer = placeholders.get(papi);
-            }
-            if (replacer == null) {
-                String custom = customPlaceholderMap.get(papi);
-                if (custom != null) {
-                    replacer = setPlaceholders(player, parse(player, custom, placeholders));
-                }
-            }
+            String replacer = resolvePlaceholder(player, papi, placeholders);
             if (replacer != null) {
                 text = text.replace(papi, replacer);
             }
@@ -175,6 +166,29 @@ public class PlaceholderManagerImpl implements PlaceholderManager {
         return text;
     }
 
+    /**
+     * Get the value that a placeholder would be replaced with when parsing a text.
+     *
+     * @param player       The offline player for whom the placeholders are being resolved (nullable).
+     * @param placeholder  The placeholder to look up.
+     * @param placeholders A map of placeholders to their corresponding values.
+     * @return The value, or null if the placeholder would be kept as it is.
+     */
+    @Nullable
+    public String resolvePlaceholder(@Nullable OfflinePlayer player, String placeholder, Map<String, String> placeholders) {
+        String replacer = null;
+        if (placeholders != null) {
+            replacer = placeholders.get(placeholder);
+        }
+        if (replacer == null) {
+            String custom = customPlaceholderMap.get(placeholder);
+            if (custom != null) {
+                replacer = setPlaceholders(player, parse(player, custom, placeholders));
+            }
+        }
+        return replacer;
+    }
+
     /**
      * Parse a list of text strings by replacing placeholders with their corresponding values.
      *
@@ -206,6 +220,6 @@ public class PlaceholderManagerImpl implements PlaceholderManager {
 
     @Override
     public double getExpressionValue(String formula) {
-        return new ExpressionBuilder(formula).build().evaluate();
+        return ExpressionCompiler.compile(formula).evaluate(null, null);
     }
 }
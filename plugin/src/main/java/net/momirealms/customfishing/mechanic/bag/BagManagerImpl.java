@@ -29,6 +29,7 @@ import net.momirealms.customfishing.api.mechanic.requirement.Requirement;
 import net.momirealms.customfishing.api.util.InventoryUtils;
 import net.momirealms.customfishing.compatibility.papi.PlaceholderManagerImpl;
 import net.momirealms.customfishing.setting.CFConfig;
+import net.momirealms.customfishing.setting.CFLocale;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
@@ -102,7 +103,7 @@ public class BagManagerImpl implements BagManager, Listener {
     @Override
     public Inventory getOnlineBagInventory(UUID uuid) {
         var onlinePlayer = plugin.getStorageManager().getOnlineUser(uuid);
-        if (onlinePlayer == null) {
+        if (onlinePlayer == null || !onlinePlayer.getHolder().isLoaded()) {
             return null;
         }
         Player player = onlinePlayer.getPlayer();
@@ -147,6 +148,10 @@ public class BagManagerImpl implements BagManager, Listener {
      */
     @Override
     public void editOfflinePlayerBag(Player admin, OfflineUser userData) {
+        if (!userData.getHolder().isLoaded()) {
+            AdventureManagerImpl.getInstance().sendMessageWithPrefix(admin, CFLocale.MSG_Data_Not_Loaded);
+            return;
+        }
         this.tempEditMap.put(admin.getUniqueId(), userData);
         admin.openInventory(userData.getHolder().getInventory());
     }
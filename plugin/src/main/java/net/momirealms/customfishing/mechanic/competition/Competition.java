@@ -154,6 +154,7 @@ public class Competition implements FishingCompetition {
         if (this.bossBarManager != null) this.bossBarManager.unload();
         if (this.actionBarManager != null) this.actionBarManager.unload();
         this.ranking.clear();
+        if (this.ranking instanceof RedisRankingImpl redisRanking) redisRanking.shutdown();
         this.remainingTime = 0;
 
         CompetitionEvent competitionEvent = new CompetitionEvent(CompetitionEvent.State.STOP, this);
@@ -217,7 +218,10 @@ public class Competition implements FishingCompetition {
         Bukkit.getPluginManager().callEvent(competitionEndEvent);
 
         // 1 seconds delay for other servers to read the redis data
-        CustomFishingPlugin.get().getScheduler().runTaskAsyncLater(this.ranking::clear, 1, TimeUnit.SECONDS);
+        CustomFishingPlugin.get().getScheduler().runTaskAsyncLater(() -> {
+            this.ranking.clear();
+            if (this.ranking instanceof RedisRankingImpl redisRanking) redisRanking.shutdown();
+        }, 1, TimeUnit.SECONDS);
     }
 
     /**
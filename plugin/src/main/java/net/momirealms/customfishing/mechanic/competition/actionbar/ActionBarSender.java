@@ -21,6 +21,7 @@ import net.momirealms.customfishing.adventure.AdventureManagerImpl;
 import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.mechanic.competition.ActionBarConfig;
 import net.momirealms.customfishing.api.scheduler.CancellableTask;
+import net.momirealms.customfishing.api.scheduler.TaskKind;
 import net.momirealms.customfishing.mechanic.competition.Competition;
 import net.momirealms.customfishing.mechanic.misc.DynamicText;
 import net.momirealms.customfishing.setting.CFLocale;
@@ -85,7 +86,7 @@ public class ActionBarSender {
      */
     public void show() {
         this.isShown = true;
-        senderTask = CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(() -> {
+        senderTask = CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(TaskKind.TICK, () -> {
             switchTimer++;
             if (switchTimer > config.getSwitchInterval()) {
                 switchTimer = 0;
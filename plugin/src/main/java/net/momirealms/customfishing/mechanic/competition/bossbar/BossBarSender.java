@@ -21,13 +21,12 @@ import com.comphenix.protocol.PacketType;
 import com.comphenix.protocol.events.InternalStructure;
 import com.comphenix.protocol.events.PacketContainer;
 import com.comphenix.protocol.wrappers.WrappedChatComponent;
-import net.kyori.adventure.text.minimessage.MiniMessage;
-import net.kyori.adventure.text.serializer.gson.GsonComponentSerializer;
 import net.momirealms.customfishing.CustomFishingPluginImpl;
 import net.momirealms.customfishing.adventure.AdventureManagerImpl;
 import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.mechanic.competition.BossBarConfig;
 import net.momirealms.customfishing.api.scheduler.CancellableTask;
+import net.momirealms.customfishing.api.scheduler.TaskKind;
 import net.momirealms.customfishing.api.util.ReflectionUtils;
 import net.momirealms.customfishing.mechanic.competition.Competition;
 import net.momirealms.customfishing.mechanic.misc.DynamicText;
@@ -99,7 +98,7 @@ public class BossBarSender {
     public void show() {
         this.isShown = true;
         CustomFishingPluginImpl.getProtocolManager().sendServerPacket(player, getCreatePacket());
-        senderTask = CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(() -> {
+        senderTask = CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(TaskKind.TICK, () -> {
             switchTimer++;
             if (switchTimer > config.getSwitchInterval()) {
                 switchTimer = 0;
@@ -151,10 +150,9 @@ public class BossBarSender {
         packet.getModifier().write(0, uuid);
         try {
             Object chatComponent = ReflectionUtils.iChatComponentMethod.invoke(null,
-            GsonComponentSerializer.gson().serialize(
-            AdventureManagerImpl.getInstance().getComponentFromMiniMessage(
+            AdventureManagerImpl.getInstance().getJsonFromMiniMessage(
             text.getLatestValue()
-            )));
+            ));
             Object updatePacket = ReflectionUtils.updateConstructor.newInstance(chatComponent);
             packet.getModifier().write(1, updatePacket);
         } catch (InvocationTargetException | IllegalAccessException | InstantiationException e) {
@@ -179,7 +177,7 @@ public class BossBarSender {
         PacketContainer packet = new PacketContainer(PacketType.Play.Server.BOSS);
         packet.getModifier().write(0, uuid);
         InternalStructure internalStructure = packet.getStructures().read(1);
-        internalStructure.getChatComponents().write(0, WrappedChatComponent.fromJson(GsonComponentSerializer.gson().serialize(MiniMessage.miniMessage().deserialize(texts[0].getLatestValue()))));
+        internalStructure.getChatComponents().write(0, WrappedChatComponent.fromJson(AdventureManagerImpl.getInstance().getJsonFromMiniMessage(texts[0].getLatestValue())));
         internalStructure.getFloat().write(0, competition.getProgress());
         internalStructure.getEnumModifier(BarColor.class, 2).write(0, config.getColor());
         internalStructure.getEnumModifier(BossBarConfig.Overlay.class, 3).write(0, config.getOverlay());
@@ -0,0 +1,217 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.competition.ranking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A sorted skip list where every link stores how many elements it skips,
+ * so that both looking up the rank of an element and the element at a rank take O(log n).
+ * Elements that compare as equal are not supported. This class is not thread-safe.
+ *
+ * @param <E> The type of the elements.
+ */
+public class IndexedSkipList<E> {
+
+    private static final int MAX_LEVEL = 32;
+
+    private final Comparator<? super E> comparator;
+    private final Node<E> head;
+    private int level;
+    private int size;
+
+    public IndexedSkipList(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        this.head = new Node<>(null, MAX_LEVEL);
+        this.clear();
+    }
+
+    /**
+     * Inserts an element at its sorted position.
+     *
+     * @param element The element to insert.
+     */
+    @SuppressWarnings("unchecked")
+    public void add(E element) {
+        Node<E>[] update = new Node[MAX_LEVEL];
+        int[] positions = new int[MAX_LEVEL];
+        Node<E> x = head;
+        int position = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && comparator.compare(x.next[i].value, element) < 0) {
+                position += x.width[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+            positions[i] = position;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                update[i] = head;
+                positions[i] = 0;
+                head.next[i] = null;
+                head.width[i] = size + 1;
+            }
+            level = nodeLevel;
+        }
+
+        Node<E> node = new Node<>(element, nodeLevel);
+        int offset = positions[0];
+        for (int i = 0; i < nodeLevel; i++) {
+            Node<E> previous = update[i];
+            int distance = offset - positions[i];
+            node.next[i] = previous.next[i];
+            node.width[i] = previous.width[i] - distance;
+            previous.next[i] = node;
+            previous.width[i] = distance + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].width[i]++;
+        }
+        size++;
+    }
+
+    /**
+     * Removes an element.
+     *
+     * @param element The element to remove.
+     * @return True if the element was found and removed, false otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean remove(E element) {
+        Node<E>[] update = new Node[MAX_LEVEL];
+        Node<E> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && comparator.compare(x.next[i].value, element) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        Node<E> target = x.next[0];
+        if (target == null || comparator.compare(target.value, element) != 0) {
+            return false;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == target) {
+                update[i].width[i] += target.width[i] - 1;
+                update[i].next[i] = target.next[i];
+            } else {
+                update[i].width[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Gets the 1-based rank of an element.
+     *
+     * @param element The element to look up.
+     * @return The rank of the element, or -1 if it's not in the list.
+     */
+    public int rankOf(E element) {
+        Node<E> x = head;
+        int position = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && comparator.compare(x.next[i].value, element) < 0) {
+                position += x.width[i];
+                x = x.next[i];
+            }
+        }
+        Node<E> next = x.next[0];
+        if (next == null || comparator.compare(next.value, element) != 0) {
+            return -1;
+        }
+        return position + 1;
+    }
+
+    /**
+     * Gets the element at a 1-based rank.
+     *
+     * @param rank The rank of the element.
+     * @return The element, or null if the rank is out of range.
+     */
+    public E get(int rank) {
+        if (rank < 1 || rank > size) return null;
+        Node<E> x = head;
+        int position = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && position + x.width[i] <= rank) {
+                position += x.width[i];
+                x = x.next[i];
+            }
+            if (position == rank) {
+                return x.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copies all the elements in order.
+     *
+     * @return A list of the elements.
+     */
+    public List<E> toList() {
+        List<E> list = new ArrayList<>(size);
+        for (Node<E> x = head.next[0]; x != null; x = x.next[0]) {
+            list.add(x.value);
+        }
+        return list;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(head.next, null);
+        Arrays.fill(head.width, 1);
+        this.level = 1;
+        this.size = 0;
+    }
+
+    private static int randomLevel() {
+        int random = ThreadLocalRandom.current().nextInt();
+        // Each level is taken with a probability of 1/2
+        return Math.min(MAX_LEVEL, Integer.numberOfTrailingZeros(random) + 1);
+    }
+
+    private static class Node<E> {
+
+        private final E value;
+        private final Node<E>[] next;
+        private final int[] width;
+
+        @SuppressWarnings("unchecked")
+        private Node(E value, int level) {
+            this.value = value;
+            this.next = new Node[level];
+            this.width = new int[level];
+        }
+    }
+}
@@ -25,13 +25,21 @@ import java.util.*;
 
 /**
  * Implementation of the Ranking interface that manages the ranking of competition players locally.
+ * Players are kept in an indexed skip list, so rank and position lookups take O(log n),
+ * and in a map for lookups by name.
  */
 public class LocalRankingImpl implements Ranking {
 
-    private final Set<CompetitionPlayer> competitionPlayers;
+    // Players with the same score and time are still distinct entries, so break ties by name
+    private static final Comparator<CompetitionPlayer> COMPARATOR = Comparator.<CompetitionPlayer>naturalOrder()
+            .thenComparing(CompetitionPlayer::getPlayer);
+
+    private final IndexedSkipList<CompetitionPlayer> competitionPlayers;
+    private final HashMap<String, CompetitionPlayer> playerMap;
 
     public LocalRankingImpl() {
-        competitionPlayers = Collections.synchronizedSet(new TreeSet<>());
+        competitionPlayers = new IndexedSkipList<>(COMPARATOR);
+        playerMap = new HashMap<>();
     }
 
     /**
@@ -40,7 +48,11 @@ public class LocalRankingImpl implements Ranking {
      * @param competitionPlayer The CompetitionPlayer to add.
      */
     @Override
-    public void addPlayer(CompetitionPlayer competitionPlayer) {
+    public synchronized void addPlayer(CompetitionPlayer competitionPlayer) {
+        CompetitionPlayer previous = playerMap.put(competitionPlayer.getPlayer(), competitionPlayer);
+        if (previous != null) {
+            competitionPlayers.remove(previous);
+        }
         competitionPlayers.add(competitionPlayer);
     }
 
@@ -50,8 +62,11 @@ public class LocalRankingImpl implements Ranking {
      * @param player player's name
      */
     @Override
-    public void removePlayer(String player) {
-        competitionPlayers.removeIf(e -> e.getPlayer().equals(player));
+    public synchronized void removePlayer(String player) {
+        CompetitionPlayer competitionPlayer = playerMap.remove(player);
+        if (competitionPlayer != null) {
+            competitionPlayers.remove(competitionPlayer);
+        }
     }
 
     /**
@@ -59,16 +74,19 @@ public class LocalRankingImpl implements Ranking {
      *
      * @param competitionPlayer The CompetitionPlayer to remove.
      */
-    public void removePlayer(CompetitionPlayer competitionPlayer) {
-        competitionPlayers.removeIf(e -> e.equals(competitionPlayer));
+    public synchronized void removePlayer(CompetitionPlayer competitionPlayer) {
+        if (playerMap.remove(competitionPlayer.getPlayer(), competitionPlayer)) {
+            competitionPlayers.remove(competitionPlayer);
+        }
     }
 
     /**
      * Clears the list of competition players.
      */
     @Override
-    public void clear() {
+    public synchronized void clear() {
         competitionPlayers.clear();
+        playerMap.clear();
     }
 
     /**
@@ -78,27 +96,13 @@ public class LocalRankingImpl implements Ranking {
      * @return The CompetitionPlayer object if found, or null if not found.
      */
     @Override
-    public CompetitionPlayer getCompetitionPlayer(String player) {
-        for (CompetitionPlayer competitionPlayer : competitionPlayers) {
-            if (competitionPlayer.getPlayer().equals(player)) {
-                return competitionPlayer;
-            }
-        }
-        return null;
+    public synchronized CompetitionPlayer getCompetitionPlayer(String player) {
+        return playerMap.get(player);
     }
 
     @Override
-    public CompetitionPlayer getCompetitionPlayer(int rank) {
-        int i = 1;
-        int size = getSize();
-        if (rank > size) return null;
-        for (CompetitionPlayer player : competitionPlayers) {
-            if (rank == i) {
-                return player;
-            }
-            i++;
-        }
-        return null;
+    public synchronized CompetitionPlayer getCompetitionPlayer(int rank) {
+        return competitionPlayers.get(rank);
     }
 
     /**
@@ -107,9 +111,9 @@ public class LocalRankingImpl implements Ranking {
      * @return An iterator for pairs of player names and scores.
      */
     @Override
-    public Iterator<Pair<String, Double>> getIterator() {
-        List<Pair<String, Double>> players = new ArrayList<>();
-        for (CompetitionPlayer competitionPlayer: competitionPlayers){
+    public synchronized Iterator<Pair<String, Double>> getIterator() {
+        List<Pair<String, Double>> players = new ArrayList<>(competitionPlayers.size());
+        for (CompetitionPlayer competitionPlayer : competitionPlayers.toList()) {
             players.add(Pair.of(competitionPlayer.getPlayer(), competitionPlayer.getScore()));
         }
         return players.iterator();
@@ -121,7 +125,7 @@ public class LocalRankingImpl implements Ranking {
      * @return The number of competition players.
      */
     @Override
-    public int getSize() {
+    public synchronized int getSize() {
         return competitionPlayers.size();
     }
 
@@ -132,16 +136,10 @@ public class LocalRankingImpl implements Ranking {
      * @return The rank of the player, or -1 if the player is not found.
      */
     @Override
-    public int getPlayerRank(String player) {
-        int index = 1;
-        for (CompetitionPlayer competitionPlayer : competitionPlayers) {
-            if (competitionPlayer.getPlayer().equals(player)) {
-                return index;
-            }else {
-                index++;
-            }
-        }
-        return -1;
+    public synchronized int getPlayerRank(String player) {
+        CompetitionPlayer competitionPlayer = playerMap.get(player);
+        if (competitionPlayer == null) return -1;
+        return competitionPlayers.rankOf(competitionPlayer);
     }
 
     /**
@@ -151,13 +149,10 @@ public class LocalRankingImpl implements Ranking {
      * @return The score of the player, or 0 if the player is not found.
      */
     @Override
-    public double getPlayerScore(String player) {
-        for (CompetitionPlayer competitionPlayer : competitionPlayers) {
-            if (competitionPlayer.getPlayer().equals(player)) {
-                return competitionPlayer.getScore();
-            }
-        }
-        return 0;
+    public synchronized double getPlayerScore(String player) {
+        CompetitionPlayer competitionPlayer = playerMap.get(player);
+        if (competitionPlayer == null) return 0;
+        return competitionPlayer.getScore();
     }
 
     /**
@@ -167,15 +162,10 @@ public class LocalRankingImpl implements Ranking {
      * @return The name of the player at the specified index, or null if not found.
      */
     @Override
-    public String getPlayerAt(int i) {
-        int index = 1;
-        for (CompetitionPlayer competitionPlayer : competitionPlayers) {
-            if (index == i) {
-                return competitionPlayer.getPlayer();
-            }
-            index++;
-        }
-        return null;
+    public synchronized String getPlayerAt(int i) {
+        CompetitionPlayer competitionPlayer = competitionPlayers.get(i);
+        if (competitionPlayer == null) return null;
+        return competitionPlayer.getPlayer();
     }
 
     /**
@@ -185,15 +175,10 @@ public class LocalRankingImpl implements Ranking {
      * @return The score of the player at the specified index, or 0 if not found.
      */
     @Override
-    public double getScoreAt(int i) {
-        int index = 1;
-        for (CompetitionPlayer competitionPlayer : competitionPlayers) {
-            if (index == i) {
-                return competitionPlayer.getScore();
-            }
-            index++;
-        }
-        return 0f;
+    public synchronized double getScoreAt(int i) {
+        CompetitionPlayer competitionPlayer = competitionPlayers.get(i);
+        if (competitionPlayer == null) return 0f;
+        return competitionPlayer.getScore();
     }
 
     /**
@@ -203,15 +188,15 @@ public class LocalRankingImpl implements Ranking {
      * @param score  The score to add to the player's existing score or set as their initial score.
      */
     @Override
-    public void refreshData(String player, double score) {
-        CompetitionPlayer competitionPlayer = getCompetitionPlayer(player);
+    public synchronized void refreshData(String player, double score) {
+        CompetitionPlayer competitionPlayer = playerMap.get(player);
         if (competitionPlayer != null) {
-            removePlayer(competitionPlayer);
+            // The position depends on the score, so it has to be unlinked before being modified
+            competitionPlayers.remove(competitionPlayer);
             competitionPlayer.addScore(score);
-            addPlayer(competitionPlayer);
+            competitionPlayers.add(competitionPlayer);
         } else {
-            competitionPlayer = new CompetitionPlayer(player, score);
-            addPlayer(competitionPlayer);
+            addPlayer(new CompetitionPlayer(player, score));
         }
     }
 
@@ -222,15 +207,14 @@ public class LocalRankingImpl implements Ranking {
      * @param score  The score to set for the player.
      */
     @Override
-    public void setData(String player, double score) {
-        CompetitionPlayer competitionPlayer = getCompetitionPlayer(player);
+    public synchronized void setData(String player, double score) {
+        CompetitionPlayer competitionPlayer = playerMap.get(player);
         if (competitionPlayer != null) {
-            removePlayer(competitionPlayer);
+            competitionPlayers.remove(competitionPlayer);
             competitionPlayer.setScore(score);
-            addPlayer(competitionPlayer);
+            competitionPlayers.add(competitionPlayer);
         } else {
-            competitionPlayer = new CompetitionPlayer(player, score);
-            addPlayer(competitionPlayer);
+            addPlayer(new CompetitionPlayer(player, score));
         }
     }
 }
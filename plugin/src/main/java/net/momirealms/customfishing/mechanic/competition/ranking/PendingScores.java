@@ -0,0 +1,134 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.competition.ranking;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The scores changed on this server that are not yet included in the local snapshot of a Redis ranking.
+ * Increments are kept apart from the score they apply to, because the score of a player outside
+ * a truncated snapshot is not known locally.
+ */
+class PendingScores {
+
+    private final ConcurrentHashMap<String, Entry> entries;
+    private final AtomicLong sequence;
+
+    PendingScores() {
+        this.entries = new ConcurrentHashMap<>();
+        this.sequence = new AtomicLong();
+    }
+
+    /**
+     * Adds to the score of a player.
+     *
+     * @param player    The name of the player.
+     * @param amount    The amount to add.
+     * @param knownBase The score of the player in the snapshot, or null if the snapshot doesn't tell.
+     * @return The sequence number of the write.
+     */
+    long increment(String player, double amount, @Nullable Double knownBase) {
+        long current = sequence.incrementAndGet();
+        entries.compute(player, (k, previous) -> previous == null
+                ? new Entry(knownBase, amount, current)
+                : new Entry(previous.base(), previous.delta() + amount, current));
+        return current;
+    }
+
+    /**
+     * Replaces the score of a player.
+     *
+     * @param player The name of the player.
+     * @param score  The new score.
+     * @return The sequence number of the write.
+     */
+    long set(String player, double score) {
+        long current = sequence.incrementAndGet();
+        entries.put(player, new Entry(score, 0, current));
+        return current;
+    }
+
+    /**
+     * Records the score stored in Redis right after a write has been applied.
+     * Writes made after that one are kept pending.
+     *
+     * @param player        The name of the player.
+     * @param storedScore   The score returned by Redis.
+     * @param writeSequence The sequence number of the write.
+     */
+    void confirm(String player, double storedScore, long writeSequence) {
+        entries.computeIfPresent(player, (k, entry) -> entry.sequence() <= writeSequence
+                ? new Entry(storedScore, 0, entry.sequence())
+                : entry);
+    }
+
+    /**
+     * Removes the entries whose writes are all included in a snapshot.
+     *
+     * @param includedSequence The sequence number of the last write included in the snapshot.
+     */
+    void removeIncluded(long includedSequence) {
+        entries.values().removeIf(entry -> entry.sequence() <= includedSequence);
+    }
+
+    @Nullable
+    Entry get(String player) {
+        return entries.get(player);
+    }
+
+    Set<String> players() {
+        return entries.keySet();
+    }
+
+    void remove(String player) {
+        entries.remove(player);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    /**
+     * The pending score of a player.
+     *
+     * @param base     The score the delta applies to, or null if it's the score stored in Redis.
+     * @param delta    The increments that are not included in the base.
+     * @param sequence The sequence number of the latest write.
+     */
+    record Entry(@Nullable Double base, double delta, long sequence) {
+
+        boolean isBaseKnown() {
+            return base != null;
+        }
+
+        /**
+         * Gets the current score of the player.
+         *
+         * @param storedScore The score stored in Redis, only used if the base is unknown.
+         * @return The score.
+         */
+        double score(@Nullable Double storedScore) {
+            if (base != null) return base + delta;
+            return (storedScore == null ? 0 : storedScore) + delta;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.competition.ranking;
+
+import org.jetbrains.annotations.Nullable;
+import redis.clients.jedis.resps.Tuple;
+
+import java.util.List;
+
+/**
+ * The Redis commands used by a shared ranking.
+ */
+interface RankingClient {
+
+    /**
+     * Applies batches of writes in order and optionally reads the top of the ranking, in one round trip.
+     * Each batch is applied at most once, even if it's sent again after an error that hid whether it was applied.
+     *
+     * @param key        The key of the ranking.
+     * @param batches    The batches to apply.
+     * @param refreshEnd The inclusive end index of the players to read, or null to skip reading them.
+     * @return The scores after the writes and the players read.
+     */
+    SyncResult sync(String key, List<WriteBatch> batches, @Nullable Long refreshEnd);
+
+    @Nullable
+    Double score(String key, String player);
+
+    @Nullable
+    Long rank(String key, String player);
+
+    List<Tuple> all(String key);
+
+    enum Operation {
+        INCREMENT,
+        SET,
+        REMOVE,
+        CLEAR
+    }
+
+    /**
+     * A change to the ranking.
+     *
+     * @param operation The operation.
+     * @param player    The name of the player, or an empty string to clear the ranking.
+     * @param score     The score to add or set.
+     * @param sequence  The sequence number of the write in {@link PendingScores}, or 0 if it has none.
+     */
+    record Write(Operation operation, String player, double score, long sequence) {
+    }
+
+    /**
+     * Writes applied together, identified so that they are never applied twice.
+     */
+    record WriteBatch(String id, List<Write> writes) {
+    }
+
+    /**
+     * @param scores The score of the player of each write after the batch, or null if the player is not ranked,
+     *               for each batch. Batches that had been applied before return the current scores.
+     * @param top    The top players, or null if they were not read.
+     * @param size   The number of players in the ranking, if the top players were read.
+     */
+    record SyncResult(List<List<Double>> scores, @Nullable List<Tuple> top, long size) {
+    }
+}
@@ -17,27 +17,154 @@
 
 package net.momirealms.customfishing.mechanic.competition.ranking;
 
+import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.common.Pair;
 import net.momirealms.customfishing.api.mechanic.competition.CompetitionPlayer;
 import net.momirealms.customfishing.api.mechanic.competition.Ranking;
+import net.momirealms.customfishing.api.scheduler.CancellableTask;
+import net.momirealms.customfishing.api.scheduler.TaskKind;
+import net.momirealms.customfishing.mechanic.competition.ranking.RankingClient.Operation;
+import net.momirealms.customfishing.mechanic.competition.ranking.RankingClient.SyncResult;
+import net.momirealms.customfishing.mechanic.competition.ranking.RankingClient.Write;
+import net.momirealms.customfishing.mechanic.competition.ranking.RankingClient.WriteBatch;
 import net.momirealms.customfishing.setting.CFConfig;
 import net.momirealms.customfishing.storage.method.database.nosql.RedisManager;
+import org.jetbrains.annotations.Nullable;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.resps.Tuple;
 
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * Implementation of the Ranking interface that shares the ranking between servers through Redis.
+ * Reads are served from a local snapshot of the top players that is refreshed every
+ * {@link CFConfig#redisRankingRefreshInterval} milliseconds, and score updates are sent
+ * in one pipeline per tick together with the snapshot refresh.
+ * Updates that might have been applied before an error are sent again as the same batch, which
+ * Redis applies at most once, so scores are never counted twice and updates are never reordered.
+ */
 public class RedisRankingImpl implements Ranking {
 
+    private final RankingClient client;
+    private final String key;
+    private final Logger logger;
+    private final ConcurrentLinkedQueue<Write> pendingWrites;
+    // Batches that were sent but not confirmed, sent again before the new writes
+    private final List<WriteBatch> unconfirmedBatches;
+    private final PendingScores localScores;
+    private CancellableTask flushTask;
+    private volatile Snapshot snapshot;
+    private long lastRefreshTime;
+    private long flushedSequence;
+
+    public RedisRankingImpl() {
+        this(new JedisRankingClient(), "cf_competition_" + CFConfig.serverGroup, CustomFishingPlugin.get().getLogger());
+        this.flushTask = CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(TaskKind.IO, () -> sync(false), 50, 50, TimeUnit.MILLISECONDS);
+    }
+
+    RedisRankingImpl(RankingClient client, String key, Logger logger) {
+        this.client = client;
+        this.key = key;
+        this.logger = logger;
+        this.pendingWrites = new ConcurrentLinkedQueue<>();
+        this.unconfirmedBatches = new ArrayList<>();
+        this.localScores = new PendingScores();
+        this.snapshot = Snapshot.EMPTY;
+    }
+
+    /**
+     * Stops the flush task after sending the pending updates to Redis.
+     */
+    public void shutdown() {
+        if (flushTask != null && !flushTask.isCancelled()) flushTask.cancel();
+        sync(false);
+    }
+
+    /**
+     * Sends pending updates to Redis and refreshes the local snapshot if it's outdated.
+     *
+     * @param forceRefresh Whether to refresh the snapshot regardless of its age.
+     */
+    synchronized void sync(boolean forceRefresh) {
+        List<Write> writes = new ArrayList<>();
+        Write write;
+        while ((write = pendingWrites.poll()) != null) {
+            writes.add(write);
+        }
+        if (!writes.isEmpty()) {
+            unconfirmedBatches.add(new WriteBatch(UUID.randomUUID().toString(), writes));
+        }
+        long now = System.currentTimeMillis();
+        boolean refresh = forceRefresh || now - lastRefreshTime >= CFConfig.redisRankingRefreshInterval;
+        if (unconfirmedBatches.isEmpty() && !refresh) {
+            return;
+        }
+
+        List<WriteBatch> batches = List.copyOf(unconfirmedBatches);
+        SyncResult result;
+        try {
+            result = client.sync(key, batches, refresh ? getSnapshotEnd(CFConfig.redisRankingSnapshotSize) : null);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Failed to sync competition ranking with redis", e);
+            // The batches are kept to be sent again, and the refresh is not retried on every tick
+            this.lastRefreshTime = now;
+            return;
+        }
+        unconfirmedBatches.clear();
+        // The stored scores are now known, even for players outside the snapshot
+        for (int i = 0; i < batches.size(); i++) {
+            List<Write> batch = batches.get(i).writes();
+            List<Double> scores = result.scores().get(i);
+            for (int j = 0; j < batch.size(); j++) {
+                Write applied = batch.get(j);
+                this.flushedSequence = Math.max(applied.sequence(), this.flushedSequence);
+                Double score = scores.get(j);
+                if (applied.sequence() != 0 && score != null) {
+                    localScores.confirm(applied.player(), score, applied.sequence());
+                }
+            }
+        }
+        if (result.top() != null) {
+            this.snapshot = new Snapshot(result.top(), result.size());
+            this.lastRefreshTime = now;
+            // Scores written before this refresh are now included in the snapshot
+            localScores.removeIncluded(this.flushedSequence);
+        }
+    }
+
+    private void queueWrite(String player, double score, boolean increment) {
+        long current = increment
+                ? localScores.increment(player, score, snapshot.getKnownScore(player))
+                : localScores.set(player, score);
+        pendingWrites.add(new Write(increment ? Operation.INCREMENT : Operation.SET, player, score, current));
+    }
+
+    /**
+     * Gets the end index of the snapshot range.
+     *
+     * @param snapshotSize The configured snapshot size, or -1 to keep all the players.
+     * @return The inclusive end index for ZREVRANGE.
+     */
+    static long getSnapshotEnd(int snapshotSize) {
+        return snapshotSize < 0 ? -1 : snapshotSize - 1L;
+    }
+
     /**
      * Clears the ranking data by removing all players and scores.
      */
     @Override
-    public void clear() {
-        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            jedis.del("cf_competition_" + CFConfig.serverGroup);
-        }
+    public synchronized void clear() {
+        pendingWrites.clear();
+        localScores.clear();
+        pendingWrites.add(new Write(Operation.CLEAR, "", 0, 0));
+        this.snapshot = Snapshot.EMPTY;
+        this.lastRefreshTime = System.currentTimeMillis();
     }
 
     /**
@@ -48,47 +175,42 @@ public class RedisRankingImpl implements Ranking {
      */
     @Override
     public CompetitionPlayer getCompetitionPlayer(String player) {
-        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            Double score = jedis.zscore("cf_competition_" + CFConfig.serverGroup, player);
-            if (score == null || score == 0) return null;
-            return new CompetitionPlayer(player, Float.parseFloat(score.toString()));
-        }
+        Double score = getScoreOrNull(player);
+        if (score == null || score == 0) return null;
+        return new CompetitionPlayer(player, score);
     }
 
     @Override
     public CompetitionPlayer getCompetitionPlayer(int rank) {
-        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            List<Tuple> player = jedis.zrevrangeWithScores("cf_competition_" + CFConfig.serverGroup, rank - 1, rank -1);
-            if (player == null || player.size() == 0) return null;
-            return new CompetitionPlayer(player.get(0).getElement(), player.get(0).getScore());
-        }
+        Snapshot current = snapshot;
+        if (rank < 1 || rank > current.players.length) return null;
+        return new CompetitionPlayer(current.players[rank - 1], current.scores[rank - 1]);
     }
 
     @Override
     public void addPlayer(CompetitionPlayer competitionPlayer) {
-        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            jedis.zincrby("cf_competition_" + CFConfig.serverGroup, competitionPlayer.getScore(), competitionPlayer.getPlayer());
-        }
+        queueWrite(competitionPlayer.getPlayer(), competitionPlayer.getScore(), true);
     }
 
     @Override
-    public void removePlayer(String player) {
-        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            jedis.zrem("cf_competition_" + CFConfig.serverGroup, player);
-        }
+    public synchronized void removePlayer(String player) {
+        localScores.remove(player);
+        pendingWrites.add(new Write(Operation.REMOVE, player, 0, 0));
+        // Make sure the removed player disappears from the snapshot on next tick
+        this.lastRefreshTime = 0;
     }
 
     /**
      * Returns an iterator for iterating over pairs of player names and scores in descending order.
+     * Unlike other queries, this one always reads the latest data from Redis.
      *
      * @return An iterator for pairs of player names and scores.
      */
     @Override
     public Iterator<Pair<String, Double>> getIterator() {
-        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            List<Tuple> players = jedis.zrevrangeWithScores("cf_competition_" + CFConfig.serverGroup, 0, -1);
-            return players.stream().map(it -> Pair.of(it.getElement(), it.getScore())).toList().iterator();
-        }
+        sync(false);
+        List<Tuple> players = client.all(key);
+        return players.stream().map(it -> Pair.of(it.getElement(), it.getScore())).toList().iterator();
     }
 
     /**
@@ -98,10 +220,14 @@ public class RedisRankingImpl implements Ranking {
      */
     @Override
     public int getSize() {
-        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            long size = jedis.zcard("cf_competition_" + CFConfig.serverGroup);
-            return (int) size;
+        Snapshot current = snapshot;
+        int size = (int) current.size;
+        for (String player : localScores.players()) {
+            if (!current.ranks.containsKey(player)) {
+                size++;
+            }
         }
+        return size;
     }
 
     /**
@@ -112,12 +238,25 @@ public class RedisRankingImpl implements Ranking {
      */
     @Override
     public int getPlayerRank(String player) {
-        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            Long rank = jedis.zrevrank("cf_competition_" + CFConfig.serverGroup, player);
-            if (rank == null)
-                return -1;
-            return (int) (rank + 1);
+        Snapshot current = snapshot;
+        if (localScores.get(player) != null) {
+            Double score = getScoreOrNull(player);
+            if (score != null) {
+                // The player's score has changed since the last refresh, so estimate the rank from the snapshot
+                return current.countHigherThan(score, player) + 1;
+            }
+        }
+        Integer index = current.ranks.get(player);
+        if (index != null) {
+            return index + 1;
         }
+        if (!current.isTruncated()) {
+            return -1;
+        }
+        Long rank = client.rank(key, player);
+        if (rank == null)
+            return -1;
+        return (int) (rank + 1);
     }
 
     /**
@@ -128,12 +267,36 @@ public class RedisRankingImpl implements Ranking {
      */
     @Override
     public double getPlayerScore(String player) {
-        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            Double rank = jedis.zscore("cf_competition_" + CFConfig.serverGroup, player);
-            if (rank == null)
-                return 0;
-            return rank.floatValue();
+        Double score = getScoreOrNull(player);
+        if (score == null)
+            return 0;
+        return score;
+    }
+
+    private Double getScoreOrNull(String player) {
+        PendingScores.Entry entry = localScores.get(player);
+        if (entry != null) {
+            if (entry.isBaseKnown()) {
+                return entry.score(null);
+            }
+            // Hold the lock so that the increments can't be flushed between reading them and the stored score
+            synchronized (this) {
+                entry = localScores.get(player);
+                if (entry != null) {
+                    if (entry.isBaseKnown()) return entry.score(null);
+                    return entry.score(client.score(key, player));
+                }
+            }
+        }
+        Snapshot current = snapshot;
+        Integer index = current.ranks.get(player);
+        if (index != null) {
+            return current.scores[index];
+        }
+        if (!current.isTruncated()) {
+            return null;
         }
+        return client.score(key, player);
     }
 
     /**
@@ -144,9 +307,7 @@ public class RedisRankingImpl implements Ranking {
      */
     @Override
     public void refreshData(String player, double score) {
-        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            jedis.zincrby("cf_competition_" + CFConfig.serverGroup, score, player);
-        }
+        queueWrite(player, score, true);
     }
 
     /**
@@ -157,9 +318,7 @@ public class RedisRankingImpl implements Ranking {
      */
     @Override
     public void setData(String player, double score) {
-        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            jedis.zadd("cf_competition_" + CFConfig.serverGroup, score, player);
-        }
+        queueWrite(player, score, false);
     }
 
     /**
@@ -170,11 +329,9 @@ public class RedisRankingImpl implements Ranking {
      */
     @Override
     public String getPlayerAt(int rank) {
-        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            List<String> player = jedis.zrevrange("cf_competition_" + CFConfig.serverGroup, rank - 1, rank -1);
-            if (player == null || player.size() == 0) return null;
-            return player.get(0);
-        }
+        Snapshot current = snapshot;
+        if (rank < 1 || rank > current.players.length) return null;
+        return current.players[rank - 1];
     }
 
     /**
@@ -185,10 +342,158 @@ public class RedisRankingImpl implements Ranking {
      */
     @Override
     public double getScoreAt(int rank) {
-        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            List<Tuple> players = jedis.zrevrangeWithScores("cf_competition_" + CFConfig.serverGroup, rank - 1, rank -1);
-            if (players == null || players.size() == 0) return 0;
-            return players.get(0).getScore();
+        Snapshot current = snapshot;
+        if (rank < 1 || rank > current.scores.length) return 0;
+        return current.scores[rank - 1];
+    }
+
+
+    /**
+     * A read-only copy of the top players in the ranking.
+     */
+    private static class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(List.of(), 0);
+
+        private final String[] players;
+        private final double[] scores;
+        private final HashMap<String, Integer> ranks;
+        private final long size;
+
+        private Snapshot(List<Tuple> tuples, long size) {
+            this.players = new String[tuples.size()];
+            this.scores = new double[tuples.size()];
+            this.ranks = new HashMap<>(tuples.size() * 4 / 3 + 1);
+            for (int i = 0; i < tuples.size(); i++) {
+                Tuple tuple = tuples.get(i);
+                players[i] = tuple.getElement();
+                scores[i] = tuple.getScore();
+                ranks.put(players[i], i);
+            }
+            this.size = size;
+        }
+
+        private boolean isTruncated() {
+            return size > players.length;
+        }
+
+        /**
+         * Gets the score of a player if the snapshot tells it.
+         *
+         * @return The score, 0 if the player is not ranked at all, or null if the player might be outside the snapshot.
+         */
+        private Double getKnownScore(String player) {
+            Integer index = ranks.get(player);
+            if (index != null) return scores[index];
+            return isTruncated() ? null : 0d;
+        }
+
+        /**
+         * Counts the players with a higher score through binary search on the descending scores.
+         */
+        private int countHigherThan(double score, String except) {
+            int low = 0, high = scores.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (scores[middle] > score) low = middle + 1;
+                else high = middle;
+            }
+            Integer index = ranks.get(except);
+            if (index != null && index < low) {
+                low--;
+            }
+            return low;
+        }
+    }
+
+    /**
+     * The ranking commands sent through the Redis connection pool.
+     */
+    private static class JedisRankingClient implements RankingClient {
+
+        // Applies a batch unless its marker shows it was applied before, in which case the current scores are returned
+        private static final String APPLY_SCRIPT = """
+                local results = {}
+                if redis.call('SET', KEYS[2], '1', 'NX', 'EX', ARGV[1]) then
+                    for i = 2, #ARGV, 3 do
+                        local operation, score, player = ARGV[i], ARGV[i + 1], ARGV[i + 2]
+                        if operation == 'INCREMENT' then
+                            results[#results + 1] = redis.call('ZINCRBY', KEYS[1], score, player)
+                        elseif operation == 'SET' then
+                            redis.call('ZADD', KEYS[1], score, player)
+                            results[#results + 1] = redis.call('ZSCORE', KEYS[1], player)
+                        elseif operation == 'REMOVE' then
+                            redis.call('ZREM', KEYS[1], player)
+                            results[#results + 1] = false
+                        else
+                            redis.call('DEL', KEYS[1])
+                            results[#results + 1] = false
+                        end
+                    end
+                else
+                    for i = 2, #ARGV, 3 do
+                        results[#results + 1] = redis.call('ZSCORE', KEYS[1], ARGV[i + 2])
+                    end
+                end
+                return results
+                """;
+        // Batches are sent again for as long as Redis can't be reached, so markers are kept for a while
+        private static final String BATCH_MARKER_SECONDS = "86400";
+
+        @Override
+        public SyncResult sync(String key, List<WriteBatch> batches, @Nullable Long refreshEnd) {
+            try (Jedis jedis = RedisManager.getInstance().getJedis()) {
+                Pipeline pipeline = jedis.pipelined();
+                List<Response<Object>> applied = new ArrayList<>(batches.size());
+                for (WriteBatch batch : batches) {
+                    List<String> args = new ArrayList<>(batch.writes().size() * 3 + 1);
+                    args.add(BATCH_MARKER_SECONDS);
+                    for (Write write : batch.writes()) {
+                        args.add(write.operation().name());
+                        args.add(String.valueOf(write.score()));
+                        args.add(write.player());
+                    }
+                    applied.add(pipeline.eval(APPLY_SCRIPT, List.of(key, key + ":batch:" + batch.id()), args));
+                }
+                Response<List<Tuple>> top = null;
+                Response<Long> size = null;
+                if (refreshEnd != null) {
+                    top = pipeline.zrevrangeWithScores(key, 0, refreshEnd);
+                    size = pipeline.zcard(key);
+                }
+                pipeline.sync();
+                List<List<Double>> scores = new ArrayList<>(batches.size());
+                for (Response<Object> response : applied) {
+                    List<?> values = (List<?>) response.get();
+                    List<Double> batchScores = new ArrayList<>(values.size());
+                    for (Object value : values) {
+                        batchScores.add(value == null ? null : Double.parseDouble(value.toString()));
+                    }
+                    scores.add(batchScores);
+                }
+                return new SyncResult(scores, top == null ? null : top.get(), size == null ? 0 : size.get());
+            }
+        }
+
+        @Override
+        public Double score(String key, String player) {
+            try (Jedis jedis = RedisManager.getInstance().getJedis()) {
+                return jedis.zscore(key, player);
+            }
+        }
+
+        @Override
+        public Long rank(String key, String player) {
+            try (Jedis jedis = RedisManager.getInstance().getJedis()) {
+                return jedis.zrevrank(key, player);
+            }
+        }
+
+        @Override
+        public List<Tuple> all(String key) {
+            try (Jedis jedis = RedisManager.getInstance().getJedis()) {
+                return jedis.zrevrangeWithScores(key, 0, -1);
+            }
         }
     }
 }
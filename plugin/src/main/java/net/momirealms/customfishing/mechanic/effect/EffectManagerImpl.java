@@ -22,12 +22,14 @@ import net.momirealms.customfishing.api.common.Key;
 import net.momirealms.customfishing.api.common.Pair;
 import net.momirealms.customfishing.api.manager.EffectManager;
 import net.momirealms.customfishing.api.mechanic.GlobalSettings;
+import net.momirealms.customfishing.api.mechanic.condition.EquipmentCache;
 import net.momirealms.customfishing.api.mechanic.effect.EffectCarrier;
 import net.momirealms.customfishing.api.mechanic.effect.EffectModifier;
 import net.momirealms.customfishing.api.mechanic.effect.FishingEffect;
 import net.momirealms.customfishing.api.mechanic.loot.WeightModifier;
 import net.momirealms.customfishing.api.mechanic.requirement.Requirement;
 import net.momirealms.customfishing.api.util.LogUtils;
+import net.momirealms.customfishing.mechanic.registry.RegistrySnapshot;
 import net.momirealms.customfishing.util.ConfigUtils;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -41,15 +43,12 @@ public class EffectManagerImpl implements EffectManager {
 
     private final CustomFishingPlugin plugin;
 
-    private final HashMap<Key, EffectCarrier> effectMap;
-
     public EffectManagerImpl(CustomFishingPlugin plugin) {
         this.plugin = plugin;
-        this.effectMap = new HashMap<>();
     }
 
     public void disable() {
-        this.effectMap.clear();
+        RegistrySnapshot.clear();
     }
 
     /**
@@ -61,9 +60,18 @@ public class EffectManagerImpl implements EffectManager {
      */
     @Override
     public boolean registerEffectCarrier(Key key, EffectCarrier effect) {
-        if (effectMap.containsKey(key)) return false;
-        this.effectMap.put(key, effect);
-        return true;
+        boolean[] registered = new boolean[1];
+        RegistrySnapshot.update(snapshot -> {
+            if (hasEffectCarrier(snapshot, key)) return snapshot;
+            HashMap<String, Map<String, EffectCarrier>> effects = new HashMap<>(snapshot.effects());
+            HashMap<String, EffectCarrier> carriers = new HashMap<>(effects.getOrDefault(key.namespace(), Map.of()));
+            carriers.put(key.value(), effect);
+            effects.put(key.namespace(), carriers);
+            registered[0] = true;
+            return snapshot.withEffects(effects);
+        });
+        if (registered[0]) EquipmentCache.clearCache();
+        return registered[0];
     }
 
     /**
@@ -74,7 +82,23 @@ public class EffectManagerImpl implements EffectManager {
      */
     @Override
     public boolean unregisterEffectCarrier(Key key) {
-        return this.effectMap.remove(key) != null;
+        boolean[] unregistered = new boolean[1];
+        RegistrySnapshot.update(snapshot -> {
+            if (!hasEffectCarrier(snapshot, key)) return snapshot;
+            HashMap<String, Map<String, EffectCarrier>> effects = new HashMap<>(snapshot.effects());
+            HashMap<String, EffectCarrier> carriers = new HashMap<>(effects.get(key.namespace()));
+            carriers.remove(key.value());
+            effects.put(key.namespace(), carriers);
+            unregistered[0] = true;
+            return snapshot.withEffects(effects);
+        });
+        if (unregistered[0]) EquipmentCache.clearCache();
+        return unregistered[0];
+    }
+
+    private static boolean hasEffectCarrier(RegistrySnapshot snapshot, Key key) {
+        Map<String, EffectCarrier> carriers = snapshot.effects().get(key.namespace());
+        return carriers != null && carriers.containsKey(key.value());
     }
 
     /**
@@ -86,7 +110,7 @@ public class EffectManagerImpl implements EffectManager {
      */
     @Override
     public boolean hasEffectCarrier(String namespace, String id) {
-        return effectMap.containsKey(Key.of(namespace, id));
+        return getEffectCarrier(namespace, id) != null;
     }
 
     /**
@@ -99,61 +123,34 @@ public class EffectManagerImpl implements EffectManager {
     @Nullable
     @Override
     public EffectCarrier getEffectCarrier(String namespace, String id) {
-        return effectMap.get(Key.of(namespace, id));
+        Map<String, EffectCarrier> carriers = RegistrySnapshot.get().effects().get(namespace);
+        if (carriers == null) return null;
+        return carriers.get(id);
     }
 
     public void load() {
-        this.loadFiles();
         this.loadGlobalEffects();
     }
 
     /**
-     * Loads EffectCarrier configurations from YAML files in different content folders.
-     * EffectCarrier configurations are organized by type (rod, bait, enchant, util, totem, hook) in separate folders.
-     * Each YAML file within these folders is processed to populate the effectMap.
-     */
-    @SuppressWarnings("DuplicatedCode")
-    private void loadFiles() {
-        Deque<File> fileDeque = new ArrayDeque<>();
-        for (String type : List.of("rod", "bait", "enchant", "util", "totem", "hook")) {
-            File typeFolder = new File(plugin.getDataFolder() + File.separator + "contents" + File.separator + type);
-            if (!typeFolder.exists()) {
-                if (!typeFolder.mkdirs()) return;
-                plugin.saveResource("contents" + File.separator + type + File.separator + "default.yml", false);
-            }
-            fileDeque.push(typeFolder);
-            while (!fileDeque.isEmpty()) {
-                File file = fileDeque.pop();
-                File[] files = file.listFiles();
-                if (files == null) continue;
-                for (File subFile : files) {
-                    if (subFile.isDirectory()) {
-                        fileDeque.push(subFile);
-                    } else if (subFile.isFile() && subFile.getName().endsWith(".yml")) {
-                        this.loadSingleFile(subFile, type);
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Loads EffectCarrier configurations from a YAML file and populates the effectMap.
+     * Parses the EffectCarrier configurations in a YAML file without registering them.
+     * Loot groups are looked up in the given map instead of the registered loots,
+     * so that the effects can be parsed against loots that are not published yet.
      *
-     * @param file      The YAML file to load configurations from.
-     * @param namespace The namespace to use when creating keys for EffectCarriers.
+     * @param file       The YAML file to load configurations from.
+     * @param namespace  The namespace to use when creating keys for EffectCarriers.
+     * @param lootGroups The loot groups to use for group modifiers.
+     * @return The parsed EffectCarriers in the order they are defined.
      */
-    private void loadSingleFile(File file, String namespace) {
+    public List<EffectCarrier> parseFile(File file, String namespace, Map<String, List<String>> lootGroups) {
         YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        List<EffectCarrier> carriers = new ArrayList<>();
         for (Map.Entry<String, Object> entry : yaml.getValues(false).entrySet()) {
-            String value = entry.getKey();
             if (entry.getValue() instanceof ConfigurationSection section) {
-                Key key = Key.of(namespace, value);
-                EffectCarrier item = getEffectCarrierFromSection(key, section);
-                if (item != null)
-                    effectMap.put(key, item);
+                carriers.add(getEffectCarrierFromSection(Key.of(namespace, entry.getKey()), section, lootGroups));
             }
         }
+        return carriers;
     }
 
     /**
@@ -167,24 +164,18 @@ public class EffectManagerImpl implements EffectManager {
     @Nullable
     public EffectCarrier getEffectCarrierFromSection(Key key, ConfigurationSection section) {
         if (section == null) return null;
+        return getEffectCarrierFromSection(key, section, RegistrySnapshot.get().lootGroups());
+    }
+
+    private EffectCarrier getEffectCarrierFromSection(Key key, ConfigurationSection section, Map<String, List<String>> lootGroups) {
         return new EffectCarrier.Builder()
                 .key(key)
                 .requirements(plugin.getRequirementManager().getRequirements(section.getConfigurationSection("requirements"), true))
-                .effect(getEffectModifiers(section.getConfigurationSection("effects")))
+                .effect(getEffectModifiers(section.getConfigurationSection("effects"), lootGroups))
                 .actionMap(plugin.getActionManager().getActionMap(section.getConfigurationSection("events")))
                 .build();
     }
 
-    public void unload() {
-        HashMap<Key, EffectCarrier> temp = new HashMap<>(effectMap);
-        effectMap.clear();
-        for (Map.Entry<Key, EffectCarrier> entry : temp.entrySet()) {
-            if (entry.getValue().isPersist()) {
-                effectMap.put(entry.getKey(), entry.getValue());
-            }
-        }
-    }
-
     /**
      * Retrieves the initial FishingEffect that represents no special effects.
      *
@@ -199,15 +190,16 @@ public class EffectManagerImpl implements EffectManager {
     /**
      * Retrieves a list of modifiers based on specified loot groups.
      *
-     * @param modList A list of strings containing group modifiers in the format "group:modifier".
+     * @param modList    A list of strings containing group modifiers in the format "group:modifier".
+     * @param lootGroups The loot groups to look the members up in.
      * @return A list of pairs where each pair represents a loot item and its associated modifier.
      */
-    private List<Pair<String, WeightModifier>> getGroupModifiers(List<String> modList) {
+    private List<Pair<String, WeightModifier>> getGroupModifiers(List<String> modList, Map<String, List<String>> lootGroups) {
         List<Pair<String, WeightModifier>> result = new ArrayList<>();
         for (String group : modList) {
             String[] split = group.split(":",2);
             String key = split[0];
-            List<String> members = plugin.getLootManager().getLootGroup(key);
+            List<String> members = lootGroups.get(key);
             if (members == null) {
                 LogUtils.warn("Group " + key + " doesn't contain any loot. The effect would not take effect.");
                 return result;
@@ -228,11 +220,15 @@ public class EffectManagerImpl implements EffectManager {
     @NotNull
     @Override
     public EffectModifier[] getEffectModifiers(ConfigurationSection section) {
+        return getEffectModifiers(section, RegistrySnapshot.get().lootGroups());
+    }
+
+    private EffectModifier[] getEffectModifiers(ConfigurationSection section, Map<String, List<String>> lootGroups) {
         if (section == null) return new EffectModifier[0];
         ArrayList<EffectModifier> modifiers = new ArrayList<>();
         for (Map.Entry<String, Object> entry: section.getValues(false).entrySet()) {
             if (entry.getValue() instanceof ConfigurationSection inner) {
-                EffectModifier effectModifier = getEffectModifier(inner);
+                EffectModifier effectModifier = getEffectModifier(inner, lootGroups);
                 if (effectModifier != null)
                     modifiers.add(effectModifier);
             }
@@ -255,6 +251,11 @@ public class EffectManagerImpl implements EffectManager {
     @Override
     @Nullable
     public EffectModifier getEffectModifier(ConfigurationSection section) {
+        return getEffectModifier(section, RegistrySnapshot.get().lootGroups());
+    }
+
+    @Nullable
+    private EffectModifier getEffectModifier(ConfigurationSection section, Map<String, List<String>> lootGroups) {
         String type = section.getString("type");
         if (type == null) return null;
         switch (type) {
@@ -271,13 +272,13 @@ public class EffectManagerImpl implements EffectManager {
                 });
             }
             case "group-mod" -> {
-                var modList = getGroupModifiers(section.getStringList("value"));
+                var modList = getGroupModifiers(section.getStringList("value"), lootGroups);
                 return ((effect, condition) -> {
                     effect.addWeightModifier(modList);
                 });
             }
             case "group-mod-ignore-conditions" -> {
-                var modList = getGroupModifiers(section.getStringList("value"));
+                var modList = getGroupModifiers(section.getStringList("value"), lootGroups);
                 return ((effect, condition) -> {
                     effect.addWeightModifierIgnored(modList);
                 });
@@ -353,7 +354,7 @@ public class EffectManagerImpl implements EffectManager {
             }
             case "conditional" -> {
                 Requirement[] requirements = plugin.getRequirementManager().getRequirements(section.getConfigurationSection("conditions"), true);
-                EffectModifier[] modifiers = getEffectModifiers(section.getConfigurationSection("effects"));
+                EffectModifier[] modifiers = getEffectModifiers(section.getConfigurationSection("effects"), lootGroups);
                 return ((effect, condition) -> {
                     for (Requirement requirement : requirements)
                         if (!requirement.isConditionMet(condition))
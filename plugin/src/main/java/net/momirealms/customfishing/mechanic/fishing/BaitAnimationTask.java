@@ -18,7 +18,6 @@
 package net.momirealms.customfishing.mechanic.fishing;
 
 import net.momirealms.customfishing.CustomFishingPluginImpl;
-import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.scheduler.CancellableTask;
 import net.momirealms.customfishing.util.FakeItemUtils;
 import org.bukkit.entity.FishHook;
@@ -26,7 +25,6 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.TimeUnit;
 
 /**
  * A task responsible for animating bait when it's attached to a fishing hook.
@@ -41,18 +39,19 @@ public class BaitAnimationTask implements Runnable {
     /**
      * Constructs a new BaitAnimationTask.
      *
-     * @param plugin   The CustomFishingPlugin instance.
+     * @param ticker   The ticker that runs the task.
      * @param player   The player who cast the fishing rod.
      * @param fishHook The FishHook entity.
      * @param baitItem The bait ItemStack.
      */
-    public BaitAnimationTask(CustomFishingPlugin plugin, Player player, FishHook fishHook, ItemStack baitItem) {
+    public BaitAnimationTask(HookTicker ticker, Player player, FishHook fishHook, ItemStack baitItem) {
         this.player = player;
         this.fishHook = fishHook;
         entityID = ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
         CustomFishingPluginImpl.getProtocolManager().sendServerPacket(player, FakeItemUtils.getSpawnPacket(entityID, fishHook.getLocation()));
         CustomFishingPluginImpl.getProtocolManager().sendServerPacket(player, FakeItemUtils.getMetaPacket(entityID, baitItem));
-        this.cancellableTask = plugin.getScheduler().runTaskAsyncTimer(this, 50, 50, TimeUnit.MILLISECONDS);
+        // The hook is read every tick, so the task runs on the thread that owns it instead of an async timer
+        this.cancellableTask = ticker.register(this, fishHook);
     }
 
     @Override
@@ -35,6 +35,7 @@ import net.momirealms.customfishing.api.mechanic.TempFishingState;
 import net.momirealms.customfishing.api.mechanic.action.ActionTrigger;
 import net.momirealms.customfishing.api.mechanic.competition.FishingCompetition;
 import net.momirealms.customfishing.api.mechanic.condition.Condition;
+import net.momirealms.customfishing.api.mechanic.condition.EquipmentCache;
 import net.momirealms.customfishing.api.mechanic.condition.FishingPreparation;
 import net.momirealms.customfishing.api.mechanic.effect.Effect;
 import net.momirealms.customfishing.api.mechanic.effect.EffectCarrier;
@@ -47,7 +48,6 @@ import net.momirealms.customfishing.api.mechanic.game.GamingPlayer;
 import net.momirealms.customfishing.api.mechanic.loot.Loot;
 import net.momirealms.customfishing.api.mechanic.loot.LootType;
 import net.momirealms.customfishing.api.util.LogUtils;
-import net.momirealms.customfishing.api.util.WeightUtils;
 import net.momirealms.customfishing.mechanic.requirement.RequirementManagerImpl;
 import net.momirealms.customfishing.setting.CFConfig;
 import net.momirealms.customfishing.util.ItemUtils;
@@ -64,7 +64,6 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.persistence.PersistentDataType;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
@@ -78,6 +77,7 @@ public class FishingManagerImpl implements Listener, FishingManager {
     private final ConcurrentHashMap<UUID, TempFishingState> tempFishingStateMap;
     private final ConcurrentHashMap<UUID, GamingPlayer> gamingPlayerMap;
     private final ConcurrentHashMap<UUID, Pair<ItemStack, Integer>> vanillaLootMap;
+    private final HookTicker hookTicker;
 
     public FishingManagerImpl(CustomFishingPluginImpl plugin) {
         this.plugin = plugin;
@@ -86,6 +86,7 @@ public class FishingManagerImpl implements Listener, FishingManager {
         this.gamingPlayerMap = new ConcurrentHashMap<>();
         this.hookCheckMap = new ConcurrentHashMap<>();
         this.vanillaLootMap = new ConcurrentHashMap<>();
+        this.hookTicker = new HookTicker(plugin);
     }
 
     public void load() {
@@ -107,6 +108,7 @@ public class FishingManagerImpl implements Listener, FishingManager {
         this.tempFishingStateMap.clear();
         this.gamingPlayerMap.clear();
         this.hookCheckMap.clear();
+        this.hookTicker.cancelAll();
     }
 
     public void disable() {
@@ -154,6 +156,7 @@ public class FishingManagerImpl implements Listener, FishingManager {
         final Player player = event.getPlayer();
         this.removeHook(event.getPlayer().getUniqueId());
         this.removeTempFishingState(player);
+        EquipmentCache.invalidate(player.getUniqueId());
     }
 
     /**
@@ -326,7 +329,7 @@ public class FishingManagerImpl implements Listener, FishingManager {
         if (baitItem != null) {
             ItemStack cloned = baitItem.clone();
             cloned.setAmount(1);
-            new BaitAnimationTask(plugin, player, fishHook, cloned);
+            new BaitAnimationTask(hookTicker, player, fishHook, cloned);
             baitItem.setAmount(baitItem.getAmount() - 1);
         }
         // Arrange hook check task
@@ -753,9 +756,7 @@ public class FishingManagerImpl implements Listener, FishingManager {
      */
     @Override
     public boolean startFishingGame(Player player, Condition condition, Effect effect) {
-        Map<String, Double> gameWithWeight = plugin.getGameManager().getGameWithWeight(condition);
-        plugin.debug(gameWithWeight.toString());
-        String random = WeightUtils.getRandom(gameWithWeight);
+        String random = ((RequirementManagerImpl) plugin.getRequirementManager()).sampleGame(condition);
         Pair<BasicGameConfig, GameInstance> gamePair = plugin.getGameManager().getGameInstance(random);
         if (random == null) {
             plugin.debug("No game is available for player:" + player.getName() + " location:" + condition.getLocation());
@@ -818,6 +819,15 @@ public class FishingManagerImpl implements Listener, FishingManager {
         tempFishingStateMap.put(player.getUniqueId(), tempFishingState);
     }
 
+    /**
+     * Gets the ticker that runs all the hook related tasks.
+     *
+     * @return The hook ticker.
+     */
+    public HookTicker getHookTicker() {
+        return hookTicker;
+    }
+
     public void removeHookCheckTask(Player player) {
         hookCheckMap.remove(player.getUniqueId());
     }
@@ -83,7 +83,7 @@ public class HookCheckTimerTask implements Runnable {
         this.fishHook = fishHook;
         this.initialEffect = initialEffect;
         this.fishingPreparation = fishingPreparation;
-        this.hookMovementTask = CustomFishingPlugin.get().getScheduler().runTaskSyncTimer(this, fishHook.getLocation(), 1, 1);
+        this.hookMovementTask = manager.getHookTicker().register(this, fishHook);
         this.lureLevel = fishingPreparation.getRodItemStack().getEnchantmentLevel(Enchantment.LURE);
         this.firstTime = true;
     }
@@ -226,6 +226,7 @@ public class HookCheckTimerTask implements Runnable {
 
         // lava effect task (Three seconds in advance)
         this.lavaFishingTask = new LavaEffectTask(
+                manager.getHookTicker(),
                 this,
                 fishHook.getLocation(),
                 random - 3 * 20
@@ -0,0 +1,315 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.fishing;
+
+import net.momirealms.customfishing.api.CustomFishingPlugin;
+import net.momirealms.customfishing.api.scheduler.CancellableTask;
+import net.momirealms.customfishing.api.util.LogUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A service that ticks every hook related task from a shared timer instead of one timer per hook.
+ * On Bukkit all the tasks are ticked by a single sync task. On Folia the tasks are grouped by
+ * region sections and each group is ticked by one task on the region that owns it.
+ * Tasks that follow an entity, such as a hook, are handed off through the entity scheduler
+ * to the group of the region that owns the entity once it has moved out of the region.
+ */
+public class HookTicker {
+
+    // Folia regions are always made up of whole 16x16 chunk sections
+    private static final int REGION_SECTION_SHIFT = 4 + 4;
+    // Idle groups keep their timer for a while to avoid rescheduling on every cast
+    private static final int MAX_IDLE_TICKS = 200;
+    private static final RegionKey GLOBAL_KEY = new RegionKey(null, 0, 0);
+
+    private final CustomFishingPlugin plugin;
+    private final boolean regionized;
+    private final ConcurrentHashMap<RegionKey, TickGroup> groups;
+    private volatile long lastTickNanos;
+    private volatile double averageTickNanos;
+
+    public HookTicker(CustomFishingPlugin plugin) {
+        this.plugin = plugin;
+        this.regionized = plugin.getVersionManager().isFolia();
+        this.groups = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Registers a task that would be run every tick on the thread that owns the location.
+     *
+     * @param runnable The task to run.
+     * @param location The location associated with the task.
+     * @return A CancellableTask for managing the registered task.
+     */
+    public CancellableTask register(Runnable runnable, Location location) {
+        return register(runnable, location, 1);
+    }
+
+    /**
+     * Registers a task that would be run every tick after a delay on the thread that owns the location.
+     *
+     * @param runnable   The task to run.
+     * @param location   The location associated with the task.
+     * @param delayTicks The delay in ticks before the first execution.
+     * @return A CancellableTask for managing the registered task.
+     */
+    public CancellableTask register(Runnable runnable, Location location, int delayTicks) {
+        TickEntry entry = new TickEntry(runnable, null, Math.max(1, delayTicks));
+        add(entry, location);
+        return entry;
+    }
+
+    /**
+     * Registers a task that would be run every tick on the thread that owns the entity, wherever it moves.
+     *
+     * @param runnable The task to run.
+     * @param entity   The entity the task follows.
+     * @return A CancellableTask for managing the registered task.
+     */
+    public CancellableTask register(Runnable runnable, Entity entity) {
+        TickEntry entry = new TickEntry(runnable, entity, 1);
+        add(entry, entity.getLocation());
+        return entry;
+    }
+
+    private void add(TickEntry entry, Location location) {
+        RegionKey key = getRegionKey(location);
+        while (true) {
+            TickGroup group = groups.computeIfAbsent(key, k -> new TickGroup(k, location.clone()));
+            if (group.offer(entry)) {
+                return;
+            }
+            // The group has just been closed, so create a new one
+            groups.remove(key, group);
+        }
+    }
+
+    /**
+     * Cancels every registered task and stops all the timers.
+     */
+    public void cancelAll() {
+        for (TickGroup group : groups.values()) {
+            group.close();
+        }
+        groups.clear();
+    }
+
+    /**
+     * Get the number of active hook tasks.
+     *
+     * @return The number of tasks being ticked.
+     */
+    public int getActiveTasks() {
+        int amount = 0;
+        for (TickGroup group : groups.values()) {
+            amount += group.size + group.pending.size();
+        }
+        return amount;
+    }
+
+    /**
+     * Get the number of timers used for ticking hook tasks.
+     *
+     * @return The number of groups.
+     */
+    public int getActiveGroups() {
+        return groups.size();
+    }
+
+    /**
+     * Get the time cost of the latest group tick.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    /**
+     * Get the moving average time cost of a group tick.
+     *
+     * @return The time in nanoseconds.
+     */
+    public double getAverageTickNanos() {
+        return averageTickNanos;
+    }
+
+    private RegionKey getRegionKey(Location location) {
+        if (!regionized) return GLOBAL_KEY;
+        return new RegionKey(
+                Objects.requireNonNull(location.getWorld()).getUID(),
+                location.getBlockX() >> REGION_SECTION_SHIFT,
+                location.getBlockZ() >> REGION_SECTION_SHIFT
+        );
+    }
+
+    private void recordTickCost(long nanos) {
+        this.lastTickNanos = nanos;
+        this.averageTickNanos = averageTickNanos * 0.95 + nanos * 0.05;
+    }
+
+    private record RegionKey(UUID world, int x, int z) {
+    }
+
+    /**
+     * A group of tasks sharing one sync timer.
+     */
+    private class TickGroup implements Runnable {
+
+        private final RegionKey key;
+        private final Location location;
+        private final ConcurrentLinkedQueue<TickEntry> pending;
+        private final CancellableTask timer;
+        private TickEntry[] entries;
+        private volatile int size;
+        private int idleTicks;
+        private boolean closed;
+
+        private TickGroup(RegionKey key, Location location) {
+            this.key = key;
+            this.location = location;
+            this.pending = new ConcurrentLinkedQueue<>();
+            this.entries = new TickEntry[16];
+            this.timer = plugin.getScheduler().runTaskSyncTimer(this, location, 1, 1);
+        }
+
+        private synchronized boolean offer(TickEntry entry) {
+            if (closed) return false;
+            pending.add(entry);
+            return true;
+        }
+
+        private synchronized void close() {
+            closed = true;
+            timer.cancel();
+            for (int i = 0; i < size; i++) {
+                entries[i].cancel();
+            }
+            for (TickEntry entry : pending) {
+                entry.cancel();
+            }
+            pending.clear();
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            TickEntry[] array = this.entries;
+            int count = this.size;
+            TickEntry polled;
+            while ((polled = pending.poll()) != null) {
+                if (count == array.length) {
+                    array = Arrays.copyOf(array, count * 2);
+                    this.entries = array;
+                }
+                array[count++] = polled;
+            }
+
+            int alive = 0;
+            for (int i = 0; i < count; i++) {
+                TickEntry entry = array[i];
+                if (!entry.cancelled && regionized && entry.entity != null && !Bukkit.isOwnedByCurrentRegion(entry.entity)) {
+                    handOff(entry);
+                    continue;
+                }
+                if (!entry.cancelled) {
+                    if (--entry.delay <= 0) {
+                        entry.delay = 1;
+                        try {
+                            entry.runnable.run();
+                        } catch (Exception e) {
+                            LogUtils.warn("Error occurred when ticking a hook task", e);
+                            entry.cancel();
+                        }
+                    }
+                }
+                // Tasks might have been cancelled while running
+                if (!entry.cancelled) {
+                    array[alive++] = entry;
+                }
+            }
+            Arrays.fill(array, alive, count, null);
+            this.size = alive;
+
+            if (alive == 0) {
+                if (++idleTicks > MAX_IDLE_TICKS) {
+                    synchronized (this) {
+                        if (pending.isEmpty()) {
+                            closed = true;
+                            timer.cancel();
+                            groups.remove(key, this);
+                        }
+                    }
+                }
+            } else {
+                idleTicks = 0;
+            }
+            recordTickCost(System.nanoTime() - start);
+        }
+
+        /**
+         * Moves a task to the group of the region that now owns its entity.
+         * The location of the entity can only be read on that region, so the task gets there through the entity scheduler.
+         */
+        private void handOff(TickEntry entry) {
+            Entity entity = entry.entity;
+            // If the entity has been removed, the task is kept here for it to notice and clean up
+            Runnable retired = () -> add(entry, location);
+            if (entity.getScheduler().run(plugin, task -> add(entry, entity.getLocation()), retired) == null) {
+                retired.run();
+            }
+        }
+    }
+
+    /**
+     * A task registered in the ticker.
+     */
+    private static class TickEntry implements CancellableTask {
+
+        private final Runnable runnable;
+        @Nullable
+        private final Entity entity;
+        private int delay;
+        private volatile boolean cancelled;
+
+        private TickEntry(Runnable runnable, @Nullable Entity entity, int delay) {
+            this.runnable = runnable;
+            this.entity = entity;
+            this.delay = delay;
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
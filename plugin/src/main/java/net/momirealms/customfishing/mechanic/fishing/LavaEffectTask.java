@@ -22,8 +22,6 @@ import net.momirealms.customfishing.api.scheduler.CancellableTask;
 import org.bukkit.Location;
 import org.bukkit.Particle;
 
-import java.util.concurrent.TimeUnit;
-
 /**
  * A task responsible for creating a lava effect animation between two points.
  */
@@ -39,11 +37,12 @@ public class LavaEffectTask implements Runnable {
     /**
      * Constructs a new LavaEffectTask.
      *
+     * @param hookTicker         The ticker that runs the task.
      * @param hookCheckTimerTask The HookCheckTimerTask instance.
      * @param location                The starting location for the lava effect.
      * @param delay              The delay before starting the task.
      */
-    public LavaEffectTask(HookCheckTimerTask hookCheckTimerTask, Location location, int delay) {
+    public LavaEffectTask(HookTicker hookTicker, HookCheckTimerTask hookCheckTimerTask, Location location, int delay) {
         this.hookCheckTimerTask = hookCheckTimerTask;
         this.startLoc = location.clone().add(0,0.3,0);
         this.endLoc = this.startLoc.clone().add((Math.random() * 16 - 8), startLoc.getY(), (Math.random() * 16 - 8));
@@ -53,7 +52,8 @@ public class LavaEffectTask implements Runnable {
                 startLoc.getY(),
                 (startLoc.getZ() + endLoc.getZ())/2 + Math.random() * 12 - 6
         );
-        this.lavaTask = CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(this, delay * 50L, 50, TimeUnit.MILLISECONDS);
+        // Spawning particles touches the world, so the task runs on the thread that owns the location instead of an async timer
+        this.lavaTask = hookTicker.register(this, location, delay);
     }
 
     @Override
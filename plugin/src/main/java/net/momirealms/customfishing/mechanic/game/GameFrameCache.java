@@ -0,0 +1,86 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.game;
+
+import net.momirealms.customfishing.adventure.AdventureManagerImpl;
+import net.momirealms.customfishing.util.LruCache;
+import org.bukkit.entity.Player;
+
+import java.util.function.Supplier;
+
+/**
+ * Caches the rendered frames of a mini game config.
+ * Bar style games only have a limited number of distinct frames, so each frame is built
+ * and parsed into json once, then shared by every player playing the same game config.
+ */
+public class GameFrameCache {
+
+    // Games with continuous positions might produce many frames, so keep the cache bounded
+    private static final int MAX_FRAMES = 4096;
+
+    private final LruCache<Long, String> frames;
+
+    public GameFrameCache() {
+        this.frames = new LruCache<>(MAX_FRAMES, 4);
+    }
+
+    /**
+     * Get the json of a frame, building it if it's not cached yet.
+     *
+     * @param key     The key of the frame, made from the values that decide how the frame looks.
+     * @param builder The builder of the MiniMessage text of the frame.
+     * @return The frame in json format.
+     */
+    public String getFrame(long key, Supplier<String> builder) {
+        String json = frames.get(key);
+        if (json == null) {
+            json = AdventureManagerImpl.getInstance().getJsonFromMiniMessage(builder.get());
+            frames.put(key, json);
+        }
+        return json;
+    }
+
+    /**
+     * Sends a game title to a player.
+     *
+     * @param player       The player.
+     * @param titleJson    The title in json format.
+     * @param subtitleJson The subtitle in json format.
+     */
+    public static void sendFrame(Player player, String titleJson, String subtitleJson) {
+        ((AdventureManagerImpl) AdventureManagerImpl.getInstance()).sendTitleJson(player, titleJson, subtitleJson, 0, 10, 0);
+    }
+
+    /**
+     * Get the json of a text that isn't part of a frame, such as a title with placeholders.
+     *
+     * @param text The MiniMessage text.
+     * @return The text in json format.
+     */
+    public static String getJson(String text) {
+        return AdventureManagerImpl.getInstance().getJsonFromMiniMessage(text);
+    }
+
+    public static long key(int a, int b) {
+        return ((long) a << 32) | (b & 0xFFFFFFFFL);
+    }
+
+    public static long key(int a, int b, int c, int d) {
+        return ((long) (a & 0xFFFF) << 48) | ((long) (b & 0xFFFF) << 32) | ((long) (c & 0xFFFF) << 16) | (d & 0xFFFF);
+    }
+}
@@ -17,6 +17,7 @@
 
 package net.momirealms.customfishing.mechanic.game;
 
+import net.kyori.adventure.text.Component;
 import net.momirealms.customfishing.adventure.AdventureManagerImpl;
 import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.common.Pair;
@@ -77,6 +78,7 @@ public class GameManagerImpl implements GameManager {
     public void disable() {
         unload();
         this.gameCreatorMap.clear();
+        GameTickDriver.getInstance().cancelAll();
     }
 
     /**
@@ -219,6 +221,7 @@ public class GameManagerImpl implements GameManager {
             var barImage = section.getString("subtitle.bar");
             var pointerImage = section.getString("subtitle.pointer");
 
+            var frames = new GameFrameCache();
             return (player, fishHook, settings) -> new AbstractGamingPlayer(player, fishHook, settings) {
 
                 private int progress = -1;
@@ -228,8 +231,7 @@ public class GameManagerImpl implements GameManager {
                 @Override
                 public void arrangeTask() {
                     var period = ((double) 10*(200-settings.getDifficulty()))/((double) (1+4*settings.getDifficulty()));
-                    this.task = CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(
-                            this,
+                    this.arrangeDriverTask(
                             50,
                             (long) period,
                             TimeUnit.MILLISECONDS
@@ -251,11 +253,11 @@ public class GameManagerImpl implements GameManager {
                 }
 
                 public void showUI() {
-                    String bar = FontUtils.surroundWithFont(barImage, font)
+                    String bar = frames.getFrame(progress, () -> FontUtils.surroundWithFont(barImage, font)
                                + OffsetUtils.getOffsetChars(pointerOffset + progress)
                                + FontUtils.surroundWithFont(pointerImage, font)
-                               + OffsetUtils.getOffsetChars(totalWidth - progress - pointerWidth);
-                    AdventureManagerImpl.getInstance().sendTitle(player, sendTitle, bar,0,10,0);
+                               + OffsetUtils.getOffsetChars(totalWidth - progress - pointerWidth));
+                    GameFrameCache.sendFrame(player, GameFrameCache.getJson(sendTitle), bar);
                 }
 
                 @Override
@@ -289,6 +291,7 @@ public class GameManagerImpl implements GameManager {
             var barImage = section.getString("subtitle.bar");
             var tip = section.getString("tip");
 
+            var frames = new GameFrameCache();
             return (player, fishHook, settings) -> new AbstractGamingPlayer(player, fishHook, settings) {
                 private double hold_time;
                 private double judgement_position;
@@ -302,8 +305,7 @@ public class GameManagerImpl implements GameManager {
                 @Override
                 public void arrangeTask() {
                     this.judgement_position = (double) (barEffectiveWidth - judgementAreaWidth) / 2;
-                    this.task = CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(
-                            this,
+                    this.arrangeDriverTask(
                             50,
                             33,
                             TimeUnit.MILLISECONDS
@@ -387,20 +389,21 @@ public class GameManagerImpl implements GameManager {
                 }
 
                 public void showUI() {
-                    String bar = FontUtils.surroundWithFont(barImage, font)
-                            + OffsetUtils.getOffsetChars((int) (judgementAreaOffset + judgement_position))
+                    int offset1 = (int) (judgementAreaOffset + judgement_position);
+                    int offset2 = (int) (barEffectiveWidth - judgement_position - judgementAreaWidth);
+                    int offset3 = (int) (-barEffectiveWidth - 1 + fish_position);
+                    int offset4 = (int) (barEffectiveWidth - fish_position - pointerIconWidth + 1);
+                    String bar = frames.getFrame(GameFrameCache.key(offset1, offset2, offset3, offset4), () -> FontUtils.surroundWithFont(barImage, font)
+                            + OffsetUtils.getOffsetChars(offset1)
                             + FontUtils.surroundWithFont(judgementAreaImage, font)
-                            + OffsetUtils.getOffsetChars((int) (barEffectiveWidth - judgement_position - judgementAreaWidth))
-                            + OffsetUtils.getOffsetChars((int) (-barEffectiveWidth - 1 + fish_position))
+                            + OffsetUtils.getOffsetChars(offset2)
+                            + OffsetUtils.getOffsetChars(offset3)
                             + FontUtils.surroundWithFont(pointerImage, font)
-                            + OffsetUtils.getOffsetChars((int) (barEffectiveWidth - fish_position - pointerIconWidth + 1));
-                    AdventureManagerImpl.getInstance().sendTitle(
+                            + OffsetUtils.getOffsetChars(offset4));
+                    GameFrameCache.sendFrame(
                             player,
-                            tip != null && !played ? tip : title.replace("{progress}", progress[(int) ((hold_time / time_requirement) * progress.length)]),
-                            bar,
-                            0,
-                            10,
-                            0
+                            GameFrameCache.getJson(tip != null && !played ? tip : title.replace("{progress}", progress[(int) ((hold_time / time_requirement) * progress.length)])),
+                            bar
                     );
                 }
             };
@@ -428,6 +431,7 @@ public class GameManagerImpl implements GameManager {
             var barImage = section.getString("subtitle.bar");
             var tip = section.getString("tip");
 
+            var frames = new GameFrameCache();
             return (player, fishHook, settings) -> new AbstractGamingPlayer(player, fishHook, settings) {
 
                 private int fish_position = fishStartPosition;
@@ -437,7 +441,7 @@ public class GameManagerImpl implements GameManager {
 
                 @Override
                 public void arrangeTask() {
-                    this.task = CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(this, 50, 40, TimeUnit.MILLISECONDS);
+                    this.arrangeDriverTask(50, 40, TimeUnit.MILLISECONDS);
                 }
 
                 @Override
@@ -481,18 +485,16 @@ public class GameManagerImpl implements GameManager {
                 }
 
                 public void showUI() {
-                    String bar = FontUtils.surroundWithFont(barImage, font)
+                    int image = struggling_time > 0 ? struggling_time % strugglingFishImage.length : -1;
+                    String bar = frames.getFrame(GameFrameCache.key(fish_position, image), () -> FontUtils.surroundWithFont(barImage, font)
                             + OffsetUtils.getOffsetChars(fishOffset + fish_position)
-                            + FontUtils.surroundWithFont((struggling_time > 0 ? strugglingFishImage[struggling_time % strugglingFishImage.length] : fishImage), font)
-                            + OffsetUtils.getOffsetChars(barEffectiveWidth - fish_position - fishIconWidth);
+                            + FontUtils.surroundWithFont((image >= 0 ? strugglingFishImage[image] : fishImage), font)
+                            + OffsetUtils.getOffsetChars(barEffectiveWidth - fish_position - fishIconWidth));
                     strain = Math.max(0, Math.min(strain, ultimateTension));
-                    AdventureManagerImpl.getInstance().sendTitle(
+                    GameFrameCache.sendFrame(
                             player,
-                            tip != null && !played ? tip : title.replace("{tension}", tension[(int) ((strain / ultimateTension) * tension.length)]),
-                            bar,
-                            0,
-                            10,
-                            0
+                            GameFrameCache.getJson(tip != null && !played ? tip : title.replace("{tension}", tension[(int) ((strain / ultimateTension) * tension.length)])),
+                            bar
                     );
                 }
             };
@@ -509,10 +511,15 @@ public class GameManagerImpl implements GameManager {
 
                 private int clickedTimes;
                 private final int requiredTimes = settings.getDifficulty();
+                // Only the countdown changes every frame, so it's inserted into a component parsed once
+                // instead of putting a new text into the shared text cache each frame
+                private final Component subtitleTemplate = AdventureManagerImpl.getInstance().getComponentFromMiniMessage(subtitle.replace("{clicks}", String.valueOf(requiredTimes)));
+                private String lastTime;
+                private String subtitleJson;
 
                 @Override
                 public void arrangeTask() {
-                    this.task = CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(this, 50, 50, TimeUnit.MILLISECONDS);
+                    this.arrangeDriverTask(50, 50, TimeUnit.MILLISECONDS);
                 }
 
                 @Override
@@ -531,13 +538,17 @@ public class GameManagerImpl implements GameManager {
                 }
 
                 public void showUI() {
-                    AdventureManagerImpl.getInstance().sendTitle(
+                    String time = String.format("%.1f", ((double) deadline - System.currentTimeMillis())/1000);
+                    if (!time.equals(lastTime)) {
+                        lastTime = time;
+                        subtitleJson = AdventureManagerImpl.getInstance().componentToJson(
+                                subtitleTemplate.replaceText(builder -> builder.matchLiteral("{time}").replacement(time))
+                        );
+                    }
+                    GameFrameCache.sendFrame(
                             player,
-                            title.replace("{click}", String.valueOf(clickedTimes)),
-                            subtitle.replace("{clicks}", String.valueOf(requiredTimes)).replace("{time}", String.format("%.1f", ((double) deadline - System.currentTimeMillis())/1000)),
-                            0,
-                            10,
-                            0
+                            GameFrameCache.getJson(title.replace("{click}", String.valueOf(clickedTimes))),
+                            subtitleJson
                     );
                 }
             };
@@ -556,6 +567,7 @@ public class GameManagerImpl implements GameManager {
 
             var subtitle = section.getString("subtitle", "<gray>Reel in at the most critical moment");
 
+            var frames = new GameFrameCache();
             return (player, fishHook, settings) -> new AbstractGamingPlayer(player, fishHook, settings) {
 
                 private final int totalWidth = ThreadLocalRandom.current().nextInt(barWidth.right() - barWidth.left() + 1) + barWidth.left();
@@ -567,7 +579,7 @@ public class GameManagerImpl implements GameManager {
 
                 @Override
                 public void arrangeTask() {
-                    this.task = CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(this, 50, 50, TimeUnit.MILLISECONDS);
+                    this.arrangeDriverTask(50, 50, TimeUnit.MILLISECONDS);
                 }
 
                 @Override
@@ -594,27 +606,23 @@ public class GameManagerImpl implements GameManager {
                 }
 
                 public void showUI() {
-                    StringBuilder stringBuilder = new StringBuilder();
-                    for (int i = 1; i <= totalWidth; i++) {
-                        if (i == currentIndex + 1) {
-                            stringBuilder.append(barPointer);
-                            continue;
-                        }
-                        if (i >= successPosition && i <= successPosition + successWidth - 1) {
-                            stringBuilder.append(barTarget);
-                            continue;
+                    // The widths are rolled for each player, so they are part of the frame too
+                    String bar = frames.getFrame(GameFrameCache.key(currentIndex, successPosition, totalWidth, successWidth), () -> {
+                        StringBuilder stringBuilder = new StringBuilder();
+                        for (int i = 1; i <= totalWidth; i++) {
+                            if (i == currentIndex + 1) {
+                                stringBuilder.append(barPointer);
+                                continue;
+                            }
+                            if (i >= successPosition && i <= successPosition + successWidth - 1) {
+                                stringBuilder.append(barTarget);
+                                continue;
+                            }
+                            stringBuilder.append(barBody);
                         }
-                        stringBuilder.append(barBody);
-                    }
-
-                    AdventureManagerImpl.getInstance().sendTitle(
-                            player,
-                            stringBuilder.toString(),
-                            subtitle,
-                            0,
-                            10,
-                            0
-                    );
+                        return stringBuilder.toString();
+                    });
+                    GameFrameCache.sendFrame(player, bar, GameFrameCache.getJson(subtitle));
                 }
 
                 @Override
@@ -641,6 +649,7 @@ public class GameManagerImpl implements GameManager {
             var pointerIconWidth = section.getInt("arguments.pointer-icon-width");
             var pointerOffset = section.getInt("arguments.pointer-offset");
 
+            var frames = new GameFrameCache();
             return (player, fishHook, settings) -> new AbstractGamingPlayer(player, fishHook, settings) {
 
                 private int progress = -1;
@@ -651,8 +660,7 @@ public class GameManagerImpl implements GameManager {
                 @Override
                 public void arrangeTask() {
                     var period = ((double) 10*(200-settings.getDifficulty()))/((double) (1+4*settings.getDifficulty()));
-                    this.task = CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(
-                            this,
+                    this.arrangeDriverTask(
                             50,
                             (long) period,
                             TimeUnit.MILLISECONDS
@@ -676,21 +684,14 @@ public class GameManagerImpl implements GameManager {
                 }
 
                 public void showUI() {
-                    String bar = FontUtils.surroundWithFont(barImage, font)
+                    String bar = frames.getFrame(GameFrameCache.key(judgement_position, progress), () -> FontUtils.surroundWithFont(barImage, font)
                             + OffsetUtils.getOffsetChars(judgementAreaOffset + judgement_position)
                             + FontUtils.surroundWithFont(judgementAreaImage, font)
                             + OffsetUtils.getOffsetChars(barEffectiveWidth - judgement_position - judgementAreaWidth)
                             + OffsetUtils.getOffsetChars(progress + pointerOffset)
                             + FontUtils.surroundWithFont(pointerImage, font)
-                            + OffsetUtils.getOffsetChars(barEffectiveWidth - progress - pointerIconWidth + 1);
-                    AdventureManagerImpl.getInstance().sendTitle(
-                            player,
-                            title,
-                            bar,
-                            0,
-                            10,
-                            0
-                    );
+                            + OffsetUtils.getOffsetChars(barEffectiveWidth - progress - pointerIconWidth + 1));
+                    GameFrameCache.sendFrame(player, GameFrameCache.getJson(title), bar);
                 }
 
                 @Override
@@ -722,6 +723,7 @@ public class GameManagerImpl implements GameManager {
             var barImage = section.getString("subtitle.bar");
             var tip = section.getString("tip");
 
+            var frames = new GameFrameCache();
             return (player, fishHook, settings) -> new AbstractGamingPlayer(player, fishHook, settings) {
                 private double hold_time;
                 private double judgement_position;
@@ -735,8 +737,7 @@ public class GameManagerImpl implements GameManager {
                 @Override
                 public void arrangeTask() {
                     this.judgement_position = (double) (barEffectiveWidth - judgementAreaWidth) / 2;
-                    this.task = CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(
-                            this,
+                    this.arrangeDriverTask(
                             50,
                             33,
                             TimeUnit.MILLISECONDS
@@ -820,20 +821,21 @@ public class GameManagerImpl implements GameManager {
                 }
 
                 public void showUI() {
-                    String bar = FontUtils.surroundWithFont(barImage, font)
-                            + OffsetUtils.getOffsetChars((int) (judgementAreaOffset + judgement_position))
+                    int offset1 = (int) (judgementAreaOffset + judgement_position);
+                    int offset2 = (int) (barEffectiveWidth - judgement_position - judgementAreaWidth);
+                    int offset3 = (int) (-barEffectiveWidth - 1 + fish_position);
+                    int offset4 = (int) (barEffectiveWidth - fish_position - pointerIconWidth + 1);
+                    String bar = frames.getFrame(GameFrameCache.key(offset1, offset2, offset3, offset4), () -> FontUtils.surroundWithFont(barImage, font)
+                            + OffsetUtils.getOffsetChars(offset1)
                             + FontUtils.surroundWithFont(judgementAreaImage, font)
-                            + OffsetUtils.getOffsetChars((int) (barEffectiveWidth - judgement_position - judgementAreaWidth))
-                            + OffsetUtils.getOffsetChars((int) (-barEffectiveWidth - 1 + fish_position))
+                            + OffsetUtils.getOffsetChars(offset2)
+                            + OffsetUtils.getOffsetChars(offset3)
                             + FontUtils.surroundWithFont(pointerImage, font)
-                            + OffsetUtils.getOffsetChars((int) (barEffectiveWidth - fish_position - pointerIconWidth + 1));
-                    AdventureManagerImpl.getInstance().sendTitle(
+                            + OffsetUtils.getOffsetChars(offset4));
+                    GameFrameCache.sendFrame(
                             player,
-                            tip != null && !played ? tip : title.replace("{progress}", progress[(int) ((hold_time / time_requirement) * progress.length)]),
-                            bar,
-                            0,
-                            10,
-                            0
+                            GameFrameCache.getJson(tip != null && !played ? tip : title.replace("{progress}", progress[(int) ((hold_time / time_requirement) * progress.length)])),
+                            bar
                     );
                 }
             };
@@ -33,6 +33,7 @@ import net.momirealms.customfishing.api.mechanic.GlobalSettings;
 import net.momirealms.customfishing.api.mechanic.action.Action;
 import net.momirealms.customfishing.api.mechanic.action.ActionTrigger;
 import net.momirealms.customfishing.api.mechanic.condition.Condition;
+import net.momirealms.customfishing.api.mechanic.condition.EquipmentCache;
 import net.momirealms.customfishing.api.mechanic.effect.EffectCarrier;
 import net.momirealms.customfishing.api.mechanic.item.BuildableItem;
 import net.momirealms.customfishing.api.mechanic.item.ItemBuilder;
@@ -61,6 +62,7 @@ import org.bukkit.event.Event;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
+import org.bukkit.event.entity.ItemSpawnEvent;
 import org.bukkit.event.inventory.InventoryPickupItemEvent;
 import org.bukkit.event.inventory.PrepareAnvilEvent;
 import org.bukkit.event.player.PlayerAttemptPickupItemEvent;
@@ -71,6 +73,7 @@ import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.util.Vector;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -83,14 +86,17 @@ public class ItemManagerImpl implements ItemManager, Listener {
 
     private static ItemManager instance;
     private final CustomFishingPlugin plugin;
-    private final HashMap<Key, BuildableItem> buildableItemMap;
+    // Items are grouped by namespace so that lookups don't need to create a Key
+    private final HashMap<String, HashMap<String, BuildableItem>> buildableItemMap;
     private final HashMap<String, ItemLibrary> itemLibraryMap;
+    private final NamespacedKey ownerKey;
 
     public ItemManagerImpl(CustomFishingPlugin plugin) {
         instance = this;
         this.plugin = plugin;
         this.itemLibraryMap = new LinkedHashMap<>();
         this.buildableItemMap = new HashMap<>();
+        this.ownerKey = Objects.requireNonNull(NamespacedKey.fromString("owner", plugin));
         this.registerItemLibrary(new CustomFishingItemImpl());
         this.registerItemLibrary(new VanillaItemImpl());
     }
@@ -102,13 +108,10 @@ public class ItemManagerImpl implements ItemManager, Listener {
 
     public void unload() {
         HandlerList.unregisterAll(this);
-        HashMap<Key, BuildableItem> tempMap = new HashMap<>(this.buildableItemMap);
-        this.buildableItemMap.clear();
-        for (Map.Entry<Key, BuildableItem> entry : tempMap.entrySet()) {
-            if (entry.getValue().persist()) {
-                tempMap.put(entry.getKey(), entry.getValue());
-            }
+        for (HashMap<String, BuildableItem> items : this.buildableItemMap.values()) {
+            items.values().removeIf(item -> !item.persist());
         }
+        this.buildableItemMap.values().removeIf(HashMap::isEmpty);
     }
 
     public Collection<String> getItemLibraries() {
@@ -122,7 +125,13 @@ public class ItemManagerImpl implements ItemManager, Listener {
      */
     @Override
     public Set<Key> getAllItemsKey() {
-        return buildableItemMap.keySet();
+        Set<Key> keys = new HashSet<>();
+        for (Map.Entry<String, HashMap<String, BuildableItem>> entry : buildableItemMap.entrySet()) {
+            for (String value : entry.getValue().keySet()) {
+                keys.add(Key.of(entry.getKey(), value));
+            }
+        }
+        return keys;
     }
 
     public void disable() {
@@ -171,11 +180,11 @@ public class ItemManagerImpl implements ItemManager, Listener {
         for (Map.Entry<String, Object> entry : yaml.getValues(false).entrySet()) {
             String value = entry.getKey();
             if (entry.getValue() instanceof ConfigurationSection section) {
-                Key key = Key.of(namespace, value);
-                if (buildableItemMap.containsKey(key)) {
-                    LogUtils.severe("Duplicated item key found: " + key + ".");
+                HashMap<String, BuildableItem> items = buildableItemMap.computeIfAbsent(namespace, k -> new HashMap<>());
+                if (items.containsKey(value)) {
+                    LogUtils.severe("Duplicated item key found: " + Key.of(namespace, value) + ".");
                 } else {
-                    buildableItemMap.put(key, getItemBuilder(section, namespace, value));
+                    items.put(value, getItemBuilder(section, namespace, value));
                 }
             }
         }
@@ -206,7 +215,7 @@ public class ItemManagerImpl implements ItemManager, Listener {
      */
     @Override
     public ItemStack build(Player player, String namespace, String value, Map<String, String> placeholders) {
-        BuildableItem buildableItem = buildableItemMap.get(Key.of(namespace, value));
+        BuildableItem buildableItem = getBuildableItem(namespace, value);
         if (buildableItem == null) return null;
         return buildableItem.build(player, placeholders);
     }
@@ -234,7 +243,9 @@ public class ItemManagerImpl implements ItemManager, Listener {
     @Override
     @Nullable
     public BuildableItem getBuildableItem(String namespace, String value) {
-        return buildableItemMap.get(Key.of(namespace, value));
+        HashMap<String, BuildableItem> items = buildableItemMap.get(namespace);
+        if (items == null) return null;
+        return items.get(value);
     }
 
     /**
@@ -413,6 +424,7 @@ public class ItemManagerImpl implements ItemManager, Listener {
     public boolean registerItemLibrary(ItemLibrary itemLibrary) {
         if (itemLibraryMap.containsKey(itemLibrary.identification())) return false;
         itemLibraryMap.put(itemLibrary.identification(), itemLibrary);
+        EquipmentCache.clearCache();
         return true;
     }
 
@@ -424,7 +436,9 @@ public class ItemManagerImpl implements ItemManager, Listener {
      */
     @Override
     public boolean unRegisterItemLibrary(String identification) {
-        return itemLibraryMap.remove(identification) != null;
+        if (itemLibraryMap.remove(identification) == null) return false;
+        EquipmentCache.clearCache();
+        return true;
     }
 
     @Override
@@ -435,25 +449,27 @@ public class ItemManagerImpl implements ItemManager, Listener {
 
         if (CFConfig.enableFishingBag && plugin.getBagManager().doesBagStoreLoots() && RequirementManager.isRequirementMet(condition, plugin.getBagManager().getCollectRequirements())) {
             var bag = plugin.getBagManager().getOnlineBagInventory(player.getUniqueId());
+            // The bag is unavailable if the data is not loaded or couldn't be read
+            if (bag != null) {
+                FishingBagPreCollectEvent preCollectEvent = new FishingBagPreCollectEvent(player, item, bag);
+                Bukkit.getPluginManager().callEvent(preCollectEvent);
+                if (preCollectEvent.isCancelled()) {
+                    return;
+                }
 
-            FishingBagPreCollectEvent preCollectEvent = new FishingBagPreCollectEvent(player, item, bag);
-            Bukkit.getPluginManager().callEvent(preCollectEvent);
-            if (preCollectEvent.isCancelled()) {
-                return;
-            }
-
-            int cannotPut = ItemUtils.putLootsToBag(bag, item, item.getAmount());
-            // some are put into bag
-            if (cannotPut != item.getAmount()) {
-                ActionManager.triggerActions(condition, plugin.getBagManager().getCollectLootActions());
-            }
-            // all are put
-            if (cannotPut == 0) {
-                return;
+                int cannotPut = ItemUtils.putLootsToBag(bag, item, item.getAmount());
+                // some are put into bag
+                if (cannotPut != item.getAmount()) {
+                    ActionManager.triggerActions(condition, plugin.getBagManager().getCollectLootActions());
+                }
+                // all are put
+                if (cannotPut == 0) {
+                    return;
+                }
+                // bag is full
+                item.setAmount(cannotPut);
+                ActionManager.triggerActions(condition, plugin.getBagManager().getBagFullActions());
             }
-            // bag is full
-            item.setAmount(cannotPut);
-            ActionManager.triggerActions(condition, plugin.getBagManager().getBagFullActions());
         }
 
         FishingLootPreSpawnEvent preSpawnEvent = new FishingLootPreSpawnEvent(player, hookLocation, item);
@@ -553,10 +569,8 @@ public class ItemManagerImpl implements ItemManager, Listener {
             if (name == null) return this;
             editors.put("name", (player, nbtItem, placeholders) -> {
                 NBTCompound displayCompound = nbtItem.getOrCreateCompound("display");
-                displayCompound.setString("Name", AdventureManagerImpl.getInstance().componentToJson(
-                        AdventureManagerImpl.getInstance().getComponentFromMiniMessage(
-                                "<!i>" + PlaceholderManagerImpl.getInstance().parse(player, name, placeholders)
-                        )
+                displayCompound.setString("Name", AdventureManagerImpl.getInstance().getJsonFromMiniMessage(
+                        "<!i>" + PlaceholderManagerImpl.getInstance().parse(player, name, placeholders)
                 ));
             });
             return this;
@@ -603,10 +617,8 @@ public class ItemManagerImpl implements ItemManager, Listener {
                 NBTCompound displayCompound = nbtItem.getOrCreateCompound("display");
                 NBTList<String> list = displayCompound.getStringList("Lore");
                 list.clear();
-                list.addAll(lore.stream().map(s -> AdventureManagerImpl.getInstance().componentToJson(
-                        AdventureManagerImpl.getInstance().getComponentFromMiniMessage(
-                                "<!i>" + PlaceholderManagerImpl.getInstance().parse(player, s, placeholders)
-                        )
+                list.addAll(lore.stream().map(s -> AdventureManagerImpl.getInstance().getJsonFromMiniMessage(
+                        "<!i>" + PlaceholderManagerImpl.getInstance().parse(player, s, placeholders)
                 )).toList());
             });
             return this;
@@ -866,14 +878,13 @@ public class ItemManagerImpl implements ItemManager, Listener {
     @EventHandler
     public void onPickUp(PlayerAttemptPickupItemEvent event) {
         if (event.isCancelled()) return;
-        ItemStack itemStack = event.getItem().getItemStack();
-        NBTItem nbtItem = new NBTItem(itemStack);
-        if (!nbtItem.hasTag("owner")) return;
-        if (!Objects.equals(nbtItem.getString("owner"), event.getPlayer().getName())) {
+        Item itemEntity = event.getItem();
+        String owner = itemEntity.getPersistentDataContainer().get(ownerKey, PersistentDataType.STRING);
+        if (owner == null) return;
+        if (!owner.equals(event.getPlayer().getName())) {
             event.setCancelled(true);
         } else {
-            nbtItem.removeKey("owner");
-            itemStack.setItemMeta(nbtItem.getItem().getItemMeta());
+            removeOwner(itemEntity);
         }
     }
 
@@ -885,9 +896,32 @@ public class ItemManagerImpl implements ItemManager, Listener {
     @EventHandler
     public void onMove(InventoryPickupItemEvent event) {
         if (event.isCancelled()) return;
-        ItemStack itemStack = event.getItem().getItemStack();
+        Item itemEntity = event.getItem();
+        if (!itemEntity.getPersistentDataContainer().has(ownerKey, PersistentDataType.STRING)) return;
+        removeOwner(itemEntity);
+    }
+
+    /**
+     * Marks the dropped items that have an owner, so that the pickup listeners
+     * only need to check the entity instead of reading the NBT of every item.
+     *
+     * @param event The ItemSpawnEvent.
+     */
+    @EventHandler
+    public void onItemSpawn(ItemSpawnEvent event) {
+        if (event.isCancelled()) return;
+        ItemStack itemStack = event.getEntity().getItemStack();
+        // Items without any tag can't have an owner
+        if (!itemStack.hasItemMeta()) return;
         NBTItem nbtItem = new NBTItem(itemStack);
         if (!nbtItem.hasTag("owner")) return;
+        event.getEntity().getPersistentDataContainer().set(ownerKey, PersistentDataType.STRING, nbtItem.getString("owner"));
+    }
+
+    private void removeOwner(Item itemEntity) {
+        itemEntity.getPersistentDataContainer().remove(ownerKey);
+        ItemStack itemStack = itemEntity.getItemStack();
+        NBTItem nbtItem = new NBTItem(itemStack);
         nbtItem.removeKey("owner");
         itemStack.setItemMeta(nbtItem.getItem().getItemMeta());
     }
@@ -918,7 +952,7 @@ public class ItemManagerImpl implements ItemManager, Listener {
     @EventHandler
     public void onRepairItem(PrepareAnvilEvent event) {
         ItemStack result = event.getInventory().getResult();
-        if (result == null || result.getType() == Material.AIR) return;
+        if (result == null || result.getType() == Material.AIR || !result.hasItemMeta()) return;
         NBTItem nbtItem = new NBTItem(result);
         NBTCompound compound = nbtItem.getCompound("CustomFishing");
         if (compound == null || !compound.hasTag("max_dur")) return;
@@ -939,6 +973,7 @@ public class ItemManagerImpl implements ItemManager, Listener {
     public void onMending(PlayerItemMendEvent event) {
         if (event.isCancelled()) return;
         ItemStack itemStack = event.getItem();
+        if (!itemStack.hasItemMeta()) return;
         NBTItem nbtItem = new NBTItem(itemStack);
         NBTCompound compound = nbtItem.getCompound("CustomFishing");
         if (compound == null) return;
@@ -0,0 +1,43 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.loot;
+
+import net.momirealms.customfishing.api.mechanic.loot.WeightModifier;
+import org.bukkit.entity.Player;
+
+/**
+ * A weight modifier that applies an arithmetic operation with a fixed argument.
+ * The result never depends on the player, so the weights it produces can be reused between casts.
+ *
+ * @param operator One of '+', '-', '*', '/' and '%'.
+ * @param argument The argument of the operation.
+ */
+public record ArithmeticWeightModifier(char operator, double argument) implements WeightModifier {
+
+    @Override
+    public double modify(Player player, double weight) {
+        return switch (operator) {
+            case '+' -> weight + argument;
+            case '-' -> weight - argument;
+            case '*' -> weight * argument;
+            case '/' -> weight / argument;
+            case '%' -> weight % argument;
+            default -> throw new IllegalStateException("Unknown operator: " + operator);
+        };
+    }
+}
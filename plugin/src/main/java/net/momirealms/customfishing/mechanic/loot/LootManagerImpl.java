@@ -29,6 +29,8 @@ import net.momirealms.customfishing.api.mechanic.loot.WeightModifier;
 import net.momirealms.customfishing.api.mechanic.statistic.StatisticsKey;
 import net.momirealms.customfishing.api.util.LogUtils;
 import net.momirealms.customfishing.api.util.WeightUtils;
+import net.momirealms.customfishing.mechanic.registry.RegistrySnapshot;
+import net.momirealms.customfishing.mechanic.requirement.ConditionalElement;
 import net.momirealms.customfishing.mechanic.requirement.RequirementManagerImpl;
 import net.momirealms.customfishing.setting.CFConfig;
 import net.momirealms.customfishing.util.ConfigUtils;
@@ -44,59 +46,13 @@ import java.util.*;
 public class LootManagerImpl implements LootManager {
 
     private final CustomFishingPlugin plugin;
-    // A map that associates loot IDs with their respective loot configurations.
-    private final HashMap<String, Loot> lootMap;
-    // A map that associates loot group IDs with lists of loot IDs.
-    private final HashMap<String, List<String>> lootGroupMap;
 
     public LootManagerImpl(CustomFishingPlugin plugin) {
         this.plugin = plugin;
-        this.lootMap = new HashMap<>();
-        this.lootGroupMap = new HashMap<>();
-    }
-
-    public void load() {
-        this.loadLootsFromPluginFolder();
-    }
-
-    public void unload() {
-        this.lootMap.clear();
-        this.lootGroupMap.clear();
     }
 
     public void disable() {
-        unload();
-    }
-
-    /**
-     * Loads loot configurations from the plugin's content folders.
-     * This method scans the "item," "entity," and "block" subfolders within the plugin's data folder
-     * and loads loot configurations from YAML files.
-     * If the subfolders or default loot files don't exist, it creates them.
-     */
-    @SuppressWarnings("DuplicatedCode")
-    public void loadLootsFromPluginFolder() {
-        Deque<File> fileDeque = new ArrayDeque<>();
-        for (String type : List.of("item", "entity", "block")) {
-            File typeFolder = new File(plugin.getDataFolder() + File.separator + "contents" + File.separator + type);
-            if (!typeFolder.exists()) {
-                if (!typeFolder.mkdirs()) return;
-                plugin.saveResource("contents" + File.separator + type + File.separator + "default.yml", false);
-            }
-            fileDeque.push(typeFolder);
-            while (!fileDeque.isEmpty()) {
-                File file = fileDeque.pop();
-                File[] files = file.listFiles();
-                if (files == null) continue;
-                for (File subFile : files) {
-                    if (subFile.isDirectory()) {
-                        fileDeque.push(subFile);
-                    } else if (subFile.isFile() && subFile.getName().endsWith(".yml")) {
-                        loadSingleFile(subFile, type);
-                    }
-                }
-            }
-        }
+        RegistrySnapshot.clear();
     }
 
     /**
@@ -108,7 +64,7 @@ public class LootManagerImpl implements LootManager {
     @Nullable
     @Override
     public List<String> getLootGroup(String key) {
-        return lootGroupMap.get(key);
+        return RegistrySnapshot.get().lootGroups().get(key);
     }
 
     /**
@@ -120,7 +76,7 @@ public class LootManagerImpl implements LootManager {
     @Nullable
     @Override
     public Loot getLoot(String key) {
-        return lootMap.get(key);
+        return RegistrySnapshot.get().loots().get(key);
     }
 
     /**
@@ -130,7 +86,7 @@ public class LootManagerImpl implements LootManager {
      */
     @Override
     public Collection<String> getAllLootKeys() {
-        return lootMap.keySet();
+        return RegistrySnapshot.get().loots().keySet();
     }
 
     /**
@@ -140,7 +96,7 @@ public class LootManagerImpl implements LootManager {
      */
     @Override
     public Collection<Loot> getAllLoots() {
-        return lootMap.values();
+        return RegistrySnapshot.get().loots().values();
     }
 
     /**
@@ -199,7 +155,10 @@ public class LootManagerImpl implements LootManager {
     @Override
     @Nullable
     public Loot getNextLoot(Effect initialEffect, Condition condition) {
-        String key = WeightUtils.getRandom(getPossibleLootKeysWithWeight(initialEffect, condition));
+        // Weights modified by the effect differ between casts, so only unmodified weights can use the cached tables
+        String key = initialEffect.getWeightModifier().isEmpty() && initialEffect.getWeightModifierIgnored().isEmpty()
+                ? ((RequirementManagerImpl) plugin.getRequirementManager()).sampleLoot(condition)
+                : WeightUtils.getRandom(getPossibleLootKeysWithWeight(initialEffect, condition));
         if (key == null) {
             LogUtils.warn("No loot available at " + condition.getLocation() + " for player: " + condition.getPlayer().getName());
             return null;
@@ -213,13 +172,16 @@ public class LootManagerImpl implements LootManager {
     }
 
     /**
-     * Loads loot configurations from a single YAML file and populates the lootMap and lootGroupMap.
+     * Parses the loot configurations in a single YAML file without registering them.
      *
      * @param file      The YAML file containing loot configurations.
      * @param namespace The namespace indicating the type of loot (e.g., "item," "entity," "block").
+     * @return The loots in the file, in the order they are defined.
      */
-    private void loadSingleFile(File file, String namespace) {
+    public LootFile parseFile(File file, String namespace) {
         YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        List<Loot> loots = new ArrayList<>();
+        List<Pair<String, ConditionalElement>> legacyLoots = new ArrayList<>();
         for (Map.Entry<String, Object> entry : yaml.getValues(false).entrySet()) {
             if (entry.getValue() instanceof ConfigurationSection section) {
                 var loot = getSingleSectionItem(
@@ -228,30 +190,18 @@ public class LootManagerImpl implements LootManager {
                         namespace,
                         entry.getKey()
                 );
-                // Check for duplicate loot configurations and log an error if found.
-                if (lootMap.containsKey(entry.getKey())) {
-                    LogUtils.severe("Duplicated loot found: " + entry.getKey() + ".");
-                } else {
-                    lootMap.put(entry.getKey(), loot);
-                }
-                String[] group = loot.getLootGroup();
-                // If the loot configuration belongs to one or more groups, update lootGroupMap.
-                if (group != null) {
-                    for (String g : group) {
-                        List<String> groupMembers = lootGroupMap.computeIfAbsent(g, k -> new ArrayList<>());
-                        groupMembers.add(loot.getID());
-                    }
-                }
+                loots.add(loot);
                 // legacy format support
                 if (section.contains("requirements") && section.contains("weight")) {
-                    plugin.getRequirementManager().putLegacyLootToMap(
+                    legacyLoots.add(Pair.of(loot.getID(), RequirementManagerImpl.getLegacyLootElement(
                             loot.getID(),
                             plugin.getRequirementManager().getRequirements(section.getConfigurationSection("requirements"), false),
                             section.getDouble("weight", 0)
-                    );
+                    )));
                 }
             }
         }
+        return new LootFile(loots, legacyLoots);
     }
 
     /**
@@ -277,4 +227,13 @@ public class LootManagerImpl implements LootManager {
                 .statsKey(new StatisticsKey(section.getString("statistics.amount", key), section.getString("statistics.size", key)))
                 .build();
     }
+
+    /**
+     * The loots parsed from a single file.
+     *
+     * @param loots       The loots in the order they are defined.
+     * @param legacyLoots The weights of loots using the legacy format, by loot ID.
+     */
+    public record LootFile(List<Loot> loots, List<Pair<String, ConditionalElement>> legacyLoots) {
+    }
 }
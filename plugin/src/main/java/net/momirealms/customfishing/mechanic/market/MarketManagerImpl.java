@@ -28,9 +28,8 @@ import net.momirealms.customfishing.api.mechanic.item.BuildableItem;
 import net.momirealms.customfishing.api.mechanic.market.MarketGUIHolder;
 import net.momirealms.customfishing.api.scheduler.CancellableTask;
 import net.momirealms.customfishing.api.util.LogUtils;
-import net.momirealms.customfishing.compatibility.papi.PlaceholderManagerImpl;
 import net.momirealms.customfishing.util.ConfigUtils;
-import net.objecthunter.exp4j.ExpressionBuilder;
+import net.momirealms.customfishing.util.ExpressionCompiler;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
@@ -58,6 +57,7 @@ public class MarketManagerImpl implements MarketManager, Listener {
     private String[] layout;
     private String title;
     private String formula;
+    private ExpressionCompiler.CompiledExpression priceExpression;
     private final HashMap<Character, BuildableItem> decorativeIcons;
     private char itemSlot;
     private char functionSlot;
@@ -68,6 +68,7 @@ public class MarketManagerImpl implements MarketManager, Listener {
     private Action[] allowActions;
     private Action[] limitActions;
     private String earningLimitExpression;
+    private ExpressionCompiler.CompiledExpression earningLimit;
     private boolean allowItemWithNoPrice;
     private final ConcurrentHashMap<UUID, MarketGUI> marketGUIMap;
     private boolean enable;
@@ -117,6 +118,7 @@ public class MarketManagerImpl implements MarketManager, Listener {
         YamlConfiguration config = plugin.getConfig("market.yml");
         this.enable = config.getBoolean("enable", true);
         this.formula = config.getString("price-formula", "{base} + {bonus} * {size}");
+        this.priceExpression = ExpressionCompiler.compile(formula);
         if (!this.enable) return;
 
         // Load various configuration settings
@@ -131,6 +133,7 @@ public class MarketManagerImpl implements MarketManager, Listener {
         this.denyActions = plugin.getActionManager().getActions(config.getConfigurationSection("functional-icons.deny-icon.action"));
         this.limitActions = plugin.getActionManager().getActions(config.getConfigurationSection("functional-icons.limit-icon.action"));
         this.earningLimitExpression = config.getBoolean("limitation.enable", true) ? config.getString("limitation.earnings", "10000") : "-1";
+        this.earningLimit = ExpressionCompiler.compile(earningLimitExpression);
         this.allowItemWithNoPrice = config.getBoolean("item-slot.allow-items-with-no-price", true);
 
         // Load item prices from the configuration
@@ -432,12 +435,8 @@ public class MarketManagerImpl implements MarketManager, Listener {
      */
     @Override
     public double getFishPrice(Player player, Map<String, String> vars) {
-        String temp = PlaceholderManagerImpl.getInstance().parse(player, formula, vars);
-        var placeholders = PlaceholderManagerImpl.getInstance().detectPlaceholders(temp);
-        for (String placeholder : placeholders) {
-            temp = temp.replace(placeholder, "0");
-        }
-        return new ExpressionBuilder(temp).build().evaluate();
+        // Placeholders that can't be resolved are taken as 0
+        return priceExpression.evaluate(player, vars, 0d);
     }
 
     /**
@@ -487,14 +486,7 @@ public class MarketManagerImpl implements MarketManager, Listener {
      */
     @Override
     public double getEarningLimit(Player player) {
-        return new ExpressionBuilder(
-                PlaceholderManagerImpl.getInstance().parse(
-                        player,
-                        earningLimitExpression,
-                        new HashMap<>()
-                ))
-                .build()
-                .evaluate();
+        return earningLimit.evaluate(player, Map.of());
     }
 
     /**
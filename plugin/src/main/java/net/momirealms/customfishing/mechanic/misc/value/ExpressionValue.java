@@ -18,21 +18,21 @@
 package net.momirealms.customfishing.mechanic.misc.value;
 
 import net.momirealms.customfishing.api.mechanic.misc.Value;
-import net.momirealms.customfishing.util.ConfigUtils;
+import net.momirealms.customfishing.util.ExpressionCompiler;
 import org.bukkit.entity.Player;
 
-import java.util.HashMap;
+import java.util.Map;
 
 public class ExpressionValue implements Value {
 
-    private final String expression;
+    private final ExpressionCompiler.CompiledExpression expression;
 
     public ExpressionValue(String expression) {
-        this.expression = expression;
+        this.expression = ExpressionCompiler.compile(expression);
     }
 
     @Override
     public double get(Player player) {
-        return ConfigUtils.getExpressionValue(player, expression, new HashMap<>(0));
+        return expression.evaluate(player, Map.of());
     }
 }
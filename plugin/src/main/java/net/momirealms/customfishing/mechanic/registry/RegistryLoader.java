@@ -0,0 +1,190 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.registry;
+
+import net.momirealms.customfishing.api.CustomFishingPlugin;
+import net.momirealms.customfishing.api.common.Pair;
+import net.momirealms.customfishing.api.mechanic.effect.EffectCarrier;
+import net.momirealms.customfishing.api.mechanic.loot.Loot;
+import net.momirealms.customfishing.api.util.LogUtils;
+import net.momirealms.customfishing.mechanic.effect.EffectManagerImpl;
+import net.momirealms.customfishing.mechanic.loot.LootManagerImpl;
+import net.momirealms.customfishing.mechanic.requirement.ConditionalElement;
+import net.momirealms.customfishing.mechanic.requirement.ConditionalWeightPlan;
+import net.momirealms.customfishing.mechanic.requirement.RequirementManagerImpl;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Builds a {@link RegistrySnapshot} from the loot and effect folders under contents and the condition files.
+ * The files are merged in the order they used to be loaded in, so duplicated keys are resolved exactly as before.
+ * Nothing is registered while parsing; the caller publishes the returned snapshot.
+ * <p>
+ * Parsing runs on the calling thread, as the action and requirement factories and the lookups
+ * into other managers are not safe to call from other threads.
+ * The other folders under contents, such as items, blocks, entities, hooks, totems, games, competitions
+ * and categories, are not part of the snapshot and are still reloaded in place by their managers.
+ */
+public class RegistryLoader {
+
+    private static final List<String> LOOT_TYPES = List.of("item", "entity", "block");
+    private static final List<String> EFFECT_TYPES = List.of("rod", "bait", "enchant", "util", "totem", "hook");
+
+    private final CustomFishingPlugin plugin;
+
+    public RegistryLoader(CustomFishingPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Parses all the registries.
+     *
+     * @return The new snapshot.
+     * @throws RuntimeException If any file failed to be parsed.
+     */
+    public RegistrySnapshot load() {
+        LootManagerImpl lootManager = (LootManagerImpl) plugin.getLootManager();
+        EffectManagerImpl effectManager = (EffectManagerImpl) plugin.getEffectManager();
+        RequirementManagerImpl requirementManager = (RequirementManagerImpl) plugin.getRequirementManager();
+
+        LinkedHashMap<String, Loot> loots = new LinkedHashMap<>();
+        HashMap<String, List<String>> lootGroups = new HashMap<>();
+        List<Pair<String, ConditionalElement>> legacyLoots = new ArrayList<>();
+        for (String type : LOOT_TYPES) {
+            for (File file : collectFiles(type)) {
+                LootManagerImpl.LootFile lootFile = lootManager.parseFile(file, type);
+                for (Loot loot : lootFile.loots()) {
+                    // Check for duplicate loot configurations and log an error if found.
+                    if (loots.containsKey(loot.getID())) {
+                        LogUtils.severe("Duplicated loot found: " + loot.getID() + ".");
+                    } else {
+                        loots.put(loot.getID(), loot);
+                    }
+                    String[] group = loot.getLootGroup();
+                    if (group != null) {
+                        for (String g : group) {
+                            lootGroups.computeIfAbsent(g, k -> new ArrayList<>()).add(loot.getID());
+                        }
+                    }
+                }
+                legacyLoots.addAll(lootFile.legacyLoots());
+            }
+        }
+        Map<String, List<String>> frozenGroups = freezeGroups(lootGroups);
+
+        LinkedHashMap<String, ConditionalElement> conditionalLoots = requirementManager.parseConditionalElements("loot-conditions.yml");
+        for (Pair<String, ConditionalElement> legacyLoot : legacyLoots) {
+            conditionalLoots.putIfAbsent("LEGACY_" + legacyLoot.left(), legacyLoot.right());
+        }
+        validateConditionalLoots(conditionalLoots, loots);
+        LinkedHashMap<String, ConditionalElement> conditionalGames = requirementManager.parseConditionalElements("game-conditions.yml");
+
+        // Carriers registered by other plugins with persist enabled survive reloads
+        HashMap<String, HashMap<String, EffectCarrier>> effects = new HashMap<>();
+        for (Map.Entry<String, Map<String, EffectCarrier>> entry : RegistrySnapshot.get().effects().entrySet()) {
+            for (EffectCarrier carrier : entry.getValue().values()) {
+                if (carrier.isPersist()) {
+                    effects.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(carrier.getKey().value(), carrier);
+                }
+            }
+        }
+        // Group modifiers of effects refer to the new loot groups
+        for (String type : EFFECT_TYPES) {
+            for (File file : collectFiles(type)) {
+                HashMap<String, EffectCarrier> carriers = effects.computeIfAbsent(type, k -> new HashMap<>());
+                for (EffectCarrier carrier : effectManager.parseFile(file, type, frozenGroups)) {
+                    carriers.put(carrier.getKey().value(), carrier);
+                }
+            }
+        }
+
+        return new RegistrySnapshot(
+                Collections.unmodifiableMap(loots),
+                frozenGroups,
+                RegistrySnapshot.freezeNested(effects),
+                Collections.unmodifiableMap(conditionalLoots),
+                Collections.unmodifiableMap(conditionalGames),
+                ConditionalWeightPlan.compile(conditionalLoots),
+                ConditionalWeightPlan.compile(conditionalGames)
+        );
+    }
+
+    /**
+     * Lists the YAML files of a content type, creating the folder with its default file if it doesn't exist.
+     *
+     * @param type The content type.
+     * @return The files in the order they used to be loaded in.
+     */
+    private List<File> collectFiles(String type) {
+        List<File> result = new ArrayList<>();
+        File typeFolder = new File(plugin.getDataFolder() + File.separator + "contents" + File.separator + type);
+        if (!typeFolder.exists()) {
+            if (!typeFolder.mkdirs()) return result;
+            plugin.saveResource("contents" + File.separator + type + File.separator + "default.yml", false);
+        }
+        Deque<File> fileDeque = new ArrayDeque<>();
+        fileDeque.push(typeFolder);
+        while (!fileDeque.isEmpty()) {
+            File file = fileDeque.pop();
+            File[] files = file.listFiles();
+            if (files == null) continue;
+            for (File subFile : files) {
+                if (subFile.isDirectory()) {
+                    fileDeque.push(subFile);
+                } else if (subFile.isFile() && subFile.getName().endsWith(".yml")) {
+                    result.add(subFile);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Warns about loots that are given weights in loot-conditions.yml but don't exist.
+     *
+     * @param conditionalLoots The conditional loots.
+     * @param loots            The loots by ID.
+     */
+    private void validateConditionalLoots(Map<String, ConditionalElement> conditionalLoots, Map<String, Loot> loots) {
+        Set<String> missing = new LinkedHashSet<>();
+        Deque<ConditionalElement> elements = new ArrayDeque<>(conditionalLoots.values());
+        while (!elements.isEmpty()) {
+            ConditionalElement element = elements.pop();
+            for (Pair<String, ?> modifier : element.getModifierList()) {
+                if (!loots.containsKey(modifier.left())) {
+                    missing.add(modifier.left());
+                }
+            }
+            if (element.getSubElements() != null) {
+                elements.addAll(element.getSubElements().values());
+            }
+        }
+        for (String loot : missing) {
+            LogUtils.warn("Loot " + loot + " in loot-conditions.yml doesn't exist in any of the subfolders[item/entity/block].");
+        }
+    }
+
+    private static Map<String, List<String>> freezeGroups(Map<String, List<String>> lootGroups) {
+        HashMap<String, List<String>> copy = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : lootGroups.entrySet()) {
+            copy.put(entry.getKey(), List.copyOf(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+}
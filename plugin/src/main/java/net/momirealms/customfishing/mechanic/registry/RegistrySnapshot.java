@@ -0,0 +1,144 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.registry;
+
+import net.momirealms.customfishing.api.mechanic.effect.EffectCarrier;
+import net.momirealms.customfishing.api.mechanic.loot.Loot;
+import net.momirealms.customfishing.mechanic.requirement.ConditionalElement;
+import net.momirealms.customfishing.mechanic.requirement.ConditionalWeightPlan;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * An immutable view of the loots, loot groups and effects parsed from the contents folders, and of the condition files.
+ * Readers always get a complete snapshot: a reload builds a new one and publishes it with a single volatile write,
+ * so there's never a moment where the registries are empty or half loaded.
+ *
+ * @param loots             Loots by ID.
+ * @param lootGroups        Loot IDs by group.
+ * @param effects           Effect carriers by namespace and ID.
+ * @param conditionalLoots  The elements of loot-conditions.yml, including legacy loot weights.
+ * @param conditionalGames  The elements of game-conditions.yml.
+ * @param lootPlan          The compiled form of the conditional loots.
+ * @param gamePlan          The compiled form of the conditional games.
+ */
+public record RegistrySnapshot(
+        Map<String, Loot> loots,
+        Map<String, List<String>> lootGroups,
+        Map<String, Map<String, EffectCarrier>> effects,
+        Map<String, ConditionalElement> conditionalLoots,
+        Map<String, ConditionalElement> conditionalGames,
+        ConditionalWeightPlan lootPlan,
+        ConditionalWeightPlan gamePlan
+) {
+
+    private static final RegistrySnapshot EMPTY = new RegistrySnapshot(
+            Map.of(), Map.of(), Map.of(), Map.of(), Map.of(),
+            ConditionalWeightPlan.compile(Map.of()),
+            ConditionalWeightPlan.compile(Map.of())
+    );
+
+    private static volatile RegistrySnapshot current = EMPTY;
+
+    /**
+     * Get the snapshot in use.
+     *
+     * @return The current snapshot.
+     */
+    public static RegistrySnapshot get() {
+        return current;
+    }
+
+    /**
+     * Replaces the snapshot in use.
+     *
+     * @param snapshot The new snapshot.
+     */
+    public static void publish(RegistrySnapshot snapshot) {
+        synchronized (RegistrySnapshot.class) {
+            current = snapshot;
+        }
+    }
+
+    /**
+     * Replaces the snapshot in use with a modified copy, for the registrations made at runtime.
+     *
+     * @param function The function creating the modified copy.
+     */
+    public static void update(UnaryOperator<RegistrySnapshot> function) {
+        synchronized (RegistrySnapshot.class) {
+            current = function.apply(current);
+        }
+    }
+
+    /**
+     * Clears the snapshot in use.
+     */
+    public static void clear() {
+        publish(EMPTY);
+    }
+
+    /**
+     * Creates a copy with different effect carriers.
+     *
+     * @param effects The effect carriers by namespace and ID.
+     * @return The new snapshot.
+     */
+    public RegistrySnapshot withEffects(Map<String, Map<String, EffectCarrier>> effects) {
+        return new RegistrySnapshot(loots, lootGroups, freezeNested(effects), conditionalLoots, conditionalGames, lootPlan, gamePlan);
+    }
+
+    /**
+     * Creates a copy with different conditional loots, recompiling the loot plan.
+     *
+     * @param conditionalLoots The conditional loots.
+     * @return The new snapshot.
+     */
+    public RegistrySnapshot withConditionalLoots(Map<String, ConditionalElement> conditionalLoots) {
+        return new RegistrySnapshot(loots, lootGroups, effects, freeze(conditionalLoots), conditionalGames, ConditionalWeightPlan.compile(conditionalLoots), gamePlan);
+    }
+
+    /**
+     * Copies a map into an unmodifiable one keeping its order.
+     *
+     * @param map The map to copy.
+     * @return The unmodifiable copy.
+     */
+    public static <K, V> Map<K, V> freeze(Map<K, V> map) {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(map));
+    }
+
+    /**
+     * Copies a map of maps into an unmodifiable one.
+     *
+     * @param map The map to copy.
+     * @return The unmodifiable copy.
+     */
+    public static <K, V> Map<String, Map<K, V>> freezeNested(Map<String, ? extends Map<K, V>> map) {
+        HashMap<String, Map<K, V>> copy = new HashMap<>();
+        for (Map.Entry<String, ? extends Map<K, V>> entry : map.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableMap(new HashMap<>(entry.getValue())));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+}
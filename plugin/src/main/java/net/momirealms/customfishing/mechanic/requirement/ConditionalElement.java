@@ -20,7 +20,6 @@ package net.momirealms.customfishing.mechanic.requirement;
 import net.momirealms.customfishing.api.common.Pair;
 import net.momirealms.customfishing.api.mechanic.loot.WeightModifier;
 import net.momirealms.customfishing.api.mechanic.requirement.Requirement;
-import org.bukkit.entity.Player;
 
 import java.util.HashMap;
 import java.util.List;
@@ -41,17 +40,8 @@ public class ConditionalElement {
         this.subLoots = subElements;
     }
 
-    /**
-     * Combines the weight modifiers for this element.
-     *
-     * @param player    The player for whom the modifiers are applied.
-     * @param weightMap The map of weight modifiers.
-     */
-    synchronized public void combine(Player player, HashMap<String, Double> weightMap) {
-        for (Pair<String, WeightModifier> modifierPair : this.modifierList) {
-            double previous = weightMap.getOrDefault(modifierPair.left(), 0d);
-            weightMap.put(modifierPair.left(), modifierPair.right().modify(player, previous));
-        }
+    public List<Pair<String, WeightModifier>> getModifierList() {
+        return modifierList;
     }
 
     public Requirement[] getRequirements() {
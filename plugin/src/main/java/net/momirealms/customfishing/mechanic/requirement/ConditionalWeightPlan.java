@@ -0,0 +1,225 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.requirement;
+
+import net.momirealms.customfishing.api.common.Pair;
+import net.momirealms.customfishing.api.mechanic.condition.Condition;
+import net.momirealms.customfishing.api.mechanic.loot.WeightModifier;
+import net.momirealms.customfishing.api.mechanic.requirement.Requirement;
+import net.momirealms.customfishing.api.util.WeightUtils;
+import net.momirealms.customfishing.api.util.WeightedSampler;
+import net.momirealms.customfishing.mechanic.loot.ArithmeticWeightModifier;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A flattened, immutable form of a {@link ConditionalElement} tree.
+ * Nodes are stored in the same breadth-first order the tree used to be walked in,
+ * so weight modifiers are applied in an identical order. Each distinct requirement
+ * instance is stored only once and evaluated at most once per cast.
+ * <p>
+ * If none of the weight modifiers depend on the player, the weights only depend on which
+ * nodes are active, so an alias table is built once for each set of active nodes and
+ * reused until the plan is replaced on reload.
+ */
+public class ConditionalWeightPlan {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte MET = 1;
+    private static final byte NOT_MET = 2;
+    private static final int MAX_SAMPLERS = 256;
+
+    private final String[] keys;
+    private final Requirement[] requirements;
+    private final int[] parents;
+    private final int[][] nodeRequirements;
+    private final int[][] nodeModifierKeys;
+    private final WeightModifier[][] nodeModifiers;
+    private final boolean playerIndependent;
+    private final ConcurrentHashMap<BitSet, WeightedSampler<String>> samplers = new ConcurrentHashMap<>();
+
+    private ConditionalWeightPlan(
+            String[] keys,
+            Requirement[] requirements,
+            int[] parents,
+            int[][] nodeRequirements,
+            int[][] nodeModifierKeys,
+            WeightModifier[][] nodeModifiers
+    ) {
+        this.keys = keys;
+        this.requirements = requirements;
+        this.parents = parents;
+        this.nodeRequirements = nodeRequirements;
+        this.nodeModifierKeys = nodeModifierKeys;
+        this.nodeModifiers = nodeModifiers;
+        this.playerIndependent = Arrays.stream(nodeModifiers)
+                .flatMap(Arrays::stream)
+                .allMatch(modifier -> modifier instanceof ArithmeticWeightModifier);
+    }
+
+    /**
+     * Compiles a tree of conditional elements into a flat plan.
+     *
+     * @param elements The root conditional elements.
+     * @return The compiled plan.
+     */
+    public static ConditionalWeightPlan compile(Map<String, ConditionalElement> elements) {
+        LinkedHashMap<String, Integer> keyIndexes = new LinkedHashMap<>();
+        IdentityHashMap<Requirement, Integer> requirementIndexes = new IdentityHashMap<>();
+        List<Requirement> requirementList = new ArrayList<>();
+        List<Integer> parentList = new ArrayList<>();
+        List<int[]> requirementsPerNode = new ArrayList<>();
+        List<int[]> modifierKeysPerNode = new ArrayList<>();
+        List<WeightModifier[]> modifiersPerNode = new ArrayList<>();
+
+        // Walk the tree in the same breadth-first order as the runtime evaluation used to
+        Queue<Pair<Integer, Map<String, ConditionalElement>>> queue = new LinkedList<>();
+        queue.add(Pair.of(-1, elements));
+        while (!queue.isEmpty()) {
+            Pair<Integer, Map<String, ConditionalElement>> current = queue.poll();
+            for (ConditionalElement element : current.right().values()) {
+                int node = parentList.size();
+                parentList.add(current.left());
+
+                Requirement[] elementRequirements = element.getRequirements();
+                int[] requirementIds = new int[elementRequirements == null ? 0 : elementRequirements.length];
+                for (int i = 0; i < requirementIds.length; i++) {
+                    Requirement requirement = elementRequirements[i];
+                    requirementIds[i] = requirementIndexes.computeIfAbsent(requirement, k -> {
+                        requirementList.add(k);
+                        return requirementList.size() - 1;
+                    });
+                }
+                requirementsPerNode.add(requirementIds);
+
+                List<Pair<String, WeightModifier>> modifierList = element.getModifierList();
+                int[] modifierKeys = new int[modifierList.size()];
+                WeightModifier[] modifiers = new WeightModifier[modifierList.size()];
+                for (int i = 0; i < modifiers.length; i++) {
+                    Pair<String, WeightModifier> pair = modifierList.get(i);
+                    modifierKeys[i] = keyIndexes.computeIfAbsent(pair.left(), k -> keyIndexes.size());
+                    modifiers[i] = pair.right();
+                }
+                modifierKeysPerNode.add(modifierKeys);
+                modifiersPerNode.add(modifiers);
+
+                if (element.getSubElements() != null) {
+                    queue.add(Pair.of(node, element.getSubElements()));
+                }
+            }
+        }
+
+        return new ConditionalWeightPlan(
+                keyIndexes.keySet().toArray(new String[0]),
+                requirementList.toArray(new Requirement[0]),
+                parentList.stream().mapToInt(Integer::intValue).toArray(),
+                requirementsPerNode.toArray(new int[0][]),
+                modifierKeysPerNode.toArray(new int[0][]),
+                modifiersPerNode.toArray(new WeightModifier[0][])
+        );
+    }
+
+    /**
+     * Evaluates the plan for a given condition in a single linear pass.
+     *
+     * @param condition The player's condition.
+     * @return A HashMap with keys and their weights.
+     */
+    @NotNull
+    public HashMap<String, Double> evaluate(Condition condition) {
+        return weights(activeNodes(condition), condition.getPlayer());
+    }
+
+    /**
+     * Draws a random key for a given condition.
+     * Player independent weights are drawn from an alias table cached per set of active nodes,
+     * any other weights are drawn linearly since they may change on every cast.
+     *
+     * @param condition The player's condition.
+     * @return A random key, or null if no key has a positive weight.
+     */
+    @Nullable
+    public String sample(Condition condition) {
+        BitSet activeNodes = activeNodes(condition);
+        if (!playerIndependent) {
+            return WeightUtils.getRandom(weights(activeNodes, condition.getPlayer()));
+        }
+        WeightedSampler<String> sampler = samplers.get(activeNodes);
+        if (sampler == null) {
+            sampler = WeightedSampler.of(weights(activeNodes, null));
+            // Each cached table belongs to one combination of met conditions, stop caching new ones once there are too many
+            if (samplers.size() < MAX_SAMPLERS) {
+                samplers.putIfAbsent(activeNodes, sampler);
+            }
+        }
+        return sampler.sample();
+    }
+
+    private BitSet activeNodes(Condition condition) {
+        int nodeCount = parents.length;
+        BitSet activeNodes = new BitSet(nodeCount);
+        byte[] results = new byte[requirements.length];
+
+        outer:
+        for (int node = 0; node < nodeCount; node++) {
+            int parent = parents[node];
+            if (parent != -1 && !activeNodes.get(parent)) continue;
+            for (int requirement : nodeRequirements[node]) {
+                byte result = results[requirement];
+                if (result == UNKNOWN) {
+                    result = requirements[requirement].isConditionMet(condition) ? MET : NOT_MET;
+                    results[requirement] = result;
+                }
+                if (result == NOT_MET) continue outer;
+            }
+            activeNodes.set(node);
+        }
+        return activeNodes;
+    }
+
+    private HashMap<String, Double> weights(BitSet activeNodes, Player player) {
+        double[] weights = new double[keys.length];
+        boolean[] presentKeys = new boolean[keys.length];
+        int presentCount = 0;
+
+        for (int node = activeNodes.nextSetBit(0); node >= 0; node = activeNodes.nextSetBit(node + 1)) {
+            int[] modifierKeys = nodeModifierKeys[node];
+            WeightModifier[] modifiers = nodeModifiers[node];
+            for (int i = 0; i < modifiers.length; i++) {
+                int key = modifierKeys[i];
+                weights[key] = modifiers[i].modify(player, weights[key]);
+                if (!presentKeys[key]) {
+                    presentKeys[key] = true;
+                    presentCount++;
+                }
+            }
+        }
+
+        HashMap<String, Double> weightMap = new HashMap<>(Math.max(16, (int) (presentCount / 0.75f) + 1));
+        for (int i = 0; i < keys.length; i++) {
+            if (presentKeys[i]) {
+                weightMap.put(keys[i], weights[i]);
+            }
+        }
+        return weightMap;
+    }
+}
@@ -33,6 +33,7 @@ import net.momirealms.customfishing.api.mechanic.requirement.RequirementFactory;
 import net.momirealms.customfishing.api.util.LogUtils;
 import net.momirealms.customfishing.compatibility.VaultHook;
 import net.momirealms.customfishing.compatibility.papi.ParseUtils;
+import net.momirealms.customfishing.mechanic.registry.RegistrySnapshot;
 import net.momirealms.customfishing.util.ClassUtils;
 import net.momirealms.customfishing.util.ConfigUtils;
 import org.bukkit.Location;
@@ -59,65 +60,79 @@ public class RequirementManagerImpl implements RequirementManager {
     public static Requirement[] mechanicRequirements;
     private final CustomFishingPluginImpl plugin;
     private final HashMap<String, RequirementFactory> requirementBuilderMap;
-    private final LinkedHashMap<String, ConditionalElement> conditionalLootsMap;
-    private final LinkedHashMap<String, ConditionalElement> conditionalGamesMap;
+    private final HashMap<String, Requirement> sharedRequirementMap;
     private final String EXPANSION_FOLDER = "expansions/requirement";
 
     public RequirementManagerImpl(CustomFishingPluginImpl plugin) {
         this.plugin = plugin;
         this.requirementBuilderMap = new HashMap<>();
-        this.conditionalLootsMap = new LinkedHashMap<>();
-        this.conditionalGamesMap = new LinkedHashMap<>();
+        this.sharedRequirementMap = new HashMap<>();
         this.registerInbuiltRequirements();
     }
 
     public void load() {
         this.loadExpansions();
-        this.loadRequirementGroupFileConfig();
+        this.loadMechanicRequirements();
     }
 
     public void unload() {
-        this.conditionalLootsMap.clear();
+        this.sharedRequirementMap.clear();
     }
 
     public void disable() {
         this.requirementBuilderMap.clear();
-        this.conditionalLootsMap.clear();
+        this.unload();
     }
 
     @Override
     public boolean putLegacyLootToMap(String key, Requirement[] requirements, double weight) {
-        if (conditionalLootsMap.containsKey("LEGACY_" + key)) {
-            return false;
-        } else {
-            conditionalLootsMap.put("LEGACY_" + key, new ConditionalElement(requirements, List.of(Pair.of(key, (player, origin) -> weight + origin)), new HashMap<>()));
-            return true;
-        }
+        boolean[] added = new boolean[1];
+        RegistrySnapshot.update(snapshot -> {
+            if (snapshot.conditionalLoots().containsKey("LEGACY_" + key)) return snapshot;
+            LinkedHashMap<String, ConditionalElement> conditionalLoots = new LinkedHashMap<>(snapshot.conditionalLoots());
+            conditionalLoots.put("LEGACY_" + key, getLegacyLootElement(key, requirements, weight));
+            added[0] = true;
+            return snapshot.withConditionalLoots(conditionalLoots);
+        });
+        return added[0];
     }
 
     /**
-     * Loads requirement group configuration data from various configuration files.
+     * Creates the conditional element of a loot using the legacy weight format.
+     *
+     * @param key          The ID of the loot.
+     * @param requirements The requirements of the loot.
+     * @param weight       The weight of the loot.
+     * @return The conditional element.
      */
-    public void loadRequirementGroupFileConfig() {
-        // Load mechanic requirements from the main configuration file
+    public static ConditionalElement getLegacyLootElement(String key, Requirement[] requirements, double weight) {
+        return new ConditionalElement(requirements, List.of(Pair.of(key, (player, origin) -> weight + origin)), new HashMap<>());
+    }
+
+    /**
+     * Loads the mechanic requirements from the main configuration file.
+     */
+    private void loadMechanicRequirements() {
         YamlConfiguration main = plugin.getConfig("config.yml");
         mechanicRequirements = getRequirements(main.getConfigurationSection("mechanics.mechanic-requirements"), true);
+    }
 
-        // Load conditional loot data from the loot conditions configuration file
-        YamlConfiguration config1 = plugin.getConfig("loot-conditions.yml");
-        for (Map.Entry<String, Object> entry : config1.getValues(false).entrySet()) {
-            if (entry.getValue() instanceof ConfigurationSection section) {
-                conditionalLootsMap.put(entry.getKey(), getConditionalElements(section));
-            }
-        }
-
-        // Load conditional game data from the game conditions configuration file
-        YamlConfiguration config2 = plugin.getConfig("game-conditions.yml");
-        for (Map.Entry<String, Object> entry : config2.getValues(false).entrySet()) {
+    /**
+     * Parses the conditional elements of a condition file, such as loot-conditions.yml and game-conditions.yml,
+     * without registering them.
+     *
+     * @param fileName The name of the configuration file.
+     * @return The conditional elements by key, in the order they are defined.
+     */
+    public LinkedHashMap<String, ConditionalElement> parseConditionalElements(String fileName) {
+        LinkedHashMap<String, ConditionalElement> elements = new LinkedHashMap<>();
+        YamlConfiguration config = plugin.getConfig(fileName);
+        for (Map.Entry<String, Object> entry : config.getValues(false).entrySet()) {
             if (entry.getValue() instanceof ConfigurationSection section) {
-                conditionalGamesMap.put(entry.getKey(), getConditionalElements(section));
+                elements.put(entry.getKey(), getConditionalElements(section));
             }
         }
+        return elements;
     }
 
     /**
@@ -155,7 +170,7 @@ public class RequirementManagerImpl implements RequirementManager {
         var sub = section.getConfigurationSection("sub-groups");
         if (sub == null) {
             return new ConditionalElement(
-                    getRequirements(section.getConfigurationSection("conditions"), false),
+                    getSharedRequirements(section.getConfigurationSection("conditions")),
                     ConfigUtils.getModifiers(section.getStringList("list")),
                     null
             );
@@ -167,13 +182,56 @@ public class RequirementManagerImpl implements RequirementManager {
                 }
             }
             return new ConditionalElement(
-                    getRequirements(section.getConfigurationSection("conditions"), false),
+                    getSharedRequirements(section.getConfigurationSection("conditions")),
                     ConfigUtils.getModifiers(section.getStringList("list")),
                     subElements
             );
         }
     }
 
+    /**
+     * Retrieves an array of requirements for conditional elements.
+     * Requirements that only depend on the location are shared between elements with the same arguments,
+     * so that a compiled plan only evaluates them once per cast.
+     *
+     * @param section The configuration section containing requirement definitions.
+     * @return An array of Requirement objects based on the configuration section
+     */
+    private Requirement[] getSharedRequirements(ConfigurationSection section) {
+        if (section == null) {
+            return new Requirement[0];
+        }
+        List<Requirement> requirements = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : section.getValues(false).entrySet()) {
+            String typeOrName = entry.getKey();
+            if (hasRequirement(typeOrName)) {
+                Object value = entry.getValue();
+                if (isLocationRequirement(typeOrName)) {
+                    requirements.add(sharedRequirementMap.computeIfAbsent(typeOrName + ":" + value, k -> getRequirement(typeOrName, value)));
+                } else {
+                    requirements.add(getRequirement(typeOrName, value));
+                }
+            } else {
+                ConfigurationSection inner = section.getConfigurationSection(typeOrName);
+                String type = inner == null ? null : inner.getString("type");
+                if (type != null && hasRequirement(type) && isLocationRequirement(type)) {
+                    Object value = inner.get("value");
+                    requirements.add(sharedRequirementMap.computeIfAbsent(type + ":" + value, k -> getRequirement(type, value)));
+                } else {
+                    requirements.add(getRequirement(inner, false));
+                }
+            }
+        }
+        return requirements.toArray(new Requirement[0]);
+    }
+
+    private boolean isLocationRequirement(String type) {
+        return switch (type) {
+            case "biome", "!biome", "world", "!world", "ypos", "environment", "!environment", "time", "weather" -> true;
+            default -> false;
+        };
+    }
+
     private void registerInbuiltRequirements() {
         this.registerTimeRequirement();
         this.registerYRequirement();
@@ -218,38 +276,21 @@ public class RequirementManagerImpl implements RequirementManager {
     }
 
     public HashMap<String, Double> getLootWithWeight(Condition condition) {
-        return getString2DoubleMap(condition, conditionalLootsMap);
+        return RegistrySnapshot.get().lootPlan().evaluate(condition);
     }
 
     public HashMap<String, Double> getGameWithWeight(Condition condition) {
-        return getString2DoubleMap(condition, conditionalGamesMap);
+        return RegistrySnapshot.get().gamePlan().evaluate(condition);
     }
 
-    /**
-     * Retrieves a mapping of strings to doubles based on conditional elements and a player's condition.
-     *
-     * @param condition The player's condition.
-     * @param conditionalGamesMap The map of conditional elements representing loots/games.
-     * @return A HashMap with strings as keys and doubles as values representing loot/game weights.
-     */
-    @NotNull
-    private HashMap<String, Double> getString2DoubleMap(Condition condition, LinkedHashMap<String, ConditionalElement> conditionalGamesMap) {
-        HashMap<String, Double> lootWeightMap = new HashMap<>();
-        Queue<HashMap<String, ConditionalElement>> lootQueue = new LinkedList<>();
-        lootQueue.add(conditionalGamesMap);
-        Player player = condition.getPlayer();
-        while (!lootQueue.isEmpty()) {
-            HashMap<String, ConditionalElement> currentLootMap = lootQueue.poll();
-            for (ConditionalElement loots : currentLootMap.values()) {
-                if (RequirementManager.isRequirementMet(condition, loots.getRequirements())) {
-                    loots.combine(player, lootWeightMap);
-                    if (loots.getSubElements() != null) {
-                        lootQueue.add(loots.getSubElements());
-                    }
-                }
-            }
-        }
-        return lootWeightMap;
+    @Nullable
+    public String sampleLoot(Condition condition) {
+        return RegistrySnapshot.get().lootPlan().sample(condition);
+    }
+
+    @Nullable
+    public String sampleGame(Condition condition) {
+        return RegistrySnapshot.get().gamePlan().sample(condition);
     }
 
     /**
@@ -0,0 +1,218 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.totem;
+
+import net.momirealms.customfishing.api.CustomFishingPlugin;
+import net.momirealms.customfishing.api.mechanic.totem.TotemConfig;
+import net.momirealms.customfishing.api.mechanic.totem.TotemModel;
+import net.momirealms.customfishing.api.mechanic.totem.block.TotemBlock;
+import net.momirealms.customfishing.api.mechanic.totem.block.property.TotemBlockProperty;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A rotated or mirrored variant of a totem model flattened into arrays of block offsets
+ * relative to the core and the blocks that are allowed at each offset.
+ * The core cell is always checked first, so a variant fails fast on a wrong core block.
+ */
+public class CompiledTotemVariant {
+
+    private final TotemConfig totemConfig;
+    private final int[] offsetX;
+    private final int[] offsetY;
+    private final int[] offsetZ;
+    // [cell][alternative blocks]
+    private final CompiledBlock[][] cells;
+
+    private CompiledTotemVariant(TotemConfig totemConfig, TotemModel model) {
+        this.totemConfig = totemConfig;
+        TotemBlock[][][][] blocks = model.getModel();
+        int size = 0;
+        for (TotemBlock[][][] layer : blocks)
+            for (TotemBlock[][] row : layer)
+                size += row.length;
+
+        this.offsetX = new int[size];
+        this.offsetY = new int[size];
+        this.offsetZ = new int[size];
+        this.cells = new CompiledBlock[size][];
+        int index = 1;
+        for (int y = 0; y < blocks.length; y++) {
+            for (int z = 0; z < blocks[y].length; z++) {
+                for (int x = 0; x < blocks[y][z].length; x++) {
+                    int dx = x - model.getCoreX(), dy = y - model.getCoreY(), dz = z - model.getCoreZ();
+                    int cell = dx == 0 && dy == 0 && dz == 0 ? 0 : index++;
+                    offsetX[cell] = dx;
+                    offsetY[cell] = dy;
+                    offsetZ[cell] = dz;
+                    TotemBlock[] alternatives = blocks[y][z][x];
+                    cells[cell] = new CompiledBlock[alternatives.length];
+                    for (int i = 0; i < alternatives.length; i++) {
+                        cells[cell][i] = new CompiledBlock(alternatives[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Compiles every model variant of a totem config.
+     *
+     * @param totemConfig The totem config.
+     * @return The compiled variants in the same order as the models.
+     */
+    public static List<CompiledTotemVariant> compile(TotemConfig totemConfig) {
+        List<CompiledTotemVariant> variants = new ArrayList<>();
+        for (TotemModel model : totemConfig.getTotemModels()) {
+            variants.add(new CompiledTotemVariant(totemConfig, model));
+        }
+        return variants;
+    }
+
+    public TotemConfig getTotemConfig() {
+        return totemConfig;
+    }
+
+    /**
+     * Check if the blocks around a core satisfy this variant.
+     *
+     * @param cache The blocks around the core.
+     * @return True if every cell has one of its allowed blocks, false otherwise.
+     */
+    public boolean matches(BlockCache cache) {
+        outer:
+        for (int i = 0; i < cells.length; i++) {
+            CachedBlock block = cache.get(offsetX[i], offsetY[i], offsetZ[i]);
+            for (CompiledBlock alternative : cells[i]) {
+                if (alternative.isRightBlock(block)) {
+                    continue outer;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * A totem block whose type condition has been turned into either a block ID or a set of materials.
+     */
+    private static class CompiledBlock {
+
+        @Nullable
+        private final String id;
+        @Nullable
+        private final EnumSet<Material> materials;
+        private final TotemBlockProperty[] properties;
+
+        private CompiledBlock(TotemBlock totemBlock) {
+            this.properties = totemBlock.getProperties();
+            String text = totemBlock.getTypeCondition().getRawText();
+            if (text.startsWith("*")) {
+                String end = text.substring(1);
+                this.id = null;
+                this.materials = EnumSet.noneOf(Material.class);
+                for (Material material : Material.values())
+                    if (material.name().endsWith(end))
+                        this.materials.add(material);
+            } else if (text.endsWith("*")) {
+                String start = text.substring(0, text.length() - 1);
+                this.id = null;
+                this.materials = EnumSet.noneOf(Material.class);
+                for (Material material : Material.values())
+                    if (material.name().startsWith(start))
+                        this.materials.add(material);
+            } else {
+                this.id = text;
+                this.materials = null;
+            }
+        }
+
+        private boolean isRightBlock(CachedBlock block) {
+            if (materials != null) {
+                if (!materials.contains(block.getType())) return false;
+            } else if (!id.equals(block.getID())) {
+                return false;
+            }
+            for (TotemBlockProperty property : properties) {
+                if (!property.isPropertyMet(block.block)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The blocks around a totem core, read at most once per interaction
+     * no matter how many variants are checked.
+     */
+    public static class BlockCache {
+
+        private final Block core;
+        private final HashMap<Long, CachedBlock> blocks;
+
+        /**
+         * Creates an empty cache around a core block.
+         *
+         * @param core   The core block.
+         * @param coreID The block ID of the core if it's already known.
+         */
+        public BlockCache(Block core, @Nullable String coreID) {
+            this.core = core;
+            this.blocks = new HashMap<>();
+            CachedBlock cachedCore = new CachedBlock(core);
+            cachedCore.id = coreID;
+            this.blocks.put(getKey(0, 0, 0), cachedCore);
+        }
+
+        private CachedBlock get(int dx, int dy, int dz) {
+            return blocks.computeIfAbsent(getKey(dx, dy, dz), k -> new CachedBlock(core.getRelative(dx, dy, dz)));
+        }
+
+        private static long getKey(int dx, int dy, int dz) {
+            return ((long) (dx & 0x1FFFFF) << 42) | ((long) (dy & 0x1FFFFF) << 21) | (dz & 0x1FFFFF);
+        }
+    }
+
+    private static class CachedBlock {
+
+        private final Block block;
+        private Material type;
+        private String id;
+
+        private CachedBlock(Block block) {
+            this.block = block;
+        }
+
+        private Material getType() {
+            if (type == null) type = block.getType();
+            return type;
+        }
+
+        private String getID() {
+            if (id == null) id = CustomFishingPlugin.get().getBlockManager().getAnyPluginBlockID(block);
+            return id;
+        }
+    }
+}
@@ -36,8 +36,8 @@ import net.momirealms.customfishing.api.mechanic.totem.block.property.TotemBlock
 import net.momirealms.customfishing.api.mechanic.totem.block.type.TypeCondition;
 import net.momirealms.customfishing.api.scheduler.CancellableTask;
 import net.momirealms.customfishing.mechanic.totem.particle.DustParticleSetting;
+import net.momirealms.customfishing.mechanic.totem.particle.ParticleBudget;
 import net.momirealms.customfishing.mechanic.totem.particle.ParticleSetting;
-import net.momirealms.customfishing.util.LocationUtils;
 import org.bukkit.*;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
@@ -61,16 +61,20 @@ import java.util.concurrent.TimeUnit;
 public class TotemManagerImpl implements TotemManager, Listener {
 
     private final CustomFishingPlugin plugin;
-    private final HashMap<String, List<TotemConfig>> totemConfigMap;
-    private final List<String> allMaterials;
+    // core block id -> variants whose core can be that block
+    private final HashMap<String, List<CompiledTotemVariant>> totemVariantMap;
+    // variants whose core is matched by a wildcard material
+    private final List<CompiledTotemVariant> wildcardVariants;
     private final ConcurrentHashMap<SimpleLocation, ActivatedTotem> activatedTotems;
+    private final TotemSpatialIndex totemIndex;
     private CancellableTask timerCheckTask;
 
     public TotemManagerImpl(CustomFishingPlugin plugin) {
         this.plugin = plugin;
-        this.totemConfigMap = new HashMap<>();
-        this.allMaterials = Arrays.stream(Material.values()).map(Enum::name).toList();
+        this.totemVariantMap = new HashMap<>();
+        this.wildcardVariants = new ArrayList<>();
         this.activatedTotems = new ConcurrentHashMap<>();
+        this.totemIndex = new TotemSpatialIndex();
     }
 
     public void load() {
@@ -78,27 +82,33 @@ public class TotemManagerImpl implements TotemManager, Listener {
         Bukkit.getPluginManager().registerEvents(this, plugin);
         this.timerCheckTask = plugin.getScheduler().runTaskAsyncTimer(() -> {
             long time = System.currentTimeMillis();
-            ArrayList<SimpleLocation> removed = new ArrayList<>();
+            ArrayList<Map.Entry<SimpleLocation, ActivatedTotem>> removed = new ArrayList<>();
             for (Map.Entry<SimpleLocation, ActivatedTotem> entry : activatedTotems.entrySet()) {
                 if (time > entry.getValue().getExpireTime()) {
-                    removed.add(entry.getKey());
+                    removed.add(entry);
                     entry.getValue().cancel();
                 } else {
                     entry.getValue().doTimerAction();
                 }
             }
-            for (SimpleLocation simpleLocation : removed) {
-                activatedTotems.remove(simpleLocation);
+            for (Map.Entry<SimpleLocation, ActivatedTotem> entry : removed) {
+                // The totem might have been replaced by a new one at the same location
+                if (activatedTotems.remove(entry.getKey(), entry.getValue())) {
+                    totemIndex.remove(entry.getValue());
+                }
             }
+            ParticleBudget.getInstance().purge();
         }, 1, 1, TimeUnit.SECONDS);
     }
 
     public void unload() {
-        this.totemConfigMap.clear();
+        this.totemVariantMap.clear();
+        this.wildcardVariants.clear();
         for (ActivatedTotem activatedTotem : activatedTotems.values()) {
             activatedTotem.cancel();
         }
         activatedTotems.clear();
+        totemIndex.clear();
         HandlerList.unregisterAll(this);
         if (this.timerCheckTask != null && !this.timerCheckTask.isCancelled())
             this.timerCheckTask.cancel();
@@ -117,12 +127,10 @@ public class TotemManagerImpl implements TotemManager, Listener {
     @Override
     @Nullable
     public EffectCarrier getTotemEffect(Location location) {
-        for (ActivatedTotem activatedTotem : activatedTotems.values()) {
-            if (LocationUtils.getDistance(activatedTotem.getCoreLocation(), location) < activatedTotem.getTotemConfig().getRadius()) {
-                return activatedTotem.getEffectCarrier();
-            }
-        }
-        return null;
+        ActivatedTotem activatedTotem = totemIndex.getTotemAt(location);
+        if (activatedTotem == null)
+            return null;
+        return activatedTotem.getEffectCarrier();
     }
 
     @EventHandler
@@ -132,8 +140,10 @@ public class TotemManagerImpl implements TotemManager, Listener {
         Location location = event.getBlock().getLocation();
         SimpleLocation simpleLocation = SimpleLocation.getByBukkitLocation(location);
         ActivatedTotem activatedTotem = activatedTotems.remove(simpleLocation);
-        if (activatedTotem != null)
+        if (activatedTotem != null) {
             activatedTotem.cancel();
+            totemIndex.remove(activatedTotem);
+        }
     }
 
     @EventHandler
@@ -149,16 +159,13 @@ public class TotemManagerImpl implements TotemManager, Listener {
         Block block = event.getClickedBlock();
         assert block != null;
         String id = plugin.getBlockManager().getAnyPluginBlockID(block);
-        List<TotemConfig> configs = totemConfigMap.get(id);
-        if (configs == null)
+        List<CompiledTotemVariant> variants = totemVariantMap.get(id);
+        if (variants == null && wildcardVariants.isEmpty())
             return;
-        TotemConfig config = null;
-        for (TotemConfig temp : configs) {
-            if (temp.isRightPattern(block.getLocation())) {
-                config = temp;
-                break;
-            }
-        }
+        CompiledTotemVariant.BlockCache cache = new CompiledTotemVariant.BlockCache(block, id);
+        TotemConfig config = getMatchedConfig(variants, cache);
+        if (config == null)
+            config = getMatchedConfig(wildcardVariants, cache);
         if (config == null)
             return;
         String totemKey = config.getKey();
@@ -187,7 +194,21 @@ public class TotemManagerImpl implements TotemManager, Listener {
         ActivatedTotem previous = this.activatedTotems.put(simpleLocation, activatedTotem);
         if (previous != null) {
             previous.cancel();
+            totemIndex.remove(previous);
         }
+        totemIndex.add(activatedTotem);
+    }
+
+    @Nullable
+    private TotemConfig getMatchedConfig(@Nullable List<CompiledTotemVariant> variants, CompiledTotemVariant.BlockCache cache) {
+        if (variants == null)
+            return null;
+        for (CompiledTotemVariant variant : variants) {
+            if (variant.matches(cache)) {
+                return variant.getTotemConfig();
+            }
+        }
+        return null;
     }
 
     @SuppressWarnings("DuplicatedCode")
@@ -227,32 +248,27 @@ public class TotemManagerImpl implements TotemManager, Listener {
                         .setDuration(section.getInt("duration", 300))
                         .build();
 
-                HashSet<String> coreMaterials = new HashSet<>();
+                List<CompiledTotemVariant> variants = CompiledTotemVariant.compile(totemConfig);
+                HashSet<String> coreIDs = new HashSet<>();
+                boolean hasWildcardCore = false;
                 for (TotemBlock totemBlock : totemConfig.getTotemCore()) {
                     String text = totemBlock.getTypeCondition().getRawText();
-                    if (text.startsWith("*")) {
-                        String sub = text.substring(1);
-                        coreMaterials.addAll(allMaterials.stream().filter(it -> it.endsWith(sub)).toList());
-                    } else if (text.endsWith("*")) {
-                        String sub = text.substring(0, text.length() - 1);
-                        coreMaterials.addAll(allMaterials.stream().filter(it -> it.startsWith(sub)).toList());
+                    if (text.startsWith("*") || text.endsWith("*")) {
+                        hasWildcardCore = true;
                     } else {
-                        coreMaterials.add(text);
+                        coreIDs.add(text);
                     }
                 }
-                for (String material : coreMaterials) {
-                    putTotemConfigToMap(material, totemConfig);
+                for (String coreID : coreIDs) {
+                    this.totemVariantMap.computeIfAbsent(coreID, k -> new ArrayList<>()).addAll(variants);
+                }
+                if (hasWildcardCore) {
+                    this.wildcardVariants.addAll(variants);
                 }
             }
         }
     }
 
-    private void putTotemConfigToMap(String material, TotemConfig totemConfig) {
-        List<TotemConfig> configs = this.totemConfigMap.getOrDefault(material, new ArrayList<>());
-        configs.add(totemConfig);
-        this.totemConfigMap.put(material, configs);
-    }
-
     public ParticleSetting[] getParticleSettings(ConfigurationSection section) {
         List<ParticleSetting> particleSettings = new ArrayList<>();
         if (section != null)
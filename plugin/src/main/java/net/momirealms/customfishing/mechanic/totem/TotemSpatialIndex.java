@@ -0,0 +1,137 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.totem;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A chunk based spatial hash of activated totems.
+ * Each totem is stored in every chunk that its radius overlaps, so finding the totem
+ * that covers a location only needs to read the chunk the location is in.
+ * Chunk entries are copy-on-write arrays, so lookups never lock.
+ */
+public class TotemSpatialIndex {
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Long, ActivatedTotem[]>> worlds;
+
+    public TotemSpatialIndex() {
+        this.worlds = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds a totem to every chunk its radius overlaps.
+     *
+     * @param totem The activated totem.
+     */
+    public void add(ActivatedTotem totem) {
+        Location core = totem.getCoreLocation();
+        ConcurrentHashMap<Long, ActivatedTotem[]> chunks = worlds.computeIfAbsent(
+                Objects.requireNonNull(core.getWorld()).getName(), k -> new ConcurrentHashMap<>());
+        forEachChunk(totem, key -> chunks.compute(key, (k, array) -> {
+            if (array == null) return new ActivatedTotem[]{totem};
+            ActivatedTotem[] copy = new ActivatedTotem[array.length + 1];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            copy[array.length] = totem;
+            return copy;
+        }));
+    }
+
+    /**
+     * Removes a totem from every chunk it was added to.
+     *
+     * @param totem The activated totem.
+     */
+    public void remove(ActivatedTotem totem) {
+        Location core = totem.getCoreLocation();
+        ConcurrentHashMap<Long, ActivatedTotem[]> chunks = worlds.get(Objects.requireNonNull(core.getWorld()).getName());
+        if (chunks == null) return;
+        forEachChunk(totem, key -> chunks.computeIfPresent(key, (k, array) -> {
+            for (int i = 0; i < array.length; i++) {
+                if (array[i] == totem) {
+                    if (array.length == 1) return null;
+                    ActivatedTotem[] copy = new ActivatedTotem[array.length - 1];
+                    System.arraycopy(array, 0, copy, 0, i);
+                    System.arraycopy(array, i + 1, copy, i, array.length - i - 1);
+                    return copy;
+                }
+            }
+            return array;
+        }));
+    }
+
+    /**
+     * Get an activated totem whose radius covers the location.
+     *
+     * @param location The location to check.
+     * @return The totem, or null if no totem covers the location.
+     */
+    @Nullable
+    public ActivatedTotem getTotemAt(Location location) {
+        World world = location.getWorld();
+        if (world == null) return null;
+        ConcurrentHashMap<Long, ActivatedTotem[]> chunks = worlds.get(world.getName());
+        if (chunks == null) return null;
+        ActivatedTotem[] array = chunks.get(getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+        if (array == null) return null;
+        double x = location.getX(), y = location.getY(), z = location.getZ();
+        for (ActivatedTotem totem : array) {
+            Location core = totem.getCoreLocation();
+            double radius = totem.getTotemConfig().getRadius();
+            double dx = core.getX() - x, dy = core.getY() - y, dz = core.getZ() - z;
+            if (dx * dx + dy * dy + dz * dz < radius * radius) {
+                return totem;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes all the totems from the index.
+     */
+    public void clear() {
+        worlds.clear();
+    }
+
+    private static void forEachChunk(ActivatedTotem totem, ChunkConsumer consumer) {
+        Location core = totem.getCoreLocation();
+        double radius = Math.max(0, totem.getTotemConfig().getRadius());
+        int minX = (int) Math.floor(core.getX() - radius) >> 4;
+        int maxX = (int) Math.floor(core.getX() + radius) >> 4;
+        int minZ = (int) Math.floor(core.getZ() - radius) >> 4;
+        int maxZ = (int) Math.floor(core.getZ() + radius) >> 4;
+        for (int chunkX = minX; chunkX <= maxX; chunkX++) {
+            for (int chunkZ = minZ; chunkZ <= maxZ; chunkZ++) {
+                consumer.accept(getChunkKey(chunkX, chunkZ));
+            }
+        }
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    @FunctionalInterface
+    private interface ChunkConsumer {
+        void accept(long key);
+    }
+}
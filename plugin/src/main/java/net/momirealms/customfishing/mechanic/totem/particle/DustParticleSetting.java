@@ -17,15 +17,10 @@
 
 package net.momirealms.customfishing.mechanic.totem.particle;
 
-import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.common.Pair;
-import net.momirealms.customfishing.api.scheduler.CancellableTask;
-import org.bukkit.Location;
 import org.bukkit.Particle;
-import org.bukkit.World;
 
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 public class DustParticleSetting extends ParticleSetting {
 
@@ -45,19 +40,8 @@ public class DustParticleSetting extends ParticleSetting {
         this.dustOptions = dustOptions;
     }
 
-    @SuppressWarnings("DuplicatedCode")
-    public CancellableTask start(Location location, double radius) {
-        World world = location.getWorld();
-        return CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(() -> {
-            for (Pair<Double, Double> range : ranges) {
-                for (double theta = range.left(); theta <= range.right(); theta += interval) {
-                    double r = expressionHorizontal.setVariable("theta", theta).setVariable("radius", radius).evaluate();
-                    double x = r * Math.cos(theta) + 0.5;
-                    double z = r * Math.sin(theta) + 0.5;
-                    double y = expressionVertical.setVariable("theta", theta).setVariable("radius", radius).evaluate();
-                    world.spawnParticle(particle, location.clone().add(x, y, z), 1,0,0,0, 0, dustOptions);
-                }
-            }
-        }, delay * 50L, period * 50L, TimeUnit.MILLISECONDS);
+    @Override
+    protected Object getParticleData() {
+        return dustOptions;
     }
 }
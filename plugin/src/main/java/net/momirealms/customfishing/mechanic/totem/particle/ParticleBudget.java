@@ -0,0 +1,79 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.totem.particle;
+
+import net.momirealms.customfishing.setting.CFConfig;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits how many totem particles are sent to each player per second,
+ * so that standing among many totems can't flood the client.
+ */
+public class ParticleBudget {
+
+    private static final ParticleBudget instance = new ParticleBudget();
+
+    private final ConcurrentHashMap<UUID, Window> windows;
+
+    private ParticleBudget() {
+        this.windows = new ConcurrentHashMap<>();
+    }
+
+    public static ParticleBudget getInstance() {
+        return instance;
+    }
+
+    /**
+     * Takes particles from a player's budget of the current second.
+     *
+     * @param uuid   The UUID of the player.
+     * @param amount The number of particles to send.
+     * @return The number of particles that can be sent, which might be less than the requested amount.
+     */
+    public int acquire(UUID uuid, int amount) {
+        int limit = CFConfig.totemParticleBudget;
+        if (limit < 0) return amount;
+        long second = System.currentTimeMillis() / 1000;
+        Window window = windows.computeIfAbsent(uuid, k -> new Window());
+        synchronized (window) {
+            if (window.second != second) {
+                window.second = second;
+                window.used = 0;
+            }
+            int granted = Math.min(amount, limit - window.used);
+            if (granted <= 0) return 0;
+            window.used += granted;
+            return granted;
+        }
+    }
+
+    /**
+     * Removes the budgets that haven't been used in the last second.
+     */
+    public void purge() {
+        long second = System.currentTimeMillis() / 1000;
+        windows.values().removeIf(window -> window.second < second - 1);
+    }
+
+    private static class Window {
+        private volatile long second;
+        private int used;
+    }
+}
@@ -17,28 +17,42 @@
 
 package net.momirealms.customfishing.mechanic.totem.particle;
 
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.wrappers.WrappedParticle;
+import net.momirealms.customfishing.CustomFishingPluginImpl;
 import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.common.Pair;
 import net.momirealms.customfishing.api.mechanic.totem.TotemParticle;
 import net.momirealms.customfishing.api.scheduler.CancellableTask;
-import net.objecthunter.exp4j.Expression;
-import net.objecthunter.exp4j.ExpressionBuilder;
+import net.momirealms.customfishing.api.scheduler.TaskKind;
+import net.momirealms.customfishing.util.ExpressionCompiler;
 import org.bukkit.Location;
 import org.bukkit.Particle;
 import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 public class ParticleSetting implements TotemParticle {
 
-    protected final Expression expressionHorizontal;
-    protected final Expression expressionVertical;
+    // Clients don't render normal particles further than this
+    private static final double PARTICLE_VIEW_DISTANCE = 32;
+    // The client refuses bundles with more packets than this
+    private static final int MAX_BUNDLE_SIZE = 4096;
+
+    protected final ExpressionCompiler.CompiledExpression expressionHorizontal;
+    protected final ExpressionCompiler.CompiledExpression expressionVertical;
     protected final double interval;
     protected int delay;
     protected int period;
     protected final Particle particle;
     List<Pair<Double, Double>> ranges;
+    private volatile ParticleShape shape;
+    private volatile WrappedParticle<?> wrappedParticle;
 
     public ParticleSetting(
             String formulaHorizontal,
@@ -54,27 +68,119 @@ public class ParticleSetting implements TotemParticle {
         this.delay = delayTicks;
         this.period = periodTicks;
         this.ranges = ranges;
-        this.expressionHorizontal = new ExpressionBuilder(formulaHorizontal)
-                .variables("theta", "radius")
-                .build();
-        this.expressionVertical = new ExpressionBuilder(formulaVertical)
-                .variables("theta", "radius")
-                .build();
+        this.expressionHorizontal = ExpressionCompiler.compile(formulaHorizontal, "theta", "radius");
+        this.expressionVertical = ExpressionCompiler.compile(formulaVertical, "theta", "radius");
     }
 
-    @SuppressWarnings("DuplicatedCode")
     public CancellableTask start(Location location, double radius) {
+        ParticleShape particleShape = getShape(radius);
+        Location center = location.clone();
+        double x = center.getX(), y = center.getY(), z = center.getZ();
+        // Players can only be read on the thread that owns the totem, the packets are then built and sent async
+        return CustomFishingPlugin.get().getScheduler().runTaskSyncTimer(() -> {
+            List<Player> viewers = getViewers(center, particleShape);
+            if (viewers.isEmpty()) return;
+            CustomFishingPlugin.get().getScheduler().runTaskAsync(TaskKind.COSMETIC, () -> draw(viewers, x, y, z, particleShape));
+        }, center, Math.max(1, delay), Math.max(1, period));
+    }
+
+    /**
+     * Get the extra data of the particle, such as the dust options.
+     *
+     * @return The particle data, or null if the particle has none.
+     */
+    protected Object getParticleData() {
+        return null;
+    }
+
+    /**
+     * Get the sampled shape for a totem radius.
+     * A setting belongs to one totem, so the last shape is reused for every activation.
+     */
+    private ParticleShape getShape(double radius) {
+        ParticleShape current = this.shape;
+        if (current == null || current.getRadius() != radius) {
+            current = ParticleShape.compile(expressionHorizontal, expressionVertical, ranges, interval, radius);
+            this.shape = current;
+        }
+        return current;
+    }
+
+    private WrappedParticle<?> getWrappedParticle() {
+        WrappedParticle<?> current = this.wrappedParticle;
+        if (current == null) {
+            current = WrappedParticle.create(particle, getParticleData());
+            this.wrappedParticle = current;
+        }
+        return current;
+    }
+
+    /**
+     * Get the players close enough to see the particles.
+     * Must be called on the thread that owns the location.
+     */
+    private static List<Player> getViewers(Location location, ParticleShape particleShape) {
+        List<Player> viewers = new ArrayList<>();
+        if (particleShape.size() == 0) return viewers;
         World world = location.getWorld();
-        return CustomFishingPlugin.get().getScheduler().runTaskAsyncTimer(() -> {
-            for (Pair<Double, Double> range : ranges) {
-                for (double theta = range.left(); theta <= range.right(); theta += interval) {
-                    double r = expressionHorizontal.setVariable("theta", theta).setVariable("radius", radius).evaluate();
-                    double x = r * Math.cos(theta) + 0.5;
-                    double z = r * Math.sin(theta) + 0.5;
-                    double y = expressionVertical.setVariable("theta", theta).setVariable("radius", radius).evaluate();
-                    world.spawnParticle(particle, location.clone().add(x, y, z), 1,0,0,0);
+        if (world == null) return viewers;
+        double range = PARTICLE_VIEW_DISTANCE + particleShape.getExtent();
+        for (Entity entity : world.getNearbyEntities(location, range, range, range, it -> it instanceof Player)) {
+            Location playerLocation = entity.getLocation();
+            double dx = playerLocation.getX() - location.getX(), dz = playerLocation.getZ() - location.getZ();
+            if (dx * dx + dz * dz <= range * range) {
+                viewers.add((Player) entity);
+            }
+        }
+        return viewers;
+    }
+
+    private void draw(List<Player> viewers, double x, double y, double z, ParticleShape particleShape) {
+        int size = particleShape.size();
+        // Packets are built lazily and shared by all the viewers
+        PacketContainer[] packets = new PacketContainer[size];
+        for (Player player : viewers) {
+            int allowed = ParticleBudget.getInstance().acquire(player.getUniqueId(), size);
+            if (allowed <= 0) continue;
+            // Thin out the shape evenly if the budget can't cover every point
+            double step = (double) size / allowed;
+            List<PacketContainer> playerPackets = new ArrayList<>(allowed);
+            for (int i = 0; i < allowed; i++) {
+                int point = (int) (i * step);
+                PacketContainer packet = packets[point];
+                if (packet == null) {
+                    packet = getParticlePacket(x + particleShape.getX(point), y + particleShape.getY(point), z + particleShape.getZ(point));
+                    packets[point] = packet;
                 }
+                playerPackets.add(packet);
+            }
+            sendPackets(player, playerPackets);
+        }
+    }
+
+    private PacketContainer getParticlePacket(double x, double y, double z) {
+        PacketContainer packet = new PacketContainer(PacketType.Play.Server.WORLD_PARTICLES);
+        packet.getNewParticles().write(0, getWrappedParticle());
+        packet.getDoubles().write(0, x);
+        packet.getDoubles().write(1, y);
+        packet.getDoubles().write(2, z);
+        packet.getIntegers().write(0, 1);
+        return packet;
+    }
+
+    private static void sendPackets(Player player, List<PacketContainer> packets) {
+        ProtocolManager protocolManager = CustomFishingPluginImpl.getProtocolManager();
+        if (packets.size() > 1 && CustomFishingPlugin.get().getVersionManager().isVersionNewerThan1_20()) {
+            // Bundled packets are handled by the client in the same frame
+            for (int from = 0; from < packets.size(); from += MAX_BUNDLE_SIZE) {
+                PacketContainer bundle = new PacketContainer(PacketType.Play.Server.BUNDLE);
+                bundle.getPacketBundles().write(0, packets.subList(from, Math.min(packets.size(), from + MAX_BUNDLE_SIZE)));
+                protocolManager.sendServerPacket(player, bundle);
+            }
+        } else {
+            for (PacketContainer packet : packets) {
+                protocolManager.sendServerPacket(player, packet);
             }
-        }, delay * 50L, period * 50L, TimeUnit.MILLISECONDS);
+        }
     }
 }
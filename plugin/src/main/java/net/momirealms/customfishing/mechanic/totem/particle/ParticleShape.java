@@ -0,0 +1,113 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.totem.particle;
+
+import net.momirealms.customfishing.api.common.Pair;
+import net.momirealms.customfishing.util.ExpressionCompiler;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The points of a totem particle curve, sampled once for a totem radius.
+ * Points are stored as offsets from the totem core in a flat array of x, y, z triples,
+ * so drawing the shape only needs to add the anchor location.
+ */
+public class ParticleShape {
+
+    private final double radius;
+    private final double[] offsets;
+    private final double extent;
+
+    private ParticleShape(double radius, double[] offsets, double extent) {
+        this.radius = radius;
+        this.offsets = offsets;
+        this.extent = extent;
+    }
+
+    /**
+     * Samples a curve in polar coordinates.
+     *
+     * @param horizontal The formula of the horizontal distance from the center.
+     * @param vertical   The formula of the height.
+     * @param ranges     The ranges of theta in radians.
+     * @param interval   The step of theta in radians.
+     * @param radius     The radius of the totem.
+     * @return The sampled shape.
+     */
+    public static ParticleShape compile(
+            ExpressionCompiler.CompiledExpression horizontal,
+            ExpressionCompiler.CompiledExpression vertical,
+            List<Pair<Double, Double>> ranges,
+            double interval,
+            double radius
+    ) {
+        double[] offsets = new double[48];
+        int size = 0;
+        double extent = 0;
+        if (interval > 0) {
+            for (Pair<Double, Double> range : ranges) {
+                for (double theta = range.left(); theta <= range.right(); theta += interval) {
+                    double r = horizontal.evaluate(theta, radius);
+                    if (size + 3 > offsets.length) {
+                        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    }
+                    offsets[size++] = r * Math.cos(theta) + 0.5;
+                    offsets[size++] = vertical.evaluate(theta, radius);
+                    offsets[size++] = r * Math.sin(theta) + 0.5;
+                    extent = Math.max(extent, Math.abs(r));
+                }
+            }
+        }
+        return new ParticleShape(radius, Arrays.copyOf(offsets, size), extent);
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    /**
+     * Get the number of points in the shape.
+     *
+     * @return The number of points.
+     */
+    public int size() {
+        return offsets.length / 3;
+    }
+
+    public double getX(int point) {
+        return offsets[point * 3];
+    }
+
+    public double getY(int point) {
+        return offsets[point * 3 + 1];
+    }
+
+    public double getZ(int point) {
+        return offsets[point * 3 + 2];
+    }
+
+    /**
+     * Get the largest horizontal distance between a point and the center.
+     *
+     * @return The extent of the shape in blocks.
+     */
+    public double getExtent() {
+        return extent;
+    }
+}
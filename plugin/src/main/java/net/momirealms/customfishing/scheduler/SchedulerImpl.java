@@ -20,32 +20,49 @@ package net.momirealms.customfishing.scheduler;
 import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.scheduler.CancellableTask;
 import net.momirealms.customfishing.api.scheduler.Scheduler;
+import net.momirealms.customfishing.api.scheduler.TaskKind;
 import net.momirealms.customfishing.api.util.LogUtils;
 import net.momirealms.customfishing.setting.CFConfig;
 import org.bukkit.Location;
+import org.jetbrains.annotations.NotNull;
 
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A scheduler implementation responsible for scheduling and managing tasks in a multi-threaded environment.
+ * Async tasks are run on a separate thread pool for each {@link TaskKind}.
  */
 public class SchedulerImpl implements Scheduler {
 
+    // Game and UI ticks are short, so two threads are enough to keep them on time
+    private static final int TICK_POOL_SIZE = 2;
+    private static final int COSMETIC_POOL_SIZE = 1;
+    private static final int COSMETIC_QUEUE_LIMIT = 256;
+
     private final SyncScheduler syncScheduler;
-    private final ScheduledThreadPoolExecutor schedule;
+    private final EnumMap<TaskKind, TaskPool> pools;
     private final CustomFishingPlugin plugin;
 
     public SchedulerImpl(CustomFishingPlugin plugin) {
         this.plugin = plugin;
         this.syncScheduler = plugin.getVersionManager().isFolia() ?
                 new FoliaSchedulerImpl(plugin) : new BukkitSchedulerImpl(plugin);
-        this.schedule = new ScheduledThreadPoolExecutor(1);
-        this.schedule.setMaximumPoolSize(1);
-        this.schedule.setKeepAliveTime(30, TimeUnit.SECONDS);
-        this.schedule.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardOldestPolicy());
+        this.pools = new EnumMap<>(TaskKind.class);
+        this.pools.put(TaskKind.GENERAL, new TaskPool(TaskKind.GENERAL, 1));
+        this.pools.put(TaskKind.TICK, new TaskPool(TaskKind.TICK, TICK_POOL_SIZE));
+        // I/O tasks carry player data and block, so a saturated pool holds them back instead of losing them or running them on the caller
+        // The limit is set on reload
+        this.pools.put(TaskKind.IO, new TaskPool(TaskKind.IO, 1, 0, OverflowPolicy.RETRY));
+        this.pools.put(TaskKind.COSMETIC, new TaskPool(TaskKind.COSMETIC, COSMETIC_POOL_SIZE, COSMETIC_QUEUE_LIMIT, OverflowPolicy.DISCARD));
     }
 
     /**
@@ -53,20 +70,71 @@ public class SchedulerImpl implements Scheduler {
      */
     public void reload() {
         try {
-            this.schedule.setMaximumPoolSize(CFConfig.maximumPoolSize);
-            this.schedule.setCorePoolSize(CFConfig.corePoolSize);
-            this.schedule.setKeepAliveTime(CFConfig.keepAliveTime, TimeUnit.SECONDS);
+            ScheduledThreadPoolExecutor general = pools.get(TaskKind.GENERAL).executor;
+            general.setMaximumPoolSize(CFConfig.maximumPoolSize);
+            general.setCorePoolSize(CFConfig.corePoolSize);
+            general.setKeepAliveTime(CFConfig.keepAliveTime, TimeUnit.SECONDS);
         } catch (IllegalArgumentException e) {
             LogUtils.warn("Failed to create thread pool. Please lower the corePoolSize in config.yml.", e);
         }
+        TaskPool io = pools.get(TaskKind.IO);
+        io.executor.setCorePoolSize(Math.max(1, CFConfig.ioPoolSize));
+        io.queueLimit = Math.max(0, CFConfig.ioQueueLimit);
     }
 
     /**
      * Shuts down the scheduler.
      */
     public void shutdown() {
-        if (this.schedule != null && !this.schedule.isShutdown())
-            this.schedule.shutdown();
+        for (TaskPool pool : pools.values()) {
+            if (!pool.executor.isShutdown()) {
+                // Tasks held back by the queue limit still have to run before the pool stops
+                pool.flushOverflow();
+                pool.executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Get the number of tasks waiting in the pool of the given kind.
+     * Periodic tasks are always counted as they are re-queued after each run.
+     *
+     * @param kind The workload class.
+     * @return The queue depth.
+     */
+    public int getQueueDepth(TaskKind kind) {
+        return pools.get(kind).executor.getQueue().size();
+    }
+
+    /**
+     * Get the number of threads actively running tasks in the pool of the given kind.
+     *
+     * @param kind The workload class.
+     * @return The number of active threads.
+     */
+    public int getActiveCount(TaskKind kind) {
+        return pools.get(kind).executor.getActiveCount();
+    }
+
+    /**
+     * Get the number of threads in the pool of the given kind.
+     *
+     * @param kind The workload class.
+     * @return The pool size.
+     */
+    public int getPoolSize(TaskKind kind) {
+        return pools.get(kind).executor.getPoolSize();
+    }
+
+    /**
+     * Get the number of tasks of the given kind that hit the queue limit since the server started.
+     * I/O tasks are held back and queued again later instead of being dropped.
+     *
+     * @param kind The workload class.
+     * @return The number of rejected tasks.
+     */
+    public long getRejectedCount(TaskKind kind) {
+        return pools.get(kind).rejected.sum();
     }
 
     /**
@@ -87,7 +155,18 @@ public class SchedulerImpl implements Scheduler {
      */
     @Override
     public void runTaskAsync(Runnable runnable) {
-        this.schedule.execute(runnable);
+        runTaskAsync(TaskKind.GENERAL, runnable);
+    }
+
+    /**
+     * Runs a task asynchronously on the thread pool of the given kind.
+     *
+     * @param kind     The workload class of the task.
+     * @param runnable The task to run.
+     */
+    @Override
+    public void runTaskAsync(TaskKind kind, Runnable runnable) {
+        this.pools.get(kind).submit(runnable);
     }
 
     /**
@@ -114,7 +193,21 @@ public class SchedulerImpl implements Scheduler {
      */
     @Override
     public CancellableTask runTaskAsyncLater(Runnable runnable, long delay, TimeUnit timeUnit) {
-        return new ScheduledTask(schedule.schedule(runnable, delay, timeUnit));
+        return runTaskAsyncLater(TaskKind.GENERAL, runnable, delay, timeUnit);
+    }
+
+    /**
+     * Runs a task asynchronously on the thread pool of the given kind with a specified delay.
+     *
+     * @param kind      The workload class of the task.
+     * @param runnable  The task to run.
+     * @param delay     The delay before the task execution.
+     * @param timeUnit  The time unit for the delay.
+     * @return A CancellableTask for managing the scheduled task.
+     */
+    @Override
+    public CancellableTask runTaskAsyncLater(TaskKind kind, Runnable runnable, long delay, TimeUnit timeUnit) {
+        return pools.get(kind).schedule(executor -> executor.schedule(runnable, delay, timeUnit));
     }
 
     /**
@@ -128,7 +221,7 @@ public class SchedulerImpl implements Scheduler {
      */
     @Override
     public CancellableTask runTaskSyncLater(Runnable runnable, Location location, long delay, TimeUnit timeUnit) {
-        return new ScheduledTask(schedule.schedule(() -> {
+        return pools.get(TaskKind.TICK).schedule(executor -> executor.schedule(() -> {
             runTaskSync(runnable, location);
         }, delay, timeUnit));
     }
@@ -157,28 +250,182 @@ public class SchedulerImpl implements Scheduler {
      */
     @Override
     public CancellableTask runTaskAsyncTimer(Runnable runnable, long delay, long period, TimeUnit timeUnit) {
-        return new ScheduledTask(schedule.scheduleAtFixedRate(runnable, delay, period, timeUnit));
+        return runTaskAsyncTimer(TaskKind.GENERAL, runnable, delay, period, timeUnit);
     }
 
     /**
-     * Represents a thread-pool task that can be cancelled.
+     * Runs a task asynchronously on the thread pool of the given kind with a specified delay and period.
+     *
+     * @param kind        The workload class of the task.
+     * @param runnable    The task to run.
+     * @param delay       The delay before the first execution.
+     * @param period      The period between subsequent executions.
+     * @param timeUnit    The time unit for the delay and period.
+     * @return A CancellableTask for managing the scheduled task.
+     */
+    @Override
+    public CancellableTask runTaskAsyncTimer(TaskKind kind, Runnable runnable, long delay, long period, TimeUnit timeUnit) {
+        return pools.get(kind).schedule(executor -> executor.scheduleAtFixedRate(runnable, delay, period, timeUnit));
+    }
+
+    /**
+     * What a pool does with a task that is submitted while its queue is full.
+     */
+    private enum OverflowPolicy {
+        /**
+         * Drop the new task.
+         */
+        DISCARD,
+        /**
+         * Hold the task back and queue it once the pool has caught up. It's never run on the caller.
+         */
+        RETRY
+    }
+
+    /**
+     * Submits a task to an executor.
+     */
+    private interface Submission {
+        ScheduledFuture<?> submit(ScheduledThreadPoolExecutor executor);
+    }
+
+    /**
+     * A named thread pool for one kind of tasks.
+     * Tasks to run at once are checked against the queue limit, and the overflow policy decides what happens
+     * to the overflowing task. Delayed and periodic tasks are never limited, as they often clean up after
+     * earlier tasks, and don't count towards the limit while they wait.
      */
-    public static class ScheduledTask implements CancellableTask {
+    private static class TaskPool {
+
+        private final TaskKind kind;
+        private final ScheduledThreadPoolExecutor executor;
+        private final OverflowPolicy policy;
+        private final LongAdder rejected;
+        // Tasks to run at once that are queued but not started yet
+        private final AtomicInteger waiting;
+        // Tasks held back by the RETRY policy, queued again as the pool completes tasks
+        private final Queue<PoolTask> overflow;
+        private volatile int queueLimit;
+
+        private TaskPool(TaskKind kind, int threads) {
+            this(kind, threads, 0, null);
+        }
 
-        private final ScheduledFuture<?> scheduledFuture;
+        private TaskPool(TaskKind kind, int threads, int queueLimit, OverflowPolicy policy) {
+            this.kind = kind;
+            this.policy = policy;
+            this.rejected = new LongAdder();
+            this.waiting = new AtomicInteger();
+            this.overflow = new ConcurrentLinkedQueue<>();
+            this.queueLimit = queueLimit;
+            // Only reached once the pool is shut down
+            this.executor = new ScheduledThreadPoolExecutor(threads, new NamedThreadFactory(kind), (runnable, executor) -> rejected.increment()) {
+                @Override
+                protected void afterExecute(Runnable runnable, Throwable throwable) {
+                    super.afterExecute(runnable, throwable);
+                    drainOverflow();
+                }
+            };
+            this.executor.setKeepAliveTime(30, TimeUnit.SECONDS);
+        }
+
+        private void submit(Runnable runnable) {
+            PoolTask task = new PoolTask(executor -> {
+                waiting.incrementAndGet();
+                return executor.schedule(() -> {
+                    waiting.decrementAndGet();
+                    runnable.run();
+                }, 0, TimeUnit.NANOSECONDS);
+            });
+            if (hasRoom()) {
+                task.submitTo(executor);
+                return;
+            }
+            rejected.increment();
+            switch (policy) {
+                case DISCARD -> task.cancel();
+                case RETRY -> {
+                    boolean first = overflow.isEmpty();
+                    overflow.add(task);
+                    if (first) {
+                        LogUtils.warn("The " + kind.name().toLowerCase(Locale.ENGLISH) + " task queue is full. New tasks will be queued once it has caught up.");
+                    }
+                    // The pool might have caught up before the task was added
+                    drainOverflow();
+                }
+            }
+        }
+
+        private CancellableTask schedule(Submission submission) {
+            PoolTask task = new PoolTask(submission);
+            task.submitTo(executor);
+            return task;
+        }
+
+        private boolean hasRoom() {
+            int limit = this.queueLimit;
+            return limit <= 0 || waiting.get() < limit;
+        }
+
+        private void drainOverflow() {
+            PoolTask task;
+            while (hasRoom() && (task = overflow.poll()) != null) {
+                task.submitTo(executor);
+            }
+        }
+
+        private void flushOverflow() {
+            PoolTask task;
+            while ((task = overflow.poll()) != null) {
+                task.submitTo(executor);
+            }
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger counter;
+
+        private NamedThreadFactory(TaskKind kind) {
+            this.prefix = "CustomFishing-" + kind.name().toLowerCase(Locale.ENGLISH) + "-";
+            this.counter = new AtomicInteger();
+        }
+
+        @Override
+        public Thread newThread(@NotNull Runnable runnable) {
+            return new Thread(runnable, prefix + counter.incrementAndGet());
+        }
+    }
+
+    /**
+     * A task of a pool, which might be held back before it's submitted to the executor.
+     */
+    private static class PoolTask implements CancellableTask {
+
+        private final Submission submission;
+        private ScheduledFuture<?> scheduledFuture;
+        private boolean cancelled;
+
+        private PoolTask(Submission submission) {
+            this.submission = submission;
+        }
 
-        public ScheduledTask(ScheduledFuture<?> scheduledFuture) {
-            this.scheduledFuture = scheduledFuture;
+        private synchronized void submitTo(ScheduledThreadPoolExecutor executor) {
+            if (cancelled) return;
+            this.scheduledFuture = submission.submit(executor);
         }
 
         @Override
-        public void cancel() {
-            this.scheduledFuture.cancel(false);
+        public synchronized void cancel() {
+            this.cancelled = true;
+            if (this.scheduledFuture != null)
+                this.scheduledFuture.cancel(false);
         }
 
         @Override
-        public boolean isCancelled() {
-            return this.scheduledFuture.isCancelled();
+        public synchronized boolean isCancelled() {
+            return this.cancelled || (this.scheduledFuture != null && this.scheduledFuture.isCancelled());
         }
     }
 }
@@ -24,6 +24,7 @@ import dev.dejvokep.boostedyaml.settings.general.GeneralSettings;
 import dev.dejvokep.boostedyaml.settings.loader.LoaderSettings;
 import dev.dejvokep.boostedyaml.settings.updater.UpdaterSettings;
 import net.momirealms.customfishing.api.CustomFishingPlugin;
+import net.momirealms.customfishing.api.util.InventoryUtils;
 import net.momirealms.customfishing.api.util.LogUtils;
 import net.momirealms.customfishing.api.util.OffsetUtils;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -38,7 +39,7 @@ import java.util.Objects;
 public class CFConfig {
 
     // config version
-    public static String configVersion = "32";
+    public static String configVersion = "35";
     // Debug mode
     public static boolean debug;
     // language
@@ -57,6 +58,8 @@ public class CFConfig {
     public static int corePoolSize;
     public static int maximumPoolSize;
     public static int keepAliveTime;
+    public static int ioPoolSize;
+    public static int ioQueueLimit;
 
     // detection order for item id
     public static List<String> itemDetectOrder;
@@ -77,6 +80,8 @@ public class CFConfig {
     public static boolean redisRanking;
     public static String serverGroup;
     public static int placeholderLimit;
+    public static long redisRankingRefreshInterval;
+    public static int redisRankingSnapshotSize;
 
     // Data save interval
     public static int dataSaveInterval;
@@ -98,6 +103,8 @@ public class CFConfig {
 
     public static int multipleLootSpawnDelay;
 
+    public static int totemParticleBudget;
+
     public static void load() {
         try {
             YamlDocument.create(
@@ -137,11 +144,14 @@ public class CFConfig {
         corePoolSize = config.getInt("other-settings.thread-pool-settings.corePoolSize", 1);
         maximumPoolSize = config.getInt("other-settings.thread-pool-settings.maximumPoolSize", 1);
         keepAliveTime = config.getInt("other-settings.thread-pool-settings.keepAliveTime", 30);
+        ioPoolSize = config.getInt("other-settings.thread-pool-settings.io-pool-size", 2);
+        ioQueueLimit = config.getInt("other-settings.thread-pool-settings.io-queue-limit", 4096);
 
         itemDetectOrder = config.getStringList("other-settings.item-detection-order");
         blockDetectOrder = config.getStringList("other-settings.block-detection-order");
 
         enableFishingBag = config.getBoolean("mechanics.fishing-bag.enable", true);
+        InventoryUtils.setBytesFormatEnabled(config.getBoolean("mechanics.fishing-bag.per-slot-format", false));
 
         overrideVanilla = config.getBoolean("mechanics.fishing-wait-time.override-vanilla", false);
         waterMinTime = config.getInt("mechanics.fishing-wait-time.min-wait-time", 100);
@@ -160,8 +170,11 @@ public class CFConfig {
         redisRanking = config.getBoolean("mechanics.competition.redis-ranking", false);
         placeholderLimit = config.getInt("mechanics.competition.placeholder-limit", 3);
         serverGroup = config.getString("mechanics.competition.server-group","default");
+        redisRankingRefreshInterval = config.getLong("mechanics.competition.redis-ranking-refresh-interval", 1000);
+        redisRankingSnapshotSize = config.getInt("mechanics.competition.redis-ranking-snapshot-size", 1000);
 
         multipleLootSpawnDelay = config.getInt("mechanics.multiple-loot-spawn-delay", 0);
+        totemParticleBudget = config.getInt("mechanics.totem-particle-budget", 2000);
 
         dataSaveInterval = config.getInt("other-settings.data-saving-interval", 600);
         logDataSaving = config.getBoolean("other-settings.log-data-saving", true);
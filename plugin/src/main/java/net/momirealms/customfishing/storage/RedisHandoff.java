@@ -0,0 +1,104 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.storage;
+
+import net.momirealms.customfishing.api.data.PlayerData;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for the data of a joining player to be handed off by the server the player comes from.
+ * The previous server stores the data in Redis and then sends a notification, so the data is loaded
+ * as soon as the notification arrives.
+ */
+class RedisHandoff {
+
+    /**
+     * The Redis operations used for the handoff.
+     */
+    interface Source {
+
+        /**
+         * @see net.momirealms.customfishing.storage.method.database.nosql.RedisManager#awaitHandoff(UUID)
+         */
+        CompletableFuture<Boolean> awaitHandoff(UUID uuid);
+
+        /**
+         * @see net.momirealms.customfishing.storage.method.database.nosql.RedisManager#cancelHandoff(UUID, CompletableFuture)
+         */
+        void cancelHandoff(UUID uuid, CompletableFuture<Boolean> future);
+
+        /**
+         * Gets the data of a player from Redis and removes it.
+         */
+        CompletableFuture<Optional<PlayerData>> getPlayerData(UUID uuid);
+
+        /**
+         * @see net.momirealms.customfishing.storage.method.database.nosql.RedisManager#getChangeServer(UUID)
+         */
+        CompletableFuture<Boolean> getChangeServer(UUID uuid);
+    }
+
+    private final Source source;
+    private final long graceMillis;
+    private final long timeoutMillis;
+
+    /**
+     * @param source        The Redis operations to use.
+     * @param graceMillis   The wait for the previous server to start the handoff.
+     * @param timeoutMillis The wait for the previous server to finish a handoff it has started.
+     */
+    RedisHandoff(Source source, long graceMillis, long timeoutMillis) {
+        this.source = source;
+        this.graceMillis = graceMillis;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Gets the data of a player handed off by the previous server.
+     * The wait is cancelled however the returned future completes.
+     *
+     * @param uuid The UUID of the player.
+     * @return A CompletableFuture with the data, or an empty optional if no handoff happened in time.
+     */
+    CompletableFuture<Optional<PlayerData>> load(UUID uuid) {
+        // Listen before checking Redis, so that a notification sent in between is not missed
+        CompletableFuture<Boolean> notified = source.awaitHandoff(uuid);
+        return source.getPlayerData(uuid)
+                .thenCompose(optionalData -> optionalData.isPresent()
+                        ? CompletableFuture.completedFuture(optionalData)
+                        : waitForHandoff(uuid, notified))
+                .whenComplete((optionalData, throwable) -> source.cancelHandoff(uuid, notified));
+    }
+
+    private CompletableFuture<Optional<PlayerData>> waitForHandoff(UUID uuid, CompletableFuture<Boolean> notified) {
+        return notified.copy().completeOnTimeout(false, graceMillis, TimeUnit.MILLISECONDS)
+                .thenCompose(received -> {
+                    if (received) return CompletableFuture.completedFuture(true);
+                    // The previous server has started saving the data, so give it more time
+                    return source.getChangeServer(uuid).thenCompose(changeServer -> changeServer
+                            ? notified.copy().completeOnTimeout(false, timeoutMillis, TimeUnit.MILLISECONDS)
+                            : CompletableFuture.completedFuture(false));
+                })
+                // Servers running older versions hand data off without notifications, so always check once more
+                .thenCompose(received -> source.getPlayerData(uuid));
+    }
+}
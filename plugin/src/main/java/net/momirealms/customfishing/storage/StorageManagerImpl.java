@@ -29,6 +29,7 @@ import net.momirealms.customfishing.api.data.user.OfflineUser;
 import net.momirealms.customfishing.api.data.user.OnlineUser;
 import net.momirealms.customfishing.api.manager.StorageManager;
 import net.momirealms.customfishing.api.scheduler.CancellableTask;
+import net.momirealms.customfishing.api.scheduler.TaskKind;
 import net.momirealms.customfishing.api.util.LogUtils;
 import net.momirealms.customfishing.setting.CFConfig;
 import net.momirealms.customfishing.storage.method.database.nosql.MongoDBImpl;
@@ -53,6 +54,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Optional;
@@ -67,6 +69,11 @@ import java.util.concurrent.TimeUnit;
  */
 public class StorageManagerImpl implements StorageManager, Listener {
 
+    // How long to wait for a quit that might be handled after the join on the previous server
+    private static final long HANDOFF_GRACE_MILLIS = 500;
+    // How long to wait for the previous server to hand the data off once it has started to
+    private static final long HANDOFF_TIMEOUT_MILLIS = 3000;
+
     private final CustomFishingPlugin plugin;
     private DataStorageInterface dataSource;
     private StorageType previousType;
@@ -74,6 +81,7 @@ public class StorageManagerImpl implements StorageManager, Listener {
     private final HashSet<UUID> locked;
     private boolean hasRedis;
     private RedisManager redisManager;
+    private RedisHandoff redisHandoff;
     private String uniqueID;
     private CancellableTask timerSaveTask;
     private final Gson gson;
@@ -116,6 +124,7 @@ public class StorageManagerImpl implements StorageManager, Listener {
             this.hasRedis = true;
             this.redisManager = new RedisManager(plugin);
             this.redisManager.initialize();
+            this.redisHandoff = createRedisHandoff(this.redisManager);
         }
 
         // Disable Redis if it was enabled but is now disabled
@@ -132,11 +141,22 @@ public class StorageManagerImpl implements StorageManager, Listener {
         // Schedule periodic data saving if dataSaveInterval is configured
         if (CFConfig.dataSaveInterval != -1 && CFConfig.dataSaveInterval != 0)
             this.timerSaveTask = this.plugin.getScheduler().runTaskAsyncTimer(
+                    TaskKind.IO,
                     () -> {
                         long time1 = System.currentTimeMillis();
-                        this.dataSource.updateManyPlayersData(this.onlineUserMap.values(), !CFConfig.lockData);
+                        // Only rewrite the users whose data has been changed since the last save
+                        ArrayList<OnlineUser> dirtyUsers = new ArrayList<>();
+                        ArrayList<UUID> cleanUsers = new ArrayList<>();
+                        for (OnlineUser user : this.onlineUserMap.values()) {
+                            if (user.isDirty()) dirtyUsers.add(user);
+                            else cleanUsers.add(user.getUUID());
+                        }
+                        this.dataSource.updateManyPlayersData(dirtyUsers, !CFConfig.lockData);
+                        // Locks expire after an interval, so they need to be refreshed even if the data is unchanged
+                        if (CFConfig.lockData)
+                            this.dataSource.lockOrUnlockManyPlayersData(cleanUsers, true);
                         if (CFConfig.logDataSaving)
-                            LogUtils.info("Data Saved for online players. Took " + (System.currentTimeMillis() - time1) + "ms.");
+                            LogUtils.info("Data Saved for " + dirtyUsers.size() + "/" + (dirtyUsers.size() + cleanUsers.size()) + " online players. Took " + (System.currentTimeMillis() - time1) + "ms.");
                     },
                     CFConfig.dataSaveInterval,
                     CFConfig.dataSaveInterval,
@@ -223,7 +243,11 @@ public class StorageManagerImpl implements StorageManager, Listener {
      */
     @Override
     public CompletableFuture<Boolean> saveUserData(OfflineUser offlineUser, boolean unlock) {
-        return dataSource.updatePlayerData(offlineUser.getUUID(), offlineUser.getPlayerData(), unlock);
+        PlayerData data = offlineUser.getPlayerData();
+        return dataSource.updatePlayerData(offlineUser.getUUID(), data, unlock).thenApply(result -> {
+            if (result) offlineUser.onDataSaved(data);
+            return result;
+        });
     }
 
     /**
@@ -239,7 +263,7 @@ public class StorageManagerImpl implements StorageManager, Listener {
     /**
      * Event handler for when a player joins the server.
      * Locks the player's data and initiates data retrieval if Redis is not used,
-     * otherwise, it starts a Redis data retrieval task.
+     * otherwise, it waits for the data to be handed off through Redis.
      */
     @EventHandler
     public void onJoin(PlayerJoinEvent event) {
@@ -249,16 +273,64 @@ public class StorageManagerImpl implements StorageManager, Listener {
         if (!hasRedis) {
             waitForDataLockRelease(uuid, 1);
         } else {
-            plugin.getScheduler().runTaskAsyncLater(() -> redisManager.getChangeServer(uuid).thenAccept(changeServer -> {
-                if (!changeServer) {
-                    waitForDataLockRelease(uuid, 3);
-                } else {
-                    new RedisGetDataTask(uuid);
-                }
-            }), 500, TimeUnit.MILLISECONDS);
+            loadDataFromRedis(uuid);
         }
     }
 
+    /**
+     * Gets the data of a player handed off by the server the player comes from.
+     * If no handoff happens in time, or the handoff fails, the data is loaded from the data source.
+     *
+     * @param uuid The UUID of the player.
+     */
+    private void loadDataFromRedis(UUID uuid) {
+        long start = System.nanoTime();
+        redisHandoff.load(uuid).handle((optionalData, throwable) -> {
+            if (throwable != null) {
+                LogUtils.warn("Failed to get the handed off data for " + uuid, throwable);
+                optionalData = Optional.empty();
+            }
+            Player player = Bukkit.getPlayer(uuid);
+            if (player == null || !player.isOnline())
+                return null;
+            if (optionalData.isPresent()) {
+                redisManager.recordHandoff(System.nanoTime() - start);
+                plugin.debug("Redis data handed off for " + uuid + " in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+                putDataInCache(player, optionalData.get());
+                if (CFConfig.lockData) dataSource.lockOrUnlockPlayerData(uuid, true);
+            } else {
+                redisManager.recordFallback();
+                // The handoff has already been waited for, so only one attempt is left as before
+                waitForDataLockRelease(uuid, 3);
+            }
+            return null;
+        });
+    }
+
+    private static RedisHandoff createRedisHandoff(RedisManager redisManager) {
+        return new RedisHandoff(new RedisHandoff.Source() {
+            @Override
+            public CompletableFuture<Boolean> awaitHandoff(UUID uuid) {
+                return redisManager.awaitHandoff(uuid);
+            }
+
+            @Override
+            public void cancelHandoff(UUID uuid, CompletableFuture<Boolean> future) {
+                redisManager.cancelHandoff(uuid, future);
+            }
+
+            @Override
+            public CompletableFuture<Optional<PlayerData>> getPlayerData(UUID uuid) {
+                return redisManager.getPlayerData(uuid, false);
+            }
+
+            @Override
+            public CompletableFuture<Boolean> getChangeServer(UUID uuid) {
+                return redisManager.getChangeServer(uuid);
+            }
+        }, HANDOFF_GRACE_MILLIS, HANDOFF_TIMEOUT_MILLIS);
+    }
+
     /**
      * Event handler for when a player quits the server.
      * If the player is not locked, it removes their OnlineUser instance,
@@ -290,44 +362,6 @@ public class StorageManagerImpl implements StorageManager, Listener {
         }
     }
 
-    /**
-     * Runnable task for asynchronously retrieving data from Redis.
-     * Retries up to 6 times and cancels the task if the player is offline.
-     */
-    public class RedisGetDataTask implements Runnable {
-
-        private final UUID uuid;
-        private int triedTimes;
-        private final CancellableTask task;
-
-        public RedisGetDataTask(UUID uuid) {
-            this.uuid = uuid;
-            this.task = plugin.getScheduler().runTaskAsyncTimer(this, 0, 333, TimeUnit.MILLISECONDS);
-        }
-
-        @Override
-        public void run() {
-            triedTimes++;
-            Player player = Bukkit.getPlayer(uuid);
-            if (player == null || !player.isOnline()) {
-                // offline
-                task.cancel();
-                return;
-            }
-            if (triedTimes >= 6) {
-                waitForDataLockRelease(uuid, 3);
-                return;
-            }
-            redisManager.getPlayerData(uuid, false).thenAccept(optionalData -> {
-                if (optionalData.isPresent()) {
-                    putDataInCache(player, optionalData.get());
-                    task.cancel();
-                    if (CFConfig.lockData) dataSource.lockOrUnlockPlayerData(uuid, true);
-                }
-            });
-        }
-    }
-
     /**
      * Waits for data lock release with a delay and a maximum of three retries.
      *
@@ -335,7 +369,7 @@ public class StorageManagerImpl implements StorageManager, Listener {
      * @param times The number of times this method has been retried.
      */
     public void waitForDataLockRelease(UUID uuid, int times) {
-        plugin.getScheduler().runTaskAsyncLater(() -> {
+        plugin.getScheduler().runTaskAsyncLater(TaskKind.IO, () -> {
         var player = Bukkit.getPlayer(uuid);
         if (player == null || !player.isOnline())
             return;
@@ -433,7 +467,7 @@ public class StorageManagerImpl implements StorageManager, Listener {
         } catch (JsonSyntaxException e) {
             LogUtils.severe("Failed to parse PlayerData from json");
             LogUtils.info("Json: " + json);
-            throw new RuntimeException(e);
+            throw e;
         }
     }
 
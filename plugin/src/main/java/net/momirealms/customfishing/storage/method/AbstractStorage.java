@@ -61,7 +61,10 @@ public abstract class AbstractStorage implements DataStorageInterface {
     public void updateManyPlayersData(Collection<? extends OfflineUser> users, boolean unlock) {
         // Update data for multiple players by iterating through the collection of OfflineUser objects.
         for (OfflineUser user : users) {
-            this.updatePlayerData(user.getUUID(), user.getPlayerData(), unlock);
+            PlayerData data = user.getPlayerData();
+            this.updatePlayerData(user.getUUID(), data, unlock).thenAccept(result -> {
+                if (result) user.onDataSaved(data);
+            });
         }
     }
 
@@ -25,6 +25,7 @@ import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.data.PlayerData;
 import net.momirealms.customfishing.api.data.StorageType;
 import net.momirealms.customfishing.api.data.user.OfflineUser;
+import net.momirealms.customfishing.api.scheduler.TaskKind;
 import net.momirealms.customfishing.api.util.LogUtils;
 import net.momirealms.customfishing.setting.CFConfig;
 import net.momirealms.customfishing.storage.method.AbstractStorage;
@@ -133,7 +134,7 @@ public class MongoDBImpl extends AbstractStorage {
     @Override
     public CompletableFuture<Optional<PlayerData>> getPlayerData(UUID uuid, boolean lock) {
         var future = new CompletableFuture<Optional<PlayerData>>();
-        plugin.getScheduler().runTaskAsync(() -> {
+        plugin.getScheduler().runTaskAsync(TaskKind.IO, () -> {
         MongoCollection<Document> collection = database.getCollection(getCollectionName("data"));
         Document doc = collection.find(Filters.eq("uuid", uuid)).first();
         if (doc == null) {
@@ -167,7 +168,7 @@ public class MongoDBImpl extends AbstractStorage {
     @Override
     public CompletableFuture<Boolean> updatePlayerData(UUID uuid, PlayerData playerData, boolean unlock) {
         var future = new CompletableFuture<Boolean>();
-        plugin.getScheduler().runTaskAsync(() -> {
+        plugin.getScheduler().runTaskAsync(TaskKind.IO, () -> {
         MongoCollection<Document> collection = database.getCollection(getCollectionName("data"));
         try {
             Document query = new Document("uuid", uuid);
@@ -195,17 +196,24 @@ public class MongoDBImpl extends AbstractStorage {
         MongoCollection<Document> collection = database.getCollection(getCollectionName("data"));
         try {
             int lock = unlock ? 0 : getCurrentSeconds();
-            var list = users.stream().map(it -> new UpdateOneModel<Document>(
-                    new Document("uuid", it.getUUID()),
+            // Take the snapshots once, so the users can be told exactly which data has been written
+            Map<OfflineUser, PlayerData> snapshots = new LinkedHashMap<>(users.size());
+            for (OfflineUser user : users) {
+                snapshots.put(user, user.getPlayerData());
+            }
+            var list = snapshots.entrySet().stream().map(it -> new UpdateOneModel<Document>(
+                    new Document("uuid", it.getKey().getUUID()),
                     Updates.combine(
                             Updates.set("lock", lock),
-                            Updates.set("data", new Binary(plugin.getStorageManager().toBytes(it.getPlayerData())))
+                            Updates.set("data", new Binary(plugin.getStorageManager().toBytes(it.getValue())))
                     ),
                     new UpdateOptions().upsert(true)
             )
             ).toList();
             if (list.size() == 0) return;
-            collection.bulkWrite(list);
+            if (collection.bulkWrite(list).wasAcknowledged()) {
+                snapshots.forEach(OfflineUser::onDataSaved);
+            }
         } catch (MongoException e) {
             LogUtils.warn("Failed to update data for online players", e);
         }
@@ -20,6 +20,7 @@ package net.momirealms.customfishing.storage.method.database.nosql;
 import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.data.PlayerData;
 import net.momirealms.customfishing.api.data.StorageType;
+import net.momirealms.customfishing.api.scheduler.TaskKind;
 import net.momirealms.customfishing.api.util.LogUtils;
 import net.momirealms.customfishing.setting.CFConfig;
 import net.momirealms.customfishing.storage.method.AbstractStorage;
@@ -29,14 +30,22 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.jetbrains.annotations.NotNull;
 import redis.clients.jedis.*;
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.exceptions.JedisException;
-import redis.clients.jedis.params.XReadParams;
+import redis.clients.jedis.params.XReadGroupParams;
+import redis.clients.jedis.resps.StreamConsumersInfo;
 import redis.clients.jedis.resps.StreamEntry;
+import redis.clients.jedis.resps.StreamGroupInfo;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A RedisManager class responsible for managing interactions with a Redis server for data storage.
@@ -45,17 +54,38 @@ public class RedisManager extends AbstractStorage {
 
     private static RedisManager instance;
     private final static String STREAM = "customfishing";
+    private final static String HANDOFF_CHANNEL = "customfishing:handoff";
+    private final static int BATCH_SIZE = 16;
+    // Commands that were sent while this server was offline for longer than this, by the Redis clock, are dropped
+    private final static long MAX_MESSAGE_AGE = 60_000;
+    // Pending messages of a group unread for this long would be dropped as outdated anyway
+    private final static long MAX_GROUP_IDLE_TIME = 3_600_000;
+    private final static int BLOCK_MILLIS = 2000;
     private JedisPool jedisPool;
     private String password;
     private int port;
     private String host;
     private boolean useSSL;
+    private String serverID;
+    // False if the generated id could not be saved, so the group can't be reused after a restart
+    private boolean serverIDSaved;
     private BlockingThreadTask threadTask;
     private boolean isNewerThan5;
+    // Joining players waiting for the previous server to hand their data off
+    private final ConcurrentHashMap<UUID, CompletableFuture<Boolean>> handoffWaiters;
+    private volatile JedisPubSub handoffSubscriber;
+    private volatile boolean handoffStopped;
+    private final AtomicLong handoffCount;
+    private final AtomicLong fallbackCount;
+    private volatile long lastHandoffNanos;
+    private volatile double averageHandoffNanos;
 
     public RedisManager(CustomFishingPlugin plugin) {
         super(plugin);
         instance = this;
+        this.handoffWaiters = new ConcurrentHashMap<>();
+        this.handoffCount = new AtomicLong();
+        this.fallbackCount = new AtomicLong();
     }
 
     /**
@@ -102,6 +132,7 @@ public class RedisManager extends AbstractStorage {
         port = section.getInt("port", 6379);
         host = section.getString("host", "localhost");
         useSSL = section.getBoolean("use-ssl", false);
+        serverID = getServerID(section.getString("server-id", ""));
 
         if (password.isBlank()) {
             jedisPool = new JedisPool(jedisPoolConfig, host, port, 0, useSSL);
@@ -117,6 +148,7 @@ public class RedisManager extends AbstractStorage {
             return;
         }
 
+        this.subscribeHandoff();
         String version = parseRedisVersion(info);
         if (isRedisNewerThan5(version)) {
             // For Redis 5.0+
@@ -136,6 +168,13 @@ public class RedisManager extends AbstractStorage {
     public void disable() {
         if (threadTask != null)
             threadTask.stop();
+        handoffStopped = true;
+        JedisPubSub subscriber = handoffSubscriber;
+        if (subscriber != null && subscriber.isSubscribed())
+            subscriber.unsubscribe();
+        for (CompletableFuture<Boolean> future : handoffWaiters.values())
+            future.complete(false);
+        handoffWaiters.clear();
         if (jedisPool != null && !jedisPool.isClosed())
             jedisPool.close();
     }
@@ -147,17 +186,19 @@ public class RedisManager extends AbstractStorage {
      * @param message The message to send.
      */
     public void publishRedisMessage(@NotNull String server, @NotNull String message) {
-        message = server + ";" + message;
-        plugin.debug("Sent Redis message: " + message);
+        RedisMessage redisMessage = RedisMessage.of(server, message);
+        plugin.debug("Sent Redis message: " + redisMessage.toLegacy());
         if (isNewerThan5) {
             try (Jedis jedis = jedisPool.getResource()) {
                 HashMap<String, String> messages = new HashMap<>();
-                messages.put("value", message);
+                // The legacy value is kept for servers running older versions
+                messages.put("value", redisMessage.toLegacy());
+                messages.put("payload", redisMessage.toJson());
                 jedis.xadd(getStream(), StreamEntryID.NEW_ENTRY, messages);
             }
         } else {
             try (Jedis jedis = jedisPool.getResource()) {
-                jedis.publish(getStream(), message);
+                jedis.publish(getStream(), redisMessage.toLegacy());
             }
         }
     }
@@ -167,15 +208,7 @@ public class RedisManager extends AbstractStorage {
      */
     private void subscribe() {
         Thread thread = new Thread(() -> {
-            try (final Jedis jedis = password.isBlank() ?
-                    new Jedis(host, port, 0, useSSL) :
-                    new Jedis(host, port, DefaultJedisClientConfig
-                            .builder()
-                            .password(password)
-                            .timeoutMillis(0)
-                            .ssl(useSSL)
-                            .build())
-            ) {
+            try (final Jedis jedis = createSubscriberConnection()) {
                 jedis.connect();
                 jedis.subscribe(new JedisPubSub() {
                     @Override
@@ -183,7 +216,11 @@ public class RedisManager extends AbstractStorage {
                         if (!channel.equals(getStream())) {
                             return;
                         }
-                        handleMessage(message);
+                        try {
+                            handleMessage(RedisMessage.fromLegacy(message));
+                        } catch (IllegalArgumentException e) {
+                            LogUtils.warn(e.getMessage());
+                        }
                     }
                 }, getStream());
             }
@@ -191,19 +228,135 @@ public class RedisManager extends AbstractStorage {
         thread.start();
     }
 
-    private static void handleMessage(String message) {
-        CustomFishingPlugin.get().debug("Received Redis message: " + message);
-        String[] split = message.split(";");
-        String server = split[0];
-        if (!CFConfig.serverGroup.contains(server)) {
+    /**
+     * Subscribe to the handoff notifications on a separate thread, reconnecting if the connection is lost.
+     */
+    private void subscribeHandoff() {
+        Thread thread = new Thread(() -> {
+            while (!handoffStopped) {
+                try (final Jedis jedis = createSubscriberConnection()) {
+                    jedis.connect();
+                    JedisPubSub subscriber = new JedisPubSub() {
+                        @Override
+                        public void onMessage(String channel, String message) {
+                            try {
+                                CompletableFuture<Boolean> future = handoffWaiters.remove(UUID.fromString(message));
+                                if (future != null) future.complete(true);
+                            } catch (IllegalArgumentException e) {
+                                LogUtils.warn("Received an invalid handoff notification: " + message);
+                            }
+                        }
+                    };
+                    handoffSubscriber = subscriber;
+                    if (handoffStopped) return;
+                    jedis.subscribe(subscriber, HANDOFF_CHANNEL);
+                } catch (Exception e) {
+                    if (handoffStopped) return;
+                    LogUtils.warn("Failed to connect redis. Try reconnecting 10s later", e);
+                    try {
+                        Thread.sleep(10000);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private Jedis createSubscriberConnection() {
+        return createConnection(0);
+    }
+
+    /**
+     * Creates a connection outside the pool, for threads that hold it for a long time.
+     *
+     * @param timeoutMillis The socket timeout, or 0 for none.
+     * @return The connection.
+     */
+    private Jedis createConnection(int timeoutMillis) {
+        return password.isBlank() ?
+                new Jedis(host, port, timeoutMillis, useSSL) :
+                new Jedis(host, port, DefaultJedisClientConfig
+                        .builder()
+                        .password(password)
+                        .timeoutMillis(timeoutMillis)
+                        .ssl(useSSL)
+                        .build());
+    }
+
+    /**
+     * Start waiting for the data of a player to be handed off by another server.
+     * The returned future is completed with true once {@link #updatePlayerData(UUID, PlayerData, boolean)}
+     * is called for the player on any server, or with false if the wait is cancelled.
+     *
+     * @param uuid The UUID of the player.
+     * @return A CompletableFuture completed when the data is available in Redis.
+     */
+    public CompletableFuture<Boolean> awaitHandoff(UUID uuid) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        CompletableFuture<Boolean> previous = handoffWaiters.put(uuid, future);
+        if (previous != null) previous.complete(false);
+        return future;
+    }
+
+    /**
+     * Stop waiting for the data of a player.
+     *
+     * @param uuid   The UUID of the player.
+     * @param future The future returned by {@link #awaitHandoff(UUID)}.
+     */
+    public void cancelHandoff(UUID uuid, CompletableFuture<Boolean> future) {
+        handoffWaiters.remove(uuid, future);
+        future.complete(false);
+    }
+
+    /**
+     * Record a player whose data was received from Redis.
+     *
+     * @param nanos The time from joining to receiving the data in nanoseconds.
+     */
+    public void recordHandoff(long nanos) {
+        handoffCount.incrementAndGet();
+        this.lastHandoffNanos = nanos;
+        this.averageHandoffNanos = averageHandoffNanos * 0.95 + nanos * 0.05;
+    }
+
+    /**
+     * Record a player whose data had to be loaded from the data source.
+     */
+    public void recordFallback() {
+        fallbackCount.incrementAndGet();
+    }
+
+    public long getHandoffCount() {
+        return handoffCount.get();
+    }
+
+    public long getFallbackCount() {
+        return fallbackCount.get();
+    }
+
+    public long getLastHandoffNanos() {
+        return lastHandoffNanos;
+    }
+
+    public double getAverageHandoffNanos() {
+        return averageHandoffNanos;
+    }
+
+    private static void handleMessage(RedisMessage message) {
+        CustomFishingPlugin.get().debug("Received Redis message: " + message.toLegacy());
+        if (!CFConfig.serverGroup.contains(message.server())) {
             return;
         }
-        String action = split[1];
         CustomFishingPlugin.get().getScheduler().runTaskSync(() -> {
-            switch (action) {
+            switch (message.action()) {
                 case "start" -> {
                     // start competition for all the servers that connected to redis
-                    CustomFishingPlugin.get().getCompetitionManager().startCompetition(split[2], true, null);
+                    if (!message.args().isEmpty())
+                        CustomFishingPlugin.get().getCompetitionManager().startCompetition(message.args().get(0), true, null);
                 }
                 case "end" -> {
                     if (CustomFishingPlugin.get().getCompetitionManager().getOnGoingCompetition() != null)
@@ -230,16 +383,19 @@ public class RedisManager extends AbstractStorage {
      */
     public CompletableFuture<Void> setChangeServer(UUID uuid) {
         var future = new CompletableFuture<Void>();
-        plugin.getScheduler().runTaskAsync(() -> {
+        plugin.getScheduler().runTaskAsync(TaskKind.IO, () -> {
         try (Jedis jedis = jedisPool.getResource()) {
             jedis.setex(
                     getRedisKey("cf_server", uuid),
                     10,
                     new byte[0]
             );
+            plugin.debug("Server data set for " + uuid);
+        } catch (Exception e) {
+            LogUtils.warn("Failed to set server data for " + uuid, e);
         }
+        // The data is saved even if the flag could not be set
         future.complete(null);
-            plugin.debug("Server data set for " + uuid);
         });
         return future;
     }
@@ -252,7 +408,7 @@ public class RedisManager extends AbstractStorage {
      */
     public CompletableFuture<Boolean> getChangeServer(UUID uuid) {
         var future = new CompletableFuture<Boolean>();
-        plugin.getScheduler().runTaskAsync(() -> {
+        plugin.getScheduler().runTaskAsync(TaskKind.IO, () -> {
         try (Jedis jedis = jedisPool.getResource()) {
             byte[] key = getRedisKey("cf_server", uuid);
             if (jedis.get(key) != null) {
@@ -263,6 +419,9 @@ public class RedisManager extends AbstractStorage {
                 future.complete(false);
                 plugin.debug("Server data retrieved for " + uuid + "; value: false");
             }
+        } catch (Exception e) {
+            future.complete(false);
+            LogUtils.warn("Failed to get server data for " + uuid, e);
         }
         });
         return future;
@@ -278,7 +437,7 @@ public class RedisManager extends AbstractStorage {
     @Override
     public CompletableFuture<Optional<PlayerData>> getPlayerData(UUID uuid, boolean lock) {
         var future = new CompletableFuture<Optional<PlayerData>>();
-        plugin.getScheduler().runTaskAsync(() -> {
+        plugin.getScheduler().runTaskAsync(TaskKind.IO, () -> {
         try (Jedis jedis = jedisPool.getResource()) {
             byte[] key = getRedisKey("cf_data", uuid);
             byte[] data = jedis.get(key);
@@ -299,7 +458,7 @@ public class RedisManager extends AbstractStorage {
     }
 
     /**
-     * Asynchronously update player data in Redis.
+     * Asynchronously update player data in Redis and notify the server the player is joining.
      *
      * @param uuid       The UUID of the player.
      * @param playerData The player's data to update.
@@ -309,13 +468,14 @@ public class RedisManager extends AbstractStorage {
     @Override
     public CompletableFuture<Boolean> updatePlayerData(UUID uuid, PlayerData playerData, boolean ignore) {
         var future = new CompletableFuture<Boolean>();
-        plugin.getScheduler().runTaskAsync(() -> {
+        plugin.getScheduler().runTaskAsync(TaskKind.IO, () -> {
         try (Jedis jedis = jedisPool.getResource()) {
             jedis.setex(
                     getRedisKey("cf_data", uuid),
                     10,
                     plugin.getStorageManager().toBytes(playerData)
             );
+            jedis.publish(HANDOFF_CHANNEL, uuid.toString());
             future.complete(true);
             plugin.debug("Redis data set for " + uuid);
         } catch (Exception e) {
@@ -353,6 +513,35 @@ public class RedisManager extends AbstractStorage {
         return STREAM;
     }
 
+    /**
+     * Get the id of this server used as its consumer group, generating one if it's not configured.
+     *
+     * @param configured The id in the config.
+     * @return The server id.
+     */
+    private String getServerID(String configured) {
+        serverIDSaved = true;
+        if (configured != null && !configured.isBlank()) {
+            return configured;
+        }
+        File file = new File(plugin.getDataFolder(), ".redis-server-id");
+        try {
+            if (file.exists()) {
+                String id = Files.readString(file.toPath(), StandardCharsets.UTF_8).trim();
+                if (!id.isEmpty()) return id;
+            }
+            String id = UUID.randomUUID().toString();
+            Files.writeString(file.toPath(), id, StandardCharsets.UTF_8);
+            return id;
+        } catch (IOException e) {
+            LogUtils.severe("Failed to save the Redis server id to " + file.getPath() + ". Set \"server-id\" under \"Redis\" in database.yml to a name unique to this server, "
+                    + "otherwise messages sent while this server is restarting will be missed.", e);
+            // The group of a random id is never used again, so it's destroyed when the plugin is disabled
+            serverIDSaved = false;
+            return UUID.randomUUID().toString();
+        }
+    }
+
     private static boolean isRedisNewerThan5(String version) {
         String[] split = version.split("\\.");
         int major = Integer.parseInt(split[0]);
@@ -372,37 +561,45 @@ public class RedisManager extends AbstractStorage {
         return "Unknown";
     }
 
+    /**
+     * Reads the stream on a thread of its own until stopped.
+     * See {@link StreamConsumer} for how the messages are delivered.
+     */
     public class BlockingThreadTask {
 
-        private boolean stopped;
+        private volatile boolean stopped;
 
         public void stop() {
             stopped = true;
         }
 
         public BlockingThreadTask() {
+            StreamConsumer consumer = new StreamConsumer(
+                    getStream(),
+                    getStream() + ":" + serverID,
+                    serverID,
+                    BATCH_SIZE,
+                    MAX_MESSAGE_AGE,
+                    MAX_GROUP_IDLE_TIME,
+                    this::handleEntry,
+                    plugin.getLogger()
+            );
             Thread thread = new Thread(() -> {
-                var map = new HashMap<String, StreamEntryID>();
-                map.put(getStream(), StreamEntryID.LAST_ENTRY);
                 while (!this.stopped) {
-                    try {
-                        var connection = getJedis();
-                        if (connection != null) {
-                            var messages = connection.xread(XReadParams.xReadParams().count(1).block(2000), map);
-                            connection.close();
-                            if (messages != null && messages.size() != 0) {
-                                for (Map.Entry<String, List<StreamEntry>> message : messages) {
-                                    if (message.getKey().equals(getStream())) {
-                                        var value = message.getValue().get(0).getFields().get("value");
-                                        handleMessage(value);
-                                    }
-                                }
-                            }
-                        } else {
-                            Thread.sleep(2000);
+                    // Blocking reads hold the connection most of the time, so it's not taken from the pool
+                    try (Jedis connection = createConnection(BLOCK_MILLIS + 5000)) {
+                        JedisStreamClient client = new JedisStreamClient(connection);
+                        while (!this.stopped) {
+                            consumer.poll(client);
+                        }
+                        if (!serverIDSaved) {
+                            consumer.destroyGroup(client);
                         }
                     } catch (Exception e) {
+                        if (this.stopped) return;
                         LogUtils.warn("Failed to connect redis. Try reconnecting 10s later",e);
+                        // Entries delivered before the failure might not have been acknowledged
+                        consumer.reset();
                         try {
                             Thread.sleep(10000);
                         } catch (InterruptedException ex) {
@@ -413,5 +610,95 @@ public class RedisManager extends AbstractStorage {
             });
             thread.start();
         }
+
+        private void handleEntry(StreamEntry entry) {
+            String payload = entry.getFields().get("payload");
+            if (payload != null) {
+                RedisMessage message = RedisMessage.fromJson(payload);
+                if (message.version() > RedisMessage.VERSION) {
+                    plugin.debug("Received Redis message in a newer format: " + payload);
+                }
+                handleMessage(message);
+            } else {
+                String value = entry.getFields().get("value");
+                if (value != null) {
+                    handleMessage(RedisMessage.fromLegacy(value));
+                }
+            }
+        }
+    }
+
+    /**
+     * The stream commands sent through a Jedis connection.
+     */
+    private static class JedisStreamClient implements StreamClient {
+
+        private final Jedis connection;
+
+        private JedisStreamClient(Jedis connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void createGroup(String stream, String group) {
+            try {
+                connection.xgroupCreate(stream, group, StreamEntryID.LAST_ENTRY, true);
+            } catch (JedisDataException e) {
+                if (e.getMessage() == null || !e.getMessage().startsWith("BUSYGROUP")) {
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public Map<String, Long> groupIdleTimes(String stream) {
+            Map<String, Long> idleTimes = new HashMap<>();
+            for (StreamGroupInfo group : connection.xinfoGroups(stream)) {
+                long idle = Long.MAX_VALUE;
+                for (StreamConsumersInfo consumer : connection.xinfoConsumers(stream, group.getName())) {
+                    idle = Math.min(idle, consumer.getIdle());
+                }
+                if (idle != Long.MAX_VALUE) {
+                    idleTimes.put(group.getName(), idle);
+                }
+            }
+            return idleTimes;
+        }
+
+        @Override
+        public void destroyGroup(String stream, String group) {
+            connection.xgroupDestroy(stream, group);
+        }
+
+        @Override
+        public List<StreamEntry> readGroup(String stream, String group, String consumer, int count, boolean pending) {
+            var messages = connection.xreadGroup(
+                    group,
+                    consumer,
+                    XReadGroupParams.xReadGroupParams().count(count).block(BLOCK_MILLIS),
+                    Map.of(stream, pending ? new StreamEntryID() : StreamEntryID.UNRECEIVED_ENTRY)
+            );
+            List<StreamEntry> entries = new ArrayList<>();
+            if (messages != null) {
+                for (Map.Entry<String, List<StreamEntry>> message : messages) {
+                    if (message.getKey().equals(stream)) {
+                        entries.addAll(message.getValue());
+                    }
+                }
+            }
+            return entries;
+        }
+
+        @Override
+        public void ack(String stream, String group, StreamEntryID... ids) {
+            connection.xack(stream, group, ids);
+        }
+
+        @Override
+        public long time() {
+            // Seconds and microseconds
+            List<String> time = connection.time();
+            return Long.parseLong(time.get(0)) * 1000 + Long.parseLong(time.get(1)) / 1000;
+        }
     }
 }
@@ -0,0 +1,125 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.storage.method.database.nosql;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A message sent between servers through Redis.
+ * Messages are stored as versioned JSON in streams, and as "server;action;args" strings on Redis
+ * servers that don't support streams and for servers running older versions.
+ *
+ * @param version The version of the format the message was written in.
+ * @param server  The server group the message is sent to.
+ * @param action  The action to perform, such as "start", "end" or "stop".
+ * @param args    The arguments of the action.
+ */
+public record RedisMessage(int version, @NotNull String server, @NotNull String action, @NotNull List<String> args) {
+
+    public static final int VERSION = 1;
+
+    /**
+     * Create a message in the current version.
+     *
+     * @param server  The server group the message is sent to.
+     * @param message The action and its arguments separated by ";".
+     * @return The message.
+     */
+    public static RedisMessage of(String server, String message) {
+        String[] split = message.split(";");
+        return new RedisMessage(VERSION, server, split[0], List.of(Arrays.copyOfRange(split, 1, split.length)));
+    }
+
+    /**
+     * Parse a message in the "server;action;args" format.
+     *
+     * @param value The message string.
+     * @return The message.
+     * @throws IllegalArgumentException If the message has no action.
+     */
+    public static RedisMessage fromLegacy(String value) {
+        String[] split = value.split(";");
+        if (split.length < 2) {
+            throw new IllegalArgumentException("Invalid Redis message: " + value);
+        }
+        return new RedisMessage(0, split[0], split[1], List.of(Arrays.copyOfRange(split, 2, split.length)));
+    }
+
+    /**
+     * Parse a message in the JSON format.
+     * Unknown fields written by newer versions are ignored.
+     *
+     * @param json The JSON string.
+     * @return The message.
+     * @throws RuntimeException If the JSON is malformed or misses required fields.
+     */
+    public static RedisMessage fromJson(String json) {
+        JsonObject object = JsonParser.parseString(json).getAsJsonObject();
+        List<String> args = new ArrayList<>();
+        if (object.has("args")) {
+            for (JsonElement element : object.getAsJsonArray("args")) {
+                args.add(element.getAsString());
+            }
+        }
+        return new RedisMessage(
+                object.get("v").getAsInt(),
+                object.get("server").getAsString(),
+                object.get("action").getAsString(),
+                List.copyOf(args)
+        );
+    }
+
+    /**
+     * Write the message in the JSON format.
+     *
+     * @return The JSON string.
+     */
+    public String toJson() {
+        JsonObject object = new JsonObject();
+        object.addProperty("v", version);
+        object.addProperty("server", server);
+        object.addProperty("action", action);
+        JsonArray array = new JsonArray();
+        for (String arg : args) {
+            array.add(arg);
+        }
+        object.add("args", array);
+        return object.toString();
+    }
+
+    /**
+     * Write the message in the "server;action;args" format.
+     *
+     * @return The message string.
+     */
+    public String toLegacy() {
+        StringBuilder builder = new StringBuilder(server).append(';').append(action);
+        for (String arg : args) {
+            builder.append(';').append(arg);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.storage.method.database.nosql;
+
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Redis stream commands used to read messages through a consumer group.
+ */
+interface StreamClient {
+
+    /**
+     * Creates a consumer group that receives the entries added from now on, if it doesn't exist yet.
+     *
+     * @param stream The key of the stream.
+     * @param group  The name of the group.
+     */
+    void createGroup(String stream, String group);
+
+    /**
+     * Gets how long the consumer groups of the stream have not been read from.
+     *
+     * @param stream The key of the stream.
+     * @return The names of the groups mapped to the idle time of their most recently active consumer in milliseconds.
+     *         Groups without any consumer are left out.
+     */
+    Map<String, Long> groupIdleTimes(String stream);
+
+    /**
+     * Destroys a consumer group along with its pending entries.
+     *
+     * @param stream The key of the stream.
+     * @param group  The name of the group.
+     */
+    void destroyGroup(String stream, String group);
+
+    /**
+     * Reads entries of the stream for a consumer of a group.
+     *
+     * @param stream   The key of the stream.
+     * @param group    The name of the group.
+     * @param consumer The name of the consumer.
+     * @param count    The maximum number of entries.
+     * @param pending  True to read the entries that were delivered to the consumer but not acknowledged,
+     *                 false to wait for entries that were never delivered to the group.
+     * @return The entries, or an empty list if there is none.
+     */
+    List<StreamEntry> readGroup(String stream, String group, String consumer, int count, boolean pending);
+
+    /**
+     * Acknowledges entries so that they are not delivered again.
+     *
+     * @param stream The key of the stream.
+     * @param group  The name of the group.
+     * @param ids    The ids of the entries.
+     */
+    void ack(String stream, String group, StreamEntryID... ids);
+
+    /**
+     * Gets the time of the Redis server, which is the clock the entry ids are made from.
+     *
+     * @return The time in milliseconds.
+     */
+    long time();
+}
@@ -0,0 +1,163 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.storage.method.database.nosql;
+
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads the message stream through a consumer group of its own, so every server gets every message exactly once.
+ * Redis remembers the last entry delivered to the group, and entries are only acknowledged after being handled,
+ * so messages sent between two reads or while reconnecting are not lost.
+ * Groups of other servers that have not read for a long time are destroyed, since every server has a group of its own
+ * and Redis would otherwise keep their pending entries forever.
+ */
+class StreamConsumer {
+
+    private final String stream;
+    private final String group;
+    private final String consumer;
+    private final int batchSize;
+    private final long maxMessageAge;
+    private final long maxGroupIdleTime;
+    private final Consumer<StreamEntry> handler;
+    private final Logger logger;
+    private boolean groupCreated;
+    // Entries that were delivered but not acknowledged, before a restart or a lost connection, are read first
+    private boolean recovering;
+
+    /**
+     * @param stream        The key of the stream.
+     * @param group         The consumer group of this server.
+     * @param consumer      The consumer name of this server.
+     * @param batchSize     The maximum number of entries read at once.
+     * @param maxMessageAge    Entries older than this in milliseconds, by the Redis clock, are dropped.
+     * @param maxGroupIdleTime Groups of other servers that have not read for longer than this in milliseconds are destroyed.
+     * @param handler          The handler of the entries.
+     * @param logger           The logger to report dropped and broken entries to.
+     */
+    StreamConsumer(String stream, String group, String consumer, int batchSize, long maxMessageAge, long maxGroupIdleTime, Consumer<StreamEntry> handler, Logger logger) {
+        this.stream = stream;
+        this.group = group;
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+        this.maxMessageAge = maxMessageAge;
+        this.maxGroupIdleTime = maxGroupIdleTime;
+        this.handler = handler;
+        this.logger = logger;
+        this.recovering = true;
+    }
+
+    /**
+     * Reads one batch of entries, handles them and acknowledges them.
+     * Exceptions thrown by the client are passed on, after which {@link #reset()} should be called before reconnecting.
+     *
+     * @param client The client to use.
+     * @return The number of entries read.
+     */
+    int poll(StreamClient client) {
+        if (!groupCreated) {
+            client.createGroup(stream, group);
+            groupCreated = true;
+            removeStaleGroups(client);
+        }
+        List<StreamEntry> entries = client.readGroup(stream, group, consumer, batchSize, recovering);
+        if (entries.isEmpty()) {
+            recovering = false;
+            return 0;
+        }
+        // Entry ids are made from the Redis clock, so the local clock can't be compared with them
+        long now = client.time();
+        int outdated = 0;
+        StreamEntryID[] ids = new StreamEntryID[entries.size()];
+        for (int i = 0; i < ids.length; i++) {
+            StreamEntry entry = entries.get(i);
+            ids[i] = entry.getID();
+            if (!handle(entry, now)) outdated++;
+        }
+        client.ack(stream, group, ids);
+        if (outdated != 0) {
+            logger.info("Dropped " + outdated + " Redis messages older than " + maxMessageAge / 1000 + " seconds.");
+        }
+        return ids.length;
+    }
+
+    /**
+     * Resets the state after the connection is lost.
+     * The group is created again in case it was removed, and unacknowledged entries are read again.
+     */
+    void reset() {
+        groupCreated = false;
+        recovering = true;
+    }
+
+    boolean isRecovering() {
+        return recovering;
+    }
+
+    /**
+     * Destroys this server's own group, for a server whose id won't be the same after a restart.
+     *
+     * @param client The client to use.
+     */
+    void destroyGroup(StreamClient client) {
+        client.destroyGroup(stream, group);
+        groupCreated = false;
+    }
+
+    private void removeStaleGroups(StreamClient client) {
+        String prefix = stream + ":";
+        try {
+            for (Map.Entry<String, Long> entry : client.groupIdleTimes(stream).entrySet()) {
+                String name = entry.getKey();
+                if (!name.startsWith(prefix) || name.equals(group) || entry.getValue() <= maxGroupIdleTime) continue;
+                client.destroyGroup(stream, name);
+                logger.info("Removed the Redis consumer group " + name + " that has not been read for " + entry.getValue() / 60_000 + " minutes.");
+            }
+        } catch (RuntimeException e) {
+            // Reading messages matters more than cleaning up, so try again after the next reconnection
+            logger.log(Level.WARNING, "Failed to remove stale Redis consumer groups", e);
+        }
+    }
+
+    /**
+     * Handles an entry unless it's outdated.
+     *
+     * @return False if the entry is outdated, true otherwise.
+     */
+    private boolean handle(StreamEntry entry, long now) {
+        // Entries without data are the ones trimmed from the stream while pending
+        if (entry.getFields() == null) return true;
+        if (now - entry.getID().getTime() > maxMessageAge) {
+            return false;
+        }
+        try {
+            handler.accept(entry);
+        } catch (RuntimeException e) {
+            // Broken entries are still acknowledged so that they are not delivered again
+            logger.log(Level.WARNING, "Failed to handle Redis message " + entry.getID(), e);
+        }
+        return true;
+    }
+}
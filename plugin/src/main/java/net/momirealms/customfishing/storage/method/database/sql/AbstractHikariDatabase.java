@@ -21,6 +21,7 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.data.*;
+import net.momirealms.customfishing.api.scheduler.TaskKind;
 import net.momirealms.customfishing.api.util.LogUtils;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -148,7 +149,7 @@ public abstract class AbstractHikariDatabase extends AbstractSQLDatabase impleme
     @Override
     public CompletableFuture<Optional<PlayerData>> getLegacyPlayerData(UUID uuid) {
         var future = new CompletableFuture<Optional<PlayerData>>();
-        plugin.getScheduler().runTaskAsync(() -> {
+        plugin.getScheduler().runTaskAsync(TaskKind.IO, () -> {
             try (
                 Connection connection = getConnection()
             ) {
@@ -20,6 +20,7 @@ package net.momirealms.customfishing.storage.method.database.sql;
 import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.data.PlayerData;
 import net.momirealms.customfishing.api.data.user.OfflineUser;
+import net.momirealms.customfishing.api.scheduler.TaskKind;
 import net.momirealms.customfishing.api.util.LogUtils;
 import net.momirealms.customfishing.setting.CFConfig;
 import net.momirealms.customfishing.storage.method.AbstractStorage;
@@ -35,10 +36,21 @@ import java.util.concurrent.CompletableFuture;
 
 /**
  * An abstract base class for SQL database implementations that handle player data storage.
+ * Data is stored either as one blob per player (schema version 1) or in normalized tables (schema version 2).
  */
 public abstract class AbstractSQLDatabase extends AbstractStorage {
 
+    private static final int MIGRATION_BATCH_SIZE = 500;
+
     protected String tablePrefix;
+    // SQL texts are formatted once the table prefix is known
+    private String selectByUUID;
+    private String selectAllUUID;
+    private String updateByUUID;
+    private String lockByUUID;
+    private String insertByUUID;
+    // Null if the blob schema is used
+    private NormalizedPlayerTables normalizedTables;
 
     public AbstractSQLDatabase(CustomFishingPlugin plugin) {
         super(plugin);
@@ -54,16 +66,36 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
 
     /**
      * Create tables for storing data if they don't exist in the database.
+     * If schema version 2 is enabled and its tables are empty, data in the blob table would be copied into them.
      */
     public void createTableIfNotExist() {
+        String type = getStorageType().name().toLowerCase(Locale.ENGLISH);
+        int schemaVersion = plugin.getConfig("database.yml").getInt("SQL-schema-version", 1);
+        this.selectByUUID = String.format(SqlConstants.SQL_SELECT_BY_UUID, getTableName("data"));
+        this.selectAllUUID = String.format(SqlConstants.SQL_SELECT_ALL_UUID, getTableName("data"));
+        this.updateByUUID = String.format(SqlConstants.SQL_UPDATE_BY_UUID, getTableName("data"));
+        this.lockByUUID = String.format(SqlConstants.SQL_LOCK_BY_UUID, getTableName("data"));
+        this.insertByUUID = String.format(SqlConstants.SQL_INSERT_DATA_BY_UUID, getTableName("data"));
+        this.normalizedTables = schemaVersion >= 2 ? new NormalizedPlayerTables(tablePrefix, SqlDialect.of(getStorageType())) : null;
+
         try (Connection connection = getConnection()) {
-            final String[] databaseSchema = getSchema(getStorageType().name().toLowerCase(Locale.ENGLISH));
             try (Statement statement = connection.createStatement()) {
-                for (String tableCreationStatement : databaseSchema) {
+                for (String tableCreationStatement : getSchema(type)) {
+                    if (tableCreationStatement.isBlank()) continue;
                     statement.execute(tableCreationStatement);
                 }
+                if (normalizedTables != null) {
+                    for (String tableCreationStatement : getSchema(type + "_v2")) {
+                        if (tableCreationStatement.isBlank()) continue;
+                        statement.execute(tableCreationStatement);
+                    }
+                }
             } catch (SQLException e) {
                 LogUtils.warn("Failed to create tables", e);
+                return;
+            }
+            if (normalizedTables != null && normalizedTables.isEmpty(connection)) {
+                migrateToNormalizedTables(connection);
             }
         } catch (SQLException e) {
             LogUtils.warn("Failed to get sql connection", e);
@@ -72,6 +104,27 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
         }
     }
 
+    /**
+     * Copies all the player data in the blob table into the normalized tables in one transaction.
+     * The blob table is kept untouched so that it's possible to switch back.
+     * If the migration fails, the blob table keeps being used until the next start.
+     *
+     * @param connection The connection to use.
+     */
+    private void migrateToNormalizedTables(Connection connection) {
+        try {
+            int migrated = SchemaMigration.migrate(connection, getTableName("data"), normalizedTables,
+                    rs -> plugin.getStorageManager().fromBytes(getDataBytes(rs)), MIGRATION_BATCH_SIZE);
+            if (migrated != 0) {
+                LogUtils.info("Migrated " + migrated + " players' data to SQL schema version 2.");
+            }
+        } catch (Exception e) {
+            // The normalized tables are empty, so using them would make every player start from scratch
+            this.normalizedTables = null;
+            LogUtils.warn("Failed to migrate data to SQL schema version 2. SQL schema version 1 will be used instead.", e);
+        }
+    }
+
     /**
      * Get the SQL schema from a resource file.
      *
@@ -113,6 +166,32 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
         return tablePrefix;
     }
 
+    /**
+     * Sets the serialized player data as a statement parameter.
+     *
+     * @param statement The statement.
+     * @param index     The index of the parameter.
+     * @param data      The serialized player data.
+     * @throws SQLException If the parameter can't be set.
+     */
+    protected void setDataBytes(PreparedStatement statement, int index, byte[] data) throws SQLException {
+        statement.setBlob(index, new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Gets the serialized player data from the current row.
+     *
+     * @param rs The result set.
+     * @return The serialized player data.
+     * @throws SQLException If the data can't be read.
+     */
+    protected byte[] getDataBytes(ResultSet rs) throws SQLException {
+        final Blob blob = rs.getBlob("data");
+        final byte[] dataByteArray = blob.getBytes(1, (int) blob.length());
+        blob.free();
+        return dataByteArray;
+    }
+
     /**
      * Retrieve a player's data from the SQL database.
      *
@@ -123,11 +202,14 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
     @SuppressWarnings("DuplicatedCode")
     @Override
     public CompletableFuture<Optional<PlayerData>> getPlayerData(UUID uuid, boolean lock) {
+        if (normalizedTables != null) {
+            return getNormalizedPlayerData(uuid, lock);
+        }
         var future = new CompletableFuture<Optional<PlayerData>>();
-        plugin.getScheduler().runTaskAsync(() -> {
+        plugin.getScheduler().runTaskAsync(TaskKind.IO, () -> {
         try (
             Connection connection = getConnection();
-            PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_SELECT_BY_UUID, getTableName("data")))
+            PreparedStatement statement = connection.prepareStatement(selectByUUID)
         ) {
             statement.setString(1, uuid.toString());
             ResultSet rs = statement.executeQuery();
@@ -141,9 +223,7 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
                         return;
                     }
                 }
-                final Blob blob = rs.getBlob("data");
-                final byte[] dataByteArray = blob.getBytes(1, (int) blob.length());
-                blob.free();
+                final byte[] dataByteArray = getDataBytes(rs);
                 if (lock) lockOrUnlockPlayerData(uuid, true);
                 future.complete(Optional.of(plugin.getStorageManager().fromBytes(dataByteArray)));
             } else if (Bukkit.getPlayer(uuid) != null) {
@@ -161,6 +241,38 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
         return future;
     }
 
+    @SuppressWarnings("DuplicatedCode")
+    private CompletableFuture<Optional<PlayerData>> getNormalizedPlayerData(UUID uuid, boolean lock) {
+        var future = new CompletableFuture<Optional<PlayerData>>();
+        plugin.getScheduler().runTaskAsync(TaskKind.IO, () -> {
+        try (Connection connection = getConnection()) {
+            NormalizedPlayerTables.StoredPlayerData stored = normalizedTables.select(connection, uuid);
+            if (stored != null) {
+                if (lock) {
+                    int lockValue = stored.lock();
+                    if (lockValue != 0 && getCurrentSeconds() - CFConfig.dataSaveInterval <= lockValue) {
+                        future.complete(Optional.of(PlayerData.LOCKED));
+                        LogUtils.warn("Player " + uuid + "'s data is locked. Retrying...");
+                        return;
+                    }
+                    normalizedTables.lock(connection, List.of(uuid), getCurrentSeconds());
+                }
+                future.complete(Optional.of(stored.data()));
+            } else if (Bukkit.getPlayer(uuid) != null) {
+                var data = PlayerData.empty();
+                normalizedTables.upsert(connection, Map.of(uuid, data), lock ? getCurrentSeconds() : 0);
+                future.complete(Optional.of(data));
+            } else {
+                future.complete(Optional.empty());
+            }
+        } catch (SQLException e) {
+            LogUtils.warn("Failed to get " + uuid + "'s data.", e);
+            future.completeExceptionally(e);
+        }
+        });
+        return future;
+    }
+
     /**
      * Update a player's data in the SQL database.
      *
@@ -172,15 +284,18 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
     @Override
     public CompletableFuture<Boolean> updatePlayerData(UUID uuid, PlayerData playerData, boolean unlock) {
         var future = new CompletableFuture<Boolean>();
-        plugin.getScheduler().runTaskAsync(() -> {
-        try (
-            Connection connection = getConnection();
-            PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_UPDATE_BY_UUID, getTableName("data")))
-        ) {
-            statement.setInt(1, unlock ? 0 : getCurrentSeconds());
-            statement.setBlob(2, new ByteArrayInputStream(plugin.getStorageManager().toBytes(playerData)));
-            statement.setString(3, uuid.toString());
-            statement.executeUpdate();
+        plugin.getScheduler().runTaskAsync(TaskKind.IO, () -> {
+        try (Connection connection = getConnection()) {
+            if (normalizedTables != null) {
+                writeNormalized(connection, Map.of(uuid, playerData), unlock ? 0 : getCurrentSeconds());
+            } else {
+                try (PreparedStatement statement = connection.prepareStatement(updateByUUID)) {
+                    statement.setInt(1, unlock ? 0 : getCurrentSeconds());
+                    setDataBytes(statement, 2, plugin.getStorageManager().toBytes(playerData));
+                    statement.setString(3, uuid.toString());
+                    statement.executeUpdate();
+                }
+            }
             future.complete(true);
             plugin.debug("SQL data saved for " + uuid + "; unlock: " + unlock);
         } catch (SQLException e) {
@@ -199,18 +314,36 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
      */
     @Override
     public void updateManyPlayersData(Collection<? extends OfflineUser> users, boolean unlock) {
-        String sql = String.format(SqlConstants.SQL_UPDATE_BY_UUID, getTableName("data"));
+        if (users.isEmpty()) return;
+        // Take the snapshots once, so the users can be told exactly which data has been written
+        Map<OfflineUser, PlayerData> snapshots = new LinkedHashMap<>(users.size());
+        for (OfflineUser user : users) {
+            snapshots.put(user, user.getPlayerData());
+        }
         try (Connection connection = getConnection()) {
+            if (normalizedTables != null) {
+                Map<UUID, PlayerData> data = new HashMap<>(users.size());
+                snapshots.forEach((user, playerData) -> data.put(user.getUUID(), playerData));
+                try {
+                    writeNormalized(connection, data, unlock ? 0 : getCurrentSeconds());
+                } catch (SQLException e) {
+                    LogUtils.warn("Failed to update data for online players", e);
+                    return;
+                }
+                snapshots.forEach(OfflineUser::onDataSaved);
+                return;
+            }
             connection.setAutoCommit(false);
-            try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                for (OfflineUser user : users) {
+            try (PreparedStatement statement = connection.prepareStatement(updateByUUID)) {
+                for (Map.Entry<OfflineUser, PlayerData> entry : snapshots.entrySet()) {
                     statement.setInt(1, unlock ? 0 : getCurrentSeconds());
-                    statement.setBlob(2, new ByteArrayInputStream(plugin.getStorageManager().toBytes(user.getPlayerData())));
-                    statement.setString(3, user.getUUID().toString());
+                    setDataBytes(statement, 2, plugin.getStorageManager().toBytes(entry.getValue()));
+                    statement.setString(3, entry.getKey().getUUID().toString());
                     statement.addBatch();
                 }
                 statement.executeBatch();
                 connection.commit();
+                snapshots.forEach(OfflineUser::onDataSaved);
             } catch (SQLException e) {
                 connection.rollback();
                 LogUtils.warn("Failed to update data for online players", e);
@@ -220,6 +353,28 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
         }
     }
 
+    /**
+     * Writes player data into the normalized tables in one transaction.
+     *
+     * @param connection The connection to use.
+     * @param data       The data of the players.
+     * @param lock       The lock value to write.
+     * @throws SQLException If there is an error writing the data.
+     */
+    private void writeNormalized(Connection connection, Map<UUID, PlayerData> data, int lock) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            normalizedTables.upsert(connection, data, lock);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
     /**
      * Insert a new player's data into the SQL database.
      *
@@ -228,14 +383,17 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
      * @param lock      Whether to lock the player data upon insertion.
      */
     public void insertPlayerData(UUID uuid, PlayerData playerData, boolean lock) {
-        try (
-            Connection connection = getConnection();
-            PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_INSERT_DATA_BY_UUID, getTableName("data")))
-        ) {
-            statement.setString(1, uuid.toString());
-            statement.setInt(2, lock ? getCurrentSeconds() : 0);
-            statement.setBlob(3, new ByteArrayInputStream(plugin.getStorageManager().toBytes(playerData)));
-            statement.execute();
+        try (Connection connection = getConnection()) {
+            if (normalizedTables != null) {
+                writeNormalized(connection, Map.of(uuid, playerData), lock ? getCurrentSeconds() : 0);
+                return;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(insertByUUID)) {
+                statement.setString(1, uuid.toString());
+                statement.setInt(2, lock ? getCurrentSeconds() : 0);
+                setDataBytes(statement, 3, plugin.getStorageManager().toBytes(playerData));
+                statement.execute();
+            }
         } catch (SQLException e) {
             LogUtils.warn("Failed to insert " + uuid + "'s data.", e);
         }
@@ -249,18 +407,56 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
      */
     @Override
     public void lockOrUnlockPlayerData(UUID uuid, boolean lock) {
-        try (
-            Connection connection = getConnection();
-            PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_LOCK_BY_UUID, getTableName("data")))
-        ) {
-            statement.setInt(1, lock ? getCurrentSeconds() : 0);
-            statement.setString(2, uuid.toString());
-            statement.execute();
+        try (Connection connection = getConnection()) {
+            if (normalizedTables != null) {
+                normalizedTables.lock(connection, List.of(uuid), lock ? getCurrentSeconds() : 0);
+                return;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(lockByUUID)) {
+                statement.setInt(1, lock ? getCurrentSeconds() : 0);
+                statement.setString(2, uuid.toString());
+                statement.execute();
+            }
         } catch (SQLException e) {
             LogUtils.warn("Failed to lock " + uuid + "'s data.", e);
         }
     }
 
+    /**
+     * Lock or unlock data for multiple players in the SQL database in one batch.
+     *
+     * @param uuids The UUIDs of the players.
+     * @param lock  Whether to lock or unlock the player data.
+     */
+    @Override
+    public void lockOrUnlockManyPlayersData(Collection<UUID> uuids, boolean lock) {
+        if (uuids.isEmpty()) return;
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            int time = lock ? getCurrentSeconds() : 0;
+            try {
+                if (normalizedTables != null) {
+                    normalizedTables.lock(connection, uuids, time);
+                } else {
+                    try (PreparedStatement statement = connection.prepareStatement(lockByUUID)) {
+                        for (UUID uuid : uuids) {
+                            statement.setInt(1, time);
+                            statement.setString(2, uuid.toString());
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                LogUtils.warn("Failed to lock data for online players", e);
+            }
+        } catch (SQLException e) {
+            LogUtils.warn("Failed to get connection when locking online players' data", e);
+        }
+    }
+
     /**
      * Update or insert a player's data into the SQL database.
      *
@@ -271,11 +467,15 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
      */
     @Override
     public CompletableFuture<Boolean> updateOrInsertPlayerData(UUID uuid, PlayerData playerData, boolean unlock) {
+        // Every write to the normalized tables is already an upsert
+        if (normalizedTables != null) {
+            return updatePlayerData(uuid, playerData, unlock);
+        }
         var future = new CompletableFuture<Boolean>();
-        plugin.getScheduler().runTaskAsync(() -> {
+        plugin.getScheduler().runTaskAsync(TaskKind.IO, () -> {
             try (
                 Connection connection = getConnection();
-                PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_SELECT_BY_UUID, getTableName("data")))
+                PreparedStatement statement = connection.prepareStatement(selectByUUID)
             ) {
                 statement.setString(1, uuid.toString());
                 ResultSet rs = statement.executeQuery();
@@ -301,9 +501,13 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
     @Override
     public Set<UUID> getUniqueUsers(boolean legacy) {
         Set<UUID> uuids = new HashSet<>();
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_SELECT_ALL_UUID, legacy ? getTableName("fishingbag") : getTableName("data")))) {
-            try (ResultSet rs = statement.executeQuery()) {
+        try (Connection connection = getConnection()) {
+            if (!legacy && normalizedTables != null) {
+                return normalizedTables.selectAllUUID(connection);
+            }
+            String sql = legacy ? String.format(SqlConstants.SQL_SELECT_ALL_UUID, getTableName("fishingbag")) : selectAllUUID;
+            try (PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet rs = statement.executeQuery()) {
                 while (rs.next()) {
                     UUID uuid = UUID.fromString(rs.getString("uuid"));
                     uuids.add(uuid);
@@ -0,0 +1,262 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.storage.method.database.sql;
+
+import net.momirealms.customfishing.api.data.EarningData;
+import net.momirealms.customfishing.api.data.InventoryData;
+import net.momirealms.customfishing.api.data.PlayerData;
+import net.momirealms.customfishing.api.data.StatisticData;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Reads and writes player data in the normalized tables of schema version 2,
+ * where the statistics, bag and earnings of a player are stored in their own tables.
+ * All the statements are built once per table prefix and every write is an upsert.
+ * Methods use the given connection and leave transactions to the caller.
+ */
+public class NormalizedPlayerTables {
+
+    private final String selectPlayer;
+    private final String selectBag;
+    private final String selectEarnings;
+    private final String selectStatistics;
+    private final String selectAllUUID;
+    private final String countPlayers;
+    private final String upsertPlayer;
+    private final String upsertBag;
+    private final String upsertEarnings;
+    private final String upsertStatistic;
+    private final String deleteStatistics;
+    private final String lockPlayer;
+
+    public NormalizedPlayerTables(String tablePrefix, SqlDialect dialect) {
+        String player = tablePrefix + "_player";
+        String bag = tablePrefix + "_bag";
+        String earnings = tablePrefix + "_earnings";
+        String statistics = tablePrefix + "_statistics";
+        String[] uuid = {"uuid"};
+        this.selectPlayer = "SELECT `lock`, `name` FROM `" + player + "` WHERE `uuid` = ?";
+        this.selectBag = "SELECT `size`, `contents` FROM `" + bag + "` WHERE `uuid` = ?";
+        this.selectEarnings = "SELECT `earnings`, `date` FROM `" + earnings + "` WHERE `uuid` = ?";
+        this.selectStatistics = "SELECT `loot`, `amount`, `max_size` FROM `" + statistics + "` WHERE `uuid` = ?";
+        this.selectAllUUID = "SELECT `uuid` FROM `" + player + "`";
+        this.countPlayers = "SELECT COUNT(*) FROM `" + player + "`";
+        this.upsertPlayer = dialect.upsert(player, uuid, new String[]{"lock", "name"});
+        this.upsertBag = dialect.upsert(bag, uuid, new String[]{"size", "contents"});
+        this.upsertEarnings = dialect.upsert(earnings, uuid, new String[]{"earnings", "date"});
+        this.upsertStatistic = dialect.upsert(statistics, new String[]{"uuid", "loot"}, new String[]{"amount", "max_size"});
+        this.deleteStatistics = "DELETE FROM `" + statistics + "` WHERE `uuid` = ?";
+        this.lockPlayer = "UPDATE `" + player + "` SET `lock` = ? WHERE `uuid` = ?";
+    }
+
+    /**
+     * Reads a player's data.
+     *
+     * @param connection The connection to use.
+     * @param uuid       The UUID of the player.
+     * @return The stored data, or null if the player has no data.
+     * @throws SQLException If there is an error reading the data.
+     */
+    @Nullable
+    public StoredPlayerData select(Connection connection, UUID uuid) throws SQLException {
+        String id = uuid.toString();
+        int lock;
+        String name;
+        try (PreparedStatement statement = connection.prepareStatement(selectPlayer)) {
+            statement.setString(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) return null;
+                lock = rs.getInt(1);
+                name = rs.getString(2);
+            }
+        }
+
+        InventoryData bagData = InventoryData.empty();
+        try (PreparedStatement statement = connection.prepareStatement(selectBag)) {
+            statement.setString(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) bagData = new InventoryData(rs.getString(2), rs.getInt(1));
+            }
+        }
+
+        EarningData earningData = EarningData.empty();
+        try (PreparedStatement statement = connection.prepareStatement(selectEarnings)) {
+            statement.setString(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) earningData = new EarningData(rs.getDouble(1), rs.getInt(2));
+            }
+        }
+
+        HashMap<String, Integer> amountMap = new HashMap<>();
+        HashMap<String, Float> sizeMap = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(selectStatistics)) {
+            statement.setString(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    String loot = rs.getString(1);
+                    int amount = rs.getInt(2);
+                    if (!rs.wasNull()) amountMap.put(loot, amount);
+                    float size = rs.getFloat(3);
+                    if (!rs.wasNull()) sizeMap.put(loot, size);
+                }
+            }
+        }
+
+        return new StoredPlayerData(lock, PlayerData.builder()
+                .setName(name)
+                .setBagData(bagData)
+                .setEarningData(earningData)
+                .setStats(new StatisticData(amountMap, sizeMap))
+                .build());
+    }
+
+    /**
+     * Writes the data of some players in batches, inserting the rows that don't exist yet.
+     * Statistics of loots no longer in a player's data are removed.
+     *
+     * @param connection The connection to use.
+     * @param data       The data of the players.
+     * @param lock       The lock value to write.
+     * @throws SQLException If there is an error writing the data.
+     */
+    public void upsert(Connection connection, Map<UUID, PlayerData> data, int lock) throws SQLException {
+        if (data.isEmpty()) return;
+        try (
+            PreparedStatement player = connection.prepareStatement(upsertPlayer);
+            PreparedStatement bag = connection.prepareStatement(upsertBag);
+            PreparedStatement earnings = connection.prepareStatement(upsertEarnings);
+            PreparedStatement deletion = connection.prepareStatement(deleteStatistics);
+            PreparedStatement statistic = connection.prepareStatement(upsertStatistic)
+        ) {
+            boolean hasStatistics = false;
+            for (Map.Entry<UUID, PlayerData> entry : data.entrySet()) {
+                String id = entry.getKey().toString();
+                PlayerData playerData = entry.getValue();
+
+                player.setString(1, id);
+                player.setInt(2, lock);
+                player.setString(3, playerData.getName());
+                player.addBatch();
+
+                InventoryData bagData = Optional.ofNullable(playerData.getBagData()).orElseGet(InventoryData::empty);
+                bag.setString(1, id);
+                bag.setInt(2, bagData.size);
+                bag.setString(3, bagData.serialized == null ? "" : bagData.serialized);
+                bag.addBatch();
+
+                EarningData earningData = Optional.ofNullable(playerData.getEarningData()).orElseGet(EarningData::empty);
+                earnings.setString(1, id);
+                earnings.setDouble(2, earningData.earnings);
+                earnings.setInt(3, earningData.date);
+                earnings.addBatch();
+
+                // Rewrite the statistics so that the ones that have been reset don't stay in the table
+                deletion.setString(1, id);
+                deletion.addBatch();
+                StatisticData statisticData = playerData.getStatistics();
+                if (statisticData == null) continue;
+                Set<String> loots = new HashSet<>(statisticData.amountMap.keySet());
+                loots.addAll(statisticData.sizeMap.keySet());
+                for (String loot : loots) {
+                    statistic.setString(1, id);
+                    statistic.setString(2, loot);
+                    Integer amount = statisticData.amountMap.get(loot);
+                    if (amount == null) statistic.setNull(3, Types.INTEGER);
+                    else statistic.setInt(3, amount);
+                    Float size = statisticData.sizeMap.get(loot);
+                    if (size == null) statistic.setNull(4, Types.REAL);
+                    else statistic.setFloat(4, size);
+                    statistic.addBatch();
+                    hasStatistics = true;
+                }
+            }
+            player.executeBatch();
+            bag.executeBatch();
+            earnings.executeBatch();
+            deletion.executeBatch();
+            if (hasStatistics) statistic.executeBatch();
+        }
+    }
+
+    /**
+     * Sets the lock value of some players in one batch.
+     *
+     * @param connection The connection to use.
+     * @param uuids      The UUIDs of the players.
+     * @param lock       The lock value to write.
+     * @throws SQLException If there is an error writing the data.
+     */
+    public void lock(Connection connection, Collection<UUID> uuids, int lock) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(lockPlayer)) {
+            for (UUID uuid : uuids) {
+                statement.setInt(1, lock);
+                statement.setString(2, uuid.toString());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Get the UUIDs of all the players having data.
+     *
+     * @param connection The connection to use.
+     * @return A set of UUIDs.
+     * @throws SQLException If there is an error reading the data.
+     */
+    public Set<UUID> selectAllUUID(Connection connection) throws SQLException {
+        Set<UUID> uuids = new HashSet<>();
+        try (
+            PreparedStatement statement = connection.prepareStatement(selectAllUUID);
+            ResultSet rs = statement.executeQuery()
+        ) {
+            while (rs.next()) {
+                uuids.add(UUID.fromString(rs.getString(1)));
+            }
+        }
+        return uuids;
+    }
+
+    /**
+     * Checks if the tables don't have any player yet.
+     *
+     * @param connection The connection to use.
+     * @return True if there's no player, false otherwise.
+     * @throws SQLException If there is an error reading the data.
+     */
+    public boolean isEmpty(Connection connection) throws SQLException {
+        try (
+            PreparedStatement statement = connection.prepareStatement(countPlayers);
+            ResultSet rs = statement.executeQuery()
+        ) {
+            return !rs.next() || rs.getLong(1) == 0;
+        }
+    }
+
+    /**
+     * Player data read from the tables together with its lock value.
+     *
+     * @param lock The time the data was locked at, or 0 if it's not locked.
+     * @param data The player data.
+     */
+    public record StoredPlayerData(int lock, PlayerData data) {
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.storage.method.database.sql;
+
+import net.momirealms.customfishing.api.data.PlayerData;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Copies the player data of the blob table of schema version 1 into the normalized tables of schema version 2.
+ */
+final class SchemaMigration {
+
+    private SchemaMigration() {
+    }
+
+    /**
+     * Reads the player data stored in the current row of the blob table.
+     */
+    @FunctionalInterface
+    interface RowDecoder {
+        PlayerData decode(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Copies all the rows of the blob table in one transaction.
+     * If anything fails, including data that can't be decoded, the transaction is rolled back so that
+     * nothing is copied. The auto-commit mode of the connection is restored in any case.
+     *
+     * @param connection The connection to use.
+     * @param blobTable  The name of the blob table.
+     * @param tables     The normalized tables.
+     * @param decoder    The decoder of the blob rows.
+     * @param batchSize  The number of players written in each batch.
+     * @return The number of players copied.
+     * @throws SQLException If there is an error reading or writing the data.
+     */
+    static int migrate(Connection connection, String blobTable, NormalizedPlayerTables tables, RowDecoder decoder, int batchSize) throws SQLException {
+        int migrated = 0;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            try (
+                PreparedStatement statement = connection.prepareStatement("SELECT `uuid`, `data` FROM `" + blobTable + "`");
+                ResultSet rs = statement.executeQuery()
+            ) {
+                Map<UUID, PlayerData> batch = new HashMap<>();
+                while (rs.next()) {
+                    batch.put(UUID.fromString(rs.getString("uuid")), decoder.decode(rs));
+                    if (batch.size() >= batchSize) {
+                        tables.upsert(connection, batch, 0);
+                        migrated += batch.size();
+                        batch.clear();
+                    }
+                }
+                tables.upsert(connection, batch, 0);
+                migrated += batch.size();
+            }
+            connection.commit();
+            return migrated;
+        } catch (Exception e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackException) {
+                e.addSuppressed(rollbackException);
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.storage.method.database.sql;
+
+import net.momirealms.customfishing.api.data.StorageType;
+
+import java.util.StringJoiner;
+
+/**
+ * The SQL dialects that differ in how a row is inserted or updated in one statement.
+ */
+public enum SqlDialect {
+
+    /**
+     * MySQL and MariaDB, using INSERT ... ON DUPLICATE KEY UPDATE.
+     */
+    MYSQL,
+    /**
+     * SQLite, using INSERT ... ON CONFLICT DO UPDATE.
+     */
+    SQLITE,
+    /**
+     * H2, using MERGE INTO ... KEY.
+     */
+    H2;
+
+    /**
+     * Get the dialect used by a storage type.
+     *
+     * @param storageType The storage type.
+     * @return The SQL dialect.
+     */
+    public static SqlDialect of(StorageType storageType) {
+        return switch (storageType) {
+            case MySQL, MariaDB -> MYSQL;
+            case SQLite -> SQLITE;
+            case H2 -> H2;
+            default -> throw new IllegalArgumentException(storageType + " is not a SQL storage type");
+        };
+    }
+
+    /**
+     * Builds a statement that inserts a row or updates the row with the same keys.
+     * The parameters are the key columns followed by the value columns.
+     *
+     * @param table        The name of the table.
+     * @param keyColumns   The columns of the primary key.
+     * @param valueColumns The other columns.
+     * @return The SQL statement.
+     */
+    public String upsert(String table, String[] keyColumns, String[] valueColumns) {
+        StringJoiner columns = new StringJoiner(", ");
+        StringJoiner parameters = new StringJoiner(", ");
+        for (String column : keyColumns) {
+            columns.add("`" + column + "`");
+            parameters.add("?");
+        }
+        for (String column : valueColumns) {
+            columns.add("`" + column + "`");
+            parameters.add("?");
+        }
+        switch (this) {
+            case MYSQL -> {
+                StringJoiner updates = new StringJoiner(", ");
+                for (String column : valueColumns) {
+                    updates.add("`" + column + "` = VALUES(`" + column + "`)");
+                }
+                return "INSERT INTO `" + table + "` (" + columns + ") VALUES (" + parameters + ") ON DUPLICATE KEY UPDATE " + updates;
+            }
+            case SQLITE -> {
+                StringJoiner keys = new StringJoiner(", ");
+                for (String column : keyColumns) {
+                    keys.add("`" + column + "`");
+                }
+                StringJoiner updates = new StringJoiner(", ");
+                for (String column : valueColumns) {
+                    updates.add("`" + column + "` = excluded.`" + column + "`");
+                }
+                return "INSERT INTO `" + table + "` (" + columns + ") VALUES (" + parameters + ") ON CONFLICT (" + keys + ") DO UPDATE SET " + updates;
+            }
+            default -> {
+                StringJoiner keys = new StringJoiner(", ");
+                for (String column : keyColumns) {
+                    keys.add("`" + column + "`");
+                }
+                return "MERGE INTO `" + table + "` (" + columns + ") KEY (" + keys + ") VALUES (" + parameters + ")";
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.storage.method.file;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import net.momirealms.customfishing.api.util.LogUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores one text file per player in a folder.
+ * Files are written by a single background thread, and each write goes to a temporary file
+ * that is synced to disk and then moved over the old one, so a crash never leaves a half-written file.
+ * If a player's data is saved again before the previous save reaches the disk, only the latest content is written.
+ */
+public class FileStore {
+
+    /**
+     * The Gson instance shared by all the file storages.
+     */
+    public static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File folder;
+    private final String extension;
+    private final ExecutorService writer;
+    private final ConcurrentHashMap<UUID, PendingWrite> pendingWrites;
+
+    /**
+     * Creates a file store.
+     *
+     * @param folder    The folder of the files.
+     * @param extension The extension of the files, including the dot.
+     */
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    public FileStore(File folder, String extension) {
+        this.folder = folder;
+        this.extension = extension;
+        this.pendingWrites = new ConcurrentHashMap<>();
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CustomFishing-FileStore");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!folder.exists()) folder.mkdirs();
+    }
+
+    /**
+     * Get the file of a player.
+     *
+     * @param uuid The UUID of the player.
+     * @return The file of the player.
+     */
+    public File getFile(UUID uuid) {
+        return new File(folder, uuid + extension);
+    }
+
+    /**
+     * Reads the content of a player's file. Content that is still waiting to be written is returned
+     * instead of the file on disk.
+     *
+     * @param uuid The UUID of the player.
+     * @return The content, or null if the file doesn't exist or can't be read.
+     */
+    @Nullable
+    public String read(UUID uuid) {
+        PendingWrite pending = pendingWrites.get(uuid);
+        if (pending != null) {
+            return pending.content;
+        }
+        try {
+            return Files.readString(getFile(uuid).toPath(), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LogUtils.warn("Failed to read data file of " + uuid, e);
+            return null;
+        }
+    }
+
+    /**
+     * Checks if a player has a file or content waiting to be written.
+     *
+     * @param uuid The UUID of the player.
+     * @return True if the player has data, false otherwise.
+     */
+    public boolean exists(UUID uuid) {
+        return pendingWrites.containsKey(uuid) || getFile(uuid).exists();
+    }
+
+    /**
+     * Queues the content of a player's file to be written.
+     *
+     * @param uuid    The UUID of the player.
+     * @param content The new content of the file.
+     * @return A CompletableFuture completed with true once the content is on the disk, or false if it failed.
+     */
+    public CompletableFuture<Boolean> write(UUID uuid, String content) {
+        PendingWrite pending = pendingWrites.compute(uuid, (key, previous) -> {
+            // Replace the content of a write that hasn't started yet
+            if (previous != null && !previous.started) {
+                previous.content = content;
+                return previous;
+            }
+            PendingWrite write = new PendingWrite(content);
+            writer.execute(() -> flush(key, write));
+            return write;
+        });
+        return pending.future;
+    }
+
+    /**
+     * Writes all the queued content and stops the writer thread.
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                LogUtils.warn("Timed out when waiting for " + pendingWrites.size() + " data files to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Get the UUIDs of all the players having a file in this store.
+     *
+     * @return A set of UUIDs.
+     */
+    public Set<UUID> getUniqueUsers() {
+        Set<UUID> uuids = parseUUIDs(folder, extension);
+        uuids.addAll(pendingWrites.keySet());
+        return uuids;
+    }
+
+    /**
+     * Get the UUIDs from the names of the files with an extension in a folder.
+     * Files not named after a UUID are ignored.
+     *
+     * @param folder    The folder to look into.
+     * @param extension The extension of the files, including the dot.
+     * @return A set of UUIDs.
+     */
+    public static Set<UUID> parseUUIDs(File folder, String extension) {
+        Set<UUID> uuids = new HashSet<>();
+        File[] files = folder.listFiles();
+        if (files == null) return uuids;
+        for (File file : files) {
+            String name = file.getName();
+            if (!file.isFile() || !name.endsWith(extension)) continue;
+            try {
+                uuids.add(UUID.fromString(name.substring(0, name.length() - extension.length())));
+            } catch (IllegalArgumentException ignored) {
+                // Not a player data file
+            }
+        }
+        return uuids;
+    }
+
+    private void flush(UUID uuid, PendingWrite write) {
+        // Mark the write as started so that newer content would be queued as another write
+        pendingWrites.computeIfPresent(uuid, (key, current) -> {
+            if (current == write) current.started = true;
+            return current;
+        });
+        boolean success;
+        try {
+            writeAtomically(getFile(uuid).toPath(), write.content);
+            success = true;
+        } catch (IOException e) {
+            LogUtils.warn("Failed to save data file of " + uuid, e);
+            success = false;
+        }
+        pendingWrites.remove(uuid, write);
+        write.future.complete(success);
+    }
+
+    private static void writeAtomically(Path target, String content) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static class PendingWrite {
+
+        private final CompletableFuture<Boolean> future;
+        private volatile String content;
+        private volatile boolean started;
+
+        private PendingWrite(String content) {
+            this.content = content;
+            this.future = new CompletableFuture<>();
+        }
+    }
+}
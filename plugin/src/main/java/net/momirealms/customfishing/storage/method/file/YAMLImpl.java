@@ -21,13 +21,12 @@ import net.momirealms.customfishing.api.CustomFishingPlugin;
 import net.momirealms.customfishing.api.data.*;
 import net.momirealms.customfishing.api.util.LogUtils;
 import net.momirealms.customfishing.storage.method.AbstractStorage;
-import net.momirealms.customfishing.util.ConfigUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 
@@ -36,11 +35,16 @@ import java.util.concurrent.CompletableFuture;
  */
 public class YAMLImpl extends AbstractStorage implements LegacyDataStorageInterface {
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
+    private final FileStore fileStore;
+
     public YAMLImpl(CustomFishingPlugin plugin) {
         super(plugin);
-        File folder = new File(plugin.getDataFolder(), "data");
-        if (!folder.exists()) folder.mkdirs();
+        this.fileStore = new FileStore(new File(plugin.getDataFolder(), "data"), ".yml");
+    }
+
+    @Override
+    public void disable() {
+        this.fileStore.close();
     }
 
     @Override
@@ -55,20 +59,25 @@ public class YAMLImpl extends AbstractStorage implements LegacyDataStorageInterf
      * @return The file for the player's data.
      */
     public File getPlayerDataFile(UUID uuid) {
-        return new File(plugin.getDataFolder(), "data" + File.separator + uuid + ".yml");
+        return fileStore.getFile(uuid);
     }
 
     @Override
     public CompletableFuture<Optional<PlayerData>> getPlayerData(UUID uuid, boolean lock) {
-        File dataFile = getPlayerDataFile(uuid);
-        if (!dataFile.exists()) {
+        String content = fileStore.read(uuid);
+        if (content == null) {
             if (Bukkit.getPlayer(uuid) != null) {
                 return CompletableFuture.completedFuture(Optional.of(PlayerData.empty()));
             } else {
                 return CompletableFuture.completedFuture(Optional.empty());
             }
         }
-        YamlConfiguration data = ConfigUtils.readData(dataFile);
+        YamlConfiguration data = new YamlConfiguration();
+        try {
+            data.loadFromString(content);
+        } catch (InvalidConfigurationException e) {
+            LogUtils.warn("Failed to parse data file of " + uuid, e);
+        }
 
         PlayerData playerData = new PlayerData.Builder()
                 .setBagData(new InventoryData(data.getString("bag", ""), data.getInt("size", 9)))
@@ -96,32 +105,15 @@ public class YAMLImpl extends AbstractStorage implements LegacyDataStorageInterf
         for (Map.Entry<String, Float> entry : playerData.getStatistics().sizeMap.entrySet()) {
             sizeSection.set(entry.getKey(), entry.getValue());
         }
-        try {
-            data.save(getPlayerDataFile(uuid));
-        } catch (IOException e) {
-            LogUtils.warn("Failed to save player data", e);
-        }
-        return CompletableFuture.completedFuture(true);
+        return fileStore.write(uuid, data.saveToString());
     }
 
     @Override
     public Set<UUID> getUniqueUsers(boolean legacy) {
-        File folder;
         if (legacy) {
-            folder = new File(plugin.getDataFolder(), "data/fishingbag");
-        } else {
-            folder = new File(plugin.getDataFolder(), "data");
-        }
-        Set<UUID> uuids = new HashSet<>();
-        if (folder.exists()) {
-            File[] files = folder.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    uuids.add(UUID.fromString(file.getName().substring(0, file.getName().length() - 4)));
-                }
-            }
+            return FileStore.parseUUIDs(new File(plugin.getDataFolder(), "data/fishingbag"), ".yml");
         }
-        return uuids;
+        return fileStore.getUniqueUsers();
     }
 
     /**
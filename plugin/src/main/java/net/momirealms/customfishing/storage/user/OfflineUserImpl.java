@@ -19,6 +19,7 @@ package net.momirealms.customfishing.storage.user;
 
 import net.momirealms.customfishing.adventure.AdventureManagerImpl;
 import net.momirealms.customfishing.api.CustomFishingPlugin;
+import net.momirealms.customfishing.api.data.DataSection;
 import net.momirealms.customfishing.api.data.EarningData;
 import net.momirealms.customfishing.api.data.InventoryData;
 import net.momirealms.customfishing.api.data.PlayerData;
@@ -27,12 +28,17 @@ import net.momirealms.customfishing.api.data.user.OfflineUser;
 import net.momirealms.customfishing.api.mechanic.bag.FishingBagHolder;
 import net.momirealms.customfishing.api.mechanic.statistic.Statistics;
 import net.momirealms.customfishing.api.util.InventoryUtils;
+import net.momirealms.customfishing.api.util.LogUtils;
 import net.momirealms.customfishing.compatibility.papi.PlaceholderManagerImpl;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -46,6 +52,16 @@ public class OfflineUserImpl implements OfflineUser {
     private final FishingBagHolder holder;
     private final EarningData earningData;
     private final Statistics statistics;
+    // The bag contents that were last encoded, used for skipping the Base64 encoding if nothing changed
+    private ItemStack[] savedBagContents;
+    // The encoded bytes of each slot in savedBagContents, so that unchanged slots are not serialized again
+    private byte[][] savedSlotBytes;
+    private InventoryData savedBagData;
+    // The bag data that was last confirmed to be written to the storage
+    private InventoryData persistedBagData;
+    private volatile boolean nameDirty;
+    // The versions of each section included in the latest snapshot that hasn't been confirmed yet
+    private SaveSnapshot pendingSave;
     public static OfflineUserImpl LOCKED_USER = new OfflineUserImpl(UUID.randomUUID(), "-locked-", PlayerData.empty());
 
     /**
@@ -69,8 +85,24 @@ public class OfflineUserImpl implements OfflineUser {
                                 Map.of("{player}", Optional.ofNullable(offlinePlayer.getName()).orElse(String.valueOf(uuid)))
                         )
                 )));
-        this.holder.setItems(InventoryUtils.getInventoryItems(playerData.getBagData().serialized));
+        String serialized = playerData.getBagData().serialized;
+        byte[][] slots = InventoryUtils.stringToSlots(serialized);
+        ItemStack[] items = slots != null ? InventoryUtils.getInventoryItems(slots) : InventoryUtils.getInventoryItems(serialized);
+        if (items != null) {
+            this.holder.setItems(items);
+            // The bytes can only be reused if they match what's in the bag
+            this.savedSlotBytes = slots;
+        } else {
+            // An empty bag would be saved over the stored one, so the bag stays unavailable and the stored data is kept as is
+            this.holder.setLoaded(false);
+            LogUtils.severe("Failed to read the fishing bag of " + uuid + ". The bag won't be available until its data can be read.");
+        }
+        this.savedBagContents = cloneContents(holder.getInventory().getStorageContents());
+        this.savedBagData = playerData.getBagData();
+        this.persistedBagData = savedBagData;
+        this.nameDirty = !Objects.equals(name, playerData.getName());
         this.earningData = playerData.getEarningData();
+        this.earningData.markClean();
         int date = CustomFishingPlugin.get().getMarketManager().getDate();
         if (earningData.date != date) {
             earningData.date = date;
@@ -111,13 +143,103 @@ public class OfflineUserImpl implements OfflineUser {
     }
 
     @Override
-    public PlayerData getPlayerData() {
-        // Create a new PlayerData instance based on the stored information
-        return new PlayerData.Builder()
-                .setBagData(new InventoryData(InventoryUtils.stacksToBase64(holder.getInventory().getStorageContents()), holder.getInventory().getSize()))
-                .setEarningData(earningData)
-                .setStats(new StatisticData(statistics.getStatisticMap(), statistics.getSizeMap()))
+    public synchronized PlayerData getPlayerData() {
+        // Read the version first, so that changes made while copying keep the statistics dirty
+        long statisticsVersion = statistics.getVersion();
+        EarningData earnings = new EarningData(earningData.earnings, earningData.date);
+        InventoryData bagData = getBagData();
+        // Create a new PlayerData instance based on a copy of the stored information
+        PlayerData playerData = new PlayerData.Builder()
+                .setBagData(bagData)
+                .setEarningData(earnings)
+                .setStats(new StatisticData(new HashMap<>(statistics.getStatisticMap()), new HashMap<>(statistics.getSizeMap())))
                 .setName(name)
                 .build();
+        // The data is only marked clean once the storage confirms the write
+        pendingSave = new SaveSnapshot(playerData, statisticsVersion, earnings, bagData);
+        return playerData;
+    }
+
+    @Override
+    public synchronized void onDataSaved(PlayerData playerData) {
+        // An older snapshot is a subset of the pending one, which keeps the data dirty until it's written
+        SaveSnapshot snapshot = pendingSave;
+        if (snapshot == null || snapshot.playerData() != playerData) return;
+        pendingSave = null;
+        statistics.markClean(snapshot.statisticsVersion());
+        earningData.markClean(snapshot.earnings().earnings, snapshot.earnings().date);
+        persistedBagData = snapshot.bagData();
+        nameDirty = false;
+    }
+
+    /**
+     * Check if a section of the data has been modified since it was last saved
+     *
+     * @param section data section
+     * @return dirty or not
+     */
+    public boolean isDirty(DataSection section) {
+        return switch (section) {
+            case STATISTICS -> statistics.isDirty();
+            case EARNINGS -> earningData.isDirty();
+            case NAME -> nameDirty;
+            case BAG -> isBagDirty();
+        };
+    }
+
+    /**
+     * Check if any section of the data has been modified since it was last saved
+     *
+     * @return dirty or not
+     */
+    public boolean isDirty() {
+        return nameDirty || statistics.isDirty() || earningData.isDirty() || isBagDirty();
+    }
+
+    private synchronized boolean isBagDirty() {
+        if (!holder.isLoaded()) return false;
+        ItemStack[] contents = holder.getInventory().getStorageContents();
+        return savedBagData != persistedBagData || contents.length != savedBagData.size || !Arrays.equals(contents, savedBagContents);
+    }
+
+    private synchronized InventoryData getBagData() {
+        // The stored data couldn't be read, so write it back untouched
+        if (!holder.isLoaded()) return savedBagData;
+        ItemStack[] contents = holder.getInventory().getStorageContents();
+        // Only encode the bag again if it has been changed since the last save
+        if (contents.length != savedBagData.size || !Arrays.equals(contents, savedBagContents)) {
+            savedBagData = new InventoryData(encodeContents(contents), holder.getInventory().getSize());
+            savedBagContents = cloneContents(contents);
+        }
+        return savedBagData;
+    }
+
+    private String encodeContents(ItemStack[] contents) {
+        if (!InventoryUtils.canSerializeAsBytes()) {
+            savedSlotBytes = null;
+            return InventoryUtils.stacksToBase64(contents);
+        }
+        byte[][] slots = new byte[contents.length][];
+        for (int i = 0; i < contents.length; i++) {
+            // Reuse the bytes of the slots that are still the same as when the bag was last saved
+            if (savedSlotBytes != null && i < savedSlotBytes.length && i < savedBagContents.length && Objects.equals(contents[i], savedBagContents[i])) {
+                slots[i] = savedSlotBytes[i];
+            } else {
+                slots[i] = InventoryUtils.stackToBytes(contents[i]);
+            }
+        }
+        savedSlotBytes = slots;
+        return InventoryUtils.slotsToString(slots);
+    }
+
+    private static ItemStack[] cloneContents(ItemStack[] contents) {
+        ItemStack[] copy = new ItemStack[contents.length];
+        for (int i = 0; i < contents.length; i++) {
+            copy[i] = contents[i] == null ? null : contents[i].clone();
+        }
+        return copy;
+    }
+
+    private record SaveSnapshot(PlayerData playerData, long statisticsVersion, EarningData earnings, InventoryData bagData) {
     }
 }
@@ -25,6 +25,7 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.serializer.gson.GsonComponentSerializer;
 import net.momirealms.customfishing.CustomFishingPluginImpl;
 import net.momirealms.customfishing.api.CustomFishingPlugin;
+import net.momirealms.customfishing.api.scheduler.TaskKind;
 import org.bukkit.Location;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
@@ -186,7 +187,7 @@ public class ArmorStandUtils {
         CustomFishingPluginImpl.getProtocolManager().sendServerPacket(player, getSpawnPacket(id, location.clone().subtract(0,1,0)));
         CustomFishingPluginImpl.getProtocolManager().sendServerPacket(player, getMetaPacket(id));
         CustomFishingPluginImpl.getProtocolManager().sendServerPacket(player, getEquipPacket(id, itemStack));
-        CustomFishingPlugin.get().getScheduler().runTaskAsyncLater(() -> CustomFishingPluginImpl.getProtocolManager().sendServerPacket(player, getDestroyPacket(id)), seconds * 50L, TimeUnit.MILLISECONDS);
+        CustomFishingPlugin.get().getScheduler().runTaskAsyncLater(TaskKind.COSMETIC, () -> CustomFishingPluginImpl.getProtocolManager().sendServerPacket(player, getDestroyPacket(id)), seconds * 50L, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -201,6 +202,6 @@ public class ArmorStandUtils {
         int id = new Random().nextInt(Integer.MAX_VALUE);
         CustomFishingPluginImpl.getProtocolManager().sendServerPacket(player, getSpawnPacket(id, location.clone().subtract(0,1,0)));
         CustomFishingPluginImpl.getProtocolManager().sendServerPacket(player, getMetaPacket(id, component));
-        CustomFishingPlugin.get().getScheduler().runTaskAsyncLater(() -> CustomFishingPluginImpl.getProtocolManager().sendServerPacket(player, getDestroyPacket(id)), seconds * 50L, TimeUnit.MILLISECONDS);
+        CustomFishingPlugin.get().getScheduler().runTaskAsyncLater(TaskKind.COSMETIC, () -> CustomFishingPluginImpl.getProtocolManager().sendServerPacket(player, getDestroyPacket(id)), seconds * 50L, TimeUnit.MILLISECONDS);
     }
 }
\ No newline at end of file
@@ -22,10 +22,9 @@ import net.momirealms.customfishing.api.common.Tuple;
 import net.momirealms.customfishing.api.mechanic.loot.WeightModifier;
 import net.momirealms.customfishing.api.mechanic.misc.Value;
 import net.momirealms.customfishing.api.util.LogUtils;
-import net.momirealms.customfishing.compatibility.papi.PlaceholderManagerImpl;
+import net.momirealms.customfishing.mechanic.loot.ArithmeticWeightModifier;
 import net.momirealms.customfishing.mechanic.misc.value.ExpressionValue;
 import net.momirealms.customfishing.mechanic.misc.value.PlainValue;
-import net.objecthunter.exp4j.ExpressionBuilder;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
@@ -301,37 +300,19 @@ public class ConfigUtils {
             throw new IllegalArgumentException("Weight format is invalid.");
         }
         switch (text.charAt(0)) {
-            case '/' -> {
-                double arg = Double.parseDouble(text.substring(1));
-                return (player, weight) -> weight / arg;
-            }
-            case '*' -> {
-                double arg = Double.parseDouble(text.substring(1));
-                return (player, weight) -> weight * arg;
-            }
-            case '-' -> {
-                double arg = Double.parseDouble(text.substring(1));
-                return (player, weight) -> weight - arg;
-            }
-            case '%' -> {
-                double arg = Double.parseDouble(text.substring(1));
-                return (player, weight) -> weight % arg;
-            }
-            case '+' -> {
-                double arg = Double.parseDouble(text.substring(1));
-                return (player, weight) -> weight + arg;
+            case '/', '*', '-', '%', '+' -> {
+                return new ArithmeticWeightModifier(text.charAt(0), Double.parseDouble(text.substring(1)));
             }
             case '=' -> {
-                String formula = text.substring(1);
-                return (player, weight) -> getExpressionValue(player, formula, Map.of("{0}", String.valueOf(weight)));
+                ExpressionCompiler.CompiledExpression expression = ExpressionCompiler.compile(text.substring(1));
+                return (player, weight) -> expression.evaluate(player, Map.of("{0}", String.valueOf(weight)));
             }
             default -> throw new IllegalArgumentException("Invalid weight: " + text);
         }
     }
 
     public static double getExpressionValue(Player player, String formula, Map<String, String> vars) {
-        formula = PlaceholderManagerImpl.getInstance().parse(player, formula, vars);
-        return new ExpressionBuilder(formula).build().evaluate();
+        return ExpressionCompiler.compile(formula).evaluate(player, vars);
     }
 
     public static ArrayList<String> getReadableSection(Map<String, Object> map) {
@@ -0,0 +1,202 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.util;
+
+import net.momirealms.customfishing.compatibility.papi.PlaceholderManagerImpl;
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A service that parses exp4j formulas only once.
+ * Every {placeholder} in a formula is declared as an exp4j variable, so evaluating the formula
+ * only binds the values of the placeholders instead of building the expression from text again.
+ */
+public class ExpressionCompiler {
+
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{[^{}]+}");
+    private static final String VARIABLE_PREFIX = "cf_var_";
+    private static final int MAX_CACHE_SIZE = 4096;
+    private static final ConcurrentHashMap<String, CompiledExpression> CACHE = new ConcurrentHashMap<>();
+
+    private ExpressionCompiler() {
+    }
+
+    /**
+     * Get the compiled form of a formula.
+     *
+     * @param formula   The formula.
+     * @param variables The names of the plain variables used in the formula besides placeholders.
+     * @return A cached or newly compiled expression.
+     */
+    public static CompiledExpression compile(String formula, String... variables) {
+        String key = variables.length == 0 ? formula : formula + '\0' + String.join(",", variables);
+        CompiledExpression expression = CACHE.get(key);
+        if (expression != null) return expression;
+        expression = new CompiledExpression(formula, variables);
+        // Formulas from actions might be built with dynamic text, so keep the cache bounded
+        if (CACHE.size() >= MAX_CACHE_SIZE) CACHE.clear();
+        CACHE.put(key, expression);
+        return expression;
+    }
+
+    /**
+     * Clear all the compiled expressions.
+     */
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    public static class CompiledExpression {
+
+        private final String formula;
+        private final String[] placeholders;
+        private final String[] variables;
+        // Null if the formula can only be evaluated after placeholders are replaced in the text
+        private final Expression template;
+        private final ThreadLocal<Expression> localExpression;
+
+        private CompiledExpression(String formula, String[] variables) {
+            this.formula = formula;
+            this.variables = variables;
+
+            LinkedHashMap<String, String> placeholderVariables = new LinkedHashMap<>();
+            StringBuilder builder = new StringBuilder();
+            Matcher matcher = PLACEHOLDER_PATTERN.matcher(formula);
+            boolean compilable = true;
+            int last = 0;
+            while (matcher.find()) {
+                // A placeholder might be a part of a number or a name like "1{digit}"
+                if (isJoined(formula, matcher.start() - 1) || isJoined(formula, matcher.end())) {
+                    compilable = false;
+                    break;
+                }
+                String variable = placeholderVariables.computeIfAbsent(matcher.group(), k -> VARIABLE_PREFIX + placeholderVariables.size());
+                builder.append(formula, last, matcher.start()).append(variable);
+                last = matcher.end();
+            }
+            builder.append(formula, last, formula.length());
+            this.placeholders = placeholderVariables.keySet().toArray(new String[0]);
+
+            Expression expression = null;
+            if (compilable) {
+                try {
+                    expression = new ExpressionBuilder(builder.toString())
+                            .variables(placeholderVariables.values().toArray(new String[0]))
+                            .variables(variables)
+                            .build();
+                } catch (IllegalArgumentException ignored) {
+                    // Placeholders might be parts of the syntax, which is only known after they are replaced
+                }
+            }
+            this.template = expression;
+            this.localExpression = expression == null ? null : ThreadLocal.withInitial(() -> new Expression(this.template));
+        }
+
+        private static boolean isJoined(String formula, int index) {
+            if (index < 0 || index >= formula.length()) return false;
+            char c = formula.charAt(index);
+            return Character.isLetterOrDigit(c) || c == '.' || c == '_';
+        }
+
+        /**
+         * Evaluate a formula that only has plain variables.
+         *
+         * @param values The values of the variables in the order they were declared.
+         * @return The result.
+         */
+        public double evaluate(double... values) {
+            if (template == null || placeholders.length != 0) {
+                throw new IllegalStateException("Formula " + formula + " can't be evaluated without placeholders");
+            }
+            Expression expression = localExpression.get();
+            for (int i = 0; i < variables.length; i++) {
+                expression.setVariable(variables[i], values[i]);
+            }
+            return expression.evaluate();
+        }
+
+        /**
+         * Evaluate the formula with placeholders.
+         *
+         * @param player The player for whom the placeholders are being resolved (nullable).
+         * @param vars   A map of placeholders to their corresponding values.
+         * @return The result.
+         */
+        public double evaluate(@Nullable OfflinePlayer player, Map<String, String> vars) {
+            return evaluate(player, vars, null);
+        }
+
+        /**
+         * Evaluate the formula with placeholders.
+         *
+         * @param player       The player for whom the placeholders are being resolved (nullable).
+         * @param vars         A map of placeholders to their corresponding values.
+         * @param defaultValue The value of the placeholders that can't be resolved, or null to keep them as they are.
+         * @return The result.
+         */
+        public double evaluate(@Nullable OfflinePlayer player, Map<String, String> vars, @Nullable Double defaultValue) {
+            if (template != null && variables.length == 0) {
+                Expression expression = localExpression.get();
+                PlaceholderManagerImpl placeholderManager = PlaceholderManagerImpl.getInstance();
+                boolean bound = true;
+                for (int i = 0; i < placeholders.length; i++) {
+                    String value = placeholderManager.resolvePlaceholder(player, placeholders[i], vars);
+                    double number;
+                    if (value == null) {
+                        if (defaultValue == null) {
+                            bound = false;
+                            break;
+                        }
+                        number = defaultValue;
+                    } else {
+                        try {
+                            number = Double.parseDouble(value);
+                        } catch (NumberFormatException e) {
+                            bound = false;
+                            break;
+                        }
+                    }
+                    expression.setVariable(VARIABLE_PREFIX + i, number);
+                }
+                if (bound) {
+                    return expression.evaluate();
+                }
+            }
+            return evaluateText(player, vars, defaultValue);
+        }
+
+        // Values that are not numbers, for example nested formulas, still have to be put into the text
+        private double evaluateText(@Nullable OfflinePlayer player, Map<String, String> vars, @Nullable Double defaultValue) {
+            String text = PlaceholderManagerImpl.getInstance().parse(player, formula, vars);
+            if (defaultValue != null) {
+                for (String placeholder : PlaceholderManagerImpl.getInstance().detectPlaceholders(text)) {
+                    text = text.replace(placeholder, String.valueOf(defaultValue));
+                }
+            }
+            return new ExpressionBuilder(text).build().evaluate();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+SET DEFAULT_STORAGE_ENGINE = INNODB;
+
+CREATE TABLE IF NOT EXISTS `{prefix}_player`
+(
+    `uuid`       char(36)     NOT NULL,
+    `lock`       INT          NOT NULL,
+    `name`       varchar(32),
+    PRIMARY KEY (`uuid`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS `{prefix}_bag`
+(
+    `uuid`       char(36)     NOT NULL,
+    `size`       INT          NOT NULL,
+    `contents`   longtext     NOT NULL,
+    PRIMARY KEY (`uuid`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS `{prefix}_earnings`
+(
+    `uuid`       char(36)     NOT NULL,
+    `earnings`   DOUBLE       NOT NULL,
+    `date`       INT          NOT NULL,
+    PRIMARY KEY (`uuid`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS `{prefix}_statistics`
+(
+    `uuid`       char(36)     NOT NULL,
+    `loot`       varchar(128) NOT NULL,
+    `amount`     INT,
+    `max_size`   REAL,
+    PRIMARY KEY (`uuid`, `loot`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci;
\ No newline at end of file
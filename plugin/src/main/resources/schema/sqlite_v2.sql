@@ -0,0 +1,32 @@
+CREATE TABLE IF NOT EXISTS `{prefix}_player`
+(
+    `uuid`       char(36)     NOT NULL,
+    `lock`       INT          NOT NULL,
+    `name`       varchar(32),
+    PRIMARY KEY (`uuid`)
+);
+
+CREATE TABLE IF NOT EXISTS `{prefix}_bag`
+(
+    `uuid`       char(36)     NOT NULL,
+    `size`       INT          NOT NULL,
+    `contents`   text         NOT NULL,
+    PRIMARY KEY (`uuid`)
+);
+
+CREATE TABLE IF NOT EXISTS `{prefix}_earnings`
+(
+    `uuid`       char(36)     NOT NULL,
+    `earnings`   DOUBLE       NOT NULL,
+    `date`       INT          NOT NULL,
+    PRIMARY KEY (`uuid`)
+);
+
+CREATE TABLE IF NOT EXISTS `{prefix}_statistics`
+(
+    `uuid`       char(36)     NOT NULL,
+    `loot`       varchar(128) NOT NULL,
+    `amount`     INT,
+    `max_size`   REAL,
+    PRIMARY KEY (`uuid`, `loot`)
+);
\ No newline at end of file
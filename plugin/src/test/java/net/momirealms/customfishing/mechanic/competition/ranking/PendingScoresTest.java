@@ -0,0 +1,98 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.competition.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PendingScoresTest {
+
+    @Test
+    void incrementOutsideSnapshotAddsToStoredScore() {
+        PendingScores scores = new PendingScores();
+        // The player is not in the truncated snapshot, so the base is unknown
+        scores.increment("steve", 5, null);
+        scores.increment("steve", 2, null);
+
+        PendingScores.Entry entry = scores.get("steve");
+        assertNotNull(entry);
+        assertFalse(entry.isBaseKnown());
+        assertEquals(107, entry.score(100d));
+        assertEquals(7, entry.score(null));
+    }
+
+    @Test
+    void incrementInsideSnapshotAddsToSnapshotScore() {
+        PendingScores scores = new PendingScores();
+        scores.increment("alex", 3, 40d);
+
+        PendingScores.Entry entry = scores.get("alex");
+        assertNotNull(entry);
+        assertTrue(entry.isBaseKnown());
+        assertEquals(43, entry.score(999d));
+    }
+
+    @Test
+    void setReplacesPendingIncrements() {
+        PendingScores scores = new PendingScores();
+        scores.increment("steve", 5, null);
+        scores.set("steve", 20);
+        scores.increment("steve", 1, null);
+
+        assertEquals(21, scores.get("steve").score(100d));
+    }
+
+    @Test
+    void confirmKeepsLaterWritesPending() {
+        PendingScores scores = new PendingScores();
+        long first = scores.increment("steve", 5, null);
+        // Queued while the first write is being flushed
+        scores.increment("steve", 2, null);
+
+        scores.confirm("steve", 105, first);
+        PendingScores.Entry entry = scores.get("steve");
+        assertFalse(entry.isBaseKnown());
+        assertEquals(107, entry.score(105d));
+
+        long second = entry.sequence();
+        scores.confirm("steve", 107, second);
+        entry = scores.get("steve");
+        assertTrue(entry.isBaseKnown());
+        assertEquals(107, entry.score(null));
+    }
+
+    @Test
+    void removeIncludedOnlyRemovesFlushedEntries() {
+        PendingScores scores = new PendingScores();
+        long flushed = scores.increment("steve", 1, 0d);
+        scores.increment("alex", 1, 0d);
+
+        scores.removeIncluded(flushed);
+        assertNull(scores.get("steve"));
+        assertNotNull(scores.get("alex"));
+        assertEquals(1, scores.players().size());
+    }
+
+    @Test
+    void snapshotEndKeepsLastPlayer() {
+        assertEquals(-1, RedisRankingImpl.getSnapshotEnd(-1));
+        assertEquals(999, RedisRankingImpl.getSnapshotEnd(1000));
+        assertEquals(0, RedisRankingImpl.getSnapshotEnd(1));
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.mechanic.competition.ranking;
+
+import net.momirealms.customfishing.setting.CFConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.resps.Tuple;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisRankingImplTest {
+
+    private static final String KEY = "cf_competition_test";
+
+    private MemoryRanking redis;
+    private RedisRankingImpl ranking;
+
+    @BeforeEach
+    void setUp() {
+        CFConfig.redisRankingRefreshInterval = 0;
+        CFConfig.redisRankingSnapshotSize = 1000;
+        redis = new MemoryRanking();
+        ranking = new RedisRankingImpl(redis, KEY, Logger.getLogger("RedisRankingImplTest"));
+    }
+
+    @Test
+    void writesAreSentWithTheRefresh() {
+        ranking.refreshData("steve", 5);
+        ranking.refreshData("steve", 2);
+        ranking.setData("alex", 10);
+        // Pending scores are served before they are sent
+        assertEquals(7, ranking.getPlayerScore("steve"));
+        assertTrue(redis.scores.isEmpty());
+
+        ranking.sync(false);
+
+        assertEquals(Map.of("steve", 7d, "alex", 10d), redis.scores);
+        assertEquals("alex", ranking.getPlayerAt(1));
+        assertEquals(7, ranking.getScoreAt(2));
+        assertEquals(2, ranking.getPlayerRank("steve"));
+        assertEquals(2, ranking.getSize());
+    }
+
+    @Test
+    void lostResponseDoesNotCountTwice() {
+        ranking.refreshData("steve", 5);
+        // Redis applies the writes, but the response never arrives
+        redis.failAfterApply = true;
+        ranking.sync(false);
+        assertEquals(5, redis.scores.get("steve"));
+
+        ranking.sync(false);
+
+        assertEquals(5, redis.scores.get("steve"));
+        assertEquals(5, ranking.getPlayerScore("steve"));
+    }
+
+    @Test
+    void retriedWritesKeepTheirOrder() {
+        ranking.refreshData("steve", 5);
+        redis.failBeforeApply = true;
+        ranking.sync(false);
+        assertTrue(redis.scores.isEmpty());
+
+        ranking.setData("steve", 1);
+        ranking.sync(false);
+
+        assertEquals(1, redis.scores.get("steve"));
+        assertEquals(1, ranking.getPlayerScore("steve"));
+    }
+
+    @Test
+    void removeAndClearAreSentWithTheNextSync() {
+        ranking.setData("steve", 5);
+        ranking.setData("alex", 3);
+        ranking.sync(false);
+
+        ranking.removePlayer("steve");
+        assertTrue(redis.scores.containsKey("steve"));
+        ranking.sync(false);
+        assertEquals(Map.of("alex", 3d), redis.scores);
+        assertEquals("alex", ranking.getPlayerAt(1));
+
+        ranking.clear();
+        assertEquals(0, ranking.getSize());
+        assertFalse(redis.scores.isEmpty());
+        ranking.sync(false);
+        assertTrue(redis.scores.isEmpty());
+    }
+
+    @Test
+    void playersOutsideTheSnapshotAreReadFromRedis() {
+        CFConfig.redisRankingSnapshotSize = 1;
+        // Written by other servers
+        redis.scores.put("alex", 10d);
+        redis.scores.put("steve", 4d);
+        ranking.sync(true);
+        assertEquals("alex", ranking.getPlayerAt(1));
+        assertNull(ranking.getPlayerAt(2));
+
+        assertEquals(4, ranking.getPlayerScore("steve"));
+        assertEquals(2, ranking.getPlayerRank("steve"));
+
+        // The increment is added to the stored score, which the snapshot doesn't tell
+        ranking.refreshData("steve", 3);
+        assertEquals(7, ranking.getPlayerScore("steve"));
+        ranking.sync(false);
+        assertEquals(7, redis.scores.get("steve"));
+    }
+
+    @Test
+    void failedRefreshIsNotRetriedOnEveryTick() {
+        CFConfig.redisRankingRefreshInterval = 60_000;
+        redis.failBeforeApply = true;
+        ranking.sync(true);
+        int calls = redis.syncCalls;
+
+        ranking.sync(false);
+
+        assertEquals(calls, redis.syncCalls);
+    }
+
+    /**
+     * Keeps a sorted set in memory, applying batches at most once the way the Redis script does.
+     */
+    private static class MemoryRanking implements RankingClient {
+
+        private final Map<String, Double> scores = new HashMap<>();
+        private final Set<String> appliedBatches = new HashSet<>();
+        private boolean failBeforeApply;
+        private boolean failAfterApply;
+        private int syncCalls;
+
+        @Override
+        public SyncResult sync(String key, List<WriteBatch> batches, Long refreshEnd) {
+            syncCalls++;
+            if (failBeforeApply) {
+                failBeforeApply = false;
+                throw new IllegalStateException("Connection refused");
+            }
+            List<List<Double>> results = new ArrayList<>();
+            for (WriteBatch batch : batches) {
+                List<Double> batchScores = new ArrayList<>();
+                boolean applied = !appliedBatches.add(batch.id());
+                for (Write write : batch.writes()) {
+                    if (!applied) {
+                        switch (write.operation()) {
+                            case INCREMENT -> scores.merge(write.player(), write.score(), Double::sum);
+                            case SET -> scores.put(write.player(), write.score());
+                            case REMOVE -> scores.remove(write.player());
+                            case CLEAR -> scores.clear();
+                        }
+                    }
+                    batchScores.add(scores.get(write.player()));
+                }
+                results.add(batchScores);
+            }
+            if (failAfterApply) {
+                failAfterApply = false;
+                throw new IllegalStateException("Read timed out");
+            }
+            List<Tuple> top = null;
+            if (refreshEnd != null) {
+                top = all(key);
+                if (refreshEnd >= 0 && top.size() > refreshEnd + 1) {
+                    top = top.subList(0, (int) (refreshEnd + 1));
+                }
+            }
+            return new SyncResult(results, top, scores.size());
+        }
+
+        @Override
+        public Double score(String key, String player) {
+            return scores.get(player);
+        }
+
+        @Override
+        public Long rank(String key, String player) {
+            List<Tuple> all = all(key);
+            for (int i = 0; i < all.size(); i++) {
+                if (all.get(i).getElement().equals(player)) return (long) i;
+            }
+            return null;
+        }
+
+        @Override
+        public List<Tuple> all(String key) {
+            List<Tuple> tuples = new ArrayList<>();
+            scores.forEach((player, score) -> tuples.add(new Tuple(player, score)));
+            tuples.sort(Comparator.comparingDouble(Tuple::getScore).reversed());
+            return tuples;
+        }
+    }
+}
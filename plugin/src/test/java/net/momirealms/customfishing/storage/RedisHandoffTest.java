@@ -0,0 +1,183 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.storage;
+
+import net.momirealms.customfishing.api.data.PlayerData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisHandoffTest {
+
+    private static final long GRACE_MILLIS = 100;
+    private static final long TIMEOUT_MILLIS = 1000;
+
+    private final UUID uuid = UUID.randomUUID();
+    private MemoryRedis redis;
+    private RedisHandoff handoff;
+
+    @BeforeEach
+    void setUp() {
+        redis = new MemoryRedis();
+        handoff = new RedisHandoff(redis, GRACE_MILLIS, TIMEOUT_MILLIS);
+    }
+
+    private static Optional<PlayerData> await(CompletableFuture<Optional<PlayerData>> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void dataSavedBeforeJoinIsLoadedAtOnce() throws Exception {
+        redis.quit(uuid, 0, true);
+        Thread.sleep(20);
+
+        assertTrue(await(handoff.load(uuid)).isPresent());
+        assertEquals(0, redis.changeServerReads.get());
+        assertTrue(redis.waiters.isEmpty());
+    }
+
+    @Test
+    void quitAfterJoinIsWaitedFor() throws Exception {
+        // The player joins this server before the previous server handles the quit
+        CompletableFuture<Optional<PlayerData>> future = handoff.load(uuid);
+        redis.quit(uuid, 20, true);
+
+        assertTrue(await(future).isPresent());
+        // The notification arrived within the grace period
+        assertEquals(0, redis.changeServerReads.get());
+        assertTrue(redis.waiters.isEmpty());
+    }
+
+    @Test
+    void slowSaveIsWaitedForOnceStarted() throws Exception {
+        CompletableFuture<Optional<PlayerData>> future = handoff.load(uuid);
+        redis.quit(uuid, GRACE_MILLIS * 3, true);
+
+        assertTrue(await(future).isPresent());
+        assertEquals(1, redis.changeServerReads.get());
+        assertTrue(redis.waiters.isEmpty());
+    }
+
+    @Test
+    void saveWithoutNotificationIsFoundAfterTimeout() throws Exception {
+        // Servers running older versions don't send notifications
+        CompletableFuture<Optional<PlayerData>> future = handoff.load(uuid);
+        redis.quit(uuid, GRACE_MILLIS * 3, false);
+
+        assertTrue(await(future).isPresent());
+        assertTrue(redis.waiters.isEmpty());
+    }
+
+    @Test
+    void noHandoffFallsBackAfterGrace() throws Exception {
+        long start = System.nanoTime();
+        assertTrue(await(handoff.load(uuid)).isEmpty());
+
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS));
+        assertEquals(1, redis.changeServerReads.get());
+        assertTrue(redis.waiters.isEmpty());
+    }
+
+    @Test
+    void failedCheckCancelsTheWait() {
+        redis.failChangeServer = true;
+        CompletableFuture<Optional<PlayerData>> future = handoff.load(uuid);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> await(future));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertTrue(redis.waiters.isEmpty());
+    }
+
+    @Test
+    void rejoinReplacesThePreviousWait() throws Exception {
+        CompletableFuture<Optional<PlayerData>> first = handoff.load(uuid);
+        CompletableFuture<Optional<PlayerData>> second = handoff.load(uuid);
+        redis.quit(uuid, 20, true);
+
+        // The data is only loaded once
+        Optional<PlayerData> firstData = await(first);
+        Optional<PlayerData> secondData = await(second);
+        assertNotEquals(firstData.isPresent(), secondData.isPresent());
+        assertTrue(redis.waiters.isEmpty());
+    }
+
+    /**
+     * Keeps the handoff keys in memory, and plays the previous server the way RedisManager does.
+     */
+    private static class MemoryRedis implements RedisHandoff.Source {
+
+        private final Map<UUID, PlayerData> data = new ConcurrentHashMap<>();
+        private final Set<UUID> changeServer = ConcurrentHashMap.newKeySet();
+        private final Map<UUID, CompletableFuture<Boolean>> waiters = new ConcurrentHashMap<>();
+        private final AtomicInteger changeServerReads = new AtomicInteger();
+        private volatile boolean failChangeServer;
+
+        /**
+         * Handles a quit on the previous server, which sets the flag at once and then saves the data.
+         *
+         * @param saveMillis The time it takes to save the data.
+         * @param notify     Whether the previous server sends a notification.
+         */
+        private void quit(UUID uuid, long saveMillis, boolean notify) {
+            changeServer.add(uuid);
+            CompletableFuture.runAsync(() -> {
+                data.put(uuid, PlayerData.builder().setName("steve").build());
+                if (notify) {
+                    CompletableFuture<Boolean> future = waiters.remove(uuid);
+                    if (future != null) future.complete(true);
+                }
+            }, CompletableFuture.delayedExecutor(saveMillis, TimeUnit.MILLISECONDS));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> awaitHandoff(UUID uuid) {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            CompletableFuture<Boolean> previous = waiters.put(uuid, future);
+            if (previous != null) previous.complete(false);
+            return future;
+        }
+
+        @Override
+        public void cancelHandoff(UUID uuid, CompletableFuture<Boolean> future) {
+            waiters.remove(uuid, future);
+            future.complete(false);
+        }
+
+        @Override
+        public CompletableFuture<Optional<PlayerData>> getPlayerData(UUID uuid) {
+            return CompletableFuture.supplyAsync(() -> Optional.ofNullable(data.remove(uuid)));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> getChangeServer(UUID uuid) {
+            changeServerReads.incrementAndGet();
+            if (failChangeServer) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Connection lost"));
+            }
+            return CompletableFuture.supplyAsync(() -> changeServer.remove(uuid));
+        }
+    }
+}
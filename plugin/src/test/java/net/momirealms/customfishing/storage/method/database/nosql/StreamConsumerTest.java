@@ -0,0 +1,332 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.storage.method.database.nosql;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamConsumerTest {
+
+    private static final String STREAM = "customfishing";
+    private static final String GROUP = "customfishing:server1";
+
+    private MemoryStream redis;
+    private List<String> received;
+    private StreamConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        redis = new MemoryStream();
+        received = new ArrayList<>();
+        consumer = newConsumer(entry -> received.add(entry.getFields().get("payload")));
+    }
+
+    private StreamConsumer newConsumer(Consumer<StreamEntry> handler) {
+        return new StreamConsumer(STREAM, GROUP, "server1", 16, 60_000, 3_600_000, handler, Logger.getLogger("StreamConsumerTest"));
+    }
+
+    @Test
+    void newGroupStartsAtTheEndOfTheStream() {
+        redis.add("before");
+        consumer.poll(redis);
+        redis.add("after");
+        consumer.poll(redis);
+
+        assertEquals(List.of("after"), received);
+    }
+
+    @Test
+    void everyEntryIsDeliveredOnceAndAcknowledged() {
+        consumer.poll(redis);
+        redis.add("a");
+        redis.add("b");
+        consumer.poll(redis);
+        redis.add("c");
+        consumer.poll(redis);
+        consumer.poll(redis);
+
+        assertEquals(List.of("a", "b", "c"), received);
+        assertTrue(redis.pending(GROUP).isEmpty());
+    }
+
+    @Test
+    void pendingEntriesAreReadFirstAfterRestart() {
+        consumer.poll(redis);
+        redis.add("a");
+        redis.failNextAck = true;
+        assertThrows(RuntimeException.class, () -> consumer.poll(redis));
+
+        // A new consumer starts recovering, as a restarted server would
+        List<String> again = new ArrayList<>();
+        StreamConsumer restarted = newConsumer(entry -> again.add(entry.getFields().get("payload")));
+        restarted.poll(redis);
+        restarted.poll(redis);
+
+        assertEquals(List.of("a"), again);
+        assertTrue(redis.pending(GROUP).isEmpty());
+        assertFalse(restarted.isRecovering());
+    }
+
+    @Test
+    void pendingEntriesAreReadAgainAfterReconnecting() {
+        consumer.poll(redis);
+        assertFalse(consumer.isRecovering());
+
+        redis.add("a");
+        redis.add("b");
+        redis.failNextAck = true;
+        assertThrows(RuntimeException.class, () -> consumer.poll(redis));
+        assertEquals(2, redis.pending(GROUP).size());
+
+        consumer.reset();
+        assertTrue(consumer.isRecovering());
+        redis.add("c");
+        consumer.poll(redis);
+        consumer.poll(redis);
+        consumer.poll(redis);
+
+        assertEquals(List.of("a", "b", "a", "b", "c"), received);
+        assertTrue(redis.pending(GROUP).isEmpty());
+    }
+
+    @Test
+    void removedGroupIsCreatedAgainAfterReconnecting() {
+        consumer.poll(redis);
+        redis.groups.clear();
+        assertThrows(RuntimeException.class, () -> consumer.poll(redis));
+
+        consumer.reset();
+        consumer.poll(redis);
+        redis.add("a");
+        consumer.poll(redis);
+
+        assertEquals(List.of("a"), received);
+    }
+
+    @Test
+    void ageIsJudgedByTheRedisClock() {
+        // The Redis clock is far behind the local one, which must not matter
+        redis.time = System.currentTimeMillis() - 3_600_000;
+        consumer.poll(redis);
+        redis.add("fresh");
+        redis.time += 1_000;
+        consumer.poll(redis);
+
+        assertEquals(List.of("fresh"), received);
+    }
+
+    @Test
+    void outdatedEntriesAreDroppedButAcknowledged() {
+        consumer.poll(redis);
+        redis.add("old");
+        redis.time += 61_000;
+        redis.add("new");
+        consumer.poll(redis);
+
+        assertEquals(List.of("new"), received);
+        assertTrue(redis.pending(GROUP).isEmpty());
+    }
+
+    @Test
+    void failedEntriesAreStillAcknowledged() {
+        List<String> handled = new ArrayList<>();
+        StreamConsumer failing = newConsumer(entry -> {
+            String payload = entry.getFields().get("payload");
+            if (payload.equals("broken")) throw new IllegalArgumentException(payload);
+            handled.add(payload);
+        });
+        failing.poll(redis);
+        redis.add("broken");
+        redis.add("ok");
+        failing.poll(redis);
+
+        assertEquals(List.of("ok"), handled);
+        assertTrue(redis.pending(GROUP).isEmpty());
+    }
+
+    @Test
+    void trimmedPendingEntriesAreSkipped() {
+        consumer.poll(redis);
+        redis.add("a");
+        redis.add("b");
+        redis.failNextAck = true;
+        assertThrows(RuntimeException.class, () -> consumer.poll(redis));
+        received.clear();
+
+        redis.trim(1);
+        consumer.reset();
+        consumer.poll(redis);
+
+        assertEquals(List.of("b"), received);
+        assertTrue(redis.pending(GROUP).isEmpty());
+    }
+
+    @Test
+    void groupsOfOtherServersUnreadForLongAreRemoved() {
+        redis.createGroup(STREAM, "customfishing:server2");
+        redis.readGroup(STREAM, "customfishing:server2", "server2", 16, false);
+        redis.createGroup(STREAM, "customfishing:server3");
+        redis.readGroup(STREAM, "customfishing:server3", "server3", 16, false);
+        redis.add("a");
+        redis.time += 3_600_001;
+        // server3 is still online
+        redis.readGroup(STREAM, "customfishing:server3", "server3", 16, false);
+
+        consumer.poll(redis);
+
+        assertFalse(redis.groups.containsKey("customfishing:server2"));
+        assertTrue(redis.groups.containsKey("customfishing:server3"));
+        assertTrue(redis.groups.containsKey(GROUP));
+    }
+
+    @Test
+    void unrelatedAndNewGroupsAreKept() {
+        redis.createGroup(STREAM, "other:server2");
+        redis.readGroup(STREAM, "other:server2", "server2", 16, false);
+        // A group without consumers yet, as right after another server created it
+        redis.createGroup(STREAM, "customfishing:server3");
+        redis.time += 3_600_001;
+
+        consumer.poll(redis);
+
+        assertTrue(redis.groups.containsKey("other:server2"));
+        assertTrue(redis.groups.containsKey("customfishing:server3"));
+    }
+
+    @Test
+    void ownGroupCanBeDestroyed() {
+        consumer.poll(redis);
+        consumer.destroyGroup(redis);
+        assertFalse(redis.groups.containsKey(GROUP));
+    }
+
+    /**
+     * Keeps a stream and its consumer groups in memory, the way Redis does.
+     */
+    private static class MemoryStream implements StreamClient {
+
+        private final TreeMap<StreamEntryID, Map<String, String>> entries = new TreeMap<>();
+        private final Map<String, Group> groups = new HashMap<>();
+        private StreamEntryID lastID = new StreamEntryID();
+        private long time = 1_000_000;
+        private boolean failNextAck;
+
+        private static class Group {
+            private StreamEntryID lastDelivered;
+            private final Map<String, TreeSet<StreamEntryID>> pending = new HashMap<>();
+            private long lastRead;
+
+            private Group(StreamEntryID lastDelivered) {
+                this.lastDelivered = lastDelivered;
+            }
+        }
+
+        private void add(String payload) {
+            StreamEntryID id = lastID.getTime() == time
+                    ? new StreamEntryID(time, lastID.getSequence() + 1)
+                    : new StreamEntryID(time, 0);
+            entries.put(id, Map.of("payload", payload));
+            lastID = id;
+        }
+
+        // Removes the oldest entries, even if they are pending
+        private void trim(int count) {
+            for (int i = 0; i < count; i++) {
+                entries.pollFirstEntry();
+            }
+        }
+
+        private Set<StreamEntryID> pending(String group) {
+            Set<StreamEntryID> ids = new TreeSet<>();
+            groups.get(group).pending.values().forEach(ids::addAll);
+            return ids;
+        }
+
+        private Group group(String group) {
+            Group value = groups.get(group);
+            if (value == null) throw new IllegalStateException("NOGROUP " + group);
+            return value;
+        }
+
+        @Override
+        public void createGroup(String stream, String group) {
+            groups.putIfAbsent(group, new Group(lastID));
+        }
+
+        @Override
+        public Map<String, Long> groupIdleTimes(String stream) {
+            Map<String, Long> idleTimes = new HashMap<>();
+            groups.forEach((name, group) -> {
+                if (!group.pending.isEmpty()) idleTimes.put(name, time - group.lastRead);
+            });
+            return idleTimes;
+        }
+
+        @Override
+        public void destroyGroup(String stream, String group) {
+            groups.remove(group);
+        }
+
+        @Override
+        public List<StreamEntry> readGroup(String stream, String group, String consumer, int count, boolean pending) {
+            Group value = group(group);
+            value.lastRead = time;
+            TreeSet<StreamEntryID> delivered = value.pending.computeIfAbsent(consumer, k -> new TreeSet<>());
+            List<StreamEntry> result = new ArrayList<>();
+            if (pending) {
+                for (StreamEntryID id : delivered) {
+                    if (result.size() == count) break;
+                    result.add(new StreamEntry(id, entries.get(id)));
+                }
+            } else {
+                for (Map.Entry<StreamEntryID, Map<String, String>> entry : entries.tailMap(value.lastDelivered, false).entrySet()) {
+                    if (result.size() == count) break;
+                    result.add(new StreamEntry(entry.getKey(), entry.getValue()));
+                    delivered.add(entry.getKey());
+                    value.lastDelivered = entry.getKey();
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void ack(String stream, String group, StreamEntryID... ids) {
+            if (failNextAck) {
+                failNextAck = false;
+                throw new IllegalStateException("Connection lost");
+            }
+            Group value = group(group);
+            for (TreeSet<StreamEntryID> delivered : value.pending.values()) {
+                Arrays.asList(ids).forEach(delivered::remove);
+            }
+        }
+
+        @Override
+        public long time() {
+            return time;
+        }
+    }
+}
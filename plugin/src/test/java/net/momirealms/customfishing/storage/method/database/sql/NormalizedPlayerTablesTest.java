@@ -0,0 +1,214 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.storage.method.database.sql;
+
+import com.google.gson.Gson;
+import net.momirealms.customfishing.api.data.EarningData;
+import net.momirealms.customfishing.api.data.InventoryData;
+import net.momirealms.customfishing.api.data.PlayerData;
+import net.momirealms.customfishing.api.data.StatisticData;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NormalizedPlayerTablesTest {
+
+    private static final String PREFIX = "customfishing";
+    private static final Gson GSON = new Gson();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"h2", "sqlite"})
+    void upsertThenSelectReturnsTheSameData(String type) throws Exception {
+        try (Connection connection = open(type)) {
+            NormalizedPlayerTables tables = createTables(connection, type);
+            UUID uuid = UUID.randomUUID();
+            tables.upsert(connection, Map.of(uuid, samplePlayerData("Steve", 12)), 0);
+
+            NormalizedPlayerTables.StoredPlayerData stored = tables.select(connection, uuid);
+            assertNotNull(stored);
+            assertEquals(0, stored.lock());
+            assertSameData(samplePlayerData("Steve", 12), stored.data());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"h2", "sqlite"})
+    void upsertReplacesExistingRows(String type) throws Exception {
+        try (Connection connection = open(type)) {
+            NormalizedPlayerTables tables = createTables(connection, type);
+            UUID uuid = UUID.randomUUID();
+            tables.upsert(connection, Map.of(uuid, samplePlayerData("Steve", 12)), 0);
+
+            PlayerData updated = PlayerData.builder()
+                    .setName("Steve")
+                    .setBagData(new InventoryData("", 27))
+                    .setEarningData(new EarningData(1.5, 20))
+                    .setStats(new StatisticData(Map.of("salmon", 1), Map.of()))
+                    .build();
+            tables.upsert(connection, Map.of(uuid, updated), 100);
+
+            NormalizedPlayerTables.StoredPlayerData stored = tables.select(connection, uuid);
+            assertNotNull(stored);
+            assertEquals(100, stored.lock());
+            // Statistics that are no longer in the data are removed
+            assertSameData(updated, stored.data());
+            assertEquals(1, tables.selectAllUUID(connection).size());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"h2", "sqlite"})
+    void lockUpdatesOnlyTheLockValue(String type) throws Exception {
+        try (Connection connection = open(type)) {
+            NormalizedPlayerTables tables = createTables(connection, type);
+            UUID uuid = UUID.randomUUID();
+            tables.upsert(connection, Map.of(uuid, samplePlayerData("Alex", 3)), 0);
+            tables.lock(connection, List.of(uuid), 42);
+
+            NormalizedPlayerTables.StoredPlayerData stored = tables.select(connection, uuid);
+            assertNotNull(stored);
+            assertEquals(42, stored.lock());
+            assertSameData(samplePlayerData("Alex", 3), stored.data());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"h2", "sqlite"})
+    void migrationCopiesEveryBlobRow(String type) throws Exception {
+        try (Connection connection = open(type)) {
+            NormalizedPlayerTables tables = createTables(connection, type);
+            Map<UUID, PlayerData> blobs = new HashMap<>();
+            for (int i = 0; i < 5; i++) {
+                blobs.put(UUID.randomUUID(), samplePlayerData("player" + i, i));
+            }
+            insertBlobs(connection, blobs, null);
+
+            int migrated = SchemaMigration.migrate(connection, PREFIX + "_data", tables, NormalizedPlayerTablesTest::decode, 2);
+            assertEquals(5, migrated);
+            assertTrue(connection.getAutoCommit());
+            for (Map.Entry<UUID, PlayerData> entry : blobs.entrySet()) {
+                NormalizedPlayerTables.StoredPlayerData stored = tables.select(connection, entry.getKey());
+                assertNotNull(stored);
+                assertSameData(entry.getValue(), stored.data());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"h2", "sqlite"})
+    void migrationRollsBackOnUndecodableData(String type) throws Exception {
+        try (Connection connection = open(type)) {
+            NormalizedPlayerTables tables = createTables(connection, type);
+            Map<UUID, PlayerData> blobs = new HashMap<>();
+            for (int i = 0; i < 3; i++) {
+                blobs.put(UUID.randomUUID(), samplePlayerData("player" + i, i));
+            }
+            insertBlobs(connection, blobs, "{not json");
+
+            // Batches of one are written before the broken row is reached, and must be rolled back too
+            assertThrows(RuntimeException.class,
+                    () -> SchemaMigration.migrate(connection, PREFIX + "_data", tables, NormalizedPlayerTablesTest::decode, 1));
+            assertTrue(connection.getAutoCommit());
+            assertTrue(tables.isEmpty(connection));
+        }
+    }
+
+    private static Connection open(String type) throws SQLException {
+        return switch (type) {
+            case "h2" -> DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID());
+            case "sqlite" -> DriverManager.getConnection("jdbc:sqlite::memory:");
+            default -> throw new IllegalArgumentException(type);
+        };
+    }
+
+    private static NormalizedPlayerTables createTables(Connection connection, String type) throws SQLException, IOException {
+        try (Statement statement = connection.createStatement()) {
+            for (String schema : new String[]{type, type + "_v2"}) {
+                for (String sql : readSchema(schema)) {
+                    if (sql.isBlank()) continue;
+                    statement.execute(sql);
+                }
+            }
+        }
+        return new NormalizedPlayerTables(PREFIX, type.equals("h2") ? SqlDialect.H2 : SqlDialect.SQLITE);
+    }
+
+    private static String[] readSchema(String name) throws IOException {
+        try (InputStream in = NormalizedPlayerTablesTest.class.getClassLoader().getResourceAsStream("schema/" + name + ".sql")) {
+            return new String(Objects.requireNonNull(in).readAllBytes(), StandardCharsets.UTF_8)
+                    .replace("{prefix}", PREFIX)
+                    .split(";");
+        }
+    }
+
+    private static void insertBlobs(Connection connection, Map<UUID, PlayerData> blobs, String brokenRow) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO `" + PREFIX + "_data` (`uuid`, `lock`, `data`) VALUES (?, 0, ?)")) {
+            for (Map.Entry<UUID, PlayerData> entry : blobs.entrySet()) {
+                statement.setString(1, entry.getKey().toString());
+                statement.setBytes(2, GSON.toJson(entry.getValue()).getBytes(StandardCharsets.UTF_8));
+                statement.executeUpdate();
+            }
+            if (brokenRow != null) {
+                // The highest UUID, so that the row is read last in key order too
+                statement.setString(1, "ffffffff-ffff-ffff-ffff-ffffffffffff");
+                statement.setBytes(2, brokenRow.getBytes(StandardCharsets.UTF_8));
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private static PlayerData decode(ResultSet rs) throws SQLException {
+        return GSON.fromJson(new String(rs.getBytes("data"), StandardCharsets.UTF_8), PlayerData.class);
+    }
+
+    private static PlayerData samplePlayerData(String name, int amount) {
+        Map<String, Integer> amounts = new HashMap<>();
+        Map<String, Float> sizes = new HashMap<>();
+        amounts.put("cod", amount + 1);
+        amounts.put("tuna", amount + 2);
+        sizes.put("tuna", 30.5f);
+        sizes.put("pike", 12.25f);
+        return PlayerData.builder()
+                .setName(name)
+                .setBagData(new InventoryData("CF1:bag-of-" + name, 18))
+                .setEarningData(new EarningData(amount * 10.5, 19000 + amount))
+                .setStats(new StatisticData(amounts, sizes))
+                .build();
+    }
+
+    private static void assertSameData(PlayerData expected, PlayerData actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getBagData().serialized, actual.getBagData().serialized);
+        assertEquals(expected.getBagData().size, actual.getBagData().size);
+        assertEquals(expected.getEarningData().earnings, actual.getEarningData().earnings);
+        assertEquals(expected.getEarningData().date, actual.getEarningData().date);
+        assertEquals(expected.getStatistics().amountMap, actual.getStatistics().amountMap);
+        assertEquals(expected.getStatistics().sizeMap, actual.getStatistics().sizeMap);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ *  Copyright (C) <2022> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        LruCache<String, Integer> cache = new LruCache<>(2, 1);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        // Reading "a" makes "b" the eldest entry
+        assertEquals(1, cache.get("a"));
+        cache.put("c", 3);
+
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void sizeIsBoundedAcrossSegments() {
+        LruCache<Integer, Integer> cache = new LruCache<>(64, 4);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i);
+        }
+        assertTrue(cache.size() <= 64);
+        assertEquals(9_999, cache.get(9_999));
+    }
+
+    @Test
+    void clearRemovesAllEntries() {
+        LruCache<String, String> cache = new LruCache<>(16, 4);
+        cache.put("key", "value");
+        cache.clear();
+
+        assertNull(cache.get("key"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -1,3 +1,4 @@
 rootProject.name = "CustomFishing"
 include("api")
 include("plugin")
+include("benchmarks")
\ No newline at end of file